@@ -0,0 +1,35 @@
+package application.configuration;
+
+import application.database.CachingProductDatabase;
+import application.database.ProductCache;
+import application.database.ProductDatabase;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@ConditionalOnProperty(name = "application.cache.enabled", havingValue = "true")
+public class CacheConfiguration {
+
+  @Bean
+  public ProductCache productCache(Environment environment) {
+    long maximumSize = environment.getProperty("application.cache.maximum-size", Long.class, 10_000L);
+    Duration expireAfterWrite = environment.getProperty("application.cache.expire-after-write", Duration.class, Duration.ofMinutes(10));
+    return new ProductCache(maximumSize, expireAfterWrite.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Bean
+  public static BeanPostProcessor cachingProductDatabasePostProcessor(ObjectProvider<ProductCache> productCache) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof ProductDatabase ? new CachingProductDatabase((ProductDatabase) bean, productCache.getObject()) : bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,49 @@
+package application.configuration;
+
+import application.database.DatabaseOperationException;
+import application.database.HibernateProductChangeLog;
+import application.database.InMemoryProductChangeLog;
+import application.database.ProductChangeCounterRepository;
+import application.database.ProductChangeLog;
+import application.database.ProductChangeRepository;
+import application.service.ProductWriteTransactions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+public class ChangeLogConfiguration {
+
+  private static final String CAPACITY = "application.changes.capacity";
+  private static final int DEFAULT_CAPACITY = 100_000;
+
+  @Bean
+  @ConditionalOnExpression("'${application.database:}' != 'hibernate'")
+  public ProductChangeLog inMemoryProductChangeLog(Environment environment) {
+    return new InMemoryProductChangeLog(environment.getProperty(CAPACITY, Integer.class, DEFAULT_CAPACITY));
+  }
+
+  @Bean
+  @ConditionalOnExpression("'${application.database:}' != 'hibernate'")
+  public ProductWriteTransactions productWriteTransactions() {
+    return new ProductWriteTransactions();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "application.database", havingValue = "hibernate")
+  public ProductChangeLog hibernateProductChangeLog(ProductChangeRepository productChangeRepository,
+                                                    ProductChangeCounterRepository productChangeCounterRepository, Environment environment)
+      throws DatabaseOperationException {
+    return new HibernateProductChangeLog(productChangeRepository, productChangeCounterRepository,
+        environment.getProperty(CAPACITY, Integer.class, DEFAULT_CAPACITY));
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "application.database", havingValue = "hibernate")
+  public ProductWriteTransactions transactionalProductWriteTransactions(PlatformTransactionManager transactionManager) {
+    return new ProductWriteTransactions(transactionManager);
+  }
+}
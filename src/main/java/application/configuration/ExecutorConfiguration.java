@@ -0,0 +1,75 @@
+package application.configuration;
+
+import application.service.BoundedExecutor;
+import application.service.ProductDatabaseExecutor;
+import application.service.VirtualThreadExecutor;
+import application.service.VirtualThreads;
+import java.util.concurrent.ExecutorService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfiguration {
+
+  private static final String EXECUTION_MODE = "application.execution-mode";
+  private static final String VIRTUAL = "virtual";
+
+  @Bean(destroyMethod = "shutdown")
+  public ProductDatabaseExecutor productDatabaseExecutor(Environment environment) {
+    int threads = environment.getProperty("application.executor.threads", Integer.class, 10);
+    int queueCapacity = environment.getProperty("application.executor.queue-capacity", Integer.class, 1000);
+    if (VIRTUAL.equals(environment.getProperty(EXECUTION_MODE))) {
+      int maxConcurrency = environment.getProperty("application.executor.max-concurrency", Integer.class, threads + queueCapacity);
+      return new VirtualThreadExecutor(maxConcurrency, "product-database-");
+    }
+    String rejectionPolicy = environment.getProperty("application.executor.rejection-policy", "abort");
+    return new BoundedExecutor(threads, queueCapacity,
+        BoundedExecutor.RejectionPolicy.valueOf(rejectionPolicy.trim().toUpperCase().replace('-', '_')), "product-database-");
+  }
+
+  /**
+   * Spring Boot leaves out its executor of asynchronous requests once there is any other executor, as
+   * the product database executor is, and Spring MVC would then start a new thread for every streamed
+   * response. It is declared here under Boot's name instead, so MVC still picks it up, bounded and
+   * configured with the {@code spring.task.execution.pool} properties.
+   */
+  @Configuration
+  @ConditionalOnExpression("'${" + EXECUTION_MODE + ":}' != '" + VIRTUAL + "'")
+  static class PlatformThreadRequestConfiguration {
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder taskExecutorBuilder) {
+      return taskExecutorBuilder.build();
+    }
+  }
+
+  @Configuration
+  @ConditionalOnProperty(name = EXECUTION_MODE, havingValue = VIRTUAL)
+  static class VirtualThreadRequestConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService requestExecutor() {
+      return VirtualThreads.newThreadPerTaskExecutor("http-");
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadRequestExecutorCustomizer(ExecutorService requestExecutor) {
+      return factory -> factory.addConnectorCustomizers(connector -> connector.getProtocolHandler().setExecutor(requestExecutor));
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService requestExecutor) {
+      return new TaskExecutorAdapter(requestExecutor);
+    }
+  }
+}
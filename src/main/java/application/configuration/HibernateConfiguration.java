@@ -10,7 +10,7 @@ import org.springframework.context.annotation.Import;
   @Configuration
   @ConditionalOnProperty(name = "application.database", havingValue = "hibernate")
   @Import({DataSourceAutoConfiguration.class,
-      DataSourceTransactionManagerAutoConfiguration.class,
-      HibernateJpaAutoConfiguration.class})
+      HibernateJpaAutoConfiguration.class,
+      DataSourceTransactionManagerAutoConfiguration.class})
   public class HibernateConfiguration {
 }
@@ -0,0 +1,27 @@
+package application.configuration;
+
+import application.database.ProductJournal;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+@ConditionalOnExpression("'${application.database:}' == 'in-memory' && '${application.journal.directory:}' != ''")
+public class JournalConfiguration {
+
+  @Bean
+  public ProductJournal productJournal(Environment environment) {
+    String directory = environment.getRequiredProperty("application.journal.directory");
+    String fsync = environment.getProperty("application.journal.fsync", "group");
+    DataSize segmentSize = environment.getProperty("application.journal.segment-size", DataSize.class, DataSize.ofMegabytes(64));
+    Duration fsyncInterval = environment.getProperty("application.journal.fsync-interval", Duration.class, Duration.ofMillis(100));
+    Duration snapshotInterval = environment.getProperty("application.journal.snapshot-interval", Duration.class, Duration.ofMinutes(10));
+    return new ProductJournal(Paths.get(directory), ProductJournal.FsyncPolicy.valueOf(fsync.trim().toUpperCase()),
+        Math.toIntExact(segmentSize.toBytes()), fsyncInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+}
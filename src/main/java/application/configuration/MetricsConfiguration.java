@@ -0,0 +1,45 @@
+package application.configuration;
+
+import application.metrics.OperationMetrics;
+import application.metrics.OperationMetricsInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "application.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfiguration {
+
+  @Bean
+  public OperationMetrics operationMetrics(@Value("${application.database:unknown}") String backend) {
+    return new OperationMetrics(backend);
+  }
+
+  @Bean
+  public Advisor controllerMetricsAdvisor(OperationMetrics operationMetrics) {
+    return advisor("execution(public * application.controller.ProductController.*(..))", operationMetrics, "controller");
+  }
+
+  @Bean
+  public Advisor serviceMetricsAdvisor(OperationMetrics operationMetrics) {
+    return advisor("execution(public * application.service.ProductService.*(..))", operationMetrics, "service");
+  }
+
+  @Bean
+  public Advisor databaseMetricsAdvisor(OperationMetrics operationMetrics) {
+    return advisor("execution(public * application.database.ProductDatabase+.*(..))", operationMetrics, "database");
+  }
+
+  private static Advisor advisor(String expression, OperationMetrics operationMetrics, String layer) {
+    AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+    advisor.setExpression(expression);
+    advisor.setAdvice(new OperationMetricsInterceptor(operationMetrics, layer));
+    // Outside of transactions, so commits are part of the measured time.
+    advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return advisor;
+  }
+}
@@ -0,0 +1,20 @@
+package application.configuration;
+
+import application.controller.ProductBinaryMessageConverter;
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+  /**
+   * Adds the binary format after the default converters, so JSON stays the answer to requests
+   * accepting any type.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new ProductBinaryMessageConverter());
+  }
+}
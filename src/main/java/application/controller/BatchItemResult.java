@@ -0,0 +1,62 @@
+package application.controller;
+
+import application.model.Product;
+import java.util.Objects;
+
+public class BatchItemResult {
+  private Long id;
+  private int status;
+  private Product product;
+
+  protected BatchItemResult() {
+  }
+
+  public BatchItemResult(Long id, int status, Product product) {
+    this.id = id;
+    this.status = status;
+    this.product = product;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  public Product getProduct() {
+    return product;
+  }
+
+  public void setProduct(Product product) {
+    this.product = product;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BatchItemResult that = (BatchItemResult) o;
+    return status == that.status
+        && Objects.equals(id, that.id)
+        && Objects.equals(product, that.product);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, status, product);
+  }
+}
@@ -0,0 +1,35 @@
+package application.controller;
+
+import application.database.CacheStatistics;
+import application.database.ProductCache;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Api(value = "/cache", description = "Statistics of the product cache", tags = {"Cache"})
+@ConditionalOnProperty(name = "application.cache.enabled", havingValue = "true")
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+
+  private ProductCache productCache;
+
+  @Autowired
+  public CacheController(ProductCache productCache) {
+    this.productCache = productCache;
+  }
+
+  @GetMapping("/statistics")
+  @ApiOperation(value = "Returns hits, misses, evictions and size of the product cache", response = CacheStatistics.class)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = CacheStatistics.class)})
+  public CacheStatistics getStatistics() {
+    return productCache.statistics();
+  }
+}
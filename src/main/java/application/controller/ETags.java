@@ -0,0 +1,86 @@
+package application.controller;
+
+import java.util.List;
+
+/**
+ * Strong entity tags of products and of the catalog, built from versions so they can be compared
+ * with If-None-Match and If-Match without reading or writing the product itself.
+ *
+ * <p>A strong tag names one representation, and the same URL is sent in different ones: a product
+ * localized by the Accept-Language header is also tagged with a hash of the accepted languages, and
+ * a product or catalog written in the binary format picked by the Accept header is tagged with a
+ * {@code -binary} suffix. So a product is tagged {@code "<id>-<version>[-<languages hash>][-binary]"}
+ * and the catalog {@code "catalog-<catalog version>[-binary]"}.
+ */
+final class ETags {
+
+  private static final String ANY = "*";
+  private static final String WEAK_PREFIX = "W/";
+  private static final String CATALOG_PREFIX = "catalog-";
+  // Not a hexadecimal number, so it is never mistaken for a hash of languages.
+  private static final String BINARY_SUFFIX = "-binary";
+
+  private ETags() {
+  }
+
+  static String product(Long id, long version, List<String> languages, boolean binary) {
+    String tag = id + "-" + version;
+    if (languages != null) {
+      tag += "-" + Integer.toHexString(String.join(",", languages).hashCode());
+    }
+    return quoted(binary ? tag + BINARY_SUFFIX : tag);
+  }
+
+  static String catalog(String catalogVersion, boolean binary) {
+    return quoted(binary ? CATALOG_PREFIX + catalogVersion + BINARY_SUFFIX : CATALOG_PREFIX + catalogVersion);
+  }
+
+  /**
+   * Returns whether an If-None-Match header matches the tag, comparing weakly as that header does.
+   */
+  static boolean noneMatchMatches(String ifNoneMatch, String tag) {
+    for (String candidate : ifNoneMatch.split(",")) {
+      String value = candidate.trim();
+      if (value.equals(ANY)) {
+        return true;
+      }
+      if (value.startsWith(WEAK_PREFIX)) {
+        value = value.substring(WEAK_PREFIX.length());
+      }
+      if (value.equals(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static boolean matchesAny(String ifMatch) {
+    return ifMatch.trim().equals(ANY);
+  }
+
+  /**
+   * Returns the version of the product with the passed id which an If-Match header names, or null
+   * when it names none. Weak tags never match, as If-Match compares strongly.
+   */
+  static Long version(String ifMatch, Long id) {
+    String prefix = "\"" + id + "-";
+    for (String candidate : ifMatch.split(",")) {
+      String value = candidate.trim();
+      if (!value.startsWith(prefix) || !value.endsWith("\"") || value.length() <= prefix.length() + 1) {
+        continue;
+      }
+      String tag = value.substring(prefix.length(), value.length() - 1);
+      int separator = tag.indexOf('-');
+      try {
+        return Long.parseLong(separator < 0 ? tag : tag.substring(0, separator));
+      } catch (NumberFormatException e) {
+        // not a tag of this product, try the next one
+      }
+    }
+    return null;
+  }
+
+  private static String quoted(String tag) {
+    return "\"" + tag + "\"";
+  }
+}
@@ -0,0 +1,76 @@
+package application.controller;
+
+import application.database.CacheStatistics;
+import application.database.ProductCache;
+import application.metrics.OperationMetrics;
+import application.service.ProductDatabaseExecutor;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Api(value = "/actuator", description = "Metrics of product operations", tags = {"Metrics"})
+@ConditionalOnProperty(name = "application.metrics.enabled", havingValue = "true", matchIfMissing = true)
+@RestController
+@RequestMapping("/actuator")
+public class MetricsController {
+
+  private static final String PROMETHEUS_MEDIA_TYPE = "text/plain;version=0.0.4;charset=utf-8";
+
+  private OperationMetrics operationMetrics;
+  private ObjectProvider<ProductCache> productCache;
+  private ObjectProvider<ProductDatabaseExecutor> productDatabaseExecutor;
+
+  @Autowired
+  public MetricsController(OperationMetrics operationMetrics, ObjectProvider<ProductCache> productCache,
+                           ObjectProvider<ProductDatabaseExecutor> productDatabaseExecutor) {
+    this.operationMetrics = operationMetrics;
+    this.productCache = productCache;
+    this.productDatabaseExecutor = productDatabaseExecutor;
+  }
+
+  @GetMapping(value = "/prometheus", produces = PROMETHEUS_MEDIA_TYPE)
+  @ApiOperation(value = "Returns latency quantiles and counts of controller, service and database operations, cache and executor statistics, in Prometheus text format")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK")})
+  public String prometheus() {
+    StringBuilder output = new StringBuilder();
+    operationMetrics.writePrometheus(output);
+    ProductCache cache = productCache.getIfAvailable();
+    if (cache != null) {
+      writeCacheStatistics(cache.statistics(), output);
+    }
+    ProductDatabaseExecutor executor = productDatabaseExecutor.getIfAvailable();
+    if (executor != null) {
+      writeExecutorStatistics(executor, output);
+    }
+    return output.toString();
+  }
+
+  private void writeCacheStatistics(CacheStatistics statistics, StringBuilder output) {
+    writeMetric(output, "product_cache_hits_total", "counter", "Product lookups served from the cache.", statistics.getHits());
+    writeMetric(output, "product_cache_misses_total", "counter", "Product lookups that went to the database.", statistics.getMisses());
+    writeMetric(output, "product_cache_evictions_total", "counter", "Products evicted from the cache.", statistics.getEvictions());
+    writeMetric(output, "product_cache_size", "gauge", "Products held in the cache.", statistics.getSize());
+  }
+
+  private void writeExecutorStatistics(ProductDatabaseExecutor executor, StringBuilder output) {
+    writeMetric(output, "product_executor_active_threads", "gauge", "Threads running product database work.", executor.getActiveCount());
+    writeMetric(output, "product_executor_queued_tasks", "gauge", "Product database work waiting for a thread.", executor.getQueuedTaskCount());
+    writeMetric(output, "product_executor_queue_capacity", "gauge", "Product database work that can wait for a thread.", executor.getQueueCapacity());
+    writeMetric(output, "product_executor_completed_tasks_total", "counter", "Product database work finished.", executor.getCompletedTaskCount());
+    writeMetric(output, "product_executor_rejected_tasks_total", "counter", "Product database work rejected because the queue was full.", executor.getRejectedTaskCount());
+  }
+
+  private void writeMetric(StringBuilder output, String name, String type, String help, long value) {
+    output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    output.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    output.append(name).append(' ').append(value).append('\n');
+  }
+}
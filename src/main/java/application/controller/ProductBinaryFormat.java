@@ -0,0 +1,334 @@
+package application.controller;
+
+import application.model.Description;
+import application.model.Name;
+import application.model.Price;
+import application.model.Product;
+import application.model.Translation;
+import application.model.Translations;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary wire format of products for machine-to-machine callers.
+ *
+ * <p>A message starts with a type byte followed by its body. Integers are written as variable
+ * length zig-zag encoded values, strings as a length prefix (zero for null, otherwise length plus
+ * one) and UTF-8 bytes. A product starts with a byte of flags telling which of its nullable values
+ * follow, and its price is written as an unscaled long amount, a scale and a currency code. A product
+ * ends with the number of its translations, each a language, a name and a description.
+ */
+public final class ProductBinaryFormat {
+
+  public static final String MEDIA_TYPE = "application/x-product-binary";
+
+  static final int PRODUCT = 1;
+  static final int PRODUCTS = 2;
+  static final int PRODUCT_PAGE = 3;
+  static final int BATCH_ITEM_RESULTS = 4;
+  static final int ERROR_MESSAGE = 5;
+  static final int IDS = 6;
+
+  private static final int ID = 1;
+  private static final int NAME = 1 << 1;
+  private static final int NAME_ID = 1 << 2;
+  private static final int DESCRIPTION = 1 << 3;
+  private static final int DESCRIPTION_ID = 1 << 4;
+  private static final int PRICE = 1 << 5;
+  private static final int PRICE_ID = 1 << 6;
+  private static final int PRICE_AMOUNT = 1 << 7;
+
+  private static final int MAX_STRING_LENGTH = 1 << 20;
+
+  private ProductBinaryFormat() {
+  }
+
+  /**
+   * Writes a product, a list of products, ids or batch item results, a product page or an error
+   * message. Empty lists are written as lists of products.
+   */
+  public static void writeMessage(OutputStream output, Object value) throws IOException {
+    if (value instanceof Product) {
+      output.write(PRODUCT);
+      writeProduct(output, (Product) value);
+    } else if (value instanceof ProductPage) {
+      output.write(PRODUCT_PAGE);
+      writeProducts(output, ((ProductPage) value).getProducts());
+      writeNullableLong(output, ((ProductPage) value).getNextCursor());
+    } else if (value instanceof ErrorMessage) {
+      output.write(ERROR_MESSAGE);
+      ErrorMessage errorMessage = (ErrorMessage) value;
+      writeString(output, errorMessage.getMessage());
+      List<String> details = errorMessage.getDetails() == null ? new ArrayList<>() : errorMessage.getDetails();
+      writeLong(output, details.size());
+      for (String detail : details) {
+        writeString(output, detail);
+      }
+    } else if (value instanceof List) {
+      writeList(output, (List<?>) value);
+    } else {
+      throw new IllegalArgumentException(String.format("%s cannot be written as binary message", value == null ? null : value.getClass()));
+    }
+  }
+
+  /**
+   * Reads a message written by {@link #writeMessage(OutputStream, Object)}.
+   */
+  public static Object readMessage(InputStream input) throws IOException {
+    int type = input.read();
+    switch (type) {
+      case PRODUCT:
+        return readProduct(input);
+      case PRODUCTS:
+        return readProducts(input);
+      case PRODUCT_PAGE:
+        return new ProductPage(readProducts(input), readNullableLong(input));
+      case BATCH_ITEM_RESULTS:
+        int results = readCount(input);
+        List<BatchItemResult> batchItemResults = new ArrayList<>(Math.min(results, 1024));
+        for (int i = 0; i < results; i++) {
+          Long id = readNullableLong(input);
+          int status = (int) readLong(input);
+          batchItemResults.add(new BatchItemResult(id, status, readByte(input) == 0 ? null : readProduct(input)));
+        }
+        return batchItemResults;
+      case ERROR_MESSAGE:
+        String message = readString(input);
+        int count = readCount(input);
+        List<String> details = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+          details.add(readString(input));
+        }
+        return new ErrorMessage(message, details);
+      case IDS:
+        int ids = readCount(input);
+        List<Long> idList = new ArrayList<>(Math.min(ids, 1024));
+        for (int i = 0; i < ids; i++) {
+          idList.add(readLong(input));
+        }
+        return idList;
+      case -1:
+        throw new EOFException("Message is empty");
+      default:
+        throw new IOException(String.format("Unknown message type %d", type));
+    }
+  }
+
+  public static void writeProduct(OutputStream output, Product product) throws IOException {
+    Name name = product.getName();
+    Description description = product.getDescription();
+    Price price = product.getPrice();
+    int flags = (product.getId() == null ? 0 : ID)
+        | (name == null ? 0 : NAME | (name.getId() == null ? 0 : NAME_ID))
+        | (description == null ? 0 : DESCRIPTION | (description.getId() == null ? 0 : DESCRIPTION_ID))
+        | (price == null ? 0 : PRICE | (price.getId() == null ? 0 : PRICE_ID) | (price.hasAmount() ? PRICE_AMOUNT : 0));
+    output.write(flags);
+    if (product.getId() != null) {
+      writeLong(output, product.getId());
+    }
+    if (name != null) {
+      if (name.getId() != null) {
+        writeLong(output, name.getId());
+      }
+      writeString(output, name.getLanguage());
+      writeString(output, name.getValue());
+    }
+    if (description != null) {
+      if (description.getId() != null) {
+        writeLong(output, description.getId());
+      }
+      writeString(output, description.getLanguage());
+      writeString(output, description.getValue());
+    }
+    if (price != null) {
+      if (price.getId() != null) {
+        writeLong(output, price.getId());
+      }
+      if (price.hasAmount()) {
+        writeLong(output, price.getAmount());
+        writeLong(output, price.getScale());
+      }
+      writeString(output, price.getCurrency() == null ? null : price.getCurrency().getCurrencyCode());
+    }
+    Translations translations = product.getTranslations();
+    writeLong(output, translations.size());
+    for (String language : translations.getLanguages()) {
+      Translation translation = translations.get(language);
+      writeString(output, language);
+      writeString(output, translation.getName());
+      writeString(output, translation.getDescription());
+    }
+  }
+
+  public static Product readProduct(InputStream input) throws IOException {
+    int flags = readByte(input);
+    Product product = new Product();
+    if ((flags & ID) != 0) {
+      product.setId(readLong(input));
+    }
+    if ((flags & NAME) != 0) {
+      Long id = (flags & NAME_ID) != 0 ? readLong(input) : null;
+      product.setName(new Name(id, readString(input), readString(input)));
+    }
+    if ((flags & DESCRIPTION) != 0) {
+      Long id = (flags & DESCRIPTION_ID) != 0 ? readLong(input) : null;
+      product.setDescription(new Description(id, readString(input), readString(input)));
+    }
+    if ((flags & PRICE) != 0) {
+      Long id = (flags & PRICE_ID) != 0 ? readLong(input) : null;
+      boolean hasAmount = (flags & PRICE_AMOUNT) != 0;
+      long amount = hasAmount ? readLong(input) : 0;
+      int scale = hasAmount ? (int) readLong(input) : 0;
+      String currencyCode = readString(input);
+      try {
+        Currency currency = currencyCode == null ? null : Currency.getInstance(currencyCode);
+        product.setPrice(hasAmount ? new Price(id, amount, scale, currency) : new Price(id, null, currency));
+      } catch (IllegalArgumentException e) {
+        throw new IOException(String.format("Invalid price %d with scale %d in %s", amount, scale, currencyCode), e);
+      }
+    }
+    int count = readCount(input);
+    if (count > 0) {
+      Map<String, Translation> translations = new LinkedHashMap<>();
+      for (int i = 0; i < count; i++) {
+        translations.put(readString(input), new Translation(readString(input), readString(input)));
+      }
+      try {
+        product.setTranslations(Translations.of(translations));
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Invalid translations", e);
+      }
+    }
+    return product;
+  }
+
+  private static void writeList(OutputStream output, List<?> values) throws IOException {
+    Object first = values.isEmpty() ? null : values.get(0);
+    if (first == null || first instanceof Product) {
+      output.write(PRODUCTS);
+      writeProducts(output, values);
+    } else if (first instanceof BatchItemResult) {
+      output.write(BATCH_ITEM_RESULTS);
+      writeLong(output, values.size());
+      for (Object value : values) {
+        BatchItemResult result = (BatchItemResult) value;
+        writeNullableLong(output, result.getId());
+        writeLong(output, result.getStatus());
+        output.write(result.getProduct() == null ? 0 : 1);
+        if (result.getProduct() != null) {
+          writeProduct(output, result.getProduct());
+        }
+      }
+    } else if (first instanceof Long) {
+      output.write(IDS);
+      writeLong(output, values.size());
+      for (Object value : values) {
+        writeLong(output, (Long) value);
+      }
+    } else {
+      throw new IllegalArgumentException(String.format("List of %s cannot be written as binary message", first.getClass()));
+    }
+  }
+
+  private static void writeProducts(OutputStream output, List<?> products) throws IOException {
+    writeLong(output, products.size());
+    for (Object product : products) {
+      writeProduct(output, (Product) product);
+    }
+  }
+
+  private static List<Product> readProducts(InputStream input) throws IOException {
+    int count = readCount(input);
+    List<Product> products = new ArrayList<>(Math.min(count, 1024));
+    for (int i = 0; i < count; i++) {
+      products.add(readProduct(input));
+    }
+    return products;
+  }
+
+  private static void writeNullableLong(OutputStream output, Long value) throws IOException {
+    output.write(value == null ? 0 : 1);
+    if (value != null) {
+      writeLong(output, value);
+    }
+  }
+
+  private static Long readNullableLong(InputStream input) throws IOException {
+    return readByte(input) == 0 ? null : readLong(input);
+  }
+
+  static void writeLong(OutputStream output, long value) throws IOException {
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      output.write((int) ((zigZag & 0x7F) | 0x80));
+      zigZag >>>= 7;
+    }
+    output.write((int) zigZag);
+  }
+
+  static long readLong(InputStream input) throws IOException {
+    long zigZag = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      int next = readByte(input);
+      zigZag |= (long) (next & 0x7F) << shift;
+      if ((next & 0x80) == 0) {
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+      }
+    }
+    throw new IOException("Malformed variable length number");
+  }
+
+  private static int readCount(InputStream input) throws IOException {
+    long count = readLong(input);
+    if (count < 0 || count > Integer.MAX_VALUE) {
+      throw new IOException(String.format("Invalid number of elements %d", count));
+    }
+    return (int) count;
+  }
+
+  private static void writeString(OutputStream output, String value) throws IOException {
+    if (value == null) {
+      writeLong(output, 0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeLong(output, bytes.length + 1L);
+    output.write(bytes);
+  }
+
+  private static String readString(InputStream input) throws IOException {
+    long length = readLong(input) - 1;
+    if (length < 0) {
+      return null;
+    }
+    if (length > MAX_STRING_LENGTH) {
+      throw new IOException(String.format("String of %d bytes is too long", length));
+    }
+    byte[] bytes = new byte[(int) length];
+    int read = 0;
+    while (read < length) {
+      int count = input.read(bytes, read, bytes.length - read);
+      if (count < 0) {
+        throw new EOFException();
+      }
+      read += count;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int readByte(InputStream input) throws IOException {
+    int value = input.read();
+    if (value < 0) {
+      throw new EOFException();
+    }
+    return value;
+  }
+}
@@ -0,0 +1,86 @@
+package application.controller;
+
+import application.model.Product;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+/**
+ * Reads and writes the bodies of product requests and responses in {@link ProductBinaryFormat},
+ * when it is the content type or the accepted type of a request.
+ */
+public class ProductBinaryMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  public ProductBinaryMessageConverter() {
+    super(MediaType.parseMediaType(ProductBinaryFormat.MEDIA_TYPE));
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return Product.class == clazz || ProductPage.class == clazz || ErrorMessage.class == clazz || List.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return canRead(mediaType) && (type == Product.class || isListOf(type, Product.class) || isListOf(type, Long.class));
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    return canWrite(clazz, mediaType);
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+    Object value;
+    try {
+      value = ProductBinaryFormat.readMessage(new BufferedInputStream(inputMessage.getBody(), BUFFER_SIZE));
+    } catch (IOException e) {
+      throw new HttpMessageNotReadableException("Invalid binary product message: " + e.getMessage(), e, inputMessage);
+    }
+    boolean expected = type == Product.class ? value instanceof Product : value instanceof List && (isListOf(type, Long.class)
+        ? ((List<?>) value).isEmpty() || ((List<?>) value).get(0) instanceof Long
+        : ((List<?>) value).isEmpty() || ((List<?>) value).get(0) instanceof Product);
+    if (!expected) {
+      throw new HttpMessageNotReadableException(String.format("Binary message does not hold %s", type.getTypeName()), inputMessage);
+    }
+    return value;
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    return read(clazz, null, inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+    OutputStream output = new BufferedOutputStream(outputMessage.getBody(), BUFFER_SIZE);
+    try {
+      ProductBinaryFormat.writeMessage(output, value);
+    } catch (IllegalArgumentException e) {
+      throw new HttpMessageNotWritableException(e.getMessage(), e);
+    }
+    output.flush();
+  }
+
+  private static boolean isListOf(Type type, Class<?> elementType) {
+    if (!(type instanceof ParameterizedType)) {
+      return false;
+    }
+    ParameterizedType parameterizedType = (ParameterizedType) type;
+    return parameterizedType.getRawType() instanceof Class && List.class.isAssignableFrom((Class<?>) parameterizedType.getRawType())
+        && parameterizedType.getActualTypeArguments()[0] == elementType;
+  }
+}
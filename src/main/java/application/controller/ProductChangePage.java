@@ -0,0 +1,54 @@
+package application.controller;
+
+import application.model.ProductChange;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class ProductChangePage {
+  private List<ProductChange> changes;
+  private long nextCursor;
+
+  protected ProductChangePage() {
+    changes = new ArrayList<>();
+  }
+
+  public ProductChangePage(List<ProductChange> changes, long nextCursor) {
+    this.changes = changes;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<ProductChange> getChanges() {
+    return changes;
+  }
+
+  public void setChanges(List<ProductChange> changes) {
+    this.changes = changes;
+  }
+
+  public long getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(long nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ProductChangePage that = (ProductChangePage) o;
+    return nextCursor == that.nextCursor
+        && Objects.equals(changes, that.changes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(changes, nextCursor);
+  }
+}
@@ -1,109 +1,580 @@
 package application.controller;
 
+import application.database.PriceQuery;
+import application.database.SearchQuery;
+import application.model.PartialProduct;
 import application.model.Product;
+import application.model.ProductChange;
+import application.model.ProductField;
+import application.model.Translations;
+import application.service.AsyncProductService;
+import application.service.ProductChangeFeed;
+import application.service.ProductOperationResult;
 import application.service.ProductService;
+import application.service.ServiceOperationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Api(value = "/products", description = "Available operations for products manager application", tags = {"Products"})
 @RestController
 @RequestMapping("/products")
 public class ProductController {
 
+  private static final int DEFAULT_PAGE_LIMIT = 100;
+  private static final int MAX_PAGE_LIMIT = 1000;
+  private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+  private static final int MAX_BATCH_SIZE = 1000;
+  private static final int EXPORT_BUFFER_SIZE = 8192;
+  private static final String PRICE_ORDER = "price";
+  private static final String DESCENDING_PRICE_ORDER = "-price";
+  private static final int MAX_ACCEPTED_LANGUAGES = 16;
+
+  private static final String RETRY_AFTER_SECONDS = "1";
+  private static final int DEFAULT_CHANGES_WAIT_SECONDS = 20;
+  // Below the default timeout of asynchronous requests, so a long poll ends with a response of its own.
+  private static final int MAX_CHANGES_WAIT_SECONDS = 25;
+  private static final int CHANGES_KEEP_ALIVE_SECONDS = 15;
+  private static final String LAST_EVENT_ID = "Last-Event-ID";
+  private static final MediaType BINARY_MEDIA_TYPE = MediaType.parseMediaType(ProductBinaryFormat.MEDIA_TYPE);
+  private static final String PRODUCT_VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_LANGUAGE;
+  private static final MediaType EVENT_DATA_MEDIA_TYPE = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
   private ProductService productService;
+  private AsyncProductService asyncProductService;
+  private ProductChangeFeed changeFeed;
+  private ObjectWriter exportWriter;
+  private ObjectWriter changeWriter;
 
   @Autowired
-  public ProductController(ProductService productService) {
+  public ProductController(ProductService productService, AsyncProductService asyncProductService, ProductChangeFeed changeFeed,
+                           ObjectMapper objectMapper) {
     this.productService = productService;
+    this.asyncProductService = asyncProductService;
+    this.changeFeed = changeFeed;
+    this.exportWriter = objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    // An event's data is a single line.
+    this.changeWriter = objectMapper.writerFor(ProductChange.class).without(SerializationFeature.INDENT_OUTPUT);
   }
 
   @GetMapping
   @ApiOperation(
-      value = "Returns all products",
+      value = "Returns all products, or a page of products when 'after' or 'limit' is passed, "
+          + "or a page of products ordered by price when any price parameter is passed. "
+          + "All products are tagged with an ETag of the catalog, which changes with every write.",
       response = Product.class,
       responseContainer = "List")
+  @ApiImplicitParams({
+      @ApiImplicitParam(name = "after", value = "Returns products after the passed id, e.g. 12. "
+          + "In price order, after the product with passed id and 'afterPrice'", example = "12", dataType = "Long"),
+      @ApiImplicitParam(name = "limit", value = "Maximum number of products in page, from 1 to 1000", example = "100", dataType = "int"),
+      @ApiImplicitParam(name = "minPrice", value = "Returns products with price greater or equal to passed one", example = "10.00", dataType = "BigDecimal"),
+      @ApiImplicitParam(name = "maxPrice", value = "Returns products with price less or equal to passed one", example = "99.99", dataType = "BigDecimal"),
+      @ApiImplicitParam(name = "currency", value = "Returns products with price in passed currency", example = "EUR"),
+      @ApiImplicitParam(name = "sort", value = "Order of products by price, 'price' (default) or '-price'", example = "price"),
+      @ApiImplicitParam(name = "afterPrice", value = "Price of the product passed in 'after', the last product of previous page",
+          example = "12.50", dataType = "BigDecimal"),
+      @ApiImplicitParam(name = "fields", value = "Comma separated fields to return, of id, name, description, price and translations",
+          example = "id,name,price"),
+      @ApiImplicitParam(name = HttpHeaders.IF_NONE_MATCH, value = "ETag of the catalog, all products are not returned again unless it changed",
+          example = "\"catalog-1546300800000-42\"", paramType = "header")})
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "OK", response = Product.class),
-      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class)})
-  public ResponseEntity<?> getAll() {
+      @ApiResponse(code = 304, message = "Products did not change since the ETag in If-None-Match."),
+      @ApiResponse(code = 400, message = "Invalid page limit, price query or fields.", response = ErrorMessage.class),
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> getAll(@RequestParam(value = "after", required = false) Long after,
+                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                  @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                  @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+                                  @RequestParam(value = "currency", required = false) String currency,
+                                  @RequestParam(value = "sort", required = false) String sort,
+                                  @RequestParam(value = "afterPrice", required = false) BigDecimal afterPrice,
+                                  @RequestParam(value = "fields", required = false) String fields,
+                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    Set<ProductField> productFields;
     try {
-      Optional<List<Product>> optionalProductList = productService.getAllProducts();
-      if (optionalProductList.isPresent()) {
-        return new ResponseEntity<>(optionalProductList.get(), HttpStatus.OK);
-      }
-      return new ResponseEntity<>(new ArrayList<Product>(), HttpStatus.OK);
-    } catch (Exception e) {
-      return new ResponseEntity<>(new ErrorMessage("Internal server error while getting products."), HttpStatus.INTERNAL_SERVER_ERROR);
+      productFields = fields == null ? null : ProductField.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return completed(invalidFields(e));
+    }
+    if (minPrice != null || maxPrice != null || currency != null || sort != null || afterPrice != null) {
+      return getPricePage(minPrice, maxPrice, currency, sort, after, afterPrice, limit == null ? DEFAULT_PAGE_LIMIT : limit, productFields);
+    }
+    if (after != null || limit != null) {
+      return getPage(after, limit == null ? DEFAULT_PAGE_LIMIT : limit, productFields);
     }
+    return asyncProductService.getCatalogVersion()
+        .thenCompose(catalogVersion -> {
+          // Read before the products, so the tag is never newer than what it is sent with.
+          String tag = catalogVersion == null ? null : ETags.catalog(catalogVersion, prefersBinary(accept));
+          if (tag != null && ifNoneMatch != null && ETags.noneMatchMatches(ifNoneMatch, tag)) {
+            HttpHeaders responseHeaders = new HttpHeaders();
+            responseHeaders.set(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return completed(notModified(tag, responseHeaders));
+          }
+          CompletableFuture<Optional<List<Product>>> products = productFields == null
+              ? asyncProductService.getAllProducts()
+              : asyncProductService.getAllProducts(productFields);
+          return products
+              .<ResponseEntity<?>>thenApply(optionalProductList -> {
+                HttpHeaders responseHeaders = new HttpHeaders();
+                responseHeaders.set(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                if (tag != null) {
+                  responseHeaders.setETag(tag);
+                }
+                return new ResponseEntity<>(project(optionalProductList.orElseGet(ArrayList::new), productFields), responseHeaders, HttpStatus.OK);
+              });
+        })
+        .exceptionally(e -> failure(e, "Internal server error while getting products."));
+  }
+
+  private CompletableFuture<ResponseEntity<?>> getPage(Long after, int limit, Set<ProductField> fields) {
+    if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Limit must be between 1 and %d.", MAX_PAGE_LIMIT)), HttpStatus.BAD_REQUEST));
+    }
+    CompletableFuture<Optional<List<Product>>> products = fields == null
+        ? asyncProductService.getProductsPage(after, limit)
+        : asyncProductService.getProductsPage(after, limit, fields);
+    return products
+        .<ResponseEntity<?>>thenApply(optionalProducts -> toPage(optionalProducts.orElseGet(ArrayList::new), limit, fields))
+        .exceptionally(e -> failure(e, "Internal server error while getting products."));
+  }
+
+  private CompletableFuture<ResponseEntity<?>> getPricePage(BigDecimal minPrice, BigDecimal maxPrice, String currencyCode, String sort,
+                                                            Long after, BigDecimal afterPrice, int limit, Set<ProductField> fields) {
+    if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Limit must be between 1 and %d.", MAX_PAGE_LIMIT)), HttpStatus.BAD_REQUEST));
+    }
+    if (sort != null && !PRICE_ORDER.equals(sort) && !DESCENDING_PRICE_ORDER.equals(sort)) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Sort must be '%s' or '%s'.", PRICE_ORDER, DESCENDING_PRICE_ORDER)), HttpStatus.BAD_REQUEST));
+    }
+    if ((after == null) != (afterPrice == null)) {
+      return completed(new ResponseEntity<>(new ErrorMessage("Parameters 'after' and 'afterPrice' have to be passed together."), HttpStatus.BAD_REQUEST));
+    }
+    Currency currency;
+    try {
+      currency = currencyCode == null ? null : Currency.getInstance(currencyCode);
+    } catch (IllegalArgumentException e) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Unknown currency: %s", currencyCode)), HttpStatus.BAD_REQUEST));
+    }
+    PriceQuery query;
+    try {
+      query = new PriceQuery(minPrice, maxPrice, currency, DESCENDING_PRICE_ORDER.equals(sort));
+      query = after == null ? query : query.after(afterPrice, after);
+    } catch (IllegalArgumentException e) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Invalid price query: %s.", e.getMessage())), HttpStatus.BAD_REQUEST));
+    }
+    return asyncProductService.getProductsByPrice(query, limit)
+        .<ResponseEntity<?>>thenApply(optionalProducts -> toPage(optionalProducts.orElseGet(ArrayList::new), limit, fields))
+        .exceptionally(e -> failure(e, "Internal server error while getting products by price."));
+  }
+
+  private static ResponseEntity<?> toPage(List<Product> products, int limit, Set<ProductField> fields) {
+    Long nextCursor = products.size() < limit ? null : products.get(products.size() - 1).getId();
+    return new ResponseEntity<>(new ProductPage(project(products, fields), nextCursor), HttpStatus.OK);
   }
+
+  /**
+   * Returns the products with only the passed fields, or as they are when fields are null.
+   */
+  private static List<Product> project(List<Product> products, Set<ProductField> fields) {
+    if (fields != null) {
+      products.replaceAll(product -> PartialProduct.of(product, fields));
+    }
+    return products;
+  }
+
+  @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+  @ApiOperation(
+      value = "Streams all products as newline-delimited JSON.",
+      response = Product.class,
+      responseContainer = "List")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = Product.class)})
+  public ResponseEntity<StreamingResponseBody> export() {
+    StreamingResponseBody body = outputStream -> {
+      try (JsonGenerator generator = exportWriter.getFactory().createGenerator(outputStream)) {
+        generator.setRootValueSeparator(null);
+        productService.exportProducts(product -> {
+          try {
+            exportWriter.writeValue(generator, product);
+            generator.writeRaw('\n');
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (ServiceOperationException | UncheckedIOException e) {
+        throw new IOException("Export of products was interrupted.", e);
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE)).body(body);
+  }
+
+  @GetMapping(value = "/export", produces = ProductBinaryFormat.MEDIA_TYPE)
+  @ApiOperation(
+      value = "Streams all products in the binary format, one product after another.",
+      response = Product.class,
+      responseContainer = "List")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = Product.class)})
+  public ResponseEntity<StreamingResponseBody> exportBinary() {
+    StreamingResponseBody body = outputStream -> {
+      OutputStream output = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+      try {
+        productService.exportProducts(product -> {
+          try {
+            ProductBinaryFormat.writeProduct(output, product);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (ServiceOperationException | UncheckedIOException e) {
+        throw new IOException("Export of products was interrupted.", e);
+      }
+      output.flush();
+    };
+    return ResponseEntity.ok().contentType(BINARY_MEDIA_TYPE).body(body);
+  }
+
   @GetMapping("/{id}")
   @ApiOperation(
-      value = "Read existing product.",
+      value = "Read existing product. With an Accept-Language header the name and description are in the most preferred "
+          + "language the product has, without translations, and Content-Language tells which one it is. "
+          + "The ETag of the product changes with every update of it.",
       response = Product.class)
-  @ApiImplicitParam(name = "id", value = "Only digits possible, e.g. 12", example = "12", dataType = "Long")
+  @ApiImplicitParams({
+      @ApiImplicitParam(name = "id", value = "Only digits possible, e.g. 12", example = "12", dataType = "Long"),
+      @ApiImplicitParam(name = HttpHeaders.ACCEPT_LANGUAGE, value = "Preferred languages, e.g. 'de-CH, de;q=0.9, en;q=0.5'",
+          example = "de", paramType = "header"),
+      @ApiImplicitParam(name = "fields", value = "Comma separated fields to return, of id, name, description, price and translations",
+          example = "id,name,price"),
+      @ApiImplicitParam(name = HttpHeaders.IF_NONE_MATCH, value = "ETag of the product, it is not returned again unless it changed",
+          example = "\"12-3\"", paramType = "header")})
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "OK", response = Product.class),
+      @ApiResponse(code = 304, message = "Product did not change since the ETag in If-None-Match."),
+      @ApiResponse(code = 400, message = "Invalid fields.", response = ErrorMessage.class),
       @ApiResponse(code = 404, message = "Product not found for passed id.", response = ErrorMessage.class),
-      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class)})
-  public ResponseEntity<?> read(@PathVariable("id") Long id) {
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> read(@PathVariable("id") Long id,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, required = false) String acceptLanguage,
+                                                   @RequestParam(value = "fields", required = false) String fields,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    Set<ProductField> productFields;
+    try {
+      productFields = fields == null ? null : ProductField.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return completed(invalidFields(e));
+    }
+    List<String> languages = acceptedLanguages(acceptLanguage);
+    boolean binary = prefersBinary(accept);
+    if (ifNoneMatch == null) {
+      return readProduct(id, languages, productFields, binary);
+    }
+    return asyncProductService.getProductVersion(id)
+        .thenCompose(version -> {
+          String tag = version.map(found -> ETags.product(id, found, languages, binary)).orElse(null);
+          if (tag != null && ETags.noneMatchMatches(ifNoneMatch, tag)) {
+            HttpHeaders responseHeaders = new HttpHeaders();
+            responseHeaders.set(HttpHeaders.VARY, PRODUCT_VARY);
+            return completed(notModified(tag, responseHeaders));
+          }
+          return readProduct(id, languages, productFields, binary);
+        })
+        .exceptionally(e -> failure(e, String.format("Internal server error while getting product by id: %d", id)));
+  }
+
+  private CompletableFuture<ResponseEntity<?>> readProduct(Long id, List<String> languages, Set<ProductField> productFields, boolean binary) {
+    CompletableFuture<Optional<Product>> product;
+    // Without name and description there is nothing to localize, so only the listed fields are read.
+    if (languages != null && (productFields == null || productFields.contains(ProductField.NAME) || productFields.contains(ProductField.DESCRIPTION))) {
+      product = asyncProductService.getLocalizedProduct(id, languages);
+    } else if (productFields != null) {
+      product = asyncProductService.getProduct(id, productFields);
+    } else {
+      product = asyncProductService.getProduct(id);
+    }
+    return product
+        .<ResponseEntity<?>>thenApply(optionalProduct -> {
+          if (optionalProduct.isPresent()) {
+            HttpHeaders responseHeaders = new HttpHeaders();
+            responseHeaders.set(HttpHeaders.VARY, PRODUCT_VARY);
+            if (optionalProduct.get().getVersion() != null) {
+              responseHeaders.setETag(ETags.product(id, optionalProduct.get().getVersion(), languages, binary));
+            }
+            if (languages != null && optionalProduct.get().language() != null
+                && (productFields == null || productFields.contains(ProductField.NAME) || productFields.contains(ProductField.DESCRIPTION))) {
+              responseHeaders.set(HttpHeaders.CONTENT_LANGUAGE, optionalProduct.get().language());
+            }
+            return new ResponseEntity<>(PartialProduct.of(optionalProduct.get(), productFields), responseHeaders, HttpStatus.OK);
+          }
+          return new ResponseEntity<>(new ErrorMessage(String.format("Product not found for passed id: %d", id)), HttpStatus.NOT_FOUND);
+        })
+        .exceptionally(e -> failure(e, String.format("Internal server error while getting product by id: %d", id)));
+  }
+
+  /**
+   * Returns whether a product response is written in the binary format rather than JSON, the way content
+   * negotiation picks between them: the most specific, most preferred type of the Accept header decides,
+   * and JSON wins wildcards as its converter comes first. Malformed headers are ignored like missing ones.
+   */
+  static boolean prefersBinary(String accept) {
+    if (accept == null || accept.trim().isEmpty()) {
+      return false;
+    }
+    List<MediaType> mediaTypes;
+    try {
+      mediaTypes = MediaType.parseMediaTypes(accept);
+    } catch (InvalidMediaTypeException e) {
+      return false;
+    }
+    MediaType.sortBySpecificityAndQuality(mediaTypes);
+    for (MediaType mediaType : mediaTypes) {
+      if (mediaType.getQualityValue() == 0) {
+        continue;
+      }
+      if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+        return false;
+      }
+      if (mediaType.isCompatibleWith(BINARY_MEDIA_TYPE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the languages of an Accept-Language header in order of preference, each followed by its
+   * shorter prefixes, so that de-CH falls back to de, or null without a header. Malformed headers are
+   * ignored like missing ones.
+   */
+  static List<String> acceptedLanguages(String acceptLanguage) {
+    if (acceptLanguage == null || acceptLanguage.trim().isEmpty()) {
+      return null;
+    }
+    List<Locale.LanguageRange> ranges;
     try {
-      Optional<Product> optionalProduct = productService.getProduct(id);
-      if (optionalProduct.isPresent()) {
-        return new ResponseEntity<>(optionalProduct.get(), HttpStatus.OK);
+      ranges = Locale.LanguageRange.parse(acceptLanguage);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    Set<String> languages = new LinkedHashSet<>();
+    for (Locale.LanguageRange range : ranges) {
+      String language = range.getRange();
+      while (range.getWeight() > 0 && !language.isEmpty() && languages.size() < MAX_ACCEPTED_LANGUAGES) {
+        if (!language.endsWith("*")) {
+          languages.add(Translations.language(language));
+        }
+        int separator = language.lastIndexOf('-');
+        language = separator < 0 ? "" : language.substring(0, separator);
       }
-      return new ResponseEntity<>(new ErrorMessage(String.format("Product not found for passed id: %d", id)), HttpStatus.NOT_FOUND);
-    } catch (Exception e) {
-      return new ResponseEntity<>(new ErrorMessage(String.format("Internal server error while getting product by id: %d", id)), HttpStatus.INTERNAL_SERVER_ERROR);
     }
+    return new ArrayList<>(languages);
   }
 
   @GetMapping("/byName")
   @ApiOperation(
       value = "Returns all filtered by product name.",
       response = Product.class)
-  @ApiImplicitParam(name = "name", value = "Possible letters, numbers and sign '/'  e.g. 'Name'", example = "name")
+  @ApiImplicitParams({
+      @ApiImplicitParam(name = "name", value = "Possible letters, numbers and sign '/'  e.g. 'Name'", example = "name"),
+      @ApiImplicitParam(name = "fields", value = "Comma separated fields to return, of id, name, description, price and translations",
+          example = "id,name,price")})
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "OK", response = Product.class),
+      @ApiResponse(code = 400, message = "Invalid fields.", response = ErrorMessage.class),
       @ApiResponse(code = 404, message = "Products not found for passed name.", response = ErrorMessage.class),
-      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class)})
-  public ResponseEntity<?> find(@RequestParam("name") String name) {
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> find(@RequestParam("name") String name,
+                                                   @RequestParam(value = "fields", required = false) String fields) {
+    Set<ProductField> productFields;
     try {
-      Optional<List<Product>> optionalProductList = productService.getAllProducts();
-      if (optionalProductList.isPresent()) {
-        Optional<Product> optionalProduct = optionalProductList.get()
-            .stream()
-            .filter(productToFind -> productToFind.getName().getValue().equals(name))
-            .findFirst();
-        if (optionalProduct.isPresent()) {
-          return new ResponseEntity<>(optionalProduct.get(), HttpStatus.OK);
-        }
-        return new ResponseEntity<>(new ErrorMessage(String.format("Product not found for passed name: %s", name)), HttpStatus.NOT_FOUND);
+      productFields = fields == null ? null : ProductField.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return completed(invalidFields(e));
+    }
+    return asyncProductService.getProductsByName(name)
+        .<ResponseEntity<?>>thenApply(optionalProductList -> {
+          if (optionalProductList.isPresent() && !optionalProductList.get().isEmpty()) {
+            return new ResponseEntity<>(PartialProduct.of(optionalProductList.get().get(0), productFields), HttpStatus.OK);
+          }
+          return new ResponseEntity<>(new ErrorMessage(String.format("Product not found for passed name: %s", name)), HttpStatus.NOT_FOUND);
+        })
+        .exceptionally(e -> failure(e, String.format("Internal server error while getting product by name: %s", name)));
+  }
+
+  @GetMapping("/search")
+  @ApiOperation(
+      value = "Returns a page of products whose name and description contain every word of the query, in id order. "
+          + "Unless the query ends with a space, its last word only has to start a word, for typeahead.",
+      response = ProductPage.class)
+  @ApiImplicitParams({
+      @ApiImplicitParam(name = "q", value = "Words to search for, e.g. 'red sh'", example = "red sh"),
+      @ApiImplicitParam(name = "language", value = "Language of the query, its words are lower cased by its rules", example = "EN"),
+      @ApiImplicitParam(name = "after", value = "Returns products with id greater than passed one, e.g. 12", example = "12", dataType = "Long"),
+      @ApiImplicitParam(name = "limit", value = "Maximum number of products in page, from 1 to 1000", example = "100", dataType = "int"),
+      @ApiImplicitParam(name = "fields", value = "Comma separated fields to return, of id, name, description, price and translations",
+          example = "id,name,price")})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = ProductPage.class),
+      @ApiResponse(code = 400, message = "Invalid query, page limit or fields.", response = ErrorMessage.class),
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> search(@RequestParam("q") String text,
+                                                     @RequestParam(value = "language", required = false) String language,
+                                                     @RequestParam(value = "after", required = false) Long after,
+                                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                                     @RequestParam(value = "fields", required = false) String fields) {
+    Set<ProductField> productFields;
+    try {
+      productFields = fields == null ? null : ProductField.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return completed(invalidFields(e));
+    }
+    int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : limit;
+    if (pageLimit < 1 || pageLimit > MAX_PAGE_LIMIT) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Limit must be between 1 and %d.", MAX_PAGE_LIMIT)), HttpStatus.BAD_REQUEST));
+    }
+    SearchQuery query;
+    try {
+      query = new SearchQuery(text, language);
+    } catch (IllegalArgumentException e) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Invalid search query: %s.", e.getMessage())), HttpStatus.BAD_REQUEST));
+    }
+    return asyncProductService.searchProducts(query, after, pageLimit)
+        .<ResponseEntity<?>>thenApply(optionalProducts -> toPage(optionalProducts.orElseGet(ArrayList::new), pageLimit, productFields))
+        .exceptionally(e -> failure(e, String.format("Internal server error while searching for products: %s", text)));
+  }
+
+  @GetMapping("/changes")
+  @ApiOperation(
+      value = "Returns changes of products after the passed cursor, in the order they were made, waiting up to 'wait' seconds "
+          + "for the next change when there is none yet. Without a cursor returns no changes and the cursor to follow changes from.",
+      response = ProductChangePage.class)
+  @ApiImplicitParams({
+      @ApiImplicitParam(name = "since", value = "Cursor returned with the previous page of changes", example = "1546300800042", dataType = "Long"),
+      @ApiImplicitParam(name = "limit", value = "Maximum number of changes in page, from 1 to 1000", example = "100", dataType = "int"),
+      @ApiImplicitParam(name = "wait", value = "Seconds to wait for the next change, from 0 to 25", example = "20", dataType = "int")})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = ProductChangePage.class),
+      @ApiResponse(code = 400, message = "Invalid page limit or wait.", response = ErrorMessage.class),
+      @ApiResponse(code = 410, message = "Changes after the cursor are no longer kept.", response = ErrorMessage.class),
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> getChanges(@RequestParam(value = "since", required = false) Long since,
+                                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                                         @RequestParam(value = "wait", required = false) Integer wait) {
+    int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : limit;
+    if (pageLimit < 1 || pageLimit > MAX_PAGE_LIMIT) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Limit must be between 1 and %d.", MAX_PAGE_LIMIT)), HttpStatus.BAD_REQUEST));
+    }
+    int waitSeconds = wait == null ? DEFAULT_CHANGES_WAIT_SECONDS : wait;
+    if (waitSeconds < 0 || waitSeconds > MAX_CHANGES_WAIT_SECONDS) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Wait must be between 0 and %d seconds.", MAX_CHANGES_WAIT_SECONDS)),
+          HttpStatus.BAD_REQUEST));
+    }
+    if (since == null) {
+      return changeFeed.getLastSequence()
+          .<ResponseEntity<?>>thenApply(lastSequence -> new ResponseEntity<>(new ProductChangePage(new ArrayList<>(), lastSequence), HttpStatus.OK))
+          .exceptionally(e -> failure(e, "Internal server error while getting product changes."));
+    }
+    return changeFeed.getChangesAfter(since, pageLimit, waitSeconds, TimeUnit.SECONDS)
+        .<ResponseEntity<?>>thenApply(changes -> changes.isPresent()
+            ? new ResponseEntity<>(new ProductChangePage(changes.get(), nextCursor(since, changes.get())), HttpStatus.OK)
+            : changesGone(since))
+        .exceptionally(e -> failure(e, "Internal server error while getting product changes."));
+  }
+
+  @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @ApiOperation(
+      value = "Streams changes of products after the passed cursor as server-sent events, each with the cursor of the change as its id. "
+          + "Without a cursor streams changes made from now on.",
+      response = ProductChange.class,
+      responseContainer = "List")
+  @ApiImplicitParams({
+      @ApiImplicitParam(name = "since", value = "Cursor returned with a page of changes", example = "1546300800042", dataType = "Long"),
+      @ApiImplicitParam(name = LAST_EVENT_ID, value = "Id of the last event received, used instead of 'since' on reconnect",
+          example = "1546300800042", paramType = "header")})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = ProductChange.class),
+      @ApiResponse(code = 400, message = "Invalid Last-Event-ID."),
+      @ApiResponse(code = 410, message = "Changes after the cursor are no longer kept."),
+      @ApiResponse(code = 500, message = "Internal server error."),
+      @ApiResponse(code = 503, message = "Too many requests in progress.")})
+  public CompletableFuture<ResponseEntity<SseEmitter>> streamChanges(@RequestParam(value = "since", required = false) Long since,
+                                                                     @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+    Long cursor = since;
+    if (lastEventId != null) {
+      try {
+        cursor = Long.valueOf(lastEventId.trim());
+      } catch (NumberFormatException e) {
+        return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
       }
-      return new ResponseEntity<>(new ErrorMessage(String.format("Product not found for passed name: %s", name)), HttpStatus.NOT_FOUND);
-    } catch (Exception e) {
-      return new ResponseEntity<>(new ErrorMessage(String.format("Internal server error while getting product by name: %s", name)), HttpStatus.INTERNAL_SERVER_ERROR);
     }
+    // Read before the response is committed, so a cursor which is no longer followed is answered with a status.
+    CompletableFuture<ResponseEntity<SseEmitter>> response;
+    if (cursor == null) {
+      response = changeFeed.getLastSequence().thenApply(lastSequence -> changeStream(lastSequence, new ArrayList<>()));
+    } else {
+      long start = cursor;
+      response = changeFeed.getChangesAfter(start, MAX_PAGE_LIMIT, 0, TimeUnit.SECONDS)
+          .thenApply(changes -> changes.isPresent() ? changeStream(start, changes.get()) : ResponseEntity.status(HttpStatus.GONE).build());
+    }
+    return response.exceptionally(e -> {
+      ResponseEntity<?> failure = failure(e, "Internal server error while getting product changes.");
+      return ResponseEntity.status(failure.getStatusCode()).headers(failure.getHeaders()).build();
+    });
   }
 
   @PostMapping
@@ -114,46 +585,67 @@ public class ProductController {
   @ApiResponses(value = {
       @ApiResponse(code = 201, message = "Created", response = Product.class),
       @ApiResponse(code = 409, message = "Product already existsById", response = ErrorMessage.class),
-      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class)})
-  public ResponseEntity<?> create(@RequestBody(required = false) Product product) {
-    try{
-      if (product.getId() == null || !productService.productExistsById(product.getId())) {
-        Optional<Product> addedProduct = productService.createProduct(product);
-        HttpHeaders responseHeaders = new HttpHeaders();
-        if (addedProduct.isPresent()) {
-          responseHeaders.setLocation(URI.create(String.format("/products/%d", addedProduct.get().getId())));
-          return new ResponseEntity<>(addedProduct.get(), responseHeaders, HttpStatus.CREATED);
-        }
-        return new ResponseEntity<>(new ErrorMessage("Internal server error while adding product."), HttpStatus.INTERNAL_SERVER_ERROR);
-      }
-      return new ResponseEntity<>(new ErrorMessage("Product already exist."), HttpStatus.CONFLICT);
-    } catch (Exception e) {
-      return new ResponseEntity<>(new ErrorMessage("Internal server error while adding product."), HttpStatus.INTERNAL_SERVER_ERROR);
-    }
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> create(@RequestBody(required = false) Product product) {
+    return asyncProductService.createProduct(product)
+        .<ResponseEntity<?>>thenApply(result -> {
+          if (result.getOutcome() == ProductOperationResult.Outcome.CONFLICT) {
+            return new ResponseEntity<>(new ErrorMessage("Product already exist."), HttpStatus.CONFLICT);
+          }
+          HttpHeaders responseHeaders = new HttpHeaders();
+          responseHeaders.setLocation(URI.create(String.format("/products/%d", result.getId())));
+          return new ResponseEntity<>(result.getProduct(), responseHeaders, HttpStatus.CREATED);
+        })
+        .exceptionally(e -> failure(e, "Internal server error while adding product."));
   }
 
   @PutMapping("/{id}")
   @ApiOperation(
-      value = "Update existing product.",
+      value = "Update existing product. With an If-Match header only when it was not updated since it had that ETag.",
       response = Product.class)
-  @ApiImplicitParam(name = "id", value = "Only digits possible, e.g. 12", example = "12", dataType = "Long")
+  @ApiImplicitParams({
+      @ApiImplicitParam(name = "id", value = "Only digits possible, e.g. 12", example = "12", dataType = "Long"),
+      @ApiImplicitParam(name = HttpHeaders.IF_MATCH, value = "ETag of the product read before updating it", example = "\"12-3\"",
+          paramType = "header")})
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "OK", response = Product.class),
       @ApiResponse(code = 404, message = "Product not found for passed id.", response = ErrorMessage.class),
-      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class)})
-  public ResponseEntity<?> update(@PathVariable("id") Long id, @RequestBody(required = false) Product product) {
-    try {
-      if (!id.equals(product.getId())) {
-        return new ResponseEntity<>(new ErrorMessage(String.format("Product to update has different id than %d.", id)), HttpStatus.BAD_REQUEST);
-      }
-      if (!productService.productExistsById(id)) {
-        return new ResponseEntity<>(new ErrorMessage(String.format("Product with %d id does not exist.", id)), HttpStatus.NOT_FOUND);
+      @ApiResponse(code = 412, message = "Product was updated since the ETag in If-Match.", response = ErrorMessage.class),
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> update(@PathVariable("id") Long id, @RequestBody(required = false) Product product,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    if (product != null && !id.equals(product.getId())) {
+      return completed(new ResponseEntity<>(new ErrorMessage(String.format("Product to update has different id than %d.", id)), HttpStatus.BAD_REQUEST));
+    }
+    CompletableFuture<ProductOperationResult> update;
+    if (ifMatch == null || ETags.matchesAny(ifMatch)) {
+      update = asyncProductService.updateProduct(product);
+    } else {
+      Long version = ETags.version(ifMatch, id);
+      if (version == null) {
+        return completed(versionMismatch(id));
       }
-      productService.updateProduct(product);
-      return new ResponseEntity<>(product, HttpStatus.OK);
-    } catch (Exception e) {
-      return new ResponseEntity<>(new ErrorMessage("Internal server error while updating product."), HttpStatus.INTERNAL_SERVER_ERROR);
+      update = asyncProductService.updateProduct(product, version);
     }
+    return update
+        .<ResponseEntity<?>>thenApply(result -> {
+          if (result.getOutcome() == ProductOperationResult.Outcome.NOT_FOUND) {
+            return new ResponseEntity<>(new ErrorMessage(String.format("Product with %d id does not exist.", id)), HttpStatus.NOT_FOUND);
+          }
+          if (result.getOutcome() == ProductOperationResult.Outcome.VERSION_MISMATCH) {
+            return versionMismatch(id);
+          }
+          HttpHeaders responseHeaders = new HttpHeaders();
+          responseHeaders.set(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+          if (result.getProduct().getVersion() != null) {
+            responseHeaders.setETag(ETags.product(id, result.getProduct().getVersion(), null, prefersBinary(accept)));
+          }
+          return new ResponseEntity<>(result.getProduct(), responseHeaders, HttpStatus.OK);
+        })
+        .exceptionally(e -> failure(e, "Internal server error while updating product."));
   }
 
   @DeleteMapping("/{id}")
@@ -164,17 +656,199 @@ public class ProductController {
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "OK", response = Product.class),
       @ApiResponse(code = 404, message = "Product not found for passed id.", response = ErrorMessage.class),
-      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class)})
-  public ResponseEntity<?> remove(@PathVariable("id") Long id) {
-    try {
-      Optional<Product> optionalProduct = productService.getProduct(id);
-      if (!optionalProduct.isPresent()) {
-        return new ResponseEntity<>(new ErrorMessage(String.format("Product with %d id does not exist.", id)), HttpStatus.NOT_FOUND);
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> remove(@PathVariable("id") Long id) {
+    return asyncProductService.deleteProduct(id)
+        .<ResponseEntity<?>>thenApply(result -> {
+          if (result.getOutcome() == ProductOperationResult.Outcome.NOT_FOUND) {
+            return new ResponseEntity<>(new ErrorMessage(String.format("Product with %d id does not exist.", id)), HttpStatus.NOT_FOUND);
+          }
+          return new ResponseEntity<>(HttpStatus.OK);
+        })
+        .exceptionally(e -> failure(e, "Internal server error while removing product."));
+  }
+
+  @PostMapping("/batch")
+  @ApiOperation(
+      value = "Creates new products, returns result for every passed product.",
+      response = BatchItemResult.class,
+      responseContainer = "List")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = BatchItemResult.class),
+      @ApiResponse(code = 400, message = "Invalid batch.", response = ErrorMessage.class),
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> createBatch(@RequestBody(required = false) List<Product> products) {
+    if (products == null || products.isEmpty() || products.size() > MAX_BATCH_SIZE || products.contains(null)) {
+      return completed(invalidBatch());
+    }
+    return asyncProductService.createProducts(products)
+        .<ResponseEntity<?>>thenApply(results -> new ResponseEntity<>(toBatchItemResults(results), HttpStatus.OK))
+        .exceptionally(e -> failure(e, "Internal server error while adding products."));
+  }
+
+  @PutMapping("/batch")
+  @ApiOperation(
+      value = "Updates existing products, returns result for every passed product.",
+      response = BatchItemResult.class,
+      responseContainer = "List")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = BatchItemResult.class),
+      @ApiResponse(code = 400, message = "Invalid batch.", response = ErrorMessage.class),
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> updateBatch(@RequestBody(required = false) List<Product> products) {
+    if (products == null || products.isEmpty() || products.size() > MAX_BATCH_SIZE || products.contains(null)) {
+      return completed(invalidBatch());
+    }
+    return asyncProductService.updateProducts(products)
+        .<ResponseEntity<?>>thenApply(results -> new ResponseEntity<>(toBatchItemResults(results), HttpStatus.OK))
+        .exceptionally(e -> failure(e, "Internal server error while updating products."));
+  }
+
+  @DeleteMapping("/batch")
+  @ApiOperation(
+      value = "Removes existing products, returns result for every passed id.",
+      response = BatchItemResult.class,
+      responseContainer = "List")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "OK", response = BatchItemResult.class),
+      @ApiResponse(code = 400, message = "Invalid batch.", response = ErrorMessage.class),
+      @ApiResponse(code = 500, message = "Internal server error.", response = ErrorMessage.class),
+      @ApiResponse(code = 503, message = "Too many requests in progress.", response = ErrorMessage.class)})
+  public CompletableFuture<ResponseEntity<?>> removeBatch(@RequestBody(required = false) List<Long> ids) {
+    if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE || ids.contains(null)) {
+      return completed(invalidBatch());
+    }
+    return asyncProductService.deleteProducts(ids)
+        .<ResponseEntity<?>>thenApply(results -> new ResponseEntity<>(toBatchItemResults(results), HttpStatus.OK))
+        .exceptionally(e -> failure(e, "Internal server error while removing products."));
+  }
+
+  private static CompletableFuture<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+    return CompletableFuture.completedFuture(response);
+  }
+
+  private ResponseEntity<?> failure(Throwable exception, String message) {
+    Throwable cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+    if (cause instanceof RejectedExecutionException) {
+      HttpHeaders responseHeaders = new HttpHeaders();
+      responseHeaders.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+      return new ResponseEntity<>(new ErrorMessage("Too many requests in progress, try again later."), responseHeaders, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    return new ResponseEntity<>(new ErrorMessage(message), HttpStatus.INTERNAL_SERVER_ERROR);
+  }
+
+  private static long nextCursor(long since, List<ProductChange> changes) {
+    return changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+  }
+
+  private ResponseEntity<SseEmitter> changeStream(long start, List<ProductChange> firstChanges) {
+    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).header(HttpHeaders.CACHE_CONTROL, "no-cache")
+        .body(new ChangeStream(start, firstChanges));
+  }
+
+  private ResponseEntity<?> changesGone(long since) {
+    return new ResponseEntity<>(new ErrorMessage(String.format(
+        "Changes after %d are no longer kept, read products again and follow changes from a new cursor.", since)), HttpStatus.GONE);
+  }
+
+  private static ResponseEntity<?> notModified(String tag, HttpHeaders responseHeaders) {
+    responseHeaders.setETag(tag);
+    return new ResponseEntity<>(responseHeaders, HttpStatus.NOT_MODIFIED);
+  }
+
+  private ResponseEntity<?> versionMismatch(Long id) {
+    return new ResponseEntity<>(new ErrorMessage(String.format("Product with %d id was updated since the ETag in If-Match.", id)),
+        HttpStatus.PRECONDITION_FAILED);
+  }
+
+  private ResponseEntity<?> invalidFields(IllegalArgumentException exception) {
+    return new ResponseEntity<>(new ErrorMessage(String.format("Invalid fields: %s.", exception.getMessage())), HttpStatus.BAD_REQUEST);
+  }
+
+  private ResponseEntity<?> invalidBatch() {
+    return new ResponseEntity<>(new ErrorMessage(String.format("Batch must contain from 1 to %d items.", MAX_BATCH_SIZE)), HttpStatus.BAD_REQUEST);
+  }
+
+  private List<BatchItemResult> toBatchItemResults(List<ProductOperationResult> results) {
+    List<BatchItemResult> batchItemResults = new ArrayList<>(results.size());
+    for (ProductOperationResult result : results) {
+      batchItemResults.add(new BatchItemResult(result.getId(), toHttpStatus(result.getOutcome()).value(), result.getProduct()));
+    }
+    return batchItemResults;
+  }
+
+  private HttpStatus toHttpStatus(ProductOperationResult.Outcome outcome) {
+    switch (outcome) {
+      case CREATED:
+        return HttpStatus.CREATED;
+      case CONFLICT:
+        return HttpStatus.CONFLICT;
+      case NOT_FOUND:
+        return HttpStatus.NOT_FOUND;
+      case VERSION_MISMATCH:
+        return HttpStatus.PRECONDITION_FAILED;
+      default:
+        return HttpStatus.OK;
+    }
+  }
+
+  /**
+   * Sends changes as server-sent events, waiting for the next ones on the change feed without holding a
+   * thread. Following starts when the response is written, so a stream which is never sent does not
+   * follow changes.
+   */
+  private final class ChangeStream extends SseEmitter {
+
+    private final long start;
+    private final List<ProductChange> firstChanges;
+    private volatile boolean closed;
+
+    private ChangeStream(long start, List<ProductChange> firstChanges) {
+      this.start = start;
+      this.firstChanges = firstChanges;
+      onCompletion(() -> closed = true);
+      onTimeout(() -> closed = true);
+      onError(e -> closed = true);
+    }
+
+    @Override
+    protected void extendResponse(ServerHttpResponse outputMessage) {
+      super.extendResponse(outputMessage);
+      follow(start, firstChanges);
+    }
+
+    private void follow(long lastSequence, List<ProductChange> changes) {
+      long cursor = lastSequence;
+      try {
+        if (changes.isEmpty()) {
+          // A comment, which keeps idle connections open and tells a closed one apart.
+          send(event().comment(""));
+        }
+        for (ProductChange change : changes) {
+          send(event().id(Long.toString(change.getSequence())).data(changeWriter.writeValueAsString(change), EVENT_DATA_MEDIA_TYPE));
+          cursor = change.getSequence();
+        }
+      } catch (IOException | IllegalStateException e) {
+        // The client went away or the request timed out, it reconnects with the last event id.
+        return;
       }
-      productService.deleteProduct(id);
-      return new ResponseEntity<>(HttpStatus.OK);
-    } catch (Exception e) {
-      return new ResponseEntity<>(new ErrorMessage("Internal server error while removing product."), HttpStatus.INTERNAL_SERVER_ERROR);
+      if (closed) {
+        return;
+      }
+      long nextCursor = cursor;
+      changeFeed.getChangesAfter(nextCursor, MAX_PAGE_LIMIT, CHANGES_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS).whenComplete((nextChanges, e) -> {
+        if (e != null) {
+          completeWithError(e);
+        } else if (!nextChanges.isPresent()) {
+          // Fell behind the kept changes, the client reconnects with the last event id and is answered with 410.
+          complete();
+        } else if (!closed) {
+          follow(nextCursor, nextChanges.get());
+        }
+      });
     }
   }
 }
@@ -0,0 +1,54 @@
+package application.controller;
+
+import application.model.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class ProductPage {
+  private List<Product> products;
+  private Long nextCursor;
+
+  protected ProductPage() {
+    products = new ArrayList<>();
+  }
+
+  public ProductPage(List<Product> products, Long nextCursor) {
+    this.products = products;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<Product> getProducts() {
+    return products;
+  }
+
+  public void setProducts(List<Product> products) {
+    this.products = products;
+  }
+
+  public Long getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(Long nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ProductPage that = (ProductPage) o;
+    return Objects.equals(products, that.products)
+        && Objects.equals(nextCursor, that.nextCursor);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(products, nextCursor);
+  }
+}
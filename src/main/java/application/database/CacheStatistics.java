@@ -0,0 +1,63 @@
+package application.database;
+
+import java.util.Objects;
+
+public class CacheStatistics {
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+  private final long size;
+
+  public CacheStatistics(long hits, long misses, long evictions, long size) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.size = size;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CacheStatistics)) {
+      return false;
+    }
+    CacheStatistics that = (CacheStatistics) o;
+    return hits == that.hits &&
+        misses == that.misses &&
+        evictions == that.evictions &&
+        size == that.size;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(hits, misses, evictions, size);
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStatistics{" +
+        "hits=" + hits +
+        ", misses=" + misses +
+        ", evictions=" + evictions +
+        ", size=" + size +
+        '}';
+  }
+}
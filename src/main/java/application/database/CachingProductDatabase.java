@@ -0,0 +1,289 @@
+package application.database;
+
+import application.model.PartialProduct;
+import application.model.Product;
+import application.model.ProductField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Serves {@link #findById(Long)} and {@link #existsById(Long)} from a {@link ProductCache}, as well
+ * as {@link #findById(Long, Set)}, {@link #findLocalizedById(Long, List)} and
+ * {@link #findVersionById(Long)} of cached products, and passes everything else to the wrapped
+ * database. Writes go to the database first and then
+ * invalidate the products they touched.
+ *
+ * <p>A write running in a transaction invalidates its products again when the transaction
+ * completes, otherwise a read between the write and the commit could cache the row it replaced.
+ */
+public class CachingProductDatabase implements ProductDatabase {
+  private final ProductDatabase database;
+  private final ProductCache cache;
+
+  public CachingProductDatabase(ProductDatabase database, ProductCache cache) {
+    if (database == null || cache == null) {
+      throw new IllegalArgumentException("Database and cache cannot be null");
+    }
+    this.database = database;
+    this.cache = cache;
+  }
+
+  @Override
+  public Optional<Product> save(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    Long id = product.getId();
+    try {
+      Optional<Product> savedProduct = database.save(product);
+      savedProduct.ifPresent(saved -> invalidate(saved.getId()));
+      return savedProduct;
+    } finally {
+      if (id != null) {
+        invalidate(id);
+      }
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> saveAll(List<Product> products) throws DatabaseOperationException {
+    if (products == null || products.contains(null)) {
+      throw new IllegalArgumentException("Products cannot be null");
+    }
+    List<Long> ids = new ArrayList<>(products.size());
+    for (Product product : products) {
+      if (product.getId() != null) {
+        ids.add(product.getId());
+      }
+    }
+    try {
+      Optional<List<Product>> savedProducts = database.saveAll(products);
+      savedProducts.ifPresent(saved -> saved.forEach(product -> invalidate(product.getId())));
+      return savedProducts;
+    } finally {
+      ids.forEach(this::invalidate);
+    }
+  }
+
+  @Override
+  public Optional<Product> insertIfAbsent(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    Optional<Product> insertedProduct = database.insertIfAbsent(product);
+    insertedProduct.ifPresent(inserted -> invalidate(inserted.getId()));
+    return insertedProduct;
+  }
+
+  @Override
+  public Optional<Product> updateIfExists(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    Long id = product.getId();
+    try {
+      return database.updateIfExists(product);
+    } finally {
+      if (id != null) {
+        invalidate(id);
+      }
+    }
+  }
+
+  @Override
+  public Optional<Product> updateIfVersionMatches(Product product, long version) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    Long id = product.getId();
+    try {
+      return database.updateIfVersionMatches(product, version);
+    } finally {
+      if (id != null) {
+        invalidate(id);
+      }
+    }
+  }
+
+  @Override
+  public Optional<Long> findVersionById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    Optional<Product> cachedProduct = cache.get(id);
+    if (cachedProduct.isPresent()) {
+      return Optional.ofNullable(cachedProduct.get().getVersion());
+    }
+    return database.findVersionById(id);
+  }
+
+  @Override
+  public String catalogVersion() throws DatabaseOperationException {
+    return database.catalogVersion();
+  }
+
+  @Override
+  public Optional<Product> findById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    Optional<Product> cachedProduct = cache.get(id);
+    if (cachedProduct.isPresent()) {
+      return cachedProduct;
+    }
+    long stamp = cache.stamp(id);
+    Optional<Product> product = database.findById(id);
+    product.ifPresent(found -> cache.put(id, found, stamp));
+    return product;
+  }
+
+  @Override
+  public Optional<Product> findById(Long id, Set<ProductField> fields) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null");
+    }
+    Optional<Product> cachedProduct = cache.get(id);
+    if (cachedProduct.isPresent()) {
+      return Optional.of(PartialProduct.of(cachedProduct.get(), ProductField.withId(fields)));
+    }
+    return database.findById(id, fields);
+  }
+
+  @Override
+  public Optional<Product> findLocalizedById(Long id, List<String> languages) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    if (languages == null || languages.contains(null)) {
+      throw new IllegalArgumentException("Languages cannot be null");
+    }
+    Optional<Product> cachedProduct = cache.get(id);
+    if (cachedProduct.isPresent()) {
+      return Optional.of(cachedProduct.get().localized(languages));
+    }
+    return database.findLocalizedById(id, languages);
+  }
+
+  @Override
+  public Optional<List<Product>> findByName(String name) throws DatabaseOperationException {
+    return database.findByName(name);
+  }
+
+  @Override
+  public Optional<List<Product>> findByPrice(PriceQuery query, int limit) throws DatabaseOperationException {
+    return database.findByPrice(query, limit);
+  }
+
+  @Override
+  public Optional<List<Product>> search(SearchQuery query, Long after, int limit) throws DatabaseOperationException {
+    return database.search(query, after, limit);
+  }
+
+  @Override
+  public long count() throws DatabaseOperationException {
+    return database.count();
+  }
+
+  @Override
+  public boolean existsById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    return cache.get(id).isPresent() || database.existsById(id);
+  }
+
+  @Override
+  public List<Long> findExistingIds(List<Long> ids) throws DatabaseOperationException {
+    return database.findExistingIds(ids);
+  }
+
+  @Override
+  public Optional<List<Product>> findAll() throws DatabaseOperationException {
+    return database.findAll();
+  }
+
+  @Override
+  public Optional<List<Product>> findAllAfter(Long after, int limit) throws DatabaseOperationException {
+    return database.findAllAfter(after, limit);
+  }
+
+  @Override
+  public Optional<List<Product>> findAllAfter(Long after, int limit, Set<ProductField> fields) throws DatabaseOperationException {
+    return database.findAllAfter(after, limit, fields);
+  }
+
+  @Override
+  public void forEach(Consumer<Product> action) throws DatabaseOperationException {
+    database.forEach(action);
+  }
+
+  @Override
+  public void deleteById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    try {
+      database.deleteById(id);
+    } finally {
+      invalidate(id);
+    }
+  }
+
+  @Override
+  public void deleteAllById(List<Long> ids) throws DatabaseOperationException {
+    if (ids == null || ids.contains(null)) {
+      throw new IllegalArgumentException("Ids cannot be null");
+    }
+    try {
+      database.deleteAllById(ids);
+    } finally {
+      ids.forEach(this::invalidate);
+    }
+  }
+
+  @Override
+  public boolean deleteIfExists(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    try {
+      return database.deleteIfExists(id);
+    } finally {
+      invalidate(id);
+    }
+  }
+
+  @Override
+  public void deleteAll() throws DatabaseOperationException {
+    try {
+      database.deleteAll();
+    } finally {
+      cache.invalidateAll();
+      afterTransaction(cache::invalidateAll);
+    }
+  }
+
+  private void invalidate(Long id) {
+    cache.invalidate(id);
+    afterTransaction(() -> cache.invalidate(id));
+  }
+
+  private void afterTransaction(Runnable invalidation) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCompletion(int status) {
+          invalidation.run();
+        }
+      });
+    }
+  }
+}
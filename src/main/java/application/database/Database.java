@@ -3,21 +3,38 @@ package application.database;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface Database<T, ID extends Serializable> {
 
   Optional<T> save(T entity) throws DatabaseOperationException;
 
+  Optional<List<T>> saveAll(List<T> entities) throws DatabaseOperationException;
+
+  Optional<T> insertIfAbsent(T entity) throws DatabaseOperationException;
+
+  Optional<T> updateIfExists(T entity) throws DatabaseOperationException;
+
   Optional<T> findById(ID id) throws DatabaseOperationException;
 
   long count() throws DatabaseOperationException;
 
   boolean existsById(ID id) throws DatabaseOperationException;
 
+  List<ID> findExistingIds(List<ID> ids) throws DatabaseOperationException;
+
   Optional<List<T>> findAll() throws DatabaseOperationException;
 
+  Optional<List<T>> findAllAfter(ID after, int limit) throws DatabaseOperationException;
+
+  void forEach(Consumer<T> action) throws DatabaseOperationException;
+
   void deleteById(ID id) throws DatabaseOperationException;
 
+  void deleteAllById(List<ID> ids) throws DatabaseOperationException;
+
+  boolean deleteIfExists(ID id) throws DatabaseOperationException;
+
   void deleteAll() throws DatabaseOperationException;
 
 }
@@ -0,0 +1,130 @@
+package application.database;
+
+import application.model.Product;
+import application.model.ProductChange;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps changes as rows of the product_change table, an outbox which consumers read by sequence number
+ * instead of reading the product table again.
+ *
+ * <p>Changes are appended in the transaction of the products they describe, so they are kept exactly
+ * when the products are. Their numbers are taken from the {@link ProductChangeCounter} row, which stays
+ * locked until that transaction commits, so changes become visible in the order of their numbers,
+ * without gaps, whichever application instance appends them. Rows older than the latest
+ * {@code capacity} changes are deleted in batches of a tenth of it, by the append which passes the
+ * limit.
+ */
+public class HibernateProductChangeLog implements ProductChangeLog {
+
+  private final ProductChangeRepository productChangeRepository;
+  private final ProductChangeCounterRepository productChangeCounterRepository;
+  private final int capacity;
+  private final int pruneBatchSize;
+
+  public HibernateProductChangeLog(ProductChangeRepository productChangeRepository,
+                                   ProductChangeCounterRepository productChangeCounterRepository, int capacity) throws DatabaseOperationException {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.productChangeRepository = productChangeRepository;
+    this.productChangeCounterRepository = productChangeCounterRepository;
+    this.capacity = capacity;
+    this.pruneBatchSize = Math.max(1, capacity / 10);
+    createCounter();
+  }
+
+  @Override
+  @Transactional(rollbackFor = DatabaseOperationException.class)
+  public List<ProductChange> append(List<ProductChange> changes) throws DatabaseOperationException {
+    if (changes == null || changes.contains(null)) {
+      throw new IllegalArgumentException("Changes cannot be null");
+    }
+    if (changes.isEmpty()) {
+      return Collections.emptyList();
+    }
+    try {
+      productChangeCounterRepository.advance(changes.size());
+      Object[] sequences = productChangeCounterRepository.findSequences().get(0);
+      long lastSequence = ((Number) sequences[0]).longValue();
+      long prunedSequence = ((Number) sequences[1]).longValue();
+      long sequence = lastSequence - changes.size();
+      List<ProductChangeRecord> records = new ArrayList<>(changes.size());
+      List<ProductChange> appendedChanges = new ArrayList<>(changes.size());
+      for (ProductChange change : changes) {
+        byte[] product = change.getProduct() == null ? null : ProductCodec.encode(change.getProduct());
+        records.add(new ProductChangeRecord(++sequence, change.getType(), change.getProductId(), product));
+        appendedChanges.add(change.withSequence(sequence));
+      }
+      productChangeRepository.saveAll(records);
+      if (lastSequence - prunedSequence >= capacity + pruneBatchSize) {
+        productChangeCounterRepository.prune(lastSequence - capacity);
+        productChangeRepository.deleteUpTo(lastSequence - capacity);
+      }
+      return appendedChanges;
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while saving product changes.", e);
+    }
+  }
+
+  @Override
+  public Optional<List<ProductChange>> findAfter(long since, int limit) throws DatabaseOperationException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    try {
+      List<ProductChangeRecord> records = productChangeRepository.findAfter(since, PageRequest.of(0, limit));
+      if (records.isEmpty()) {
+        Object[] sequences = productChangeCounterRepository.findSequences().get(0);
+        boolean kept = since <= ((Number) sequences[0]).longValue() && since >= ((Number) sequences[1]).longValue();
+        return kept ? Optional.of(Collections.emptyList()) : Optional.empty();
+      }
+      // Changes are numbered without gaps, so a missing first one was deleted.
+      if (records.get(0).getId() != since + 1) {
+        return Optional.empty();
+      }
+      List<ProductChange> changes = new ArrayList<>(records.size());
+      for (ProductChangeRecord record : records) {
+        Product product = record.getProduct() == null ? null : ProductCodec.decode(ByteBuffer.wrap(record.getProduct()));
+        changes.add(new ProductChange(record.getId(), record.getType(), record.getProductId(), product));
+      }
+      return Optional.of(changes);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while reading product changes.", e);
+    }
+  }
+
+  @Override
+  public long lastSequence() throws DatabaseOperationException {
+    try {
+      return ((Number) productChangeCounterRepository.findSequences().get(0)[0]).longValue();
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while reading product changes.", e);
+    }
+  }
+
+  private void createCounter() throws DatabaseOperationException {
+    try {
+      if (productChangeCounterRepository.existsById(ProductChangeCounter.ID)) {
+        return;
+      }
+      Object[] bounds = productChangeRepository.findBounds().get(0);
+      long lastSequence = bounds[1] == null ? 0 : ((Number) bounds[1]).longValue();
+      long prunedSequence = bounds[0] == null ? lastSequence : ((Number) bounds[0]).longValue() - 1;
+      // Inserted and flushed right away, a row created by another instance meanwhile fails on its key.
+      productChangeCounterRepository.saveAndFlush(new ProductChangeCounter(lastSequence, prunedSequence));
+    } catch (DataIntegrityViolationException e) {
+      // Created by another instance meanwhile, its row is kept as it is.
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while reading product changes.", e);
+    }
+  }
+}
@@ -1,49 +1,347 @@
 package application.database;
 
+import application.model.Description;
+import application.model.LanguageCodes;
+import application.model.Name;
+import application.model.PartialProduct;
+import application.model.Price;
 import application.model.Product;
+import application.model.ProductField;
+import application.model.Translation;
+import application.model.Translations;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Stores products in the product table and their translations as rows of the product_translation
+ * table, which are read together with the products they belong to, one query per list of products.
+ * Reads of some fields select only their columns and read translations only when asked for.
+ * Languages which cannot be packed into a code are given one by the {@link LanguageDictionary} before
+ * they are written.
+ *
+ * <p>The catalog version is the sequence number of the last change in the product_change_counter row,
+ * which every write of the product service advances in its own transaction, so it only grows.
+ */
 @ConditionalOnProperty(name = "application.database", havingValue = "hibernate")
 @Repository
 public class HibernateProductDatabase implements ProductDatabase {
 
+  private static final BigDecimal LOWEST_PRICE = BigDecimal.valueOf(Long.MIN_VALUE);
+  private static final BigDecimal HIGHEST_PRICE = BigDecimal.valueOf(Long.MAX_VALUE);
+  private static final int FOR_EACH_BATCH_SIZE = 500;
+
   private HibernateProductRepository hibernateProductRepository;
+  private ProductTranslationRepository productTranslationRepository;
+  private ProductChangeCounterRepository productChangeCounterRepository;
+  private LanguageDictionary languageDictionary;
+  private EntityManager entityManager;
 
   @Autowired
-  public HibernateProductDatabase(HibernateProductRepository hibernateProductRepository) {
+  public HibernateProductDatabase(HibernateProductRepository hibernateProductRepository,
+                                  ProductTranslationRepository productTranslationRepository,
+                                  ProductChangeCounterRepository productChangeCounterRepository,
+                                  LanguageDictionary languageDictionary, EntityManager entityManager) {
     this.hibernateProductRepository = hibernateProductRepository;
+    this.productTranslationRepository = productTranslationRepository;
+    this.productChangeCounterRepository = productChangeCounterRepository;
+    this.languageDictionary = languageDictionary;
+    this.entityManager = entityManager;
   }
+
   @Override
+  @Transactional
   public Optional<Product> save(Product product) throws DatabaseOperationException {
     if (product == null) {
       throw new IllegalArgumentException("Product cannot be null");
     }
+    registerLanguages(Collections.singletonList(product));
+    try {
+      boolean existing = product.getId() != null;
+      withCurrentVersions(Collections.singletonList(product));
+      Product savedProduct = hibernateProductRepository.save(product);
+      savedProduct.setTranslations(product.getTranslations());
+      saveTranslations(Collections.singletonList(savedProduct), existing);
+      return Optional.of(savedProduct);
+    } catch (NonTransientDataAccessException | OptimisticLockingFailureException e) {
+      throw new DatabaseOperationException("An error while saving product.", e);
+    }
+  }
+
+  @Override
+  @Transactional
+  public Optional<List<Product>> saveAll(List<Product> products) throws DatabaseOperationException {
+    if (products == null || products.contains(null)) {
+      throw new IllegalArgumentException("Products cannot be null");
+    }
+    registerLanguages(products);
+    try {
+      boolean existing = products.stream().anyMatch(product -> product.getId() != null);
+      withCurrentVersions(products);
+      List<Product> savedProducts = hibernateProductRepository.saveAll(products);
+      for (int i = 0; i < savedProducts.size(); i++) {
+        savedProducts.get(i).setTranslations(products.get(i).getTranslations());
+      }
+      saveTranslations(savedProducts, existing);
+      return Optional.of(savedProducts);
+    } catch (NonTransientDataAccessException | OptimisticLockingFailureException e) {
+      throw new DatabaseOperationException("An error while saving products.", e);
+    }
+  }
+
+  @Override
+  @Transactional
+  public Optional<Product> insertIfAbsent(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    registerLanguages(Collections.singletonList(product));
     try {
-      return Optional.of(hibernateProductRepository.save(product));
+      if (product.getId() != null && hibernateProductRepository.existsById(product.getId())) {
+        return Optional.empty();
+      }
+      product.setId(null);
+      product.setVersion(null);
+      Product savedProduct = hibernateProductRepository.save(product);
+      savedProduct.setTranslations(product.getTranslations());
+      saveTranslations(Collections.singletonList(savedProduct), false);
+      return Optional.of(savedProduct);
     } catch (NonTransientDataAccessException e) {
       throw new DatabaseOperationException("An error while saving product.", e);
     }
   }
 
+  @Override
+  @Transactional
+  public Optional<Product> updateIfExists(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    if (product.getId() == null) {
+      return Optional.empty();
+    }
+    registerLanguages(Collections.singletonList(product));
+    try {
+      if (hibernateProductRepository.updateIfExists(product) == 0) {
+        return Optional.empty();
+      }
+      product.setVersion(hibernateProductRepository.findVersionById(product.getId()).orElse(null));
+      saveTranslations(Collections.singletonList(product), true);
+      return Optional.of(product);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while saving product.", e);
+    }
+  }
+
+  @Override
+  @Transactional
+  public Optional<Product> updateIfVersionMatches(Product product, long version) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    if (product.getId() == null) {
+      return Optional.empty();
+    }
+    registerLanguages(Collections.singletonList(product));
+    try {
+      if (hibernateProductRepository.updateIfVersionMatches(product, version) == 0) {
+        return Optional.empty();
+      }
+      product.setVersion(version + 1);
+      saveTranslations(Collections.singletonList(product), true);
+      return Optional.of(product);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while saving product.", e);
+    }
+  }
+
+  @Override
+  public Optional<Long> findVersionById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    try {
+      return hibernateProductRepository.findVersionById(id);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for product.", e);
+    }
+  }
+
+  @Override
+  public String catalogVersion() throws DatabaseOperationException {
+    try {
+      List<Object[]> sequences = productChangeCounterRepository.findSequences();
+      return sequences.isEmpty() ? "0" : String.valueOf(sequences.get(0)[0]);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for products.", e);
+    }
+  }
+
   @Override
   public Optional<Product> findById(Long id) throws DatabaseOperationException {
     if (id == null) {
       throw new IllegalArgumentException("Id cannot be null");
     }
     try {
-      return hibernateProductRepository.findById(id);
-    } catch (NoSuchElementException e) {
+      Optional<Product> product = hibernateProductRepository.findById(id);
+      product.ifPresent(found -> withTranslations(Collections.singletonList(found)));
+      return product;
+    } catch (NoSuchElementException | NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for product.", e);
+    }
+  }
+
+  @Override
+  public Optional<Product> findById(Long id, Set<ProductField> fields) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null");
+    }
+    if (fields.containsAll(ProductField.ALL)) {
+      return findById(id);
+    }
+    try {
+      TypedQuery<Tuple> query = entityManager.createQuery(selectFields(fields) + " where p.id = :id", Tuple.class);
+      List<Product> products = toPartialProducts(query.setParameter("id", id).getResultList(), fields);
+      return products.isEmpty() ? Optional.empty() : Optional.of(products.get(0));
+    } catch (NonTransientDataAccessException e) {
       throw new DatabaseOperationException("An error while searching for product.", e);
     }
   }
 
+  @Override
+  public Optional<Product> findLocalizedById(Long id, List<String> languages) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    if (languages == null || languages.contains(null)) {
+      throw new IllegalArgumentException("Languages cannot be null");
+    }
+    try {
+      Optional<Product> product = hibernateProductRepository.findById(id);
+      if (!product.isPresent()) {
+        return product;
+      }
+      List<Short> languageCodes = new ArrayList<>();
+      for (String language : languages) {
+        if (language.equalsIgnoreCase(product.get().language())) {
+          break;
+        }
+        int code = LanguageCodes.lookup(language);
+        if (code != LanguageCodes.NOT_ENCODABLE) {
+          languageCodes.add((short) code);
+        }
+      }
+      if (!languageCodes.isEmpty()) {
+        setTranslations(product.get(), productTranslationRepository.findByProductIdAndLanguageCodes(id, languageCodes));
+      }
+      return Optional.of(product.get().localized(languages));
+    } catch (NoSuchElementException | NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for product.", e);
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> findByName(String name) throws DatabaseOperationException {
+    if (name == null) {
+      throw new IllegalArgumentException("Name cannot be null");
+    }
+    try {
+      return Optional.of(withTranslations(hibernateProductRepository.findByNameValue(name)));
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for products by name.", e);
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> findByPrice(PriceQuery query, int limit) throws DatabaseOperationException {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    boolean descending = query.isDescending();
+    BigDecimal start = descending ? query.getMaxPrice() : query.getMinPrice();
+    BigDecimal end = descending ? query.getMinPrice() : query.getMaxPrice();
+    start = start == null ? (descending ? HIGHEST_PRICE : LOWEST_PRICE) : start;
+    end = end == null ? (descending ? LOWEST_PRICE : HIGHEST_PRICE) : end;
+    Long afterId = descending ? Long.MAX_VALUE : Long.MIN_VALUE;
+    if (query.getAfterPrice() != null) {
+      int position = query.getAfterPrice().compareTo(start);
+      if (position == 0) {
+        afterId = query.getAfterId();
+      } else if (descending ? position < 0 : position > 0) {
+        start = query.getAfterPrice();
+        afterId = query.getAfterId();
+      }
+    }
+    PageRequest page = PageRequest.of(0, limit);
+    try {
+      if (query.getCurrency() == null) {
+        return Optional.of(withTranslations(descending
+            ? hibernateProductRepository.findByPriceDescending(start, end, afterId, page)
+            : hibernateProductRepository.findByPriceAscending(start, end, afterId, page)));
+      }
+      return Optional.of(withTranslations(descending
+          ? hibernateProductRepository.findByCurrencyAndPriceDescending(query.getCurrency(), start, end, afterId, page)
+          : hibernateProductRepository.findByCurrencyAndPriceAscending(query.getCurrency(), start, end, afterId, page)));
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for products by price.", e);
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> search(SearchQuery query, Long after, int limit) throws DatabaseOperationException {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    try {
+      return Optional.of(withTranslations(hibernateProductRepository.search(toTextSearchQuery(query), after == null ? 0L : after, limit)));
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for products.", e);
+    }
+  }
+
+  /**
+   * Returns the query in PostgreSQL tsquery syntax, words contain only letters and digits, so they need
+   * no quoting.
+   */
+  static String toTextSearchQuery(SearchQuery query) {
+    StringJoiner textSearchQuery = new StringJoiner(" & ");
+    query.getWords().forEach(textSearchQuery::add);
+    if (query.getPrefix() != null) {
+      textSearchQuery.add(query.getPrefix() + ":*");
+    }
+    return textSearchQuery.toString();
+  }
+
   @Override
   public long count() throws DatabaseOperationException {
     try {
@@ -65,33 +363,277 @@ public class HibernateProductDatabase implements ProductDatabase {
     }
   }
 
+  @Override
+  public List<Long> findExistingIds(List<Long> ids) throws DatabaseOperationException {
+    if (ids == null || ids.contains(null)) {
+      throw new IllegalArgumentException("Ids cannot be null");
+    }
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    try {
+      return hibernateProductRepository.findExistingIds(ids);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for products.", e);
+    }
+  }
+
   @Override
   public Optional<List<Product>> findAll() throws DatabaseOperationException {
     try {
-      return Optional.of(hibernateProductRepository.findAll());
+      List<Product> products = hibernateProductRepository.findAll();
+      if (!products.isEmpty()) {
+        setTranslations(products, productTranslationRepository.findAll());
+      }
+      return Optional.of(products);
     } catch (NonTransientDataAccessException e) {
       throw new DatabaseOperationException("An error while searching for products.", e);
     }
   }
 
   @Override
+  public Optional<List<Product>> findAllAfter(Long after, int limit) throws DatabaseOperationException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    try {
+      return Optional.of(withTranslations(hibernateProductRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, PageRequest.of(0, limit))));
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for products.", e);
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> findAllAfter(Long after, int limit, Set<ProductField> fields) throws DatabaseOperationException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null");
+    }
+    if (fields.containsAll(ProductField.ALL)) {
+      return findAllAfter(after, limit);
+    }
+    try {
+      TypedQuery<Tuple> query = entityManager.createQuery(selectFields(fields) + " where p.id > :after order by p.id", Tuple.class);
+      query.setParameter("after", after == null ? 0L : after).setMaxResults(limit);
+      return Optional.of(toPartialProducts(query.getResultList(), fields));
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while searching for products.", e);
+    }
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void forEach(Consumer<Product> action) throws DatabaseOperationException {
+    if (action == null) {
+      throw new IllegalArgumentException("Action cannot be null");
+    }
+    try (Stream<Product> products = hibernateProductRepository.streamAllByOrderById()) {
+      List<Product> batch = new ArrayList<>(FOR_EACH_BATCH_SIZE);
+      products.forEach(product -> {
+        entityManager.detach(product);
+        batch.add(product);
+        if (batch.size() == FOR_EACH_BATCH_SIZE) {
+          withTranslations(batch).forEach(action);
+          batch.clear();
+        }
+      });
+      withTranslations(batch).forEach(action);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while streaming products.", e);
+    }
+  }
+
+  @Override
+  @Transactional
   public void deleteById(Long id) throws DatabaseOperationException {
     if (id == null) {
       throw new IllegalArgumentException("Id cannot be null");
     }
     try {
+      productTranslationRepository.deleteByProductIds(Collections.singletonList(id));
       hibernateProductRepository.deleteById(id);
     } catch (EmptyResultDataAccessException e) {
       throw new DatabaseOperationException("There was no product in database.", e);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while deleting product.", e);
+    }
+  }
+
+  @Override
+  @Transactional
+  public void deleteAllById(List<Long> ids) throws DatabaseOperationException {
+    if (ids == null || ids.contains(null)) {
+      throw new IllegalArgumentException("Ids cannot be null");
+    }
+    try {
+      if (!ids.isEmpty()) {
+        productTranslationRepository.deleteByProductIds(ids);
+      }
+      hibernateProductRepository.deleteAll(hibernateProductRepository.findAllById(ids));
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while deleting products.", e);
+    }
+  }
+
+  @Override
+  @Transactional
+  public boolean deleteIfExists(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    try {
+      productTranslationRepository.deleteByProductIds(Collections.singletonList(id));
+      return hibernateProductRepository.deleteIfExists(id) > 0;
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while deleting product.", e);
     }
   }
 
   @Override
+  @Transactional
   public void deleteAll() throws DatabaseOperationException {
     try {
+      productTranslationRepository.deleteAllInBatch();
       hibernateProductRepository.deleteAll();
     } catch (NonTransientDataAccessException e) {
       throw new DatabaseOperationException("An error while deleting all products.", e);
     }
   }
+
+  /**
+   * Returns a query selecting the id, the version and the columns of the passed fields, by their lower
+   * case names.
+   */
+  static String selectFields(Set<ProductField> fields) {
+    StringJoiner select = new StringJoiner(", ", "select ", " from Product p");
+    select.add("p.id as id").add("p.version as version");
+    if (fields.contains(ProductField.NAME)) {
+      select.add("p.name as name");
+    }
+    if (fields.contains(ProductField.DESCRIPTION)) {
+      select.add("p.description as description");
+    }
+    if (fields.contains(ProductField.PRICE)) {
+      select.add("p.price as price");
+    }
+    return select.toString();
+  }
+
+  private List<Product> toPartialProducts(List<Tuple> rows, Set<ProductField> fields) {
+    List<Product> products = new ArrayList<>(rows.size());
+    for (Tuple row : rows) {
+      Product product = new Product(row.get("id", Long.class),
+          fields.contains(ProductField.NAME) ? row.get("name", Name.class) : null,
+          fields.contains(ProductField.DESCRIPTION) ? row.get("description", Description.class) : null,
+          fields.contains(ProductField.PRICE) ? row.get("price", Price.class) : null);
+      product.setVersion(row.get("version", Long.class));
+      products.add(product);
+    }
+    if (fields.contains(ProductField.TRANSLATIONS)) {
+      withTranslations(products);
+    }
+    Set<ProductField> fieldsWithId = ProductField.withId(fields);
+    products.replaceAll(product -> PartialProduct.of(product, fieldsWithId));
+    return products;
+  }
+
+  /**
+   * Sets the current versions of products with ids but without a version, which are saved over the
+   * existing ones, and drops the ids which do not exist so the products are inserted with new ones.
+   */
+  private void withCurrentVersions(List<Product> products) {
+    List<Long> ids = new ArrayList<>();
+    for (Product product : products) {
+      if (product.getId() != null && product.getVersion() == null) {
+        ids.add(product.getId());
+      }
+    }
+    if (ids.isEmpty()) {
+      return;
+    }
+    Map<Long, Long> versions = new HashMap<>();
+    for (Object[] row : hibernateProductRepository.findVersions(ids)) {
+      versions.put((Long) row[0], (Long) row[1]);
+    }
+    for (Product product : products) {
+      if (product.getId() != null && product.getVersion() == null) {
+        product.setVersion(versions.get(product.getId()));
+        if (product.getVersion() == null) {
+          product.setId(null);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gives the languages of the products and their translations which cannot be packed a code, before
+   * they are written.
+   */
+  private void registerLanguages(List<Product> products) throws DatabaseOperationException {
+    List<String> languages = new ArrayList<>();
+    for (Product product : products) {
+      if (product.getName() != null) {
+        languages.add(product.getName().getLanguage());
+      }
+      if (product.getDescription() != null) {
+        languages.add(product.getDescription().getLanguage());
+      }
+      languages.addAll(product.getTranslations().getLanguages());
+    }
+    languageDictionary.register(languages);
+  }
+
+  /**
+   * Stores the translations of saved products, replacing the ones they had when they may have
+   * existed before.
+   */
+  private void saveTranslations(List<Product> products, boolean existing) {
+    List<Long> ids = new ArrayList<>(products.size());
+    List<ProductTranslation> translations = new ArrayList<>();
+    for (Product product : products) {
+      ids.add(product.getId());
+      Translations productTranslations = product.getTranslations();
+      for (String language : productTranslations.getLanguages()) {
+        translations.add(new ProductTranslation(product.getId(), language, productTranslations.get(language)));
+      }
+    }
+    if (existing) {
+      productTranslationRepository.deleteByProductIds(ids);
+    }
+    translations.forEach(entityManager::persist);
+  }
+
+  /**
+   * Reads the translations of the products in one query.
+   */
+  private List<Product> withTranslations(List<Product> products) {
+    if (!products.isEmpty()) {
+      List<Long> ids = new ArrayList<>(products.size());
+      products.forEach(product -> ids.add(product.getId()));
+      setTranslations(products, productTranslationRepository.findByProductIds(ids));
+    }
+    return products;
+  }
+
+  private static void setTranslations(Product product, List<ProductTranslation> rows) {
+    setTranslations(Collections.singletonList(product), rows);
+  }
+
+  private static void setTranslations(List<Product> products, List<ProductTranslation> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    Map<Long, Map<String, Translation>> translations = new HashMap<>();
+    for (ProductTranslation row : rows) {
+      translations.computeIfAbsent(row.getProductId(), id -> new LinkedHashMap<>()).put(row.getLanguage(), row.toTranslation());
+    }
+    for (Product product : products) {
+      Map<String, Translation> productTranslations = translations.get(product.getId());
+      if (productTranslations != null) {
+        product.setTranslations(Translations.of(productTranslations));
+      }
+    }
+  }
 }
@@ -1,7 +1,120 @@
 package application.database;
 
+import application.model.Description;
+import application.model.Name;
+import application.model.Price;
 import application.model.Product;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface HibernateProductRepository extends JpaRepository<Product, Long> {
+
+  // Values are bound as plain parameters, SpEL expressions would be evaluated in a new context for every call.
+  String UPDATE_PRODUCT = "update Product p set "
+      + "p.name.id = :nameId, p.name.language = :nameLanguage, p.name.value = :nameValue, "
+      + "p.description.id = :descriptionId, p.description.language = :descriptionLanguage, p.description.value = :descriptionValue, "
+      + "p.price.id = :priceId, p.price.price = :price, p.price.currency = :currency, "
+      + "p.version = p.version + 1 ";
+
+  List<Product> findByNameValue(String value);
+
+  @Query("select p.id from Product p where p.id in :ids")
+  List<Long> findExistingIds(@Param("ids") List<Long> ids);
+
+  /**
+   * Saves the product over the existing one, in one statement, and returns the number of updated rows.
+   */
+  default int updateIfExists(Product product) {
+    Name name = product.getName() == null ? new Name() : product.getName();
+    Description description = product.getDescription() == null ? new Description() : product.getDescription();
+    Price price = product.getPrice() == null ? new Price() : product.getPrice();
+    return updateIfExists(product.getId(), name.getId(), name.getLanguage(), name.getValue(),
+        description.getId(), description.getLanguage(), description.getValue(), price.getId(), price.getPrice(), price.getCurrency());
+  }
+
+  /**
+   * Saves the product over the existing one when that still has the passed version, in one statement,
+   * and returns the number of updated rows.
+   */
+  default int updateIfVersionMatches(Product product, long version) {
+    Name name = product.getName() == null ? new Name() : product.getName();
+    Description description = product.getDescription() == null ? new Description() : product.getDescription();
+    Price price = product.getPrice() == null ? new Price() : product.getPrice();
+    return updateIfVersionMatches(product.getId(), version, name.getId(), name.getLanguage(), name.getValue(),
+        description.getId(), description.getLanguage(), description.getValue(), price.getId(), price.getPrice(), price.getCurrency());
+  }
+
+  @Modifying
+  @Query(UPDATE_PRODUCT + "where p.id = :id")
+  int updateIfExists(@Param("id") Long id,
+                     @Param("nameId") Long nameId, @Param("nameLanguage") String nameLanguage, @Param("nameValue") String nameValue,
+                     @Param("descriptionId") Long descriptionId, @Param("descriptionLanguage") String descriptionLanguage,
+                     @Param("descriptionValue") String descriptionValue,
+                     @Param("priceId") Long priceId, @Param("price") BigDecimal price, @Param("currency") Currency currency);
+
+  @Modifying
+  @Query(UPDATE_PRODUCT + "where p.id = :id and p.version = :version")
+  int updateIfVersionMatches(@Param("id") Long id, @Param("version") long version,
+                             @Param("nameId") Long nameId, @Param("nameLanguage") String nameLanguage, @Param("nameValue") String nameValue,
+                             @Param("descriptionId") Long descriptionId, @Param("descriptionLanguage") String descriptionLanguage,
+                             @Param("descriptionValue") String descriptionValue,
+                             @Param("priceId") Long priceId, @Param("price") BigDecimal price, @Param("currency") Currency currency);
+
+  @Query("select p.version from Product p where p.id = :id")
+  Optional<Long> findVersionById(@Param("id") Long id);
+
+  @Query("select p.id, p.version from Product p where p.id in :ids")
+  List<Object[]> findVersions(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Query("delete from Product p where p.id = :id")
+  int deleteIfExists(@Param("id") Long id);
+
+  List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  // Price queries seek from start, the greater of the range bound and the price of the previous page,
+  // on the (price_amount, id) indexes; the id only decides among products with a price equal to start.
+
+  @Query("select p from Product p where p.price.price >= :start and p.price.price <= :end "
+      + "and (p.price.price > :start or p.id > :afterId) order by p.price.price asc, p.id asc")
+  List<Product> findByPriceAscending(@Param("start") BigDecimal start, @Param("end") BigDecimal end,
+                                     @Param("afterId") Long afterId, Pageable pageable);
+
+  @Query("select p from Product p where p.price.price <= :start and p.price.price >= :end "
+      + "and (p.price.price < :start or p.id < :afterId) order by p.price.price desc, p.id desc")
+  List<Product> findByPriceDescending(@Param("start") BigDecimal start, @Param("end") BigDecimal end,
+                                      @Param("afterId") Long afterId, Pageable pageable);
+
+  @Query("select p from Product p where p.price.currency = :currency and p.price.price >= :start and p.price.price <= :end "
+      + "and (p.price.price > :start or p.id > :afterId) order by p.price.price asc, p.id asc")
+  List<Product> findByCurrencyAndPriceAscending(@Param("currency") Currency currency, @Param("start") BigDecimal start,
+                                                @Param("end") BigDecimal end, @Param("afterId") Long afterId, Pageable pageable);
+
+  @Query("select p from Product p where p.price.currency = :currency and p.price.price <= :start and p.price.price >= :end "
+      + "and (p.price.price < :start or p.id < :afterId) order by p.price.price desc, p.id desc")
+  List<Product> findByCurrencyAndPriceDescending(@Param("currency") Currency currency, @Param("start") BigDecimal start,
+                                                 @Param("end") BigDecimal end, @Param("afterId") Long afterId, Pageable pageable);
+
+  // Full-text search needs PostgreSQL, the expression matches product_search_index of V5__product_search_index.sql.
+  @Query(value = "select * from product "
+      + "where to_tsvector('simple', coalesce(name_value, '') || ' ' || coalesce(description_value, '')) @@ to_tsquery('simple', :query) "
+      + "and id > :after order by id limit :limit", nativeQuery = true)
+  List<Product> search(@Param("query") String query, @Param("after") Long after, @Param("limit") int limit);
+
+  @QueryHints({
+      @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+  @Query("select p from Product p order by p.id")
+  Stream<Product> streamAllByOrderById();
 }
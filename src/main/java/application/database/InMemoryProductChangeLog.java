@@ -0,0 +1,105 @@
+package application.database;
+
+import application.model.Product;
+import application.model.ProductChange;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the latest changes in a ring buffer, overwriting the oldest change once it is full. Products
+ * are kept {@link ProductCodec encoded}, so a change costs only its bytes and later changes of the
+ * saved product object do not reach it.
+ *
+ * <p>The first change is numbered with the time the log was created in milliseconds, so sequence
+ * numbers a consumer kept from an earlier run are past the last change of this one, which the consumer
+ * is told, rather than naming some other change.
+ */
+public class InMemoryProductChangeLog implements ProductChangeLog {
+
+  private final ProductChange.Type[] types;
+  private final long[] productIds;
+  private final byte[][] products;
+  private final long firstSequence = System.currentTimeMillis();
+  private long nextSequence = firstSequence;
+
+  public InMemoryProductChangeLog(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    types = new ProductChange.Type[capacity];
+    productIds = new long[capacity];
+    products = new byte[capacity][];
+  }
+
+  @Override
+  public List<ProductChange> append(List<ProductChange> changes) {
+    if (changes == null || changes.contains(null)) {
+      throw new IllegalArgumentException("Changes cannot be null");
+    }
+    // Encoded before taking the lock, appends wait for each other only to copy references.
+    List<byte[]> encodedProducts = new ArrayList<>(changes.size());
+    for (ProductChange change : changes) {
+      encodedProducts.add(change.getProduct() == null ? null : ProductCodec.encode(change.getProduct()));
+    }
+    List<ProductChange> appendedChanges = new ArrayList<>(changes.size());
+    synchronized (this) {
+      for (int i = 0; i < changes.size(); i++) {
+        ProductChange change = changes.get(i);
+        int slot = slot(nextSequence);
+        types[slot] = change.getType();
+        productIds[slot] = change.getProductId();
+        products[slot] = encodedProducts.get(i);
+        appendedChanges.add(change.withSequence(nextSequence++));
+      }
+    }
+    return appendedChanges;
+  }
+
+  @Override
+  public Optional<List<ProductChange>> findAfter(long since, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    int count;
+    ProductChange.Type[] foundTypes;
+    long[] foundProductIds;
+    byte[][] foundProducts;
+    synchronized (this) {
+      long oldestSequence = Math.max(firstSequence, nextSequence - types.length);
+      if (since < oldestSequence - 1 || since >= nextSequence) {
+        return Optional.empty();
+      }
+      count = (int) Math.min(limit, nextSequence - 1 - since);
+      foundTypes = new ProductChange.Type[count];
+      foundProductIds = new long[count];
+      foundProducts = new byte[count][];
+      for (int i = 0; i < count; i++) {
+        int slot = slot(since + 1 + i);
+        foundTypes[i] = types[slot];
+        foundProductIds[i] = productIds[slot];
+        foundProducts[i] = products[slot];
+      }
+    }
+    if (count == 0) {
+      return Optional.of(Collections.emptyList());
+    }
+    List<ProductChange> changes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Product product = foundProducts[i] == null ? null : ProductCodec.decode(ByteBuffer.wrap(foundProducts[i]));
+      changes.add(new ProductChange(since + 1 + i, foundTypes[i], foundProductIds[i], product));
+    }
+    return Optional.of(changes);
+  }
+
+  @Override
+  public synchronized long lastSequence() {
+    return nextSequence - 1;
+  }
+
+  private int slot(long sequence) {
+    return (int) (sequence % types.length);
+  }
+}
@@ -1,96 +1,611 @@
 package application.database;
 
+import application.model.Price;
+import application.model.PartialProduct;
 import application.model.Product;
+import application.model.ProductField;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Currency;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Keeps products in concurrent maps on the heap.
+ *
+ * <p>Products with a price amount are also kept in sorted sets ordered by price and id, one over all
+ * products and one for each currency, so price range queries seek to the start of the range and
+ * read only the products they return. Words of names and descriptions are kept in a
+ * {@link ProductSearchIndex}.
+ *
+ * <p>When created with a {@link ProductJournal}, the products are recovered from it on startup and
+ * every change is appended to it within the same map operation that applies it, so the log has the
+ * changes of a product in the order they were applied. Writes return once the journal reports them
+ * durable. Snapshots are taken periodically and on shutdown, while writes are briefly held back so
+ * the snapshot matches a position in the log.
+ */
 @ConditionalOnProperty(name = "application.database", havingValue = "in-memory")
 @Repository
 public class InMemoryProductsDatabase implements ProductDatabase {
-  private Map<Long, Product> products = Collections.synchronizedMap(new HashMap<>());
+  private static final Logger log = LoggerFactory.getLogger(InMemoryProductsDatabase.class);
+
+  private ConcurrentMap<Long, Product> products = new ConcurrentHashMap<>();
+  private NavigableSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+  private ConcurrentMap<String, Set<Long>> productIdsByName = new ConcurrentHashMap<>();
+  private ConcurrentMap<Long, String> indexedNames = new ConcurrentHashMap<>();
+  private NavigableSet<PriceKey> productsByPrice = new ConcurrentSkipListSet<>();
+  private ConcurrentMap<Currency, NavigableSet<PriceKey>> productsByCurrencyAndPrice = new ConcurrentHashMap<>();
+  private ConcurrentMap<Long, PriceKey> indexedPrices = new ConcurrentHashMap<>();
+  private ProductSearchIndex searchIndex = new ProductSearchIndex();
   private AtomicLong counter = new AtomicLong();
-  private final Object lock = new Object();
+  private ProductVersions versions = new ProductVersions();
+  private ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+  private ProductJournal journal;
+  private ScheduledExecutorService snapshotScheduler;
+
+  public InMemoryProductsDatabase() {
+  }
+
+  @Autowired
+  public InMemoryProductsDatabase(ObjectProvider<ProductJournal> journal) throws DatabaseOperationException {
+    this(journal.getIfAvailable());
+  }
 
+  public InMemoryProductsDatabase(ProductJournal journal) throws DatabaseOperationException {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.recover(new ProductJournal.Replay() {
+        @Override
+        public void put(Product product) {
+          products.compute(product.getId(), (key, previous) -> replace(product));
+          counter.accumulateAndGet(product.getId(), Math::max);
+        }
+
+        @Override
+        public void delete(long id) {
+          remove(id);
+        }
+      });
+    } catch (IOException | RuntimeException e) {
+      throw new DatabaseOperationException("An error while recovering products from journal.", e);
+    }
+    this.journal = journal;
+    if (journal.getSnapshotIntervalMillis() > 0) {
+      snapshotScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "product-snapshot");
+        thread.setDaemon(true);
+        return thread;
+      });
+      snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot,
+          journal.getSnapshotIntervalMillis(), journal.getSnapshotIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
 
   @Override
   public Optional<Product> save(Product product) throws DatabaseOperationException {
-    synchronized (lock) {
-      if (product == null) {
-        throw new IllegalArgumentException("Product cannot be null");
-      }
-      if (isProductExist(product.getId())) {
-        products.put(product.getId(), product);
-        return Optional.of(product);
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    return durably(() -> Optional.of(store(product)));
+  }
+
+  @Override
+  public Optional<List<Product>> saveAll(List<Product> products) throws DatabaseOperationException {
+    if (products == null || products.contains(null)) {
+      throw new IllegalArgumentException("Products cannot be null");
+    }
+    return durably(() -> {
+      List<Product> savedProducts = new ArrayList<>(products.size());
+      for (Product product : products) {
+        savedProducts.add(store(product));
       }
-      long id = counter.incrementAndGet();
-      product.setId(id);
-      products.put(id, product);
-      return Optional.of(product);
+      return Optional.of(savedProducts);
+    });
+  }
+
+  @Override
+  public Optional<Product> insertIfAbsent(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    Long id = product.getId();
+    if (id != null && products.containsKey(id)) {
+      return Optional.empty();
     }
+    return durably(() -> Optional.of(insert(product)));
+  }
+
+  @Override
+  public Optional<Product> updateIfExists(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    Long id = product.getId();
+    if (id == null) {
+      return Optional.empty();
+    }
+    return durably(() -> Optional.ofNullable(products.computeIfPresent(id, (key, previous) -> replace(versioned(product, previous)))));
+  }
+
+  @Override
+  public Optional<Product> updateIfVersionMatches(Product product, long version) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    Long id = product.getId();
+    if (id == null) {
+      return Optional.empty();
+    }
+    return durably(() -> {
+      boolean[] updated = new boolean[1];
+      products.computeIfPresent(id, (key, previous) -> {
+        if (!Long.valueOf(version).equals(previous.getVersion())) {
+          return previous;
+        }
+        updated[0] = true;
+        return replace(versioned(product, previous));
+      });
+      return updated[0] ? Optional.of(product) : Optional.empty();
+    });
+  }
+
+  @Override
+  public Optional<Long> findVersionById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    return Optional.ofNullable(products.get(id)).map(Product::getVersion);
+  }
+
+  @Override
+  public String catalogVersion() {
+    return versions.catalogVersion();
   }
 
   @Override
   public Optional<Product> findById(Long id) throws DatabaseOperationException {
-    synchronized (lock) {
-      if (id == null) {
-        throw new IllegalArgumentException("Id cannot be null");
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    return Optional.ofNullable(products.get(id));
+  }
+
+  @Override
+  public Optional<Product> findById(Long id, Set<ProductField> fields) throws DatabaseOperationException {
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null");
+    }
+    return findById(id).map(product -> PartialProduct.of(product, ProductField.withId(fields)));
+  }
+
+  @Override
+  public Optional<Product> findLocalizedById(Long id, List<String> languages) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    if (languages == null || languages.contains(null)) {
+      throw new IllegalArgumentException("Languages cannot be null");
+    }
+    Product product = products.get(id);
+    return product == null ? Optional.empty() : Optional.of(product.localized(languages));
+  }
+
+  @Override
+  public Optional<List<Product>> findByName(String name) throws DatabaseOperationException {
+    if (name == null) {
+      throw new IllegalArgumentException("Name cannot be null");
+    }
+    Set<Long> ids = productIdsByName.getOrDefault(name, Collections.emptySet());
+    List<Product> foundProducts = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      Product product = products.get(id);
+      if (product != null && name.equals(nameOf(product))) {
+        foundProducts.add(product);
       }
-      return Optional.ofNullable(products.get(id));
     }
+    foundProducts.sort((first, second) -> Long.compare(first.getId(), second.getId()));
+    return Optional.of(foundProducts);
   }
 
   @Override
-  public long count() throws DatabaseOperationException {
-    synchronized (lock) {
-      return products.size();
+  public Optional<List<Product>> findByPrice(PriceQuery query, int limit) throws DatabaseOperationException {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    NavigableSet<PriceKey> keys = query.getCurrency() == null
+        ? productsByPrice
+        : productsByCurrencyAndPrice.getOrDefault(query.getCurrency(), Collections.emptyNavigableSet());
+    PriceKey from = query.getMinPrice() == null ? null : new PriceKey(query.getMinPrice(), Long.MIN_VALUE);
+    PriceKey to = query.getMaxPrice() == null ? null : new PriceKey(query.getMaxPrice(), Long.MAX_VALUE);
+    boolean fromInclusive = true;
+    boolean toInclusive = true;
+    if (query.getAfterPrice() != null) {
+      PriceKey after = new PriceKey(query.getAfterPrice(), query.getAfterId());
+      if (query.isDescending() && (to == null || after.compareTo(to) <= 0)) {
+        to = after;
+        toInclusive = false;
+      } else if (!query.isDescending() && (from == null || after.compareTo(from) >= 0)) {
+        from = after;
+        fromInclusive = false;
+      }
+    }
+    List<Product> foundProducts = new ArrayList<>(Math.min(limit, 1024));
+    if (from != null && to != null && from.compareTo(to) > 0) {
+      return Optional.of(foundProducts);
+    }
+    if (from != null && to != null) {
+      keys = keys.subSet(from, fromInclusive, to, toInclusive);
+    } else if (from != null) {
+      keys = keys.tailSet(from, fromInclusive);
+    } else if (to != null) {
+      keys = keys.headSet(to, toInclusive);
+    }
+    for (PriceKey key : query.isDescending() ? keys.descendingSet() : keys) {
+      Product product = products.get(key.id);
+      if (product != null && indexedPrices.get(key.id) == key) {
+        foundProducts.add(product);
+        if (foundProducts.size() == limit) {
+          break;
+        }
+      }
     }
+    return Optional.of(foundProducts);
+  }
+
+  @Override
+  public Optional<List<Product>> search(SearchQuery query, Long after, int limit) throws DatabaseOperationException {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    List<Long> ids = searchIndex.search(query, after, limit);
+    List<Product> foundProducts = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      Product product = products.get(id);
+      if (product != null) {
+        foundProducts.add(product);
+      }
+    }
+    return Optional.of(foundProducts);
+  }
+
+  @Override
+  public long count() throws DatabaseOperationException {
+    return products.size();
   }
 
   @Override
   public boolean existsById(Long id) {
-    synchronized (lock) {
-      if (id == null) {
-        throw new IllegalArgumentException("Id cannot be null");
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    return products.containsKey(id);
+  }
+
+  @Override
+  public List<Long> findExistingIds(List<Long> ids) {
+    if (ids == null || ids.contains(null)) {
+      throw new IllegalArgumentException("Ids cannot be null");
+    }
+    List<Long> existingIds = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      if (products.containsKey(id)) {
+        existingIds.add(id);
       }
-      return isProductExist(id);
     }
+    return existingIds;
   }
 
   @Override
   public Optional<List<Product>> findAll() throws DatabaseOperationException {
-    synchronized (lock) {
-      return Optional.of(new ArrayList<>(products.values()));
+    List<Product> allProducts = new ArrayList<>(products.size());
+    for (Long id : orderedIds) {
+      Product product = products.get(id);
+      if (product != null) {
+        allProducts.add(product);
+      }
     }
+    return Optional.of(allProducts);
   }
 
   @Override
-  public void deleteById(Long id) throws DatabaseOperationException {
-    synchronized (lock) {
-      if (id == null) {
-        throw new IllegalArgumentException("Id cannot be null");
+  public Optional<List<Product>> findAllAfter(Long after, int limit) throws DatabaseOperationException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    List<Product> page = new ArrayList<>(Math.min(limit, products.size()));
+    for (Long id : after == null ? orderedIds : orderedIds.tailSet(after, false)) {
+      Product product = products.get(id);
+      if (product != null) {
+        page.add(product);
+        if (page.size() == limit) {
+          break;
+        }
       }
-      if (!isProductExist(id)) {
-        throw new DatabaseOperationException("Product does not exist");
+    }
+    return Optional.of(page);
+  }
+
+  @Override
+  public Optional<List<Product>> findAllAfter(Long after, int limit, Set<ProductField> fields) throws DatabaseOperationException {
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null");
+    }
+    List<Product> page = findAllAfter(after, limit).orElseThrow(IllegalStateException::new);
+    page.replaceAll(product -> PartialProduct.of(product, ProductField.withId(fields)));
+    return Optional.of(page);
+  }
+
+  @Override
+  public void forEach(Consumer<Product> action) throws DatabaseOperationException {
+    if (action == null) {
+      throw new IllegalArgumentException("Action cannot be null");
+    }
+    for (Long id : orderedIds) {
+      Product product = products.get(id);
+      if (product != null) {
+        action.accept(product);
       }
-      products.remove(id);
     }
   }
 
+  @Override
+  public void deleteById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    if (!durably(() -> remove(id))) {
+      throw new DatabaseOperationException("Product does not exist");
+    }
+  }
+
+  @Override
+  public void deleteAllById(List<Long> ids) throws DatabaseOperationException {
+    if (ids == null || ids.contains(null)) {
+      throw new IllegalArgumentException("Ids cannot be null");
+    }
+    durably(() -> {
+      for (Long id : ids) {
+        remove(id);
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public boolean deleteIfExists(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    return durably(() -> remove(id));
+  }
+
   @Override
   public void deleteAll() throws DatabaseOperationException {
-    synchronized (lock) {
-      products.clear();
+    durably(() -> {
+      for (Long id : products.keySet()) {
+        remove(id);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Writes a snapshot of all products to the journal, so recovery only replays what came after it.
+   * Does nothing when there is no journal.
+   */
+  public void snapshot() throws DatabaseOperationException {
+    if (journal == null) {
+      return;
+    }
+    long sequence;
+    List<Product> snapshot;
+    snapshotLock.writeLock().lock();
+    try {
+      sequence = journal.lastSequence();
+      snapshot = new ArrayList<>(products.values());
+    } finally {
+      snapshotLock.writeLock().unlock();
+    }
+    try {
+      journal.writeSnapshot(sequence, snapshot);
+    } catch (IOException e) {
+      throw new DatabaseOperationException("An error while writing snapshot of products.", e);
     }
   }
 
-  private boolean isProductExist(long id) {
-    return products.containsKey(id);
+  @PreDestroy
+  public void close() throws DatabaseOperationException {
+    if (journal == null) {
+      return;
+    }
+    if (snapshotScheduler != null) {
+      snapshotScheduler.shutdownNow();
+    }
+    snapshot();
+    try {
+      journal.close();
+    } catch (IOException e) {
+      throw new DatabaseOperationException("An error while closing journal.", e);
+    }
+  }
+
+  private void scheduledSnapshot() {
+    try {
+      snapshot();
+    } catch (DatabaseOperationException | RuntimeException e) {
+      log.warn("Periodic snapshot of products failed.", e);
+    }
+  }
+
+  private <T> T durably(Write<T> write) throws DatabaseOperationException {
+    if (journal == null) {
+      try {
+        return write.run();
+      } finally {
+        versions.written();
+      }
+    }
+    T result;
+    snapshotLock.readLock().lock();
+    try {
+      result = write.run();
+    } catch (UncheckedIOException e) {
+      throw new DatabaseOperationException("An error while writing to journal.", e.getCause());
+    } finally {
+      snapshotLock.readLock().unlock();
+      versions.written();
+    }
+    try {
+      journal.sync();
+    } catch (IOException e) {
+      throw new DatabaseOperationException("An error while syncing journal.", e);
+    }
+    return result;
+  }
+
+  private Product store(Product product) {
+    Long id = product.getId();
+    if (id != null && products.computeIfPresent(id, (key, previous) -> replace(versioned(product, previous))) != null) {
+      return product;
+    }
+    return insert(product);
+  }
+
+  private boolean remove(Long id) {
+    boolean[] removed = new boolean[1];
+    products.computeIfPresent(id, (key, previous) -> {
+      if (journal != null) {
+        journal.appendDelete(key);
+      }
+      unindex(key);
+      orderedIds.remove(key);
+      removed[0] = true;
+      return null;
+    });
+    return removed[0];
+  }
+
+  private Product insert(Product product) {
+    long newId = counter.incrementAndGet();
+    product.setId(newId);
+    products.compute(newId, (key, previous) -> replace(versioned(product, null)));
+    return product;
+  }
+
+  private static Product versioned(Product product, Product previous) {
+    product.setVersion(ProductVersions.next(previous == null ? null : previous.getVersion()));
+    return product;
+  }
+
+  private Product replace(Product product) {
+    if (journal != null) {
+      journal.appendPut(product);
+    }
+    orderedIds.add(product.getId());
+    unindex(product.getId());
+    index(product.getId(), product);
+    return product;
+  }
+
+  private void index(Long id, Product product) {
+    Price price = product.getPrice();
+    if (price != null && price.hasAmount()) {
+      PriceKey priceKey = new PriceKey(new Price(null, price.getAmount(), price.getScale(), price.getCurrency()), id);
+      indexedPrices.put(id, priceKey);
+      productsByPrice.add(priceKey);
+      if (price.getCurrency() != null) {
+        productsByCurrencyAndPrice.computeIfAbsent(price.getCurrency(), currency -> new ConcurrentSkipListSet<>()).add(priceKey);
+      }
+    }
+    searchIndex.add(id, product);
+    String name = nameOf(product);
+    if (name != null) {
+      indexedNames.put(id, name);
+      productIdsByName.compute(name, (key, ids) -> {
+        Set<Long> indexedIds = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+        indexedIds.add(id);
+        return indexedIds;
+      });
+    }
+  }
+
+  private void unindex(Long id) {
+    PriceKey priceKey = indexedPrices.remove(id);
+    if (priceKey != null) {
+      productsByPrice.remove(priceKey);
+      if (priceKey.price.getCurrency() != null) {
+        productsByCurrencyAndPrice.get(priceKey.price.getCurrency()).remove(priceKey);
+      }
+    }
+    searchIndex.remove(id);
+    String name = indexedNames.remove(id);
+    if (name != null) {
+      productIdsByName.computeIfPresent(name, (key, ids) -> {
+        ids.remove(id);
+        return ids.isEmpty() ? null : ids;
+      });
+    }
+  }
+
+  private static String nameOf(Product product) {
+    return product.getName() == null ? null : product.getName().getValue();
+  }
+
+  /**
+   * Entry of the price indexes, a copy of the price of a product when it was indexed and its id.
+   */
+  private static final class PriceKey implements Comparable<PriceKey> {
+    private final Price price;
+    private final long id;
+
+    PriceKey(Price price, long id) {
+      this.price = price;
+      this.id = id;
+    }
+
+    PriceKey(BigDecimal price, long id) {
+      this(new Price(null, price, null), id);
+    }
+
+    @Override
+    public int compareTo(PriceKey other) {
+      int order = price.compareTo(other.price);
+      return order != 0 ? order : Long.compare(id, other.id);
+    }
+  }
+
+  @FunctionalInterface
+  private interface Write<T> {
+    T run() throws DatabaseOperationException;
   }
 }
@@ -0,0 +1,98 @@
+package application.database;
+
+import application.model.LanguageCodes;
+import java.util.Collection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Gives languages which cannot be packed into a {@link LanguageCodes code}, such as {@code English} or
+ * {@code en-US}, one of the codes above the packed ones and keeps them in the language table, so every
+ * application instance stores them alike. Packed codes need no row and no lookup.
+ *
+ * <p>Codes are handed out downwards from the highest one, each in its own transaction, which commits
+ * even when the write it was taken for does not. A code or language taken by another instance
+ * meanwhile fails the insert on the keys of the table, and the language is looked up again.
+ */
+@ConditionalOnProperty(name = "application.database", havingValue = "hibernate")
+@Component
+public class LanguageDictionary {
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final LanguageRecordRepository languageRecordRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  @Autowired
+  public LanguageDictionary(LanguageRecordRepository languageRecordRepository, PlatformTransactionManager transactionManager)
+      throws DatabaseOperationException {
+    this.languageRecordRepository = languageRecordRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    try {
+      languageRecordRepository.findAll().forEach(LanguageDictionary::registerRecord);
+    } catch (NonTransientDataAccessException e) {
+      throw new DatabaseOperationException("An error while reading languages.", e);
+    }
+    LanguageCodes.setDictionary(this::find);
+  }
+
+  /**
+   * Gives a code to each of the languages which cannot be packed and has none yet.
+   */
+  public void register(Collection<String> languages) throws DatabaseOperationException {
+    if (languages == null) {
+      throw new IllegalArgumentException("Languages cannot be null");
+    }
+    for (String language : languages) {
+      if (language != null && LanguageCodes.lookup(language) == LanguageCodes.NOT_ENCODABLE) {
+        register(language);
+      }
+    }
+  }
+
+  private synchronized void register(String language) throws DatabaseOperationException {
+    for (int attempt = 1; LanguageCodes.lookup(language) == LanguageCodes.NOT_ENCODABLE; attempt++) {
+      try {
+        LanguageRecord record = transactionTemplate.execute(status -> languageRecordRepository.findByLanguage(language)
+            .orElseGet(() -> insert(language)));
+        if (record == null) {
+          throw new DatabaseOperationException(String.format("There is no language code left for '%s'.", language));
+        }
+        registerRecord(record);
+      } catch (DataIntegrityViolationException e) {
+        if (attempt == MAX_ATTEMPTS) {
+          throw new DatabaseOperationException("An error while saving language.", e);
+        }
+      } catch (NonTransientDataAccessException e) {
+        throw new DatabaseOperationException("An error while saving language.", e);
+      }
+    }
+  }
+
+  /**
+   * Inserts the language with the code below the lowest one taken, or returns null when all are taken.
+   */
+  private LanguageRecord insert(String language) {
+    Short lowestCode = languageRecordRepository.findLowestCode();
+    int code = lowestCode == null ? LanguageCodes.MAX_DICTIONARY_CODE : (lowestCode & 0xFFFF) - 1;
+    if (code < LanguageCodes.MIN_DICTIONARY_CODE) {
+      return null;
+    }
+    return languageRecordRepository.saveAndFlush(new LanguageRecord((short) code, language));
+  }
+
+  private String find(int code) {
+    return languageRecordRepository.findById((short) code).map(LanguageRecord::getLanguage).orElse(null);
+  }
+
+  private static void registerRecord(LanguageRecord record) {
+    LanguageCodes.register(record.getId() & 0xFFFF, record.getLanguage());
+  }
+}
@@ -0,0 +1,45 @@
+package application.database;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Row of a language of {@link LanguageDictionary}, with the code it is stored as. Rows are always new
+ * when saved, so a code taken by another instance meanwhile fails the insert instead of being
+ * overwritten.
+ */
+@Entity
+@Table(name = "language")
+public class LanguageRecord implements Persistable<Short> {
+
+  @Id
+  private Short code;
+
+  @Column(nullable = false, unique = true)
+  private String language;
+
+  protected LanguageRecord() {
+  }
+
+  LanguageRecord(short code, String language) {
+    this.code = code;
+    this.language = language;
+  }
+
+  @Override
+  public Short getId() {
+    return code;
+  }
+
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+
+  String getLanguage() {
+    return language;
+  }
+}
@@ -0,0 +1,13 @@
+package application.database;
+
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface LanguageRecordRepository extends JpaRepository<LanguageRecord, Short> {
+
+  Optional<LanguageRecord> findByLanguage(String language);
+
+  @Query("select min(l.code) from LanguageRecord l")
+  Short findLowestCode();
+}
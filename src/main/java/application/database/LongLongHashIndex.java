@@ -0,0 +1,152 @@
+package application.database;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from positive {@code long} keys to {@code long} values, backed by
+ * primitive arrays. Uses linear probing with backward-shift deletion, so there are no tombstones.
+ * Not thread-safe.
+ */
+class LongLongHashIndex {
+
+  static final long NO_VALUE = -1L;
+
+  private static final long EMPTY = 0L;
+  private static final float LOAD_FACTOR = 0.6f;
+
+  private long[] keys;
+  private long[] values;
+  private int size;
+  private int mask;
+
+  LongLongHashIndex(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+    allocate(capacity);
+  }
+
+  long get(long key) {
+    int slot = slotOf(key);
+    return slot < 0 ? NO_VALUE : values[slot];
+  }
+
+  boolean containsKey(long key) {
+    return slotOf(key) >= 0;
+  }
+
+  long put(long key, long value) {
+    if (key <= EMPTY) {
+      throw new IllegalArgumentException("Key must be positive");
+    }
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        long previous = values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > keys.length * LOAD_FACTOR) {
+      resize(keys.length << 1);
+    }
+    return NO_VALUE;
+  }
+
+  long remove(long key) {
+    int slot = slotOf(key);
+    if (slot < 0) {
+      return NO_VALUE;
+    }
+    long previous = values[slot];
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = mix(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = EMPTY;
+    size--;
+    return previous;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  void forEach(Visitor visitor) {
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != EMPTY) {
+        visitor.visit(keys[slot], values[slot]);
+      }
+    }
+  }
+
+  void replaceValues(ValueMapper mapper) {
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != EMPTY) {
+        values[slot] = mapper.map(keys[slot], values[slot]);
+      }
+    }
+  }
+
+  private int slotOf(long key) {
+    if (key <= EMPTY) {
+      return -1;
+    }
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    allocate(capacity);
+    for (int slot = 0; slot < oldKeys.length; slot++) {
+      if (oldKeys[slot] != EMPTY) {
+        int target = mix(oldKeys[slot]) & mask;
+        while (keys[target] != EMPTY) {
+          target = (target + 1) & mask;
+        }
+        keys[target] = oldKeys[slot];
+        values[target] = oldValues[slot];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new long[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int mix(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  interface Visitor {
+    void visit(long key, long value);
+  }
+
+  interface ValueMapper {
+    long map(long key, long value);
+  }
+}
@@ -0,0 +1,635 @@
+package application.database;
+
+import application.model.PartialProduct;
+import application.model.Product;
+import application.model.ProductField;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keeps products as encoded records in a direct {@link ByteBuffer}, addressed through a primitive
+ * id-to-offset index. {@link Product} objects are only created when a caller reads them.
+ *
+ * <p>There are no secondary indexes on the heap, so {@link #findByName(String)} scans the encoded
+ * records and compares the name bytes in place, while {@link #findByPrice(PriceQuery, int)} and
+ * {@link #search(SearchQuery, Long, int)} decode products to find a page. They copy records in
+ * batches and decode them once the lock is released, a price page keeps only the best matches so far
+ * and decodes just their prices until it is complete, a search stops at the last match of its page.
+ *
+ * <p>Ids are assigned in increasing order, so keyset pages are served from an append-only array of
+ * ids in which deleted ids are skipped and periodically purged.
+ *
+ * <p>{@link #forEach(Consumer)} reads in batches so the lock is not held while the caller consumes
+ * products.
+ *
+ * <p>Updates append a new record and leave the previous one as garbage, which is reclaimed by
+ * compacting the region once it makes up more than half of it.
+ */
+@ConditionalOnProperty(name = "application.database", havingValue = "offheap")
+@Repository
+public class OffHeapProductsDatabase implements ProductDatabase {
+
+  private static final int INITIAL_CAPACITY = 1 << 20;
+  private static final int RECORD_HEADER_SIZE = Integer.BYTES;
+  // Some virtual machines reserve a few header words in arrays, buffers stay below their size limit.
+  private static final long MAX_REGION_CAPACITY = Integer.MAX_VALUE - 8;
+  private static final int FOR_EACH_BATCH_SIZE = 1000;
+  private static final Set<ProductField> ID_ONLY = Collections.unmodifiableSet(EnumSet.of(ProductField.ID));
+  private static final Set<ProductField> ID_AND_PRICE = Collections.unmodifiableSet(EnumSet.of(ProductField.ID, ProductField.PRICE));
+
+  private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+  private final Lock readLock = readWriteLock.readLock();
+  private final Lock writeLock = readWriteLock.writeLock();
+  private final LongLongHashIndex index = new LongLongHashIndex(1024);
+  private ByteBuffer region = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+  private long garbageBytes;
+  private long counter;
+  private long[] orderedIds = new long[1024];
+  private int orderedIdsSize;
+  private int deletedOrderedIds;
+  private final ProductVersions versions = new ProductVersions();
+
+  @Override
+  public Optional<Product> save(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    writeLock.lock();
+    try {
+      return Optional.of(store(product));
+    } catch (IllegalArgumentException e) {
+      throw new DatabaseOperationException("An error while saving product.", e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> saveAll(List<Product> products) throws DatabaseOperationException {
+    if (products == null || products.contains(null)) {
+      throw new IllegalArgumentException("Products cannot be null");
+    }
+    writeLock.lock();
+    try {
+      List<Product> savedProducts = new ArrayList<>(products.size());
+      for (Product product : products) {
+        savedProducts.add(store(product));
+      }
+      return Optional.of(savedProducts);
+    } catch (IllegalArgumentException e) {
+      throw new DatabaseOperationException("An error while saving products.", e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<Product> insertIfAbsent(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    writeLock.lock();
+    try {
+      Long id = product.getId();
+      if (id != null && index.containsKey(id)) {
+        return Optional.empty();
+      }
+      return Optional.of(store(product));
+    } catch (IllegalArgumentException e) {
+      throw new DatabaseOperationException("An error while saving product.", e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<Product> updateIfExists(Product product) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    writeLock.lock();
+    try {
+      Long id = product.getId();
+      if (id == null || !index.containsKey(id)) {
+        return Optional.empty();
+      }
+      return Optional.of(store(product));
+    } catch (IllegalArgumentException e) {
+      throw new DatabaseOperationException("An error while saving product.", e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<Product> updateIfVersionMatches(Product product, long version) throws DatabaseOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    writeLock.lock();
+    try {
+      Long id = product.getId();
+      long offset = id == null ? LongLongHashIndex.NO_VALUE : index.get(id);
+      if (offset == LongLongHashIndex.NO_VALUE || !Long.valueOf(version).equals(read(offset, ID_ONLY).getVersion())) {
+        return Optional.empty();
+      }
+      return Optional.of(store(product));
+    } catch (IllegalArgumentException e) {
+      throw new DatabaseOperationException("An error while saving product.", e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<Long> findVersionById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    readLock.lock();
+    try {
+      long offset = index.get(id);
+      return offset == LongLongHashIndex.NO_VALUE ? Optional.empty() : Optional.ofNullable(read(offset, ID_ONLY).getVersion());
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public String catalogVersion() {
+    return versions.catalogVersion();
+  }
+
+  @Override
+  public Optional<Product> findById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    readLock.lock();
+    try {
+      long offset = index.get(id);
+      return offset == LongLongHashIndex.NO_VALUE ? Optional.empty() : Optional.of(read(offset));
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<Product> findById(Long id, Set<ProductField> fields) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null");
+    }
+    readLock.lock();
+    try {
+      long offset = index.get(id);
+      return offset == LongLongHashIndex.NO_VALUE ? Optional.empty() : Optional.of(read(offset, ProductField.withId(fields)));
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<Product> findLocalizedById(Long id, List<String> languages) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    if (languages == null || languages.contains(null)) {
+      throw new IllegalArgumentException("Languages cannot be null");
+    }
+    readLock.lock();
+    try {
+      long offset = index.get(id);
+      return offset == LongLongHashIndex.NO_VALUE ? Optional.empty()
+          : Optional.of(ProductCodec.decode(recordAt(offset), ProductField.ALL, languages).localized(languages));
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> findByName(String name) throws DatabaseOperationException {
+    if (name == null) {
+      throw new IllegalArgumentException("Name cannot be null");
+    }
+    byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+    readLock.lock();
+    try {
+      List<Product> products = new ArrayList<>();
+      index.forEach((id, offset) -> {
+        if (ProductCodec.hasName(recordAt(offset), encodedName)) {
+          products.add(read(offset));
+        }
+      });
+      products.sort((first, second) -> Long.compare(first.getId(), second.getId()));
+      return Optional.of(products);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> findByPrice(PriceQuery query, int limit) throws DatabaseOperationException {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    // The worst of the best matches so far is on top, it is replaced by every better match.
+    PriorityQueue<PricedRecord> page = new PriorityQueue<>(Math.min(limit, FOR_EACH_BATCH_SIZE) + 1,
+        (first, second) -> query.compare(second.product, first.product));
+    RecordBatch batch = new RecordBatch(null);
+    do {
+      batch = copyRecordsAfter(batch.lastId);
+      for (byte[] record : batch.records) {
+        Product product = ProductCodec.decode(ByteBuffer.wrap(record), ID_AND_PRICE, null);
+        if (query.matches(product) && (page.size() < limit || query.compare(product, page.peek().product) < 0)) {
+          page.add(new PricedRecord(product, record));
+          if (page.size() > limit) {
+            page.poll();
+          }
+        }
+      }
+    } while (batch.records.size() == FOR_EACH_BATCH_SIZE);
+    List<PricedRecord> records = new ArrayList<>(page);
+    records.sort((first, second) -> query.compare(first.product, second.product));
+    List<Product> products = new ArrayList<>(records.size());
+    for (PricedRecord record : records) {
+      products.add(ProductCodec.decode(ByteBuffer.wrap(record.record)));
+    }
+    return Optional.of(products);
+  }
+
+  @Override
+  public Optional<List<Product>> search(SearchQuery query, Long after, int limit) throws DatabaseOperationException {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    List<Product> products = new ArrayList<>(Math.min(limit, FOR_EACH_BATCH_SIZE));
+    RecordBatch batch = new RecordBatch(after);
+    do {
+      batch = copyRecordsAfter(batch.lastId);
+      for (int i = 0; i < batch.records.size() && products.size() < limit; i++) {
+        Product product = ProductCodec.decode(ByteBuffer.wrap(batch.records.get(i)));
+        if (query.matches(SearchQuery.tokens(product))) {
+          products.add(product);
+        }
+      }
+    } while (products.size() < limit && batch.records.size() == FOR_EACH_BATCH_SIZE);
+    return Optional.of(products);
+  }
+
+  @Override
+  public long count() throws DatabaseOperationException {
+    readLock.lock();
+    try {
+      return index.size();
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean existsById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    readLock.lock();
+    try {
+      return index.containsKey(id);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public List<Long> findExistingIds(List<Long> ids) throws DatabaseOperationException {
+    if (ids == null || ids.contains(null)) {
+      throw new IllegalArgumentException("Ids cannot be null");
+    }
+    readLock.lock();
+    try {
+      List<Long> existingIds = new ArrayList<>(ids.size());
+      for (Long id : ids) {
+        if (index.containsKey(id)) {
+          existingIds.add(id);
+        }
+      }
+      return existingIds;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> findAll() throws DatabaseOperationException {
+    readLock.lock();
+    try {
+      List<Product> products = new ArrayList<>(index.size());
+      for (int position = 0; position < orderedIdsSize; position++) {
+        long offset = index.get(orderedIds[position]);
+        if (offset != LongLongHashIndex.NO_VALUE) {
+          products.add(read(offset));
+        }
+      }
+      return Optional.of(products);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<List<Product>> findAllAfter(Long after, int limit) throws DatabaseOperationException {
+    return findAllAfter(after, limit, ProductField.ALL);
+  }
+
+  @Override
+  public Optional<List<Product>> findAllAfter(Long after, int limit, Set<ProductField> fields) throws DatabaseOperationException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive");
+    }
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null");
+    }
+    Set<ProductField> fieldsWithId = ProductField.withId(fields);
+    readLock.lock();
+    try {
+      List<Product> products = new ArrayList<>(Math.min(limit, index.size()));
+      int position = after == null ? 0 : firstOrderedIdAfter(after);
+      for (; position < orderedIdsSize && products.size() < limit; position++) {
+        long offset = index.get(orderedIds[position]);
+        if (offset != LongLongHashIndex.NO_VALUE) {
+          products.add(read(offset, fieldsWithId));
+        }
+      }
+      return Optional.of(products);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public void forEach(Consumer<Product> action) throws DatabaseOperationException {
+    if (action == null) {
+      throw new IllegalArgumentException("Action cannot be null");
+    }
+    List<Product> batch;
+    Long after = null;
+    do {
+      batch = findAllAfter(after, FOR_EACH_BATCH_SIZE).orElseThrow(IllegalStateException::new);
+      for (Product product : batch) {
+        action.accept(product);
+        after = product.getId();
+      }
+    } while (batch.size() == FOR_EACH_BATCH_SIZE);
+  }
+
+  @Override
+  public void deleteById(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    writeLock.lock();
+    try {
+      if (!remove(id)) {
+        throw new DatabaseOperationException("Product does not exist");
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void deleteAllById(List<Long> ids) throws DatabaseOperationException {
+    if (ids == null || ids.contains(null)) {
+      throw new IllegalArgumentException("Ids cannot be null");
+    }
+    writeLock.lock();
+    try {
+      for (Long id : ids) {
+        remove(id);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean deleteIfExists(Long id) throws DatabaseOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    writeLock.lock();
+    try {
+      return remove(id);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void deleteAll() throws DatabaseOperationException {
+    writeLock.lock();
+    try {
+      index.clear();
+      region.clear();
+      garbageBytes = 0;
+      orderedIdsSize = 0;
+      deletedOrderedIds = 0;
+      versions.written();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private Product store(Product product) {
+    Long id = product.getId();
+    Long version = product.getVersion();
+    long previousOffset = id == null ? LongLongHashIndex.NO_VALUE : index.get(id);
+    boolean created = previousOffset == LongLongHashIndex.NO_VALUE;
+    long offset;
+    // Encoded and appended before anything else changes, so a save which fails leaves the database and
+    // the passed product as they were.
+    try {
+      if (created) {
+        product.setId(counter + 1);
+        product.setVersion(ProductVersions.next(null));
+      } else {
+        product.setVersion(ProductVersions.next(read(previousOffset, ID_ONLY).getVersion()));
+      }
+      offset = append(ProductCodec.encode(product));
+    } catch (RuntimeException e) {
+      product.setId(id);
+      product.setVersion(version);
+      throw e;
+    }
+    if (created) {
+      appendOrderedId(++counter);
+    }
+    index.put(product.getId(), offset);
+    if (!created) {
+      release(previousOffset);
+    }
+    versions.written();
+    return product;
+  }
+
+  private boolean remove(long id) {
+    long offset = index.remove(id);
+    if (offset == LongLongHashIndex.NO_VALUE) {
+      return false;
+    }
+    release(offset);
+    if (++deletedOrderedIds > orderedIdsSize / 2) {
+      purgeDeletedOrderedIds();
+    }
+    versions.written();
+    return true;
+  }
+
+  private Product read(long offset) {
+    return ProductCodec.decode(recordAt(offset));
+  }
+
+  private Product read(long offset, Set<ProductField> fields) {
+    return PartialProduct.of(ProductCodec.decode(recordAt(offset), fields, null), fields);
+  }
+
+  /**
+   * Copies the records of the next products in id order after the passed id, at most a batch of them,
+   * so they can be decoded without holding the lock.
+   */
+  private RecordBatch copyRecordsAfter(Long after) {
+    RecordBatch batch = new RecordBatch(after);
+    readLock.lock();
+    try {
+      int position = after == null ? 0 : firstOrderedIdAfter(after);
+      for (; position < orderedIdsSize && batch.records.size() < FOR_EACH_BATCH_SIZE; position++) {
+        long offset = index.get(orderedIds[position]);
+        if (offset != LongLongHashIndex.NO_VALUE) {
+          ByteBuffer record = recordAt(offset);
+          byte[] bytes = new byte[record.remaining()];
+          record.get(bytes);
+          batch.records.add(bytes);
+          batch.lastId = orderedIds[position];
+        }
+      }
+      return batch;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  private ByteBuffer recordAt(long offset) {
+    ByteBuffer record = region.duplicate();
+    record.position((int) offset + RECORD_HEADER_SIZE).limit((int) offset + RECORD_HEADER_SIZE + region.getInt((int) offset));
+    return record;
+  }
+
+  private void appendOrderedId(long id) {
+    if (orderedIdsSize == orderedIds.length) {
+      orderedIds = Arrays.copyOf(orderedIds, orderedIdsSize << 1);
+    }
+    orderedIds[orderedIdsSize++] = id;
+  }
+
+  private int firstOrderedIdAfter(long after) {
+    int position = Arrays.binarySearch(orderedIds, 0, orderedIdsSize, after);
+    return position >= 0 ? position + 1 : -position - 1;
+  }
+
+  private void purgeDeletedOrderedIds() {
+    int size = 0;
+    for (int position = 0; position < orderedIdsSize; position++) {
+      if (index.containsKey(orderedIds[position])) {
+        orderedIds[size++] = orderedIds[position];
+      }
+    }
+    orderedIdsSize = size;
+    deletedOrderedIds = 0;
+  }
+
+  private long append(byte[] record) {
+    int required = RECORD_HEADER_SIZE + record.length;
+    if (region.remaining() < required) {
+      if (garbageBytes > region.position() / 2) {
+        compact();
+      }
+      if (region.remaining() < required) {
+        grow(required);
+      }
+    }
+    long offset = region.position();
+    region.putInt(record.length);
+    region.put(record);
+    return offset;
+  }
+
+  private void release(long offset) {
+    garbageBytes += RECORD_HEADER_SIZE + region.getInt((int) offset);
+  }
+
+  private void grow(int required) {
+    long capacity = Math.max(Math.min((long) region.capacity() << 1, MAX_REGION_CAPACITY), (long) region.position() + required);
+    if (capacity > MAX_REGION_CAPACITY) {
+      throw new IllegalArgumentException("Off-heap product region is full");
+    }
+    ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity);
+    region.flip();
+    grown.put(region);
+    region = grown;
+  }
+
+  private void compact() {
+    ByteBuffer compacted = ByteBuffer.allocateDirect(region.capacity());
+    index.replaceValues((id, offset) -> {
+      int length = RECORD_HEADER_SIZE + region.getInt((int) offset);
+      ByteBuffer record = region.duplicate();
+      record.position((int) offset).limit((int) offset + length);
+      long newOffset = compacted.position();
+      compacted.put(record);
+      return newOffset;
+    });
+    region = compacted;
+    garbageBytes = 0;
+  }
+
+  private static final class RecordBatch {
+    private final List<byte[]> records = new ArrayList<>(FOR_EACH_BATCH_SIZE);
+    private Long lastId;
+
+    private RecordBatch(Long after) {
+      this.lastId = after;
+    }
+  }
+
+  private static final class PricedRecord {
+    private final Product product;
+    private final byte[] record;
+
+    private PricedRecord(Product product, byte[] record) {
+      this.product = product;
+      this.record = record;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package application.database;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence based id generator which hands out ids from a block reserved with a single sequence
+ * call, so inserts need no round trip for their keys and can be batched.
+ *
+ * <p>Block size and optimizer are read from Hibernate settings, entity specific ones first:
+ * {@code application.id.<entity>.increment_size}, {@code application.id.increment_size},
+ * {@code application.id.<entity>.optimizer} and {@code application.id.optimizer}. They default to
+ * {@value #DEFAULT_INCREMENT_SIZE} and {@value #DEFAULT_OPTIMIZER}. With the pooled optimizers the
+ * database sequence has to be incremented by the same size.
+ */
+public class PooledSequenceIdGenerator extends SequenceStyleGenerator {
+
+  static final String DEFAULT_INCREMENT_SIZE = "50";
+  static final String DEFAULT_OPTIMIZER = "pooled";
+
+  private static final String SETTING_PREFIX = "application.id.";
+
+  @Override
+  public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+    Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+    String entity = params.getProperty(JPA_ENTITY_NAME).toLowerCase(Locale.ROOT);
+    Properties configuredParams = new Properties();
+    configuredParams.putAll(params);
+    configuredParams.putIfAbsent(SEQUENCE_PARAM, entity + "_seq");
+    configuredParams.setProperty(INCREMENT_PARAM, setting(settings, entity, INCREMENT_PARAM, params.getProperty(INCREMENT_PARAM, DEFAULT_INCREMENT_SIZE)));
+    configuredParams.setProperty(OPT_PARAM, setting(settings, entity, OPT_PARAM, params.getProperty(OPT_PARAM, DEFAULT_OPTIMIZER)));
+    super.configure(type, configuredParams, serviceRegistry);
+  }
+
+  static String setting(Map<?, ?> settings, String entity, String name, String defaultValue) {
+    Object value = settings.get(SETTING_PREFIX + entity + "." + name);
+    if (value == null) {
+      value = settings.get(SETTING_PREFIX + name);
+    }
+    return value == null ? defaultValue : value.toString().trim();
+  }
+}
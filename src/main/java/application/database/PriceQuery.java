@@ -0,0 +1,152 @@
+package application.database;
+
+import application.model.Price;
+import application.model.Product;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Query for products with a price in a range, optionally of one currency, ordered by price.
+ *
+ * <p>Prices are compared by value regardless of their scale and, when no currency is given, of their
+ * currency. Products with equal prices are ordered by id, so a page continues after the price and id
+ * of the last product of the previous page. Products without a price amount never match.
+ */
+public final class PriceQuery {
+
+  private final BigDecimal minPrice;
+  private final BigDecimal maxPrice;
+  private final Currency currency;
+  private final boolean descending;
+  private final BigDecimal afterPrice;
+  private final Long afterId;
+
+  public PriceQuery(BigDecimal minPrice, BigDecimal maxPrice, Currency currency, boolean descending) {
+    this(minPrice, maxPrice, currency, descending, null, null);
+  }
+
+  private PriceQuery(BigDecimal minPrice, BigDecimal maxPrice, Currency currency, boolean descending, BigDecimal afterPrice, Long afterId) {
+    checkAmount(minPrice);
+    checkAmount(maxPrice);
+    checkAmount(afterPrice);
+    if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+      throw new IllegalArgumentException("Minimum price cannot be greater than maximum price");
+    }
+    this.minPrice = minPrice;
+    this.maxPrice = maxPrice;
+    this.currency = currency;
+    this.descending = descending;
+    this.afterPrice = afterPrice;
+    this.afterId = afterId;
+  }
+
+  /**
+   * Returns this query continuing after the product with passed price and id, in the order of the
+   * query.
+   */
+  public PriceQuery after(BigDecimal price, Long id) {
+    if (price == null || id == null) {
+      throw new IllegalArgumentException("Price and id cannot be null");
+    }
+    return new PriceQuery(minPrice, maxPrice, currency, descending, price, id);
+  }
+
+  public BigDecimal getMinPrice() {
+    return minPrice;
+  }
+
+  public BigDecimal getMaxPrice() {
+    return maxPrice;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  public BigDecimal getAfterPrice() {
+    return afterPrice;
+  }
+
+  public Long getAfterId() {
+    return afterId;
+  }
+
+  /**
+   * Tells whether the product is in the range and currency of this query and comes after its
+   * position.
+   */
+  boolean matches(Product product) {
+    Price price = product.getPrice();
+    if (price == null || !price.hasAmount() || (currency != null && currency != price.getCurrency())) {
+      return false;
+    }
+    BigDecimal amount = price.getPrice();
+    if ((minPrice != null && amount.compareTo(minPrice) < 0) || (maxPrice != null && amount.compareTo(maxPrice) > 0)) {
+      return false;
+    }
+    if (afterPrice == null) {
+      return true;
+    }
+    int position = amount.compareTo(afterPrice);
+    if (position == 0) {
+      position = Long.compare(product.getId(), afterId);
+    }
+    return descending ? position < 0 : position > 0;
+  }
+
+  /**
+   * Compares matching products in the order of this query.
+   */
+  int compare(Product first, Product second) {
+    int order = first.getPrice().compareTo(second.getPrice());
+    if (order == 0) {
+      order = Long.compare(first.getId(), second.getId());
+    }
+    return descending ? -order : order;
+  }
+
+  private static void checkAmount(BigDecimal amount) {
+    if (amount != null) {
+      new Price(null, amount, null);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    PriceQuery that = (PriceQuery) o;
+    return descending == that.descending
+        && Objects.equals(minPrice, that.minPrice)
+        && Objects.equals(maxPrice, that.maxPrice)
+        && Objects.equals(currency, that.currency)
+        && Objects.equals(afterPrice, that.afterPrice)
+        && Objects.equals(afterId, that.afterId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(minPrice, maxPrice, currency, descending, afterPrice, afterId);
+  }
+
+  @Override
+  public String toString() {
+    return "PriceQuery{" +
+        "minPrice=" + minPrice +
+        ", maxPrice=" + maxPrice +
+        ", currency=" + currency +
+        ", descending=" + descending +
+        ", afterPrice=" + afterPrice +
+        ", afterId=" + afterId +
+        '}';
+  }
+}
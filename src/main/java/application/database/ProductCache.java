@@ -0,0 +1,161 @@
+package application.database;
+
+import application.model.Product;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Size and time bounded cache of products by id. Entries are split into segments by id, each kept in
+ * least recently used order behind its own lock, so lookups of different products rarely contend.
+ *
+ * <p>Every invalidation advances the stamp of its segment. A value loaded from the database is only
+ * cached if the stamp taken before loading is still current, so a load racing with a write cannot
+ * bring a stale product back into the cache.
+ */
+public class ProductCache {
+
+  private static final int SEGMENTS = 16;
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final long expireAfterWriteNanos;
+  private final LongSupplier nanoTime;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public ProductCache(long maximumSize, long expireAfterWrite, TimeUnit unit) {
+    this(maximumSize, expireAfterWrite, unit, System::nanoTime);
+  }
+
+  ProductCache(long maximumSize, long expireAfterWrite, TimeUnit unit, LongSupplier nanoTime) {
+    if (maximumSize <= 0 || expireAfterWrite <= 0) {
+      throw new IllegalArgumentException("Maximum size and expiration must be positive");
+    }
+    this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+    this.nanoTime = nanoTime;
+    int segmentSize = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (maximumSize + SEGMENTS - 1) / SEGMENTS));
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(segmentSize);
+    }
+  }
+
+  public Optional<Product> get(Long id) {
+    Segment segment = segmentOf(id);
+    segment.lock.lock();
+    try {
+      Entry entry = segment.entries.get(id);
+      if (entry != null && entry.expiresAt - nanoTime.getAsLong() <= 0) {
+        segment.entries.remove(id);
+        evictions.increment();
+        entry = null;
+      }
+      if (entry == null) {
+        misses.increment();
+        return Optional.empty();
+      }
+      hits.increment();
+      return Optional.of(entry.product);
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public long stamp(Long id) {
+    Segment segment = segmentOf(id);
+    segment.lock.lock();
+    try {
+      return segment.stamp;
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public void put(Long id, Product product, long stamp) {
+    Segment segment = segmentOf(id);
+    segment.lock.lock();
+    try {
+      if (segment.stamp == stamp) {
+        segment.entries.put(id, new Entry(product, nanoTime.getAsLong() + expireAfterWriteNanos));
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public void invalidate(Long id) {
+    Segment segment = segmentOf(id);
+    segment.lock.lock();
+    try {
+      segment.stamp++;
+      segment.entries.remove(id);
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public void invalidateAll() {
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        segment.stamp++;
+        segment.entries.clear();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  public CacheStatistics statistics() {
+    long size = 0;
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        size += segment.entries.size();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size);
+  }
+
+  private Segment segmentOf(Long id) {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    return segments[Long.hashCode(id * 0x9E3779B97F4A7C15L) >>> 28];
+  }
+
+  private static class Entry {
+    private final Product product;
+    private final long expiresAt;
+
+    private Entry(Product product, long expiresAt) {
+      this.product = product;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private class Segment {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Entry> entries;
+    private long stamp;
+
+    private Segment(int maximumSize) {
+      entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+          if (size() <= maximumSize) {
+            return false;
+          }
+          evictions.increment();
+          return true;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package application.database;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * The single row numbering the changes of {@link HibernateProductChangeLog}, with the number of the
+ * last change and of the last deleted one. A transaction appending changes moves it forward and holds
+ * its lock until it commits, so changes are numbered in the order they become visible, also when more
+ * than one application instance writes.
+ *
+ * <p>The row is moved by update queries only, it is saved just once when it is created, so saving it
+ * always inserts and fails on the key when another instance created it first.
+ */
+@Entity
+@Table(name = "product_change_counter")
+public class ProductChangeCounter implements Persistable<Integer> {
+
+  static final int ID = 1;
+
+  @Id
+  private Integer id;
+
+  @Column(name = "last_sequence", nullable = false)
+  private long lastSequence;
+
+  @Column(name = "pruned_sequence", nullable = false)
+  private long prunedSequence;
+
+  protected ProductChangeCounter() {
+  }
+
+  ProductChangeCounter(long lastSequence, long prunedSequence) {
+    this.id = ID;
+    this.lastSequence = lastSequence;
+    this.prunedSequence = prunedSequence;
+  }
+
+  @Override
+  public Integer getId() {
+    return id;
+  }
+
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+}
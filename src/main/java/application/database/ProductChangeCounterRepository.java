@@ -0,0 +1,22 @@
+package application.database;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProductChangeCounterRepository extends JpaRepository<ProductChangeCounter, Integer> {
+
+  // Locks the row until the transaction ends, run in the transaction of the appended changes.
+  @Modifying
+  @Query("update ProductChangeCounter c set c.lastSequence = c.lastSequence + :count where c.id = " + ProductChangeCounter.ID)
+  int advance(@Param("count") long count);
+
+  @Modifying
+  @Query("update ProductChangeCounter c set c.prunedSequence = :sequence where c.id = " + ProductChangeCounter.ID)
+  int prune(@Param("sequence") long sequence);
+
+  @Query("select c.lastSequence, c.prunedSequence from ProductChangeCounter c where c.id = " + ProductChangeCounter.ID)
+  List<Object[]> findSequences();
+}
@@ -0,0 +1,30 @@
+package application.database;
+
+import application.model.ProductChange;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ordered log of product changes which keeps a bounded number of the latest ones. Changes are
+ * numbered in the order they were appended, each one greater by one than the one before.
+ */
+public interface ProductChangeLog {
+
+  /**
+   * Appends the changes in the passed order and returns them with their sequence numbers.
+   */
+  List<ProductChange> append(List<ProductChange> changes) throws DatabaseOperationException;
+
+  /**
+   * Returns at most {@code limit} changes with sequence number greater than {@code since}, in order,
+   * or empty when some of them are no longer kept or {@code since} is past the last change, so the
+   * caller has to read all products again instead.
+   */
+  Optional<List<ProductChange>> findAfter(long since, int limit) throws DatabaseOperationException;
+
+  /**
+   * Returns the sequence number of the last change, or one less than the sequence number the first
+   * change will have when there is none yet.
+   */
+  long lastSequence() throws DatabaseOperationException;
+}
@@ -0,0 +1,65 @@
+package application.database;
+
+import application.model.ProductChange;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Row of a change in {@link HibernateProductChangeLog}. The product is kept {@link ProductCodec
+ * encoded}, it is only ever read whole. Rows are always new when saved, so they are inserted without
+ * first looking for them by their assigned sequence number.
+ */
+@Entity
+@Table(name = "product_change")
+public class ProductChangeRecord implements Persistable<Long> {
+
+  @Id
+  private Long sequence;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private ProductChange.Type type;
+
+  @Column(name = "product_id", nullable = false)
+  private Long productId;
+
+  @Column(length = 1 << 20)
+  private byte[] product;
+
+  protected ProductChangeRecord() {
+  }
+
+  ProductChangeRecord(long sequence, ProductChange.Type type, Long productId, byte[] product) {
+    this.sequence = sequence;
+    this.type = type;
+    this.productId = productId;
+    this.product = product;
+  }
+
+  @Override
+  public Long getId() {
+    return sequence;
+  }
+
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+
+  ProductChange.Type getType() {
+    return type;
+  }
+
+  Long getProductId() {
+    return productId;
+  }
+
+  byte[] getProduct() {
+    return product;
+  }
+}
@@ -0,0 +1,22 @@
+package application.database;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChangeRecord, Long> {
+
+  // Served by the primary key, reads only the rows of the page.
+  @Query("select c from ProductChangeRecord c where c.sequence > :since order by c.sequence")
+  List<ProductChangeRecord> findAfter(@Param("since") long since, Pageable pageable);
+
+  @Query("select min(c.sequence), max(c.sequence) from ProductChangeRecord c")
+  List<Object[]> findBounds();
+
+  @Modifying
+  @Query("delete from ProductChangeRecord c where c.sequence <= :sequence")
+  int deleteUpTo(@Param("sequence") long sequence);
+}
@@ -0,0 +1,243 @@
+package application.database;
+
+import application.model.CurrencyCodes;
+import application.model.Description;
+import application.model.LanguageCodes;
+import application.model.Name;
+import application.model.Price;
+import application.model.Product;
+import application.model.ProductField;
+import application.model.Translation;
+import application.model.Translations;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary record layout of a {@link Product}. Nullable values are prefixed with a presence
+ * byte and strings are stored as length-prefixed UTF-8. Languages and currencies are stored as two
+ * byte {@link LanguageCodes} and {@link CurrencyCodes}, zero when absent, and languages which have
+ * no code follow a marker as strings. Translations follow at the end of the record only when there
+ * are any or a version follows them, as a count and a language, name and description each, and the
+ * version of a saved product comes last, so records written before either existed read as products
+ * without translations and without a version.
+ */
+class ProductCodec {
+
+  private static final byte ABSENT = 0;
+  private static final byte PRESENT = 1;
+  private static final int NO_CODE = 0;
+  private static final int NOT_ENCODABLE_LANGUAGE = 0xFFFF;
+
+  private ProductCodec() {
+  }
+
+  static byte[] encode(Product product) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      writeLong(output, product.getId());
+      Name name = product.getName();
+      output.writeByte(name == null ? ABSENT : PRESENT);
+      if (name != null) {
+        writeLong(output, name.getId());
+        writeLanguage(output, name.getLanguage());
+        writeString(output, name.getValue());
+      }
+      Description description = product.getDescription();
+      output.writeByte(description == null ? ABSENT : PRESENT);
+      if (description != null) {
+        writeLong(output, description.getId());
+        writeLanguage(output, description.getLanguage());
+        writeString(output, description.getValue());
+      }
+      Price price = product.getPrice();
+      output.writeByte(price == null ? ABSENT : PRESENT);
+      if (price != null) {
+        writeLong(output, price.getId());
+        output.writeByte(price.hasAmount() ? PRESENT : ABSENT);
+        if (price.hasAmount()) {
+          output.writeLong(price.getAmount());
+          output.writeInt(price.getScale());
+        }
+        output.writeShort(price.getCurrency() == null ? NO_CODE : CurrencyCodes.encode(price.getCurrency()));
+      }
+      Translations translations = product.getTranslations();
+      if (!translations.isEmpty() || product.getVersion() != null) {
+        output.writeInt(translations.size());
+        for (String language : translations.getLanguages()) {
+          Translation translation = translations.get(language);
+          writeLanguage(output, language);
+          writeString(output, translation.getName());
+          writeString(output, translation.getDescription());
+        }
+      }
+      if (product.getVersion() != null) {
+        output.writeLong(product.getVersion());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  static Product decode(ByteBuffer buffer) {
+    return decode(buffer, ProductField.ALL, null);
+  }
+
+  /**
+   * Decodes the record of the buffer, which has to end with it. Only the passed fields are set, the
+   * bytes of other fields are skipped without being decoded, and of the translations only the ones
+   * to the passed languages are set, or all of them when languages are null.
+   */
+  static Product decode(ByteBuffer buffer, Set<ProductField> fields, Collection<String> languages) {
+    Product product = new Product();
+    product.setId(readLong(buffer));
+    if (buffer.get() == PRESENT) {
+      if (fields.contains(ProductField.NAME)) {
+        product.setName(new Name(readLong(buffer), readLanguage(buffer), readString(buffer)));
+      } else {
+        skipLong(buffer);
+        skipLanguage(buffer);
+        skipString(buffer);
+      }
+    }
+    if (buffer.get() == PRESENT) {
+      if (fields.contains(ProductField.DESCRIPTION)) {
+        product.setDescription(new Description(readLong(buffer), readLanguage(buffer), readString(buffer)));
+      } else {
+        skipLong(buffer);
+        skipLanguage(buffer);
+        skipString(buffer);
+      }
+    }
+    if (buffer.get() == PRESENT) {
+      Long id = readLong(buffer);
+      boolean hasAmount = buffer.get() == PRESENT;
+      long amount = hasAmount ? buffer.getLong() : 0;
+      int scale = hasAmount ? buffer.getInt() : 0;
+      int currencyCode = buffer.getShort() & 0xFFFF;
+      if (fields.contains(ProductField.PRICE)) {
+        Currency currency = currencyCode == NO_CODE ? null : CurrencyCodes.decode(currencyCode);
+        product.setPrice(hasAmount ? new Price(id, amount, scale, currency) : new Price(id, null, currency));
+      }
+    }
+    if (buffer.hasRemaining()) {
+      boolean translationsRead = fields.contains(ProductField.TRANSLATIONS);
+      int count = buffer.getInt();
+      Map<String, Translation> translations = new LinkedHashMap<>();
+      for (int i = 0; i < count; i++) {
+        String language = readLanguage(buffer);
+        if (translationsRead && (languages == null || languages.contains(language))) {
+          translations.put(language, new Translation(readString(buffer), readString(buffer)));
+        } else {
+          skipString(buffer);
+          skipString(buffer);
+        }
+      }
+      if (translationsRead) {
+        product.setTranslations(Translations.of(translations));
+      }
+    }
+    if (buffer.hasRemaining()) {
+      product.setVersion(buffer.getLong());
+    }
+    return product;
+  }
+
+  static boolean hasName(ByteBuffer buffer, byte[] name) {
+    skipLong(buffer);
+    if (buffer.get() != PRESENT) {
+      return false;
+    }
+    skipLong(buffer);
+    skipLanguage(buffer);
+    int length = buffer.getInt();
+    if (length != name.length) {
+      return false;
+    }
+    int position = buffer.position();
+    for (int i = 0; i < length; i++) {
+      if (buffer.get(position + i) != name[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeLong(DataOutputStream output, Long value) throws IOException {
+    output.writeByte(value == null ? ABSENT : PRESENT);
+    if (value != null) {
+      output.writeLong(value);
+    }
+  }
+
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static void writeLanguage(DataOutputStream output, String language) throws IOException {
+    int code = language == null ? NO_CODE : LanguageCodes.encode(language);
+    if (code == LanguageCodes.NOT_ENCODABLE) {
+      output.writeShort(NOT_ENCODABLE_LANGUAGE);
+      writeString(output, language);
+    } else {
+      output.writeShort(code);
+    }
+  }
+
+  private static String readLanguage(ByteBuffer buffer) {
+    int code = buffer.getShort() & 0xFFFF;
+    if (code == NO_CODE) {
+      return null;
+    }
+    return code == NOT_ENCODABLE_LANGUAGE ? LanguageCodes.canonical(readString(buffer)) : LanguageCodes.decode(code);
+  }
+
+  private static void skipLanguage(ByteBuffer buffer) {
+    if ((buffer.getShort() & 0xFFFF) == NOT_ENCODABLE_LANGUAGE) {
+      skipString(buffer);
+    }
+  }
+
+  private static Long readLong(ByteBuffer buffer) {
+    return buffer.get() == PRESENT ? buffer.getLong() : null;
+  }
+
+  private static void skipLong(ByteBuffer buffer) {
+    if (buffer.get() == PRESENT) {
+      buffer.position(buffer.position() + Long.BYTES);
+    }
+  }
+
+  private static void skipString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length > 0) {
+      buffer.position(buffer.position() + length);
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
@@ -1,6 +1,56 @@
 package application.database;
 
 import application.model.Product;
+import application.model.ProductField;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface ProductDatabase extends Database<Product, Long> {
+
+  Optional<List<Product>> findByName(String name) throws DatabaseOperationException;
+
+  /**
+   * Returns the product with its id and only the passed fields set, reading no other fields.
+   */
+  Optional<Product> findById(Long id, Set<ProductField> fields) throws DatabaseOperationException;
+
+  /**
+   * Returns the page of {@link #findAllAfter(java.io.Serializable, int)} with ids and only the passed
+   * fields set, reading no other fields.
+   */
+  Optional<List<Product>> findAllAfter(Long after, int limit, Set<ProductField> fields) throws DatabaseOperationException;
+
+  /**
+   * Returns the product {@link Product#localized(List) localized} to the first of the passed lower
+   * case languages it has, reading only translations to those languages.
+   */
+  Optional<Product> findLocalizedById(Long id, List<String> languages) throws DatabaseOperationException;
+
+  /**
+   * Returns the version of the product without reading the product. Versions grow with every save.
+   */
+  Optional<Long> findVersionById(Long id) throws DatabaseOperationException;
+
+  /**
+   * Saves the product over the existing one only when that still has the passed version, returns the
+   * product with its new version, or empty when there is no such product or it has another version.
+   */
+  Optional<Product> updateIfVersionMatches(Product product, long version) throws DatabaseOperationException;
+
+  /**
+   * Returns a version of all products which changes whenever a product is saved or deleted.
+   */
+  String catalogVersion() throws DatabaseOperationException;
+
+  /**
+   * Returns at most {@code limit} products matching the query, in its order.
+   */
+  Optional<List<Product>> findByPrice(PriceQuery query, int limit) throws DatabaseOperationException;
+
+  /**
+   * Returns at most {@code limit} products matching the query with id greater than {@code after}, in
+   * id order.
+   */
+  Optional<List<Product>> search(SearchQuery query, Long after, int limit) throws DatabaseOperationException;
 }
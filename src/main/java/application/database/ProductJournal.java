@@ -0,0 +1,415 @@
+package application.database;
+
+import application.model.Product;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Write-ahead log and snapshots of a product store, kept in one directory.
+ *
+ * <p>The log is a sequence of memory-mapped segment files of fixed size. Every record carries an
+ * increasing sequence number and a checksum, so recovery stops at the first torn or unwritten
+ * record. How appended records reach the disk depends on the {@link FsyncPolicy}.
+ *
+ * <p>A snapshot holds all products up to a sequence number. It is written to a temporary file and
+ * renamed, after which the older snapshots and the segments it covers are deleted, so recovery
+ * reads the newest snapshot and replays only the records after it.
+ */
+public class ProductJournal implements Closeable {
+
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".bin";
+  private static final int SNAPSHOT_MAGIC = 0x50534E50;
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+  private static final int RECORD_FIXED_SIZE = Long.BYTES + Byte.BYTES + Long.BYTES;
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+
+  public enum FsyncPolicy {
+    /**
+     * Every write forces the log before it returns.
+     */
+    SYNC,
+    /**
+     * Writes wait for a background force that covers them, concurrent writes share one force.
+     */
+    GROUP,
+    /**
+     * The log is forced in the background at a fixed interval, writes do not wait.
+     */
+    ASYNC
+  }
+
+  private final Path directory;
+  private final FsyncPolicy fsyncPolicy;
+  private final int segmentSize;
+  private final long fsyncIntervalNanos;
+  private final long snapshotIntervalMillis;
+  private final Lock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+  private final Condition forced = lock.newCondition();
+  private final CRC32 checksum = new CRC32();
+  private MappedByteBuffer segment;
+  private long lastSequence;
+  private long durableSequence;
+  private Thread flusher;
+  private boolean closed;
+
+  public ProductJournal(Path directory, FsyncPolicy fsyncPolicy, int segmentSize, long fsyncInterval, long snapshotInterval, TimeUnit unit) {
+    if (directory == null || fsyncPolicy == null || unit == null) {
+      throw new IllegalArgumentException("Directory, fsync policy and unit cannot be null");
+    }
+    if (segmentSize <= RECORD_HEADER_SIZE + RECORD_FIXED_SIZE) {
+      throw new IllegalArgumentException("Segment size is too small");
+    }
+    this.directory = directory;
+    this.fsyncPolicy = fsyncPolicy;
+    this.segmentSize = segmentSize;
+    this.fsyncIntervalNanos = unit.toNanos(fsyncInterval);
+    this.snapshotIntervalMillis = unit.toMillis(snapshotInterval);
+  }
+
+  public interface Replay {
+    void put(Product product);
+
+    void delete(long id);
+  }
+
+  /**
+   * Loads the newest snapshot and replays the log records after it, then opens a new segment for
+   * appends. Must be called once, before anything is appended.
+   */
+  public void recover(Replay replay) throws IOException {
+    if (replay == null) {
+      throw new IllegalArgumentException("Replay cannot be null");
+    }
+    Files.createDirectories(directory);
+    List<Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    long snapshotSequence = snapshots.isEmpty() ? 0 : readSnapshot(snapshots.get(snapshots.size() - 1), replay);
+    lastSequence = snapshotSequence;
+    for (Path segmentFile : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+      lastSequence = Math.max(lastSequence, replaySegment(segmentFile, snapshotSequence, replay));
+    }
+    durableSequence = lastSequence;
+    lock.lock();
+    try {
+      openSegment();
+    } finally {
+      lock.unlock();
+    }
+    if (fsyncPolicy != FsyncPolicy.SYNC) {
+      flusher = new Thread(this::flush, "product-journal-flusher");
+      flusher.setDaemon(true);
+      flusher.start();
+    }
+  }
+
+  /**
+   * Appends a record of the saved product. Throws {@link UncheckedIOException} when the log cannot
+   * be written, so it can be called from within map operations.
+   */
+  public long appendPut(Product product) {
+    if (product == null || product.getId() == null) {
+      throw new IllegalArgumentException("Product and its id cannot be null");
+    }
+    return append(PUT, product.getId(), ProductCodec.encode(product));
+  }
+
+  public long appendDelete(long id) {
+    return append(DELETE, id, new byte[0]);
+  }
+
+  /**
+   * Returns once every record appended so far is on disk, or straight away with the
+   * {@link FsyncPolicy#ASYNC} policy.
+   */
+  public void sync() throws IOException {
+    lock.lock();
+    try {
+      long target = lastSequence;
+      if (fsyncPolicy == FsyncPolicy.ASYNC || durableSequence >= target) {
+        return;
+      }
+      if (fsyncPolicy == FsyncPolicy.SYNC) {
+        segment.force();
+        durableSequence = target;
+        return;
+      }
+      appended.signal();
+      while (durableSequence < target) {
+        checkOpen();
+        forced.awaitUninterruptibly();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long lastSequence() {
+    lock.lock();
+    try {
+      return lastSequence;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getSnapshotIntervalMillis() {
+    return snapshotIntervalMillis;
+  }
+
+  /**
+   * Writes the passed products as the state at the passed sequence, then deletes older snapshots
+   * and the segments holding only records up to that sequence.
+   */
+  public void writeSnapshot(long sequence, Collection<Product> products) throws IOException {
+    if (products == null) {
+      throw new IllegalArgumentException("Products cannot be null");
+    }
+    Path snapshot = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      CheckedOutputStream checkedOutput = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+      DataOutputStream output = new DataOutputStream(checkedOutput);
+      output.writeInt(SNAPSHOT_MAGIC);
+      output.writeInt(SNAPSHOT_VERSION);
+      output.writeLong(sequence);
+      output.writeLong(products.size());
+      for (Product product : products) {
+        byte[] record = ProductCodec.encode(product);
+        output.writeInt(record.length);
+        output.write(record);
+      }
+      output.writeLong(checkedOutput.getChecksum().getValue());
+      output.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+    for (Path olderSnapshot : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+      if (!olderSnapshot.equals(snapshot)) {
+        Files.delete(olderSnapshot);
+      }
+    }
+    deleteSegmentsUpTo(sequence);
+  }
+
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      if (segment != null) {
+        segment.force();
+        durableSequence = lastSequence;
+      }
+      closed = true;
+      appended.signalAll();
+      forced.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    if (flusher != null) {
+      flusher.interrupt();
+    }
+  }
+
+  private long append(byte type, long id, byte[] payload) {
+    int length = RECORD_FIXED_SIZE + payload.length;
+    if (RECORD_HEADER_SIZE + length > segmentSize) {
+      throw new IllegalArgumentException("Product is too large for a journal segment");
+    }
+    lock.lock();
+    try {
+      checkOpen();
+      if (segment.remaining() < RECORD_HEADER_SIZE + length) {
+        segment.force();
+        durableSequence = lastSequence;
+        openSegment();
+      }
+      long sequence = lastSequence + 1;
+      checksum.reset();
+      int start = segment.position();
+      segment.position(start + RECORD_HEADER_SIZE);
+      segment.putLong(sequence).put(type).putLong(id).put(payload);
+      ByteBuffer record = segment.duplicate();
+      record.position(start + RECORD_HEADER_SIZE).limit(start + RECORD_HEADER_SIZE + length);
+      checksum.update(record);
+      segment.putInt(start + Integer.BYTES, (int) checksum.getValue());
+      segment.putInt(start, length);
+      lastSequence = sequence;
+      return sequence;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void flush() {
+    while (true) {
+      MappedByteBuffer target;
+      long sequence;
+      lock.lock();
+      try {
+        if (fsyncPolicy == FsyncPolicy.ASYNC) {
+          appended.awaitNanos(fsyncIntervalNanos);
+          if (!closed && durableSequence == lastSequence) {
+            continue;
+          }
+        }
+        while (!closed && durableSequence == lastSequence) {
+          appended.await();
+        }
+        if (closed) {
+          return;
+        }
+        target = segment;
+        sequence = lastSequence;
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        lock.unlock();
+      }
+      target.force();
+      lock.lock();
+      try {
+        durableSequence = Math.max(durableSequence, sequence);
+        forced.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void openSegment() throws IOException {
+    Path segmentFile = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, lastSequence + 1, SEGMENT_SUFFIX));
+    try (RandomAccessFile file = new RandomAccessFile(segmentFile.toFile(), "rw")) {
+      file.setLength(0);
+      file.setLength(segmentSize);
+      segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  private long replaySegment(Path segmentFile, long afterSequence, Replay replay) throws IOException {
+    long sequence = firstSequenceOf(segmentFile) - 1;
+    try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      CRC32 recordChecksum = new CRC32();
+      while (buffer.remaining() >= RECORD_HEADER_SIZE + RECORD_FIXED_SIZE) {
+        int length = buffer.getInt();
+        int expectedChecksum = buffer.getInt();
+        if (length < RECORD_FIXED_SIZE || length > buffer.remaining()) {
+          break;
+        }
+        ByteBuffer record = buffer.slice();
+        record.limit(length);
+        recordChecksum.reset();
+        recordChecksum.update(record.duplicate());
+        if ((int) recordChecksum.getValue() != expectedChecksum) {
+          break;
+        }
+        if (record.getLong(0) != sequence + 1) {
+          break;
+        }
+        buffer.position(buffer.position() + length);
+        sequence = record.getLong();
+        byte type = record.get();
+        long id = record.getLong();
+        if (sequence <= afterSequence) {
+          continue;
+        }
+        if (type == PUT) {
+          replay.put(ProductCodec.decode(record));
+        } else if (type == DELETE) {
+          replay.delete(id);
+        }
+      }
+    }
+    return sequence;
+  }
+
+  private long readSnapshot(Path snapshot, Replay replay) throws IOException {
+    try (CheckedInputStream checkedInput = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16), new CRC32())) {
+      DataInputStream input = new DataInputStream(checkedInput);
+      if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) {
+        throw new IOException(String.format("%s is not a product snapshot", snapshot));
+      }
+      long sequence = input.readLong();
+      long count = input.readLong();
+      byte[] record = new byte[256];
+      for (long i = 0; i < count; i++) {
+        int length = input.readInt();
+        if (record.length < length) {
+          record = new byte[length];
+        }
+        input.readFully(record, 0, length);
+        replay.put(ProductCodec.decode(ByteBuffer.wrap(record, 0, length)));
+      }
+      long expectedChecksum = checkedInput.getChecksum().getValue();
+      if (input.readLong() != expectedChecksum) {
+        throw new IOException(String.format("%s is corrupted", snapshot));
+      }
+      return sequence;
+    }
+  }
+
+  private void deleteSegmentsUpTo(long sequence) throws IOException {
+    List<Path> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    for (int i = 0; i < segments.size() - 1; i++) {
+      if (firstSequenceOf(segments.get(i + 1)) - 1 <= sequence) {
+        Files.delete(segments.get(i));
+      }
+    }
+  }
+
+  private List<Path> list(String prefix, String suffix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().startsWith(prefix) && file.getFileName().toString().endsWith(suffix))
+          .sorted()
+          .collect(Collectors.toCollection(ArrayList::new));
+    }
+  }
+
+  private static long firstSequenceOf(Path segmentFile) {
+    String name = segmentFile.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Journal is closed");
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package application.database;
+
+import application.model.Product;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Inverted index of the words of product names and descriptions, answering {@link SearchQuery}.
+ *
+ * <p>Every word maps to the sorted ids of the products containing it. A query walks the smallest
+ * matching id set from the cursor on, in id order, and checks the other words for each id, so it
+ * stops as soon as a page is full. Words are also kept sorted, so the words starting with a prefix
+ * are a contiguous range whose id sets are merged when the prefix is the most selective part of the
+ * query.
+ *
+ * <p>A product is added and removed word by word, so a concurrent query may see it partially
+ * indexed.
+ */
+final class ProductSearchIndex {
+
+  private final ConcurrentMap<String, Posting> postings = new ConcurrentHashMap<>();
+  private final NavigableSet<String> words = new ConcurrentSkipListSet<>();
+  private final ConcurrentMap<Long, String[]> indexedWords = new ConcurrentHashMap<>();
+
+  void add(long id, Product product) {
+    String[] productWords = new HashSet<>(SearchQuery.tokens(product)).toArray(new String[0]);
+    if (productWords.length == 0) {
+      return;
+    }
+    indexedWords.put(id, productWords);
+    for (String productWord : productWords) {
+      postings.compute(productWord, (word, posting) -> {
+        Posting updated = posting;
+        if (updated == null) {
+          updated = new Posting();
+          words.add(word);
+        }
+        updated.add(id);
+        return updated;
+      });
+    }
+  }
+
+  void remove(long id) {
+    String[] productWords = indexedWords.remove(id);
+    if (productWords == null) {
+      return;
+    }
+    for (String productWord : productWords) {
+      postings.computeIfPresent(productWord, (word, posting) -> {
+        posting.remove(id);
+        if (posting.size == 0) {
+          words.remove(word);
+          return null;
+        }
+        return posting;
+      });
+    }
+  }
+
+  /**
+   * Returns ids of at most {@code limit} matching products greater than {@code after}, in
+   * increasing order.
+   */
+  List<Long> search(SearchQuery query, Long after, int limit) {
+    long from = after == null ? Long.MIN_VALUE : after;
+    List<Posting> required = new ArrayList<>(query.getWords().size());
+    for (String word : query.getWords()) {
+      Posting posting = postings.get(word);
+      if (posting == null) {
+        return Collections.emptyList();
+      }
+      required.add(posting);
+    }
+    required.sort(Comparator.comparingInt(posting -> posting.size));
+    List<Posting> prefixed = new ArrayList<>();
+    long prefixedSize = 0;
+    if (query.getPrefix() != null) {
+      for (String word : words.subSet(query.getPrefix(), true, query.getPrefix() + Character.MAX_VALUE, false)) {
+        Posting posting = postings.get(word);
+        if (posting != null) {
+          prefixed.add(posting);
+          prefixedSize += posting.size;
+        }
+      }
+      if (prefixed.isEmpty()) {
+        return Collections.emptyList();
+      }
+    }
+    boolean prefixDriven = required.isEmpty() || (!prefixed.isEmpty() && prefixedSize < required.get(0).size);
+    Iterator<Long> candidates = prefixDriven ? new UnionIterator(prefixed, from) : required.get(0).ids.tailSet(from, false).iterator();
+    List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+    while (candidates.hasNext() && ids.size() < limit) {
+      Long id = candidates.next();
+      if (containsAll(required, prefixDriven ? 0 : 1, id) && (prefixDriven || hasPrefix(id, query.getPrefix()))) {
+        ids.add(id);
+      }
+    }
+    return ids;
+  }
+
+  private static boolean containsAll(List<Posting> postings, int start, Long id) {
+    for (int i = start; i < postings.size(); i++) {
+      if (!postings.get(i).ids.contains(id)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean hasPrefix(Long id, String prefix) {
+    if (prefix == null) {
+      return true;
+    }
+    String[] productWords = indexedWords.get(id);
+    if (productWords != null) {
+      for (String word : productWords) {
+        if (word.startsWith(prefix)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sorted ids of the products containing a word. Only changed within a compute of the word in
+   * {@link #postings}, so the size has a single writer at a time.
+   */
+  private static final class Posting {
+    private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+    private volatile int size;
+
+    void add(long id) {
+      if (ids.add(id)) {
+        size++;
+      }
+    }
+
+    void remove(long id) {
+      if (ids.remove(id)) {
+        size--;
+      }
+    }
+  }
+
+  /**
+   * Merges the ids of several postings greater than a cursor into one increasing sequence without
+   * duplicates.
+   */
+  private static final class UnionIterator implements Iterator<Long> {
+    private final PriorityQueue<PeekingIterator> iterators = new PriorityQueue<>(Comparator.comparingLong(iterator -> iterator.next));
+    private long last = Long.MIN_VALUE;
+    private boolean started;
+
+    UnionIterator(List<Posting> postings, long from) {
+      for (Posting posting : postings) {
+        Iterator<Long> ids = posting.ids.tailSet(from, false).iterator();
+        if (ids.hasNext()) {
+          iterators.add(new PeekingIterator(ids));
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!iterators.isEmpty() && started && iterators.peek().next == last) {
+        advance(iterators.poll());
+      }
+      return !iterators.isEmpty();
+    }
+
+    @Override
+    public Long next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      PeekingIterator iterator = iterators.poll();
+      last = iterator.next;
+      started = true;
+      advance(iterator);
+      return last;
+    }
+
+    private void advance(PeekingIterator iterator) {
+      if (iterator.ids.hasNext()) {
+        iterator.next = iterator.ids.next();
+        iterators.add(iterator);
+      }
+    }
+  }
+
+  private static final class PeekingIterator {
+    private final Iterator<Long> ids;
+    private long next;
+
+    PeekingIterator(Iterator<Long> ids) {
+      this.ids = ids;
+      this.next = ids.next();
+    }
+  }
+}
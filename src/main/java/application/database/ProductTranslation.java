@@ -0,0 +1,98 @@
+package application.database;
+
+import application.model.LanguageCodes;
+import application.model.Translation;
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+/**
+ * Row of the translations of a product in {@link HibernateProductDatabase}, one per language. The
+ * language is kept as its {@link LanguageCodes code} directly, attribute converters do not apply to
+ * identifiers. Languages which cannot be packed, such as {@code de-ch}, have the code the
+ * {@link LanguageDictionary} gave them.
+ */
+@Entity
+@Table(name = "product_translation")
+@IdClass(ProductTranslation.Key.class)
+public class ProductTranslation {
+
+  @Id
+  @Column(name = "product_id")
+  private Long productId;
+
+  @Id
+  @Column(name = "language")
+  private short languageCode;
+
+  private String name;
+
+  private String description;
+
+  protected ProductTranslation() {
+  }
+
+  ProductTranslation(Long productId, String language, Translation translation) {
+    this.productId = productId;
+    this.languageCode = code(language);
+    this.name = translation.getName();
+    this.description = translation.getDescription();
+  }
+
+  /**
+   * Returns the stored code of the language, which has to be packed or registered in the dictionary.
+   */
+  static short code(String language) {
+    int code = LanguageCodes.lookup(language);
+    if (code == LanguageCodes.NOT_ENCODABLE) {
+      throw new IllegalArgumentException(String.format("Language '%s' cannot be stored, it is not in the language dictionary", language));
+    }
+    return (short) code;
+  }
+
+  Long getProductId() {
+    return productId;
+  }
+
+  String getLanguage() {
+    return LanguageCodes.decode(languageCode & 0xFFFF);
+  }
+
+  Translation toTranslation() {
+    return new Translation(name, description);
+  }
+
+  public static class Key implements Serializable {
+    private Long productId;
+    private short languageCode;
+
+    public Key() {
+    }
+
+    Key(Long productId, short languageCode) {
+      this.productId = productId;
+      this.languageCode = languageCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return languageCode == key.languageCode && Objects.equals(productId, key.productId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(productId, languageCode);
+    }
+  }
+}
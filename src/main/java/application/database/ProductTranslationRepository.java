@@ -0,0 +1,27 @@
+package application.database;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ProductTranslationRepository extends JpaRepository<ProductTranslation, ProductTranslation.Key> {
+
+  @Query("select t from ProductTranslation t where t.productId in :productIds")
+  List<ProductTranslation> findByProductIds(@Param("productIds") Collection<Long> productIds);
+
+  // Served by the primary key (product_id, language), only the rows of the requested languages are read.
+  @Query("select t from ProductTranslation t where t.productId = :productId and t.languageCode in :languageCodes")
+  List<ProductTranslation> findByProductIdAndLanguageCodes(@Param("productId") Long productId,
+                                                           @Param("languageCodes") Collection<Short> languageCodes);
+
+  // Flushes and clears the persistence context, so translations saved earlier in the same transaction
+  // can be saved again once they are deleted.
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from ProductTranslation t where t.productId in :productIds")
+  int deleteByProductIds(@Param("productIds") Collection<Long> productIds);
+}
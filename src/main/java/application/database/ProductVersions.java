@@ -0,0 +1,30 @@
+package application.database;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of products and of the whole catalog for databases which keep products in this process.
+ *
+ * <p>A new product starts from the current time in milliseconds and every save adds one, so a
+ * product of an earlier run with the same id, which a client may still hold an ETag of, does not
+ * share its version. The catalog version is the start time of the database and the number of writes
+ * since, and has to be counted after a write is visible, so it is never newer than what it is read
+ * with.
+ */
+final class ProductVersions {
+
+  private final long epoch = System.currentTimeMillis();
+  private final AtomicLong writes = new AtomicLong();
+
+  static long next(Long previousVersion) {
+    return previousVersion == null ? System.currentTimeMillis() : previousVersion + 1;
+  }
+
+  void written() {
+    writes.incrementAndGet();
+  }
+
+  String catalogVersion() {
+    return epoch + "-" + writes.get();
+  }
+}
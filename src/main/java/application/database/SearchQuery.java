@@ -0,0 +1,138 @@
+package application.database;
+
+import application.model.Product;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Words to search for in product names and descriptions.
+ *
+ * <p>Text is split into words at every character which is not a letter or a digit, and words are
+ * lower cased by the rules of the language of the text. A product matches when its name and
+ * description together contain every word of the query. While a query is typed its last word is
+ * incomplete, so unless the query ends with a separator the last word only has to start a word of
+ * the product.
+ */
+public final class SearchQuery {
+
+  private final List<String> words;
+  private final String prefix;
+
+  /**
+   * Parses the query, lower casing it by the rules of the passed language, or by language neutral
+   * rules when it is null.
+   */
+  public SearchQuery(String text, String language) {
+    if (text == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    List<String> tokens = tokens(text, language);
+    if (tokens.isEmpty()) {
+      throw new IllegalArgumentException("Query has to contain a word");
+    }
+    boolean complete = !Character.isLetterOrDigit(text.codePointBefore(text.length()));
+    this.prefix = complete ? null : tokens.remove(tokens.size() - 1);
+    this.words = Collections.unmodifiableList(tokens);
+  }
+
+  /**
+   * Returns the complete words of the query, which have to be matched exactly.
+   */
+  public List<String> getWords() {
+    return words;
+  }
+
+  /**
+   * Returns the incomplete last word of the query, or null when every word is complete.
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * Returns the words of the product name and description.
+   */
+  static List<String> tokens(Product product) {
+    List<String> tokens = new ArrayList<>();
+    if (product.getName() != null) {
+      addTokens(tokens, product.getName().getValue(), product.getName().getLanguage());
+    }
+    if (product.getDescription() != null) {
+      addTokens(tokens, product.getDescription().getValue(), product.getDescription().getLanguage());
+    }
+    return tokens;
+  }
+
+  static List<String> tokens(String text, String language) {
+    List<String> tokens = new ArrayList<>();
+    addTokens(tokens, text, language);
+    return tokens;
+  }
+
+  /**
+   * Tells whether the words contain every word of this query and a word starting with its prefix.
+   */
+  boolean matches(Collection<String> tokens) {
+    if (!tokens.containsAll(words)) {
+      return false;
+    }
+    if (prefix == null) {
+      return true;
+    }
+    for (String token : tokens) {
+      if (token.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void addTokens(List<String> tokens, String text, String language) {
+    if (text == null) {
+      return;
+    }
+    Locale locale = language == null ? Locale.ROOT : Locale.forLanguageTag(language);
+    int start = -1;
+    for (int i = 0; i < text.length(); i = text.offsetByCodePoints(i, 1)) {
+      boolean wordCharacter = Character.isLetterOrDigit(text.codePointAt(i));
+      if (wordCharacter && start < 0) {
+        start = i;
+      } else if (!wordCharacter && start >= 0) {
+        tokens.add(text.substring(start, i).toLowerCase(locale));
+        start = -1;
+      }
+    }
+    if (start >= 0) {
+      tokens.add(text.substring(start).toLowerCase(locale));
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SearchQuery that = (SearchQuery) o;
+    return words.equals(that.words) && Objects.equals(prefix, that.prefix);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(words, prefix);
+  }
+
+  @Override
+  public String toString() {
+    return "SearchQuery{" +
+        "words=" + words +
+        ", prefix=" + prefix +
+        '}';
+  }
+}
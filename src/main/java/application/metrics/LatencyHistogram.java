@@ -0,0 +1,73 @@
+package application.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of nanosecond latencies. Every power of two is split into 16 buckets, so a
+ * quantile is reported within about 6% of the recorded value. Recording is a single atomic
+ * increment and does not allocate.
+ */
+class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40;
+  private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+  private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  void record(long nanos) {
+    counts.incrementAndGet(bucketOf(nanos));
+  }
+
+  /**
+   * Returns the values at the passed quantiles, each between 0 and 1, in the same order, or zeros
+   * when nothing was recorded yet. Quantiles are computed from one pass over the buckets.
+   */
+  long[] quantiles(double... quantiles) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      snapshot[bucket] = counts.get(bucket);
+      total += snapshot[bucket];
+    }
+    long[] values = new long[quantiles.length];
+    if (total == 0) {
+      return values;
+    }
+    for (int i = 0; i < quantiles.length; i++) {
+      long rank = Math.max(1, (long) Math.ceil(quantiles[i] * total));
+      long seen = 0;
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+        seen += snapshot[bucket];
+        if (seen >= rank) {
+          values[i] = valueOf(bucket);
+          break;
+        }
+      }
+    }
+    return values;
+  }
+
+  static int bucketOf(long nanos) {
+    long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Returns the middle of the range of values counted in the passed bucket.
+   */
+  static long valueOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowest + ((1L << shift) >> 1);
+  }
+}
@@ -0,0 +1,109 @@
+package application.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Timers of controller, service and database operations of the backend in use, written out in the
+ * Prometheus text format. Timers are created on first use of an operation and outcome, recording
+ * into an existing one does not allocate.
+ */
+public class OperationMetrics {
+
+  static final String METRIC_NAME = "product_operation_seconds";
+  private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+  private static final String[] QUANTILE_LABELS = {"0.5", "0.99", "0.999"};
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final String backend;
+  private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+
+  public OperationMetrics(String backend) {
+    if (backend == null) {
+      throw new IllegalArgumentException("Backend cannot be null");
+    }
+    this.backend = backend;
+  }
+
+  public void record(String layer, String operation, Outcome outcome, long nanos) {
+    operation(layer, operation).timer(outcome).record(nanos);
+  }
+
+  Operation operation(String layer, String operation) {
+    if (layer == null || operation == null) {
+      throw new IllegalArgumentException("Layer and operation cannot be null");
+    }
+    return operations.computeIfAbsent(layer + '.' + operation, key -> new Operation(layer, operation));
+  }
+
+  public String getBackend() {
+    return backend;
+  }
+
+  public void writePrometheus(StringBuilder output) {
+    List<OperationTimer> timers = new ArrayList<>();
+    for (Operation operation : operations.values()) {
+      operation.collect(timers);
+    }
+    timers.sort(Comparator.comparing(OperationTimer::getLayer)
+        .thenComparing(OperationTimer::getOperation)
+        .thenComparing(OperationTimer::getOutcome));
+    output.append("# HELP ").append(METRIC_NAME).append(" Time taken by product operations.\n");
+    output.append("# TYPE ").append(METRIC_NAME).append(" summary\n");
+    for (OperationTimer timer : timers) {
+      String labels = labels(timer);
+      long[] quantiles = timer.quantiles(QUANTILES);
+      for (int i = 0; i < QUANTILES.length; i++) {
+        output.append(METRIC_NAME).append('{').append(labels).append(",quantile=\"").append(QUANTILE_LABELS[i]).append("\"} ")
+            .append(quantiles[i] / NANOS_PER_SECOND).append('\n');
+      }
+      output.append(METRIC_NAME).append("_count{").append(labels).append("} ").append(timer.count()).append('\n');
+      output.append(METRIC_NAME).append("_sum{").append(labels).append("} ").append(timer.totalNanos() / NANOS_PER_SECOND).append('\n');
+    }
+  }
+
+  private String labels(OperationTimer timer) {
+    return String.format("layer=\"%s\",operation=\"%s\",backend=\"%s\",outcome=\"%s\"",
+        escape(timer.getLayer()), escape(timer.getOperation()), escape(backend), timer.getOutcome().getTag());
+  }
+
+  static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  /**
+   * Timers of one operation, one per outcome.
+   */
+  static class Operation {
+    private final String layer;
+    private final String name;
+    private final AtomicReferenceArray<OperationTimer> timers = new AtomicReferenceArray<>(Outcome.values().length);
+
+    private Operation(String layer, String name) {
+      this.layer = layer;
+      this.name = name;
+    }
+
+    OperationTimer timer(Outcome outcome) {
+      OperationTimer timer = timers.get(outcome.ordinal());
+      if (timer == null) {
+        timers.compareAndSet(outcome.ordinal(), null, new OperationTimer(layer, name, outcome));
+        timer = timers.get(outcome.ordinal());
+      }
+      return timer;
+    }
+
+    private void collect(List<OperationTimer> collected) {
+      for (int i = 0; i < timers.length(); i++) {
+        OperationTimer timer = timers.get(i);
+        if (timer != null) {
+          collected.add(timer);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package application.metrics;
+
+import application.service.ProductOperationResult;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Times every intercepted call of one layer and records it with the outcome read from the returned
+ * value: the status of a {@link ResponseEntity}, the outcome of a {@link ProductOperationResult}, an
+ * empty {@link Optional} or {@code false} from a conditional delete. A thrown exception is an error.
+ * Calls returning a {@link CompletionStage} are recorded when it completes.
+ */
+public class OperationMetricsInterceptor implements MethodInterceptor {
+
+  private final OperationMetrics metrics;
+  private final String layer;
+  private final ConcurrentMap<Method, MethodMetrics> methodMetrics = new ConcurrentHashMap<>();
+
+  public OperationMetricsInterceptor(OperationMetrics metrics, String layer) {
+    if (metrics == null || layer == null) {
+      throw new IllegalArgumentException("Metrics and layer cannot be null");
+    }
+    this.metrics = metrics;
+    this.layer = layer;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    MethodMetrics method = methodMetrics.get(invocation.getMethod());
+    if (method == null) {
+      method = methodMetrics.computeIfAbsent(invocation.getMethod(), key -> new MethodMetrics(metrics.operation(layer, key.getName()), key));
+    }
+    long start = System.nanoTime();
+    Object result;
+    try {
+      result = invocation.proceed();
+    } catch (Throwable e) {
+      method.operation.timer(Outcome.ERROR).record(System.nanoTime() - start);
+      throw e;
+    }
+    if (result instanceof CompletionStage) {
+      MethodMetrics asyncMethod = method;
+      ((CompletionStage<?>) result).whenComplete((value, exception) -> asyncMethod.operation
+          .timer(exception == null ? asyncMethod.outcomeOf(value) : Outcome.ERROR)
+          .record(System.nanoTime() - start));
+      return result;
+    }
+    method.operation.timer(method.outcomeOf(result)).record(System.nanoTime() - start);
+    return result;
+  }
+
+  static class MethodMetrics {
+    private final OperationMetrics.Operation operation;
+    private final Outcome absentOutcome;
+    private final boolean falseIsAbsent;
+
+    MethodMetrics(OperationMetrics.Operation operation, Method method) {
+      this.operation = operation;
+      this.absentOutcome = method.getName().startsWith("insert") ? Outcome.CONFLICT : Outcome.NOT_FOUND;
+      this.falseIsAbsent = method.getReturnType() == boolean.class && method.getName().startsWith("delete");
+    }
+
+    Outcome outcomeOf(Object result) {
+      if (result instanceof ResponseEntity) {
+        return outcomeOf(((ResponseEntity<?>) result).getStatusCode());
+      }
+      if (result instanceof ProductOperationResult) {
+        return outcomeOf(((ProductOperationResult) result).getOutcome());
+      }
+      if (result instanceof Optional && !((Optional<?>) result).isPresent()) {
+        return absentOutcome;
+      }
+      if (falseIsAbsent && Boolean.FALSE.equals(result)) {
+        return Outcome.NOT_FOUND;
+      }
+      return Outcome.OK;
+    }
+
+    private static Outcome outcomeOf(HttpStatus status) {
+      if (status == HttpStatus.NOT_FOUND) {
+        return Outcome.NOT_FOUND;
+      }
+      if (status == HttpStatus.CONFLICT) {
+        return Outcome.CONFLICT;
+      }
+      return status.isError() ? Outcome.ERROR : Outcome.OK;
+    }
+
+    private static Outcome outcomeOf(ProductOperationResult.Outcome outcome) {
+      switch (outcome) {
+        case CONFLICT:
+          return Outcome.CONFLICT;
+        case NOT_FOUND:
+          return Outcome.NOT_FOUND;
+        default:
+          return Outcome.OK;
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package application.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, total time and latency distribution of one operation with one outcome.
+ */
+class OperationTimer {
+
+  private final String layer;
+  private final String operation;
+  private final Outcome outcome;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  OperationTimer(String layer, String operation, Outcome outcome) {
+    this.layer = layer;
+    this.operation = operation;
+    this.outcome = outcome;
+  }
+
+  void record(long nanos) {
+    count.increment();
+    totalNanos.add(nanos);
+    histogram.record(nanos);
+  }
+
+  String getLayer() {
+    return layer;
+  }
+
+  String getOperation() {
+    return operation;
+  }
+
+  Outcome getOutcome() {
+    return outcome;
+  }
+
+  long count() {
+    return count.sum();
+  }
+
+  long totalNanos() {
+    return totalNanos.sum();
+  }
+
+  long[] quantiles(double... quantiles) {
+    return histogram.quantiles(quantiles);
+  }
+}
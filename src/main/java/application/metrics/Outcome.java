@@ -0,0 +1,18 @@
+package application.metrics;
+
+public enum Outcome {
+  OK("ok"),
+  NOT_FOUND("not-found"),
+  CONFLICT("conflict"),
+  ERROR("error");
+
+  private final String tag;
+
+  Outcome(String tag) {
+    this.tag = tag;
+  }
+
+  public String getTag() {
+    return tag;
+  }
+}
@@ -0,0 +1,22 @@
+package application.model;
+
+import java.util.Currency;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a currency as its {@link CurrencyCodes code} in a smallint column.
+ */
+@Converter
+public class CurrencyCodeConverter implements AttributeConverter<Currency, Short> {
+
+  @Override
+  public Short convertToDatabaseColumn(Currency currency) {
+    return currency == null ? null : (short) CurrencyCodes.encode(currency);
+  }
+
+  @Override
+  public Currency convertToEntityAttribute(Short code) {
+    return code == null ? null : CurrencyCodes.decode(code);
+  }
+}
@@ -0,0 +1,52 @@
+package application.model;
+
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Currencies as small integer codes packed from their three letter ISO 4217 codes, so they are
+ * the same in every process and fit two bytes.
+ */
+public final class CurrencyCodes {
+
+  private static final int LETTERS = 26;
+  private static final int CODES = LETTERS * LETTERS * LETTERS + 1;
+
+  private static final AtomicReferenceArray<Currency> currencies = new AtomicReferenceArray<>(CODES);
+
+  private CurrencyCodes() {
+  }
+
+  /**
+   * Returns the code of the passed currency, from 1 to 17576.
+   */
+  public static int encode(Currency currency) {
+    if (currency == null) {
+      throw new IllegalArgumentException("Currency cannot be null");
+    }
+    String currencyCode = currency.getCurrencyCode();
+    int code = 0;
+    for (int i = 0; i < currencyCode.length(); i++) {
+      code = code * LETTERS + currencyCode.charAt(i) - 'A';
+    }
+    return code + 1;
+  }
+
+  public static Currency decode(int code) {
+    if (code <= 0 || code >= CODES) {
+      throw new IllegalArgumentException(String.format("Invalid currency code %d", code));
+    }
+    Currency currency = currencies.get(code);
+    if (currency == null) {
+      int letters = code - 1;
+      char[] characters = new char[3];
+      for (int i = characters.length - 1; i >= 0; i--) {
+        characters[i] = (char) ('A' + letters % LETTERS);
+        letters /= LETTERS;
+      }
+      currency = Currency.getInstance(new String(characters));
+      currencies.set(code, currency);
+    }
+    return currency;
+  }
+}
@@ -3,20 +3,17 @@ package application.model;
 import io.swagger.annotations.ApiModelProperty;
 import java.util.Locale;
 import java.util.Objects;
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
+import javax.persistence.Convert;
+import javax.persistence.Embeddable;
 
-@Entity
+@Embeddable
 public class Description {
 
-  @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
   @ApiModelProperty(value = "The id of the description.", position = -1)
   private Long id;
 
   @ApiModelProperty(value = "Setting the language.", example = "EN")
+  @Convert(converter = LanguageCodeConverter.class)
   private String language;
 
   @ApiModelProperty(value = "Description of product.", example = "Description of product")
@@ -27,7 +24,7 @@ public class Description {
 
   public Description(Long id, String language, String value) {
     this.id = id;
-    this.language = language;
+    this.language = LanguageCodes.canonical(language);
     this.value = value;
   }
 
@@ -44,7 +41,7 @@ public class Description {
   }
 
   public void setLanguage(String language) {
-    this.language = language;
+    this.language = LanguageCodes.canonical(language);
   }
 
   public String getValue() {
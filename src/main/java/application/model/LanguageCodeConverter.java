@@ -0,0 +1,30 @@
+package application.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a language as its {@link LanguageCodes code} in a smallint column. Codes above
+ * {@link Short#MAX_VALUE} wrap around to negative values. Languages which cannot be packed have to be
+ * registered in the dictionary of the database first.
+ */
+@Converter
+public class LanguageCodeConverter implements AttributeConverter<String, Short> {
+
+  @Override
+  public Short convertToDatabaseColumn(String language) {
+    if (language == null) {
+      return null;
+    }
+    int code = LanguageCodes.lookup(language);
+    if (code == LanguageCodes.NOT_ENCODABLE) {
+      throw new IllegalArgumentException(String.format("Language '%s' cannot be stored, it is not in the language dictionary", language));
+    }
+    return (short) code;
+  }
+
+  @Override
+  public String convertToEntityAttribute(Short code) {
+    return code == null ? null : LanguageCodes.decode(code & 0xFFFF);
+  }
+}
@@ -0,0 +1,190 @@
+package application.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * Dictionary of languages as small integer codes, so a language is held once per process and
+ * stored in two bytes.
+ *
+ * <p>Languages of one to three letters written in one case, such as ISO 639 codes, are packed into
+ * the code itself. Codes are the same in every process and need no lookup table, and they fit an
+ * unsigned 16-bit value. Other languages cannot be {@link #encode(String) encoded}, they are only
+ * shared while there are few of them.
+ *
+ * <p>A database can give other languages the codes above the packed ones, which it keeps in a table
+ * and {@link #register(int, String) registers} here. {@link #lookup(String)} returns packed codes
+ * and registered ones, codes registered by other processes are read through the
+ * {@link #setDictionary(IntFunction) dictionary} when they are decoded.
+ */
+public final class LanguageCodes {
+
+  public static final int NOT_ENCODABLE = -1;
+
+  private static final int LETTERS = 27;
+  private static final int MAX_LENGTH = 3;
+  private static final int LOWER_CASE = LETTERS * LETTERS * LETTERS;
+  private static final int CODES = 2 * LOWER_CASE;
+  private static final int MAX_OTHER_LANGUAGES = 1024;
+
+  /**
+   * The lowest and highest code a dictionary of other languages can give.
+   */
+  public static final int MIN_DICTIONARY_CODE = CODES;
+  public static final int MAX_DICTIONARY_CODE = 0xFFFF;
+
+  private static final AtomicReferenceArray<String> languages = new AtomicReferenceArray<>(MAX_DICTIONARY_CODE + 1);
+  private static final ConcurrentMap<String, String> otherLanguages = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<String, Integer> dictionaryCodes = new ConcurrentHashMap<>();
+  private static volatile IntFunction<String> dictionary = code -> null;
+
+  private LanguageCodes() {
+  }
+
+  /**
+   * Returns the code of the passed language, or {@link #NOT_ENCODABLE}.
+   */
+  public static int encode(String language) {
+    if (language == null) {
+      throw new IllegalArgumentException("Language cannot be null");
+    }
+    int length = language.length();
+    if (length == 0 || length > MAX_LENGTH) {
+      return NOT_ENCODABLE;
+    }
+    boolean lowerCase = isLowerCaseLetter(language.charAt(0));
+    int code = 0;
+    for (int i = 0; i < MAX_LENGTH; i++) {
+      int letter = 0;
+      if (i < length) {
+        char character = language.charAt(i);
+        if (lowerCase ? !isLowerCaseLetter(character) : !isUpperCaseLetter(character)) {
+          return NOT_ENCODABLE;
+        }
+        letter = Character.toUpperCase(character) - 'A' + 1;
+      }
+      code = code * LETTERS + letter;
+    }
+    return lowerCase ? code + LOWER_CASE : code;
+  }
+
+  /**
+   * Returns the packed code of the passed language, or the code it was registered with, or
+   * {@link #NOT_ENCODABLE}.
+   */
+  public static int lookup(String language) {
+    int code = encode(language);
+    if (code != NOT_ENCODABLE) {
+      return code;
+    }
+    Integer registeredCode = dictionaryCodes.get(language);
+    return registeredCode == null ? NOT_ENCODABLE : registeredCode;
+  }
+
+  /**
+   * Gives a language which cannot be packed the passed code of a dictionary.
+   */
+  public static void register(int code, String language) {
+    if (code < MIN_DICTIONARY_CODE || code > MAX_DICTIONARY_CODE) {
+      throw new IllegalArgumentException(String.format("Invalid dictionary language code %d", code));
+    }
+    if (language == null || encode(language) != NOT_ENCODABLE) {
+      throw new IllegalArgumentException(String.format("Language '%s' cannot be registered", language));
+    }
+    String shared = canonical(language);
+    languages.set(code, shared);
+    dictionaryCodes.put(shared, code);
+  }
+
+  /**
+   * Sets the function reading languages of codes which are not registered yet, it returns null for
+   * unknown codes.
+   */
+  public static void setDictionary(IntFunction<String> dictionary) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("Dictionary cannot be null");
+    }
+    LanguageCodes.dictionary = dictionary;
+  }
+
+  /**
+   * Returns the shared instance of the language with the passed code.
+   */
+  public static String decode(int code) {
+    if (code >= MIN_DICTIONARY_CODE && code <= MAX_DICTIONARY_CODE) {
+      return decodeRegistered(code);
+    }
+    if (code <= 0 || code >= CODES || code % LOWER_CASE < LETTERS * LETTERS) {
+      throw new IllegalArgumentException(String.format("Invalid language code %d", code));
+    }
+    String language = languages.get(code);
+    if (language == null) {
+      language = decodeLetters(code);
+      if (encode(language) != code) {
+        throw new IllegalArgumentException(String.format("Invalid language code %d", code));
+      }
+      languages.compareAndSet(code, null, language);
+      language = languages.get(code);
+    }
+    return language;
+  }
+
+  /**
+   * Returns the shared instance equal to the passed language.
+   */
+  public static String canonical(String language) {
+    if (language == null) {
+      return null;
+    }
+    int code = encode(language);
+    if (code != NOT_ENCODABLE) {
+      return decode(code);
+    }
+    String shared = otherLanguages.get(language);
+    if (shared != null) {
+      return shared;
+    }
+    if (otherLanguages.size() < MAX_OTHER_LANGUAGES) {
+      shared = otherLanguages.putIfAbsent(language, language);
+    }
+    return shared == null ? language : shared;
+  }
+
+  private static String decodeRegistered(int code) {
+    String language = languages.get(code);
+    if (language == null) {
+      language = dictionary.apply(code);
+      if (language == null) {
+        throw new IllegalArgumentException(String.format("Unknown language code %d", code));
+      }
+      register(code, language);
+      language = languages.get(code);
+    }
+    return language;
+  }
+
+  private static String decodeLetters(int code) {
+    boolean lowerCase = code >= LOWER_CASE;
+    int letters = code % LOWER_CASE;
+    char[] characters = new char[MAX_LENGTH];
+    int length = 0;
+    for (int divisor = LETTERS * LETTERS; divisor > 0; divisor /= LETTERS) {
+      int letter = letters / divisor % LETTERS;
+      if (letter == 0) {
+        break;
+      }
+      characters[length++] = (char) ((lowerCase ? 'a' : 'A') + letter - 1);
+    }
+    return new String(characters, 0, length);
+  }
+
+  private static boolean isLowerCaseLetter(char character) {
+    return character >= 'a' && character <= 'z';
+  }
+
+  private static boolean isUpperCaseLetter(char character) {
+    return character >= 'A' && character <= 'Z';
+  }
+}
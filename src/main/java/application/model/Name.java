@@ -3,19 +3,16 @@ package application.model;
 import io.swagger.annotations.ApiModelProperty;
 import java.util.Locale;
 import java.util.Objects;
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
+import javax.persistence.Convert;
+import javax.persistence.Embeddable;
 
-@Entity
+@Embeddable
 public class Name {
-  @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
   @ApiModelProperty(value = "The id of the name.", position = -1)
   private Long id;
 
   @ApiModelProperty(value = "Setting the language.", example = "EN")
+  @Convert(converter = LanguageCodeConverter.class)
   private String language;
 
   @ApiModelProperty(value = "Name of the Product.", example = "Name")
@@ -26,7 +23,7 @@ public class Name {
 
   public Name(Long id, String language, String value) {
     this.id = id;
-    this.language = language;
+    this.language = LanguageCodes.canonical(language);
     this.value = value;
   }
 
@@ -43,7 +40,7 @@ public class Name {
   }
 
   public void setLanguage(String language) {
-    this.language = language;
+    this.language = LanguageCodes.canonical(language);
   }
 
   public String getValue() {
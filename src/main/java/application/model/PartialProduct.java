@@ -0,0 +1,43 @@
+package application.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Set;
+
+/**
+ * Product with only some of its fields read. Fields which are not set are left out of JSON instead of
+ * being written as null, so callers get just what they asked for.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PartialProduct extends Product {
+
+  private PartialProduct() {
+  }
+
+  /**
+   * Returns a copy of the product with only the passed fields and its version, or the product itself
+   * when all of them are passed or fields are null.
+   */
+  public static Product of(Product product, Set<ProductField> fields) {
+    if (fields == null || fields.containsAll(ProductField.ALL)) {
+      return product;
+    }
+    PartialProduct partialProduct = new PartialProduct();
+    partialProduct.setVersion(product.getVersion());
+    if (fields.contains(ProductField.ID)) {
+      partialProduct.setId(product.getId());
+    }
+    if (fields.contains(ProductField.NAME)) {
+      partialProduct.setName(product.getName());
+    }
+    if (fields.contains(ProductField.DESCRIPTION)) {
+      partialProduct.setDescription(product.getDescription());
+    }
+    if (fields.contains(ProductField.PRICE)) {
+      partialProduct.setPrice(product.getPrice());
+    }
+    if (fields.contains(ProductField.TRANSLATIONS)) {
+      partialProduct.setTranslations(product.getTranslations());
+    }
+    return partialProduct;
+  }
+}
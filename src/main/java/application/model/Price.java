@@ -1,26 +1,49 @@
 package application.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import io.swagger.annotations.ApiModelProperty;
 import java.math.BigDecimal;
 import java.util.Currency;
 import java.util.Objects;
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
-
-@Entity
-public class Price {
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Convert;
+import javax.persistence.Embeddable;
+import javax.persistence.Transient;
+
+/**
+ * Price kept as a fixed-point amount: a long count of minor units and the number of decimal digits
+ * they have, usually the minor unit of the currency. {@link BigDecimal} is only created when the
+ * price is read through {@link #getPrice()}, by JSON serialization and by the database column.
+ * Amounts keep the scale they were set with, so {@code 10.5} and {@code 10.50} are different
+ * prices, as they are for {@link BigDecimal#equals(Object)}.
+ */
+@Embeddable
+@JsonPropertyOrder({"id", "price", "currency"})
+public class Price implements Comparable<Price> {
+
+  private static final int NO_AMOUNT = Integer.MIN_VALUE;
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
 
-  @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
   @ApiModelProperty(value = "The id of the price.", position = -1)
   private Long id;
 
-  @ApiModelProperty(value = "Price with dot ('.') as a separator", example = "1000.00")
-  private BigDecimal price;
+  @Transient
+  private long amount;
+
+  @Transient
+  private int scale = NO_AMOUNT;
 
   @ApiModelProperty(value = "Currency", example = "EUR")
+  @Convert(converter = CurrencyCodeConverter.class)
   private Currency currency;
 
   public Price() {
@@ -28,7 +51,17 @@ public class Price {
 
   public Price(Long id, BigDecimal price, Currency currency) {
     this.id = id;
-    this.price = price;
+    setPrice(price);
+    this.currency = currency;
+  }
+
+  public Price(Long id, long amount, int scale, Currency currency) {
+    if (scale == NO_AMOUNT) {
+      throw new IllegalArgumentException("Invalid scale");
+    }
+    this.id = id;
+    this.amount = amount;
+    this.scale = scale;
     this.currency = currency;
   }
 
@@ -40,12 +73,47 @@ public class Price {
     this.id = id;
   }
 
+  @Access(AccessType.PROPERTY)
+  @ApiModelProperty(value = "Price with dot ('.') as a separator", example = "1000.00")
   public BigDecimal getPrice() {
-    return price;
+    return hasAmount() ? BigDecimal.valueOf(amount, scale) : null;
   }
 
+  /**
+   * Sets the amount, which has to fit a long number of minor units.
+   */
   public void setPrice(BigDecimal price) {
-    this.price = price;
+    if (price == null) {
+      amount = 0;
+      scale = NO_AMOUNT;
+      return;
+    }
+    if (price.unscaledValue().bitLength() >= Long.SIZE) {
+      throw new IllegalArgumentException(String.format("Price %s is too large", price.toPlainString()));
+    }
+    amount = price.unscaledValue().longValue();
+    scale = price.scale();
+  }
+
+  @JsonIgnore
+  public boolean hasAmount() {
+    return scale != NO_AMOUNT;
+  }
+
+  /**
+   * Returns the amount in minor units, zero when there is no amount.
+   */
+  @JsonIgnore
+  public long getAmount() {
+    return amount;
+  }
+
+  /**
+   * Returns the number of decimal digits of {@link #getAmount()}.
+   */
+  @JsonIgnore
+  public int getScale() {
+    return hasAmount() ? scale : 0;
   }
 
   public Currency getCurrency() {
@@ -56,6 +124,34 @@ public class Price {
     this.currency = currency;
   }
 
+  /**
+   * Compares amounts by their value regardless of scale and currency, prices without an amount come
+   * first. Equal amounts of different scale compare as equal, which is inconsistent with
+   * {@link #equals(Object)} in the same way as {@link BigDecimal#compareTo(BigDecimal)}.
+   */
+  @Override
+  public int compareTo(Price other) {
+    if (scale == other.scale) {
+      return Long.compare(amount, other.amount);
+    }
+    if (!hasAmount() || !other.hasAmount()) {
+      return Boolean.compare(hasAmount(), other.hasAmount());
+    }
+    int scaleDifference = scale - other.scale;
+    if (scaleDifference > 0 && scaleDifference < POWERS_OF_TEN.length) {
+      long rescaled = other.amount * POWERS_OF_TEN[scaleDifference];
+      if (rescaled / POWERS_OF_TEN[scaleDifference] == other.amount) {
+        return Long.compare(amount, rescaled);
+      }
+    } else if (scaleDifference < 0 && -scaleDifference < POWERS_OF_TEN.length) {
+      long rescaled = amount * POWERS_OF_TEN[-scaleDifference];
+      if (rescaled / POWERS_OF_TEN[-scaleDifference] == amount) {
+        return Long.compare(rescaled, other.amount);
+      }
+    }
+    return getPrice().compareTo(other.getPrice());
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -65,21 +161,25 @@ public class Price {
       return false;
     }
     Price price1 = (Price) o;
-    return Objects.equals(id, price1.id) &&
-        Objects.equals(price, price1.price) &&
-        Objects.equals(currency, price1.currency);
+    return amount == price1.amount &&
+        scale == price1.scale &&
+        Objects.equals(id, price1.id) &&
+        currency == price1.currency;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(id, price, currency);
+    int result = Objects.hashCode(id);
+    result = 31 * result + Long.hashCode(amount);
+    result = 31 * result + scale;
+    return 31 * result + Objects.hashCode(currency);
   }
 
   @Override
   public String toString() {
     return "Price{" +
         "id=" + id +
-        ", price=" + price +
+        ", price=" + getPrice() +
         ", currency=" + currency +
         '}';
   }
@@ -1,31 +1,72 @@
 package application.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.annotations.ApiModelProperty;
+import java.util.List;
 import java.util.Objects;
-import javax.persistence.CascadeType;
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.Column;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.OneToOne;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "product_name_value_index", columnList = "name_value"),
+    @Index(name = "product_price_amount_index", columnList = "price_amount, id"),
+    @Index(name = "product_price_currency_amount_index", columnList = "price_currency, price_amount, id")})
 public class Product {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(generator = "product_id_generator")
+  @GenericGenerator(name = "product_id_generator", strategy = "application.database.PooledSequenceIdGenerator",
+      parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "product_seq"))
   @ApiModelProperty(value = "The id of product.", example = "1234", dataType = "Long", position = -1)
   private Long id;
 
-  @OneToOne(cascade = CascadeType.ALL)
+  @Embedded
+  @AttributeOverrides({
+      @AttributeOverride(name = "id", column = @Column(name = "name_id")),
+      @AttributeOverride(name = "language", column = @Column(name = "name_language")),
+      @AttributeOverride(name = "value", column = @Column(name = "name_value"))})
   private Name name;
 
-  @OneToOne(cascade = CascadeType.ALL)
+  @Embedded
+  @AttributeOverrides({
+      @AttributeOverride(name = "id", column = @Column(name = "description_id")),
+      @AttributeOverride(name = "language", column = @Column(name = "description_language")),
+      @AttributeOverride(name = "value", column = @Column(name = "description_value"))})
   private Description description;
 
-  @OneToOne(cascade = CascadeType.ALL)
+  @Embedded
+  @AttributeOverrides({
+      @AttributeOverride(name = "id", column = @Column(name = "price_id")),
+      @AttributeOverride(name = "price", column = @Column(name = "price_amount")),
+      @AttributeOverride(name = "currency", column = @Column(name = "price_currency"))})
   private Price price;
 
+  // Stored apart from the product row, so a localized read loads only the translation it needs.
+  @Transient
+  @JsonInclude(JsonInclude.Include.NON_EMPTY)
+  @ApiModelProperty(value = "Names and descriptions in other languages, by lower case language.")
+  private Translations translations = Translations.NONE;
+
+  // Grows with every save and goes out as the ETag of the product instead of in its JSON. Equality
+  // leaves it out, it tells which save a product comes from rather than what the product is.
+  @Version
+  @JsonIgnore
+  private Long version;
+
   public Product() {
   }
 
@@ -68,6 +109,68 @@ public class Product {
     this.price = price;
   }
 
+  public Translations getTranslations() {
+    return translations;
+  }
+
+  public void setTranslations(Translations translations) {
+    this.translations = translations == null ? Translations.NONE : translations;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
+  /**
+   * Returns the language of the name, or of the description when the name has none.
+   */
+  public String language() {
+    if (name != null && name.getLanguage() != null) {
+      return name.getLanguage();
+    }
+    return description == null ? null : description.getLanguage();
+  }
+
+  /**
+   * Returns a copy without translations, with the name and description in the first of the passed
+   * lower case languages the product has, either its own or a translation. Without any of them the
+   * copy is in the product's own language.
+   */
+  public Product localized(List<String> languages) {
+    String ownLanguage = language();
+    for (String language : languages) {
+      if (language.equalsIgnoreCase(ownLanguage)) {
+        break;
+      }
+      Translation translation = translations.get(language);
+      if (translation != null) {
+        Name localizedName = translation.getName() == null ? copyOf(name)
+            : new Name(name == null ? null : name.getId(), language, translation.getName());
+        Description localizedDescription = translation.getDescription() == null ? copyOf(description)
+            : new Description(description == null ? null : description.getId(), language, translation.getDescription());
+        return withVersion(new Product(id, localizedName, localizedDescription, price));
+      }
+    }
+    return withVersion(new Product(id, copyOf(name), copyOf(description), price));
+  }
+
+  private Product withVersion(Product product) {
+    product.version = version;
+    return product;
+  }
+
+  private static Name copyOf(Name name) {
+    return name == null ? null : new Name(name.getId(), name.getLanguage(), name.getValue());
+  }
+
+  private static Description copyOf(Description description) {
+    return description == null ? null : new Description(description.getId(), description.getLanguage(), description.getValue());
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -80,12 +183,13 @@ public class Product {
     return Objects.equals(id, product.id) &&
         Objects.equals(name, product.name) &&
         Objects.equals(description, product.description) &&
-        Objects.equals(price, product.price);
+        Objects.equals(price, product.price) &&
+        Objects.equals(translations, product.translations);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(id, name, description, price);
+    return Objects.hash(id, name, description, price, translations);
   }
 
   @Override
@@ -95,6 +199,7 @@ public class Product {
         ", name=" + name +
         ", description=" + description +
         ", price=" + price +
+        ", translations=" + translations +
         '}';
   }
 }
@@ -0,0 +1,105 @@
+package application.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.Objects;
+
+/**
+ * Save or delete of a product, numbered by the change log it was published to. Saved changes carry
+ * the product as it was saved, deleted ones only its id. A change is immutable, its sequence number
+ * is 0 until it is published.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class ProductChange {
+
+  public enum Type {
+    SAVED, DELETED
+  }
+
+  @ApiModelProperty(value = "Number of the change, greater than the numbers of all earlier changes.", example = "1042")
+  private final long sequence;
+
+  @ApiModelProperty(value = "Whether the product was saved or deleted.", example = "SAVED")
+  private final Type type;
+
+  @ApiModelProperty(value = "The id of changed product.", example = "1234")
+  private final Long productId;
+
+  @ApiModelProperty(value = "The product as it was saved, missing for deleted products.")
+  private final Product product;
+
+  @JsonCreator
+  public ProductChange(@JsonProperty("sequence") long sequence, @JsonProperty("type") Type type,
+                       @JsonProperty("productId") Long productId, @JsonProperty("product") Product product) {
+    this.sequence = sequence;
+    this.type = type;
+    this.productId = productId;
+    this.product = product;
+  }
+
+  public static ProductChange saved(Product product) {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    return new ProductChange(0, Type.SAVED, product.getId(), product);
+  }
+
+  public static ProductChange deleted(Long productId) {
+    if (productId == null) {
+      throw new IllegalArgumentException("Id cannot be null");
+    }
+    return new ProductChange(0, Type.DELETED, productId, null);
+  }
+
+  public ProductChange withSequence(long sequence) {
+    return new ProductChange(sequence, type, productId, product);
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public Long getProductId() {
+    return productId;
+  }
+
+  public Product getProduct() {
+    return product;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ProductChange)) {
+      return false;
+    }
+    ProductChange change = (ProductChange) o;
+    return sequence == change.sequence &&
+        type == change.type &&
+        Objects.equals(productId, change.productId) &&
+        Objects.equals(product, change.product);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(sequence, type, productId, product);
+  }
+
+  @Override
+  public String toString() {
+    return "ProductChange{" +
+        "sequence=" + sequence +
+        ", type=" + type +
+        ", productId=" + productId +
+        ", product=" + product +
+        '}';
+  }
+}
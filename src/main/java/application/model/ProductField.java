@@ -0,0 +1,46 @@
+package application.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Fields of a {@link Product} which a read can be limited to.
+ */
+public enum ProductField {
+  ID, NAME, DESCRIPTION, PRICE, TRANSLATIONS;
+
+  public static final Set<ProductField> ALL = Collections.unmodifiableSet(EnumSet.allOf(ProductField.class));
+
+  /**
+   * Returns the fields named in a comma separated list such as {@code id,name,price}.
+   */
+  public static Set<ProductField> parse(String fields) {
+    if (fields == null || fields.trim().isEmpty()) {
+      throw new IllegalArgumentException("Fields cannot be empty");
+    }
+    Set<ProductField> parsedFields = EnumSet.noneOf(ProductField.class);
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      try {
+        parsedFields.add(valueOf(name.toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(String.format("Unknown field '%s', fields are %s", name, ALL.toString().toLowerCase(Locale.ROOT)));
+      }
+    }
+    return parsedFields;
+  }
+
+  /**
+   * Returns the passed fields and the id, which storage always reads.
+   */
+  public static Set<ProductField> withId(Set<ProductField> fields) {
+    if (fields.contains(ID)) {
+      return fields;
+    }
+    Set<ProductField> fieldsWithId = EnumSet.of(ID);
+    fieldsWithId.addAll(fields);
+    return fieldsWithId;
+  }
+}
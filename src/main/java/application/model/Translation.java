@@ -0,0 +1,63 @@
+package application.model;
+
+import io.swagger.annotations.ApiModelProperty;
+import java.util.Objects;
+
+public class Translation {
+
+  @ApiModelProperty(value = "Name of the Product in the language.", example = "Name")
+  private String name;
+
+  @ApiModelProperty(value = "Description of the Product in the language.", example = "Description")
+  private String description;
+
+  public Translation() {
+  }
+
+  public Translation(String name, String description) {
+    this.name = name;
+    this.description = description;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Translation)) {
+      return false;
+    }
+    Translation translation = (Translation) o;
+    return Objects.equals(name, translation.name) &&
+        Objects.equals(description, translation.description);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, description);
+  }
+
+  @Override
+  public String toString() {
+    return "Translation{" +
+        "name='" + name + '\'' +
+        ", description='" + description + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,159 @@
+package application.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Names and descriptions of a product in languages other than its own, by lower case language.
+ *
+ * <p>Held as arrays of languages, names and descriptions sorted by language instead of a map of
+ * entries, so translations cost little more than their strings and a language is found by binary
+ * search. Languages are shared {@link LanguageCodes#canonical(String) canonical} instances.
+ * Translations are immutable, in JSON they are an object with a member per language.
+ */
+@JsonSerialize(using = Translations.Serializer.class)
+public final class Translations {
+
+  public static final Translations NONE = new Translations(new String[0], new String[0], new String[0]);
+
+  private final String[] languages;
+  private final String[] names;
+  private final String[] descriptions;
+
+  private Translations(String[] languages, String[] names, String[] descriptions) {
+    this.languages = languages;
+    this.names = names;
+    this.descriptions = descriptions;
+  }
+
+  /**
+   * Returns the passed translations, with languages lower cased.
+   */
+  @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+  public static Translations of(Map<String, Translation> translations) {
+    if (translations == null || translations.isEmpty()) {
+      return NONE;
+    }
+    Map<String, Translation> sorted = new TreeMap<>();
+    for (Map.Entry<String, Translation> entry : translations.entrySet()) {
+      if (entry.getKey() == null || entry.getKey().isEmpty()) {
+        throw new IllegalArgumentException("Language of translation cannot be empty");
+      }
+      if (entry.getValue() == null) {
+        throw new IllegalArgumentException(String.format("Translation to '%s' cannot be null", entry.getKey()));
+      }
+      if (sorted.put(language(entry.getKey()), entry.getValue()) != null) {
+        throw new IllegalArgumentException(String.format("Translation to '%s' is repeated", entry.getKey()));
+      }
+    }
+    String[] languages = new String[sorted.size()];
+    String[] names = new String[sorted.size()];
+    String[] descriptions = new String[sorted.size()];
+    int position = 0;
+    for (Map.Entry<String, Translation> entry : sorted.entrySet()) {
+      languages[position] = entry.getKey();
+      names[position] = entry.getValue().getName();
+      descriptions[position++] = entry.getValue().getDescription();
+    }
+    return new Translations(languages, names, descriptions);
+  }
+
+  /**
+   * Returns the form of the passed language which translations are kept under.
+   */
+  public static String language(String language) {
+    return language == null ? null : LanguageCodes.canonical(language.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns the translation to the passed lower case language, or null when there is none.
+   */
+  public Translation get(String language) {
+    int position = language == null ? -1 : Arrays.binarySearch(languages, language);
+    return position < 0 ? null : new Translation(names[position], descriptions[position]);
+  }
+
+  /**
+   * Returns the languages of the translations in increasing order.
+   */
+  public List<String> getLanguages() {
+    return Collections.unmodifiableList(Arrays.asList(languages));
+  }
+
+  public int size() {
+    return languages.length;
+  }
+
+  public boolean isEmpty() {
+    return languages.length == 0;
+  }
+
+  public Map<String, Translation> toMap() {
+    Map<String, Translation> translations = new LinkedHashMap<>();
+    for (int position = 0; position < languages.length; position++) {
+      translations.put(languages[position], new Translation(names[position], descriptions[position]));
+    }
+    return translations;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Translations)) {
+      return false;
+    }
+    Translations translations = (Translations) o;
+    return Arrays.equals(languages, translations.languages) &&
+        Arrays.equals(names, translations.names) &&
+        Arrays.equals(descriptions, translations.descriptions);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * Arrays.hashCode(languages) + Arrays.hashCode(names)) + Arrays.hashCode(descriptions);
+  }
+
+  @Override
+  public String toString() {
+    return "Translations" + toMap();
+  }
+
+  /**
+   * Writes translations as an object with a member per language, which counts as empty without
+   * translations.
+   */
+  static final class Serializer extends StdSerializer<Translations> {
+
+    Serializer() {
+      super(Translations.class);
+    }
+
+    @Override
+    public void serialize(Translations translations, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      generator.writeStartObject();
+      for (int position = 0; position < translations.languages.length; position++) {
+        generator.writeObjectField(translations.languages[position],
+            new Translation(translations.names[position], translations.descriptions[position]));
+      }
+      generator.writeEndObject();
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, Translations translations) {
+      return translations.isEmpty();
+    }
+  }
+}
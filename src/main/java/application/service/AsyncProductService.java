@@ -0,0 +1,135 @@
+package application.service;
+
+import application.database.PriceQuery;
+import application.database.SearchQuery;
+import application.model.Product;
+import application.model.ProductField;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs {@link ProductService} operations on the product database executor, so callers are not
+ * blocked while the database works. Returned futures complete with the result of the operation, or
+ * exceptionally with the exception it threw, or with a {@link RejectedExecutionException} when the
+ * executor queue is full.
+ */
+@Service
+public class AsyncProductService {
+
+  private ProductService productService;
+  private Executor executor;
+
+  @Autowired
+  public AsyncProductService(ProductService productService, @Qualifier("productDatabaseExecutor") Executor executor) {
+    this.productService = productService;
+    this.executor = executor;
+  }
+
+  public CompletableFuture<ProductOperationResult> createProduct(Product product) {
+    return supply(() -> productService.createProduct(product));
+  }
+
+  public CompletableFuture<List<ProductOperationResult>> createProducts(List<Product> products) {
+    return supply(() -> productService.createProducts(products));
+  }
+
+  public CompletableFuture<List<ProductOperationResult>> updateProducts(List<Product> products) {
+    return supply(() -> productService.updateProducts(products));
+  }
+
+  public CompletableFuture<List<ProductOperationResult>> deleteProducts(List<Long> ids) {
+    return supply(() -> productService.deleteProducts(ids));
+  }
+
+  public CompletableFuture<Optional<List<Product>>> getAllProducts() {
+    return supply(productService::getAllProducts);
+  }
+
+  public CompletableFuture<Optional<List<Product>>> getAllProducts(Set<ProductField> fields) {
+    return supply(() -> productService.getAllProducts(fields));
+  }
+
+  public CompletableFuture<Optional<List<Product>>> getProductsPage(Long after, int limit) {
+    return supply(() -> productService.getProductsPage(after, limit));
+  }
+
+  public CompletableFuture<Optional<List<Product>>> getProductsPage(Long after, int limit, Set<ProductField> fields) {
+    return supply(() -> productService.getProductsPage(after, limit, fields));
+  }
+
+  public CompletableFuture<Optional<List<Product>>> getProductsByPrice(PriceQuery query, int limit) {
+    return supply(() -> productService.getProductsByPrice(query, limit));
+  }
+
+  public CompletableFuture<Optional<List<Product>>> searchProducts(SearchQuery query, Long after, int limit) {
+    return supply(() -> productService.searchProducts(query, after, limit));
+  }
+
+  public CompletableFuture<Optional<List<Product>>> getProductsByName(String name) {
+    return supply(() -> productService.getProductsByName(name));
+  }
+
+  public CompletableFuture<Optional<Product>> getProduct(Long id) {
+    return supply(() -> productService.getProduct(id));
+  }
+
+  public CompletableFuture<Optional<Product>> getProduct(Long id, Set<ProductField> fields) {
+    return supply(() -> productService.getProduct(id, fields));
+  }
+
+  public CompletableFuture<Optional<Product>> getLocalizedProduct(Long id, List<String> languages) {
+    return supply(() -> productService.getLocalizedProduct(id, languages));
+  }
+
+  public CompletableFuture<ProductOperationResult> updateProduct(Product product) {
+    return supply(() -> productService.updateProduct(product));
+  }
+
+  public CompletableFuture<ProductOperationResult> updateProduct(Product product, long version) {
+    return supply(() -> productService.updateProduct(product, version));
+  }
+
+  public CompletableFuture<Optional<Long>> getProductVersion(Long id) {
+    return supply(() -> productService.getProductVersion(id));
+  }
+
+  public CompletableFuture<String> getCatalogVersion() {
+    return supply(productService::getCatalogVersion);
+  }
+
+  public CompletableFuture<ProductOperationResult> deleteProduct(Long id) {
+    return supply(() -> productService.deleteProduct(id));
+  }
+
+  public CompletableFuture<Boolean> productExistsById(Long id) {
+    return supply(() -> productService.productExistsById(id));
+  }
+
+  private <T> CompletableFuture<T> supply(ServiceCall<T> call) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(call.call());
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  @FunctionalInterface
+  private interface ServiceCall<T> {
+    T call() throws ServiceOperationException;
+  }
+}
@@ -0,0 +1,71 @@
+package application.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed number of threads in front of a queue of limited capacity. When the queue is full, a task
+ * is either rejected with a {@link java.util.concurrent.RejectedExecutionException} or run by the
+ * submitting thread, depending on the {@link RejectionPolicy}. Rejected tasks are counted.
+ */
+public class BoundedExecutor extends ThreadPoolExecutor implements ProductDatabaseExecutor {
+
+  private final int queueCapacity;
+  private final LongAdder rejectedTaskCount;
+
+  public enum RejectionPolicy {
+    ABORT,
+    CALLER_RUNS
+  }
+
+  public BoundedExecutor(int threads, int queueCapacity, RejectionPolicy rejectionPolicy, String threadNamePrefix) {
+    this(threads, queueCapacity, rejectionPolicy, threadNamePrefix, new LongAdder());
+  }
+
+  private BoundedExecutor(int threads, int queueCapacity, RejectionPolicy rejectionPolicy, String threadNamePrefix, LongAdder rejectedTaskCount) {
+    super(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+        threadFactory(threadNamePrefix), countingHandler(rejectionPolicy, rejectedTaskCount));
+    this.queueCapacity = queueCapacity;
+    this.rejectedTaskCount = rejectedTaskCount;
+  }
+
+  @Override
+  public int getQueuedTaskCount() {
+    return getQueue().size();
+  }
+
+  @Override
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  @Override
+  public long getRejectedTaskCount() {
+    return rejectedTaskCount.sum();
+  }
+
+  private static RejectedExecutionHandler countingHandler(RejectionPolicy rejectionPolicy, LongAdder rejectedTaskCount) {
+    if (rejectionPolicy == null) {
+      throw new IllegalArgumentException("Rejection policy cannot be null");
+    }
+    RejectedExecutionHandler handler = rejectionPolicy == RejectionPolicy.CALLER_RUNS ? new CallerRunsPolicy() : new AbortPolicy();
+    return (task, executor) -> {
+      rejectedTaskCount.increment();
+      handler.rejectedExecution(task, executor);
+    };
+  }
+
+  private static ThreadFactory threadFactory(String threadNamePrefix) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return task -> {
+      Thread thread = new Thread(task, threadNamePrefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
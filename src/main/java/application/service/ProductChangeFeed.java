@@ -0,0 +1,292 @@
+package application.service;
+
+import application.database.DatabaseOperationException;
+import application.database.ProductChangeLog;
+import application.model.ProductChange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Appends changes of products to the {@link ProductChangeLog} and reads them back for consumers,
+ * waiting for the next change when there is none yet.
+ *
+ * <p>A waiting read holds no thread. It is registered before the log is read, so a change appended
+ * meanwhile is not missed. Appended changes and passed timeouts are handed to waiting reads by one
+ * dispatch at a time, which reads the log once after the oldest cursor of the due reads and gives
+ * every read its part of those changes, so a write costs one read of the log however many consumers
+ * follow it. A timeout reads the log too, which finds changes appended by another instance sharing
+ * the log. Reads of the log run on the product database executor, the returned futures complete on
+ * the delivery executor, so slow consumers do not hold either of them.
+ */
+@Service
+public class ProductChangeFeed {
+
+  private ProductChangeLog changeLog;
+  private Executor executor;
+  private Executor deliveryExecutor;
+  private Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+  private ScheduledExecutorService dispatcher;
+  private AtomicLong appendedSequence = new AtomicLong(Long.MIN_VALUE);
+  private AtomicBoolean dispatching = new AtomicBoolean();
+  private AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+  @Autowired
+  public ProductChangeFeed(ProductChangeLog changeLog, @Qualifier("productDatabaseExecutor") Executor executor,
+                           @Qualifier("applicationTaskExecutor") Executor deliveryExecutor) {
+    this.changeLog = changeLog;
+    this.executor = executor;
+    this.deliveryExecutor = deliveryExecutor;
+    ScheduledThreadPoolExecutor dispatcher = new ScheduledThreadPoolExecutor(1, task -> {
+      Thread thread = new Thread(task, "product-change-feed");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // Most timeouts are cancelled by a change, they should not stay queued until they would have passed.
+    dispatcher.setRemoveOnCancelPolicy(true);
+    this.dispatcher = dispatcher;
+  }
+
+  /**
+   * Appends the changes to the log, in the transaction of the write which made them when there is one,
+   * and returns them with their sequence numbers.
+   */
+  public List<ProductChange> append(List<ProductChange> changes) throws ServiceOperationException {
+    if (changes == null || changes.contains(null)) {
+      throw new IllegalArgumentException("Changes cannot be null.");
+    }
+    if (changes.isEmpty()) {
+      return changes;
+    }
+    try {
+      return changeLog.append(changes);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while publishing product changes.", e);
+    }
+  }
+
+  /**
+   * Hands the appended changes to waiting reads, once they are committed. Only schedules a dispatch,
+   * the writer does not wait for it.
+   */
+  public void appended(List<ProductChange> changes) {
+    if (changes == null || changes.isEmpty()) {
+      return;
+    }
+    appendedSequence.accumulateAndGet(changes.get(changes.size() - 1).getSequence(), Math::max);
+    requestDispatch();
+  }
+
+  public CompletableFuture<Long> getLastSequence() {
+    CompletableFuture<Long> lastSequence = new CompletableFuture<>();
+    read(changeLog::lastSequence).whenComplete((sequence, e) -> deliver(lastSequence, sequence, e));
+    return lastSequence;
+  }
+
+  /**
+   * Returns a future of at most {@code limit} changes after {@code since}, which waits up to the
+   * timeout for the next change when there is none yet and then completes with no changes. It completes
+   * empty when changes after {@code since} are no longer kept.
+   */
+  public CompletableFuture<Optional<List<ProductChange>>> getChangesAfter(long since, int limit, long timeout, TimeUnit unit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Timeout cannot be negative.");
+    }
+    Waiter waiter = new Waiter(since, limit);
+    waiters.add(waiter);
+    read(() -> changeLog.findAfter(since, limit)).whenComplete((changes, e) -> {
+      if (e != null || !changes.isPresent() || !changes.get().isEmpty() || timeout == 0) {
+        waiter.resolve(changes, e);
+      } else {
+        waiter.await(timeout, unit);
+      }
+    });
+    return waiter.changes;
+  }
+
+  @PreDestroy
+  public void close() {
+    dispatcher.shutdownNow();
+  }
+
+  private void requestDispatch() {
+    dispatchRequested.set(true);
+    if (dispatching.compareAndSet(false, true)) {
+      try {
+        dispatcher.execute(this::dispatch);
+      } catch (RejectedExecutionException e) {
+        // Closed, nobody waits any more.
+        dispatching.set(false);
+      }
+    }
+  }
+
+  private void dispatch() {
+    dispatchRequested.set(false);
+    long lastSequence = appendedSequence.get();
+    List<Waiter> dueWaiters = new ArrayList<>();
+    long since = Long.MAX_VALUE;
+    int limit = 0;
+    for (Waiter waiter : waiters) {
+      if (!waiter.resolved.get() && (waiter.expired || waiter.since < lastSequence)) {
+        dueWaiters.add(waiter);
+        since = Math.min(since, waiter.since);
+        limit = Math.max(limit, waiter.limit);
+      }
+    }
+    if (dueWaiters.isEmpty()) {
+      dispatched(false);
+      return;
+    }
+    long oldestSince = since;
+    int readLimit = limit;
+    read(() -> changeLog.findAfter(oldestSince, readLimit)).whenComplete((changes, e) -> dispatched(handOut(dueWaiters, oldestSince, changes, e)));
+  }
+
+  private void dispatched(boolean progressed) {
+    if (progressed) {
+      // Reads further ahead than the changes read are still due.
+      dispatchRequested.set(true);
+    }
+    dispatching.set(false);
+    if (dispatchRequested.get()) {
+      requestDispatch();
+    }
+  }
+
+  private boolean handOut(List<Waiter> dueWaiters, long since, Optional<List<ProductChange>> changes, Throwable exception) {
+    if (exception != null) {
+      dueWaiters.forEach(waiter -> waiter.resolve(null, exception));
+      return false;
+    }
+    if (!changes.isPresent()) {
+      dueWaiters.stream().filter(waiter -> waiter.since == since).forEach(waiter -> waiter.resolve(changes, null));
+      return true;
+    }
+    List<ProductChange> foundChanges = changes.get();
+    boolean progressed = false;
+    for (Waiter waiter : dueWaiters) {
+      int first = firstAfter(foundChanges, waiter.since);
+      if (first < foundChanges.size()) {
+        List<ProductChange> waiterChanges = new ArrayList<>(foundChanges.subList(first, Math.min(foundChanges.size(), first + waiter.limit)));
+        waiter.resolve(Optional.of(waiterChanges), null);
+        progressed = true;
+      } else if (waiter.expired) {
+        waiter.resolve(Optional.of(Collections.emptyList()), null);
+      }
+    }
+    return progressed;
+  }
+
+  private static int firstAfter(List<ProductChange> changes, long since) {
+    int low = 0;
+    int high = changes.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (changes.get(middle).getSequence() <= since) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private <T> CompletableFuture<T> read(LogCall<T> call) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(call.call());
+        } catch (DatabaseOperationException e) {
+          future.completeExceptionally(new ServiceOperationException("An error while reading product changes.", e));
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private <T> void deliver(CompletableFuture<T> future, T value, Throwable exception) {
+    Runnable completion = () -> {
+      if (exception == null) {
+        future.complete(value);
+      } else {
+        future.completeExceptionally(exception);
+      }
+    };
+    try {
+      deliveryExecutor.execute(completion);
+    } catch (RejectedExecutionException e) {
+      completion.run();
+    }
+  }
+
+  @FunctionalInterface
+  private interface LogCall<T> {
+    T call() throws DatabaseOperationException;
+  }
+
+  private final class Waiter {
+    private final long since;
+    private final int limit;
+    private final CompletableFuture<Optional<List<ProductChange>>> changes = new CompletableFuture<>();
+    private final AtomicBoolean resolved = new AtomicBoolean();
+    private volatile boolean expired;
+    private volatile ScheduledFuture<?> timeout;
+
+    private Waiter(long since, int limit) {
+      this.since = since;
+      this.limit = limit;
+    }
+
+    private void await(long timeout, TimeUnit unit) {
+      try {
+        this.timeout = dispatcher.schedule(() -> {
+          expired = true;
+          requestDispatch();
+        }, timeout, unit);
+      } catch (RejectedExecutionException e) {
+        resolve(Optional.of(Collections.emptyList()), null);
+        return;
+      }
+      if (resolved.get()) {
+        this.timeout.cancel(false);
+      }
+    }
+
+    private void resolve(Optional<List<ProductChange>> foundChanges, Throwable exception) {
+      if (!resolved.compareAndSet(false, true)) {
+        return;
+      }
+      waiters.remove(this);
+      ScheduledFuture<?> timeoutTask = timeout;
+      if (timeoutTask != null) {
+        timeoutTask.cancel(false);
+      }
+      deliver(changes, foundChanges, exception);
+    }
+  }
+}
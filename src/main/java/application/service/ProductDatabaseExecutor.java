@@ -0,0 +1,21 @@
+package application.service;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor running product database work, with the statistics reported by the metrics endpoint.
+ */
+public interface ProductDatabaseExecutor extends Executor {
+
+  int getActiveCount();
+
+  int getQueuedTaskCount();
+
+  int getQueueCapacity();
+
+  long getCompletedTaskCount();
+
+  long getRejectedTaskCount();
+
+  void shutdown();
+}
@@ -0,0 +1,56 @@
+package application.service;
+
+import application.database.DatabaseOperationException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks of product ids, held while products are written and their changes appended, so changes of
+ * a product are appended in the order it was written in. Ids share a fixed number of locks, and a
+ * write of many products takes the locks of all of them in increasing order, so writes never wait for
+ * each other in a cycle.
+ */
+final class ProductLocks {
+
+  private final ReentrantLock[] locks;
+
+  ProductLocks(int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("Count must be positive");
+    }
+    locks = new ReentrantLock[count];
+    for (int i = 0; i < count; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Runs the write holding the locks of the passed ids, null ids need no lock.
+   */
+  <T> T withLocks(Collection<Long> ids, Write<T> write) throws DatabaseOperationException, ServiceOperationException {
+    int[] indexes = ids.stream()
+        .filter(Objects::nonNull)
+        .mapToInt(id -> Math.floorMod(Long.hashCode(id), locks.length))
+        .distinct()
+        .sorted()
+        .toArray();
+    int locked = 0;
+    try {
+      for (int index : indexes) {
+        locks[index].lock();
+        locked++;
+      }
+      return write.call();
+    } finally {
+      for (int i = locked - 1; i >= 0; i--) {
+        locks[indexes[i]].unlock();
+      }
+    }
+  }
+
+  @FunctionalInterface
+  interface Write<T> {
+    T call() throws DatabaseOperationException, ServiceOperationException;
+  }
+}
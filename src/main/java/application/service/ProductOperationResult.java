@@ -0,0 +1,66 @@
+package application.service;
+
+import application.model.Product;
+import java.util.Objects;
+
+public class ProductOperationResult {
+
+  public enum Outcome {
+    CREATED,
+    UPDATED,
+    DELETED,
+    CONFLICT,
+    NOT_FOUND,
+    VERSION_MISMATCH
+  }
+
+  private final Long id;
+  private final Outcome outcome;
+  private final Product product;
+
+  public ProductOperationResult(Long id, Outcome outcome, Product product) {
+    this.id = id;
+    this.outcome = outcome;
+    this.product = product;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  public Product getProduct() {
+    return product;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ProductOperationResult)) {
+      return false;
+    }
+    ProductOperationResult that = (ProductOperationResult) o;
+    return Objects.equals(id, that.id) &&
+        outcome == that.outcome &&
+        Objects.equals(product, that.product);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, outcome, product);
+  }
+
+  @Override
+  public String toString() {
+    return "ProductOperationResult{" +
+        "id=" + id +
+        ", outcome=" + outcome +
+        ", product=" + product +
+        '}';
+  }
+}
@@ -1,38 +1,161 @@
 package application.service;
 
 import application.database.DatabaseOperationException;
+import application.database.PriceQuery;
 import application.database.ProductDatabase;
+import application.database.SearchQuery;
 import application.model.Product;
+import application.model.ProductChange;
+import application.model.ProductField;
+import application.service.ProductOperationResult.Outcome;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * Reads and writes products. Every product it saves or deletes is appended to the
+ * {@link ProductChangeFeed} by the write itself, in one {@link ProductWriteTransactions transaction}
+ * where the database has them, so a change is published exactly when the write is kept. The written
+ * ids are held in {@link ProductLocks} meanwhile, so the feed has the changes of a product in the order
+ * they were made.
+ */
 @Service
 public class ProductService {
 
+  private static final int PRODUCT_LOCKS = 256;
+  private static final int ALL_PRODUCTS_PAGE_SIZE = 1000;
+
   private ProductDatabase productDatabase;
+  private ProductChangeFeed changeFeed;
+  private ProductWriteTransactions transactions;
+  private ProductLocks locks = new ProductLocks(PRODUCT_LOCKS);
 
   @Autowired
-  public ProductService(ProductDatabase productDatabase) {
+  public ProductService(ProductDatabase productDatabase, ProductChangeFeed changeFeed, ProductWriteTransactions transactions) {
     this.productDatabase = productDatabase;
+    this.changeFeed = changeFeed;
+    this.transactions = transactions;
   }
 
-  public Optional<Product> createProduct(Product product) throws ServiceOperationException {
+  public ProductOperationResult createProduct(Product product) throws ServiceOperationException {
     if (product == null) {
       throw new IllegalArgumentException("Product cannot be null.");
     }
     try {
       Long id = product.getId();
-      if (id != null && productDatabase.existsById(id)) {
-        throw new ServiceOperationException(String.format("Product with id %s already existsById", id));
-      }
-      return productDatabase.save(product);
+      return write(Collections.singletonList(id), changes -> {
+        Optional<Product> createdProduct = productDatabase.insertIfAbsent(product);
+        if (!createdProduct.isPresent()) {
+          return new ProductOperationResult(id, Outcome.CONFLICT, null);
+        }
+        changes.add(ProductChange.saved(createdProduct.get()));
+        return new ProductOperationResult(createdProduct.get().getId(), Outcome.CREATED, createdProduct.get());
+      });
     } catch (DatabaseOperationException e) {
       throw new ServiceOperationException("An error while adding product.", e);
     }
   }
 
+  public List<ProductOperationResult> createProducts(List<Product> products) throws ServiceOperationException {
+    if (products == null || products.contains(null)) {
+      throw new IllegalArgumentException("Products cannot be null.");
+    }
+    try {
+      return write(idsOf(products), changes -> {
+        Set<Long> existingIds = findExistingIds(products);
+        List<Product> productsToCreate = new ArrayList<>(products.size());
+        for (Product product : products) {
+          if (product.getId() == null || !existingIds.contains(product.getId())) {
+            productsToCreate.add(product);
+          }
+        }
+        List<Product> createdProducts = saveAll(productsToCreate);
+        Iterator<Product> createdProductsIterator = createdProducts.iterator();
+        List<ProductOperationResult> results = new ArrayList<>(products.size());
+        for (Product product : products) {
+          if (product.getId() != null && existingIds.contains(product.getId())) {
+            results.add(new ProductOperationResult(product.getId(), Outcome.CONFLICT, null));
+          } else {
+            Product createdProduct = createdProductsIterator.next();
+            results.add(new ProductOperationResult(createdProduct.getId(), Outcome.CREATED, createdProduct));
+          }
+        }
+        addSaved(changes, createdProducts);
+        return results;
+      });
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while adding products.", e);
+    }
+  }
+
+  public List<ProductOperationResult> updateProducts(List<Product> products) throws ServiceOperationException {
+    if (products == null || products.contains(null)) {
+      throw new IllegalArgumentException("Products cannot be null.");
+    }
+    try {
+      return write(idsOf(products), changes -> {
+        Set<Long> existingIds = findExistingIds(products);
+        List<Product> productsToUpdate = new ArrayList<>(products.size());
+        for (Product product : products) {
+          if (existingIds.contains(product.getId())) {
+            productsToUpdate.add(product);
+          }
+        }
+        List<Product> updatedProducts = saveAll(productsToUpdate);
+        Iterator<Product> updatedProductsIterator = updatedProducts.iterator();
+        List<ProductOperationResult> results = new ArrayList<>(products.size());
+        for (Product product : products) {
+          if (existingIds.contains(product.getId())) {
+            results.add(new ProductOperationResult(product.getId(), Outcome.UPDATED, updatedProductsIterator.next()));
+          } else {
+            results.add(new ProductOperationResult(product.getId(), Outcome.NOT_FOUND, null));
+          }
+        }
+        addSaved(changes, updatedProducts);
+        return results;
+      });
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while updating products.", e);
+    }
+  }
+
+  public List<ProductOperationResult> deleteProducts(List<Long> ids) throws ServiceOperationException {
+    if (ids == null || ids.contains(null)) {
+      throw new IllegalArgumentException("Ids cannot be null.");
+    }
+    try {
+      return write(ids, changes -> {
+        Set<Long> existingIds = new HashSet<>(productDatabase.findExistingIds(ids));
+        if (!existingIds.isEmpty()) {
+          productDatabase.deleteAllById(new ArrayList<>(existingIds));
+        }
+        List<ProductOperationResult> results = new ArrayList<>(ids.size());
+        Set<Long> deletedIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+          results.add(new ProductOperationResult(id, existingIds.contains(id) ? Outcome.DELETED : Outcome.NOT_FOUND, null));
+          if (existingIds.contains(id)) {
+            deletedIds.add(id);
+          }
+        }
+        for (Long id : deletedIds) {
+          changes.add(ProductChange.deleted(id));
+        }
+        return results;
+      });
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while deleting products.", e);
+    }
+  }
+
   public Optional<List<Product>> getAllProducts() throws ServiceOperationException {
     try {
       return productDatabase.findAll();
@@ -41,6 +164,108 @@ public class ProductService {
     }
   }
 
+  /**
+   * Returns all products with ids and only the passed fields set, read in pages of the database's
+   * projection, so no other fields are read.
+   */
+  public Optional<List<Product>> getAllProducts(Set<ProductField> fields) throws ServiceOperationException {
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null.");
+    }
+    try {
+      List<Product> products = new ArrayList<>();
+      Long after = null;
+      while (true) {
+        Optional<List<Product>> page = productDatabase.findAllAfter(after, ALL_PRODUCTS_PAGE_SIZE, fields);
+        if (!page.isPresent()) {
+          return products.isEmpty() ? Optional.empty() : Optional.of(products);
+        }
+        products.addAll(page.get());
+        if (page.get().size() < ALL_PRODUCTS_PAGE_SIZE) {
+          return Optional.of(products);
+        }
+        after = page.get().get(page.get().size() - 1).getId();
+      }
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting all products", e);
+    }
+  }
+
+  public void exportProducts(Consumer<Product> action) throws ServiceOperationException {
+    if (action == null) {
+      throw new IllegalArgumentException("Action cannot be null.");
+    }
+    try {
+      productDatabase.forEach(action);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while exporting products", e);
+    }
+  }
+
+  public Optional<List<Product>> getProductsPage(Long after, int limit) throws ServiceOperationException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    try {
+      return productDatabase.findAllAfter(after, limit);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting page of products", e);
+    }
+  }
+
+  public Optional<List<Product>> getProductsPage(Long after, int limit, Set<ProductField> fields) throws ServiceOperationException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null.");
+    }
+    try {
+      return productDatabase.findAllAfter(after, limit, fields);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting page of products", e);
+    }
+  }
+
+  public Optional<List<Product>> getProductsByPrice(PriceQuery query, int limit) throws ServiceOperationException {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null.");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    try {
+      return productDatabase.findByPrice(query, limit);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting products by price.", e);
+    }
+  }
+
+  public Optional<List<Product>> searchProducts(SearchQuery query, Long after, int limit) throws ServiceOperationException {
+    if (query == null) {
+      throw new IllegalArgumentException("Query cannot be null.");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    try {
+      return productDatabase.search(query, after, limit);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while searching for products.", e);
+    }
+  }
+
+  public Optional<List<Product>> getProductsByName(String name) throws ServiceOperationException {
+    if (name == null) {
+      throw new IllegalArgumentException("Name cannot be null.");
+    }
+    try {
+      return productDatabase.findByName(name);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting products by name.", e);
+    }
+  }
+
   public Optional<Product> getProduct(Long id) throws ServiceOperationException {
     if (id == null) {
       throw new IllegalArgumentException("Id cannot be null.");
@@ -52,30 +277,102 @@ public class ProductService {
     }
   }
 
-  public void updateProduct(Product product) throws ServiceOperationException {
+  public Optional<Product> getProduct(Long id, Set<ProductField> fields) throws ServiceOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null.");
+    }
+    if (fields == null) {
+      throw new IllegalArgumentException("Fields cannot be null.");
+    }
+    try {
+      return productDatabase.findById(id, fields);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting product.", e);
+    }
+  }
+
+  public Optional<Product> getLocalizedProduct(Long id, List<String> languages) throws ServiceOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null.");
+    }
+    if (languages == null) {
+      throw new IllegalArgumentException("Languages cannot be null.");
+    }
+    try {
+      return productDatabase.findLocalizedById(id, languages);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting product.", e);
+    }
+  }
+
+  public ProductOperationResult updateProduct(Product product) throws ServiceOperationException {
     if (product == null) {
       throw new IllegalArgumentException("Product cannot be null.");
     }
     try {
-      Long id = product.getId();
-      if (id == null || !productDatabase.existsById(id)) {
-        throw new ServiceOperationException(String.format("Product with id %s does not exist", id));
-      }
-      productDatabase.save(product);
+      return write(Collections.singletonList(product.getId()), changes -> {
+        Optional<Product> updatedProduct = productDatabase.updateIfExists(product);
+        if (!updatedProduct.isPresent()) {
+          return new ProductOperationResult(product.getId(), Outcome.NOT_FOUND, null);
+        }
+        changes.add(ProductChange.saved(updatedProduct.get()));
+        return new ProductOperationResult(product.getId(), Outcome.UPDATED, updatedProduct.get());
+      });
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while updating product.", e);
+    }
+  }
+
+  public ProductOperationResult updateProduct(Product product, long version) throws ServiceOperationException {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null.");
+    }
+    try {
+      return write(Collections.singletonList(product.getId()), changes -> {
+        Optional<Product> updatedProduct = productDatabase.updateIfVersionMatches(product, version);
+        if (updatedProduct.isPresent()) {
+          changes.add(ProductChange.saved(updatedProduct.get()));
+          return new ProductOperationResult(product.getId(), Outcome.UPDATED, updatedProduct.get());
+        }
+        boolean exists = product.getId() != null && productDatabase.existsById(product.getId());
+        return new ProductOperationResult(product.getId(), exists ? Outcome.VERSION_MISMATCH : Outcome.NOT_FOUND, null);
+      });
     } catch (DatabaseOperationException e) {
       throw new ServiceOperationException("An error while updating product.", e);
     }
   }
 
-  public void deleteProduct(Long id) throws ServiceOperationException {
+  public Optional<Long> getProductVersion(Long id) throws ServiceOperationException {
     if (id == null) {
       throw new IllegalArgumentException("Id cannot be null.");
     }
     try {
-      if (!productDatabase.existsById(id)) {
-        throw new ServiceOperationException(String.format("Product with id %s does not exist", id));
-      }
-      productDatabase.deleteById(id);
+      return productDatabase.findVersionById(id);
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting version of product.", e);
+    }
+  }
+
+  public String getCatalogVersion() throws ServiceOperationException {
+    try {
+      return productDatabase.catalogVersion();
+    } catch (DatabaseOperationException e) {
+      throw new ServiceOperationException("An error while getting version of products.", e);
+    }
+  }
+
+  public ProductOperationResult deleteProduct(Long id) throws ServiceOperationException {
+    if (id == null) {
+      throw new IllegalArgumentException("Id cannot be null.");
+    }
+    try {
+      return write(Collections.singletonList(id), changes -> {
+        if (!productDatabase.deleteIfExists(id)) {
+          return new ProductOperationResult(id, Outcome.NOT_FOUND, null);
+        }
+        changes.add(ProductChange.deleted(id));
+        return new ProductOperationResult(id, Outcome.DELETED, null);
+      });
     } catch (DatabaseOperationException e) {
       throw new ServiceOperationException("An error while deleting product.", e);
     }
@@ -91,4 +388,57 @@ public class ProductService {
       throw new ServiceOperationException("An error while checking if product exist.", e);
     }
   }
+
+  private Set<Long> findExistingIds(List<Product> products) throws DatabaseOperationException {
+    List<Long> ids = idsOf(products);
+    return ids.isEmpty() ? new HashSet<>() : new HashSet<>(productDatabase.findExistingIds(ids));
+  }
+
+  private static List<Long> idsOf(List<Product> products) {
+    List<Long> ids = new ArrayList<>(products.size());
+    for (Product product : products) {
+      if (product.getId() != null) {
+        ids.add(product.getId());
+      }
+    }
+    return ids;
+  }
+
+  private static void addSaved(List<ProductChange> changes, List<Product> products) {
+    for (Product product : products) {
+      changes.add(ProductChange.saved(product));
+    }
+  }
+
+  /**
+   * Runs the write holding the locks of the ids and appends the changes it adds, in one transaction,
+   * then tells the feed about them once they are committed.
+   */
+  private <T> T write(Collection<Long> ids, ChangingWrite<T> write) throws DatabaseOperationException, ServiceOperationException {
+    List<ProductChange> appendedChanges = new ArrayList<>();
+    T result = locks.withLocks(ids, () -> transactions.execute(() -> {
+      List<ProductChange> changes = new ArrayList<>();
+      T written = write.call(changes);
+      if (!changes.isEmpty()) {
+        appendedChanges.addAll(changeFeed.append(changes));
+      }
+      return written;
+    }));
+    if (!appendedChanges.isEmpty()) {
+      changeFeed.appended(appendedChanges);
+    }
+    return result;
+  }
+
+  private List<Product> saveAll(List<Product> products) throws DatabaseOperationException {
+    if (products.isEmpty()) {
+      return products;
+    }
+    return productDatabase.saveAll(products).orElseThrow(() -> new DatabaseOperationException("Products were not saved."));
+  }
+
+  @FunctionalInterface
+  private interface ChangingWrite<T> {
+    T call(List<ProductChange> changes) throws DatabaseOperationException, ServiceOperationException;
+  }
 }
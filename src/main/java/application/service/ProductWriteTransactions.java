@@ -0,0 +1,62 @@
+package application.service;
+
+import application.database.DatabaseOperationException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * Runs a write of products together with the append of its changes. When products and changes are
+ * kept in one database they are written in one transaction of it, so the changes are kept exactly
+ * when the products are, otherwise the write just runs.
+ */
+public class ProductWriteTransactions {
+
+  private final PlatformTransactionManager transactionManager;
+
+  /**
+   * Runs writes as they are, for databases which keep products and changes apart.
+   */
+  public ProductWriteTransactions() {
+    this(null);
+  }
+
+  public ProductWriteTransactions(PlatformTransactionManager transactionManager) {
+    this.transactionManager = transactionManager;
+  }
+
+  <T> T execute(ProductLocks.Write<T> write) throws DatabaseOperationException, ServiceOperationException {
+    if (transactionManager == null) {
+      return write.call();
+    }
+    TransactionStatus transaction;
+    try {
+      transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+    } catch (TransactionException e) {
+      throw new DatabaseOperationException("An error while starting transaction of products.", e);
+    }
+    T result;
+    try {
+      result = write.call();
+    } catch (Throwable e) {
+      rollback(transaction, e);
+      throw e;
+    }
+    try {
+      transactionManager.commit(transaction);
+    } catch (TransactionException | DataAccessException e) {
+      throw new DatabaseOperationException("An error while committing products.", e);
+    }
+    return result;
+  }
+
+  private void rollback(TransactionStatus transaction, Throwable cause) {
+    try {
+      transactionManager.rollback(transaction);
+    } catch (TransactionException | DataAccessException e) {
+      cause.addSuppressed(e);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package application.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs every task on its own virtual thread. There is no queue, instead the number of tasks in
+ * progress is limited, and a task over the limit is rejected with a
+ * {@link RejectedExecutionException}, the same way {@link BoundedExecutor} rejects when its queue is
+ * full.
+ */
+public class VirtualThreadExecutor implements ProductDatabaseExecutor {
+
+  private final ExecutorService executor;
+  private final int maxConcurrency;
+  private final Semaphore permits;
+  private final LongAdder completedTaskCount = new LongAdder();
+  private final LongAdder rejectedTaskCount = new LongAdder();
+
+  public VirtualThreadExecutor(int maxConcurrency, String threadNamePrefix) {
+    if (maxConcurrency <= 0) {
+      throw new IllegalArgumentException("Max concurrency must be positive");
+    }
+    this.executor = VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix);
+    this.maxConcurrency = maxConcurrency;
+    this.permits = new Semaphore(maxConcurrency);
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    if (task == null) {
+      throw new IllegalArgumentException("Task cannot be null");
+    }
+    if (!permits.tryAcquire()) {
+      rejectedTaskCount.increment();
+      throw new RejectedExecutionException("Too many product database tasks in progress");
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          task.run();
+        } finally {
+          completedTaskCount.increment();
+          permits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      rejectedTaskCount.increment();
+      throw e;
+    }
+  }
+
+  @Override
+  public int getActiveCount() {
+    return maxConcurrency - permits.availablePermits();
+  }
+
+  @Override
+  public int getQueuedTaskCount() {
+    return 0;
+  }
+
+  @Override
+  public int getQueueCapacity() {
+    return 0;
+  }
+
+  @Override
+  public long getCompletedTaskCount() {
+    return completedTaskCount.sum();
+  }
+
+  @Override
+  public long getRejectedTaskCount() {
+    return rejectedTaskCount.sum();
+  }
+
+  @Override
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,42 @@
+package application.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates executors starting a virtual thread per task. The application is built for Java 8, so
+ * virtual threads are reached through reflection and are only available when running on Java 21
+ * or newer.
+ */
+public final class VirtualThreads {
+
+  private VirtualThreads() {
+  }
+
+  public static boolean isSupported() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  public static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+    if (!isSupported()) {
+      throw new IllegalStateException(String.format("Virtual threads need Java 21 or newer, running on %s.", System.getProperty("java.version")));
+    }
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+      ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+      Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+      return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual threads could not be created.", e);
+    }
+  }
+}
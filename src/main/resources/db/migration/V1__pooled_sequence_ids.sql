@@ -0,0 +1,29 @@
+-- Moves product, name, description and price ids from identity (bigserial) columns to pooled sequences.
+-- Run once against an existing PostgreSQL database before starting the application with the new mapping.
+-- "increment by" has to match application.id[.<entity>].increment_size (50 by default). The pooled optimizer
+-- treats a sequence value as the upper end of a block, so each sequence is set to continue right after the
+-- current maximum id.
+
+begin;
+
+create sequence if not exists product_seq increment by 50;
+select setval('product_seq', coalesce(max(id), 0) + 50, false) from product;
+alter table product alter column id drop default;
+drop sequence if exists product_id_seq;
+
+create sequence if not exists name_seq increment by 50;
+select setval('name_seq', coalesce(max(id), 0) + 50, false) from name;
+alter table name alter column id drop default;
+drop sequence if exists name_id_seq;
+
+create sequence if not exists description_seq increment by 50;
+select setval('description_seq', coalesce(max(id), 0) + 50, false) from description;
+alter table description alter column id drop default;
+drop sequence if exists description_id_seq;
+
+create sequence if not exists price_seq increment by 50;
+select setval('price_seq', coalesce(max(id), 0) + 50, false) from price;
+alter table price alter column id drop default;
+drop sequence if exists price_id_seq;
+
+commit;
@@ -0,0 +1,26 @@
+-- Moves name, description and price rows into columns of the product table, so a product is read from a single row.
+-- Run once against an existing PostgreSQL database before starting the application with the new mapping.
+-- name_id, description_id and price_id are kept and still hold the ids of the former rows.
+
+begin;
+
+alter table product
+  add column name_language varchar(255),
+  add column name_value varchar(255),
+  add column description_language varchar(255),
+  add column description_value varchar(255),
+  add column price_amount numeric(19, 2),
+  add column price_currency varchar(255);
+
+update product p set name_language = n.language, name_value = n.value from name n where n.id = p.name_id;
+update product p set description_language = d.language, description_value = d.value from description d where d.id = p.description_id;
+update product p set price_amount = pr.price, price_currency = pr.currency from price pr where pr.id = p.price_id;
+
+drop index if exists product_name_id_index;
+create index product_name_value_index on product (name_value);
+
+-- cascade drops the foreign keys from product, the product table itself stays.
+drop table name, description, price cascade;
+drop sequence if exists name_seq, description_seq, price_seq;
+
+commit;
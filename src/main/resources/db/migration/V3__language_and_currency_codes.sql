@@ -0,0 +1,69 @@
+-- Replaces the language and currency text columns of the product table with smallint codes.
+-- Run once against an existing PostgreSQL database before starting the application with the new mapping.
+-- Codes are packed from the values themselves, see application.model.LanguageCodes and CurrencyCodes:
+-- a language of one to three letters a-z in one case is sum(letter * 27^(2 - position)), letters counted
+-- from 1, plus 19683 when lower case, stored modulo 65536 as a signed smallint. A currency is
+-- sum(letter * 26^(2 - position)) + 1, letters counted from 0. Other languages, such as English or en-US,
+-- are added to the language table with codes from -1 downwards, see application.database.LanguageDictionary.
+
+begin;
+
+create table if not exists language (
+  code smallint primary key,
+  language varchar(255) not null unique
+);
+
+create function pg_temp.language_code(value varchar) returns smallint as $$
+declare
+  code integer := 0;
+  letter integer;
+begin
+  if value is null then
+    return null;
+  end if;
+  if value !~ '^([A-Z]{1,3}|[a-z]{1,3})$' then
+    select l.code into code from language l where l.language = value;
+    if not found then
+      select coalesce(min(l.code), 0) - 1 into code from language l;
+      if code < -26170 then
+        raise exception 'There is no language code left for ''%''', value;
+      end if;
+      insert into language (code, language) values (code, value);
+    end if;
+    return code::smallint;
+  end if;
+  for position in 1..3 loop
+    letter := case when position <= length(value) then ascii(upper(substr(value, position, 1))) - 64 else 0 end;
+    code := code * 27 + letter;
+  end loop;
+  if value = lower(value) then
+    code := code + 19683;
+  end if;
+  return (case when code > 32767 then code - 65536 else code end)::smallint;
+end;
+$$ language plpgsql volatile;
+
+create function pg_temp.currency_code(currency varchar) returns smallint as $$
+  select ((ascii(substr(currency, 1, 1)) - 65) * 676 + (ascii(substr(currency, 2, 1)) - 65) * 26 + (ascii(substr(currency, 3, 1)) - 65) + 1)::smallint;
+$$ language sql immutable;
+
+alter table product
+  add column name_language_code smallint,
+  add column description_language_code smallint,
+  add column price_currency_code smallint;
+
+update product set
+  name_language_code = pg_temp.language_code(name_language),
+  description_language_code = pg_temp.language_code(description_language),
+  price_currency_code = pg_temp.currency_code(price_currency);
+
+alter table product
+  drop column name_language,
+  drop column description_language,
+  drop column price_currency;
+
+alter table product rename column name_language_code to name_language;
+alter table product rename column description_language_code to description_language;
+alter table product rename column price_currency_code to price_currency;
+
+commit;
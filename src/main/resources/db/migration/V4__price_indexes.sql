@@ -0,0 +1,6 @@
+-- Adds the indexes behind price range queries, GET /products?minPrice=&maxPrice=&currency=.
+-- Run once against an existing PostgreSQL database. Pages are read in (price_amount, id) order, so both
+-- indexes end with id and a page seeks to its first row instead of skipping the rows of previous pages.
+
+create index concurrently if not exists product_price_amount_index on product (price_amount, id);
+create index concurrently if not exists product_price_currency_amount_index on product (price_currency, price_amount, id);
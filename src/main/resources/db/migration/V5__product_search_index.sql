@@ -0,0 +1,6 @@
+-- Adds the full-text index behind GET /products/search.
+-- Run once against an existing PostgreSQL database. The indexed expression has to stay the same as the one in
+-- HibernateProductRepository.search, otherwise the index is not used.
+
+create index concurrently if not exists product_search_index on product
+  using gin (to_tsvector('simple', coalesce(name_value, '') || ' ' || coalesce(description_value, '')));
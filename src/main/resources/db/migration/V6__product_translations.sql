@@ -0,0 +1,12 @@
+-- Adds the table of product names and descriptions in other languages than the product's own.
+-- Run once against an existing PostgreSQL database. Languages are smallint codes like name_language, see
+-- V3__language_and_currency_codes.sql. A localized read looks up rows by (product_id, language), so the
+-- primary key starts with product_id.
+
+create table if not exists product_translation (
+  product_id bigint not null references product (id) on delete cascade,
+  language smallint not null,
+  name varchar(255),
+  description varchar(255),
+  primary key (product_id, language)
+);
@@ -0,0 +1,3 @@
+-- Adds the version of products, which Hibernate grows with every update and which is sent as the ETag of a
+-- product. Run once against an existing PostgreSQL database. Existing products start from version 0.
+alter table product add column version bigint not null default 0;
@@ -0,0 +1,19 @@
+-- Adds the outbox of product changes, read by consumers of GET /products/changes in the order of their
+-- sequence numbers, and the row numbering them. Run once against an existing PostgreSQL database, the
+-- product column holds the saved product in the binary form of the off-heap database.
+create table if not exists product_change (
+  sequence bigint primary key,
+  type varchar(16) not null,
+  product_id bigint not null,
+  product bytea
+);
+
+create table if not exists product_change_counter (
+  id integer primary key,
+  last_sequence bigint not null,
+  pruned_sequence bigint not null
+);
+
+insert into product_change_counter (id, last_sequence, pruned_sequence)
+select 1, coalesce(max(sequence), 0), coalesce(min(sequence) - 1, 0) from product_change
+where not exists (select 1 from product_change_counter);
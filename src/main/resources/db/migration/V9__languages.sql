@@ -0,0 +1,6 @@
+-- Adds the table of languages which cannot be packed into a code, for databases moved to the codes by an
+-- earlier V3__language_and_currency_codes.sql. Run once against an existing PostgreSQL database.
+create table if not exists language (
+  code smallint primary key,
+  language varchar(255) not null unique
+);
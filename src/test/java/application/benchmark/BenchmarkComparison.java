@@ -0,0 +1,52 @@
+package application.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JSON reports written by {@link ProductBenchmarks}.
+ *
+ * <p>Arguments: {@code <baseline.json> <current.json>}. Prints the throughput and p99 latency change
+ * of every benchmark present in both reports.
+ */
+public class BenchmarkComparison {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2) {
+      throw new IllegalArgumentException("Usage: BenchmarkComparison <baseline.json> <current.json>");
+    }
+    Map<String, BenchmarkResult> baseline = read(new File(args[0]));
+    Map<String, BenchmarkResult> current = read(new File(args[1]));
+    for (Map.Entry<String, BenchmarkResult> entry : current.entrySet()) {
+      BenchmarkResult before = baseline.get(entry.getKey());
+      if (before == null) {
+        continue;
+      }
+      BenchmarkResult after = entry.getValue();
+      System.out.printf("%-52s throughput %+7.1f%%  p99 %+7.1f%%%n", entry.getKey(),
+          change(before.getOperationsPerSecond(), after.getOperationsPerSecond()),
+          change(before.getP99Nanos(), after.getP99Nanos()));
+    }
+  }
+
+  private static Map<String, BenchmarkResult> read(File file) throws Exception {
+    List<BenchmarkResult> results = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .readValue(file, new TypeReference<List<BenchmarkResult>>() {
+        });
+    Map<String, BenchmarkResult> resultsByKey = new LinkedHashMap<>();
+    for (BenchmarkResult result : results) {
+      resultsByKey.put(result.key(), result);
+    }
+    return resultsByKey;
+  }
+
+  private static double change(double before, double after) {
+    return before == 0 ? 0 : (after - before) * 100 / before;
+  }
+}
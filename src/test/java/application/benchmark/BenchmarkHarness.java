@@ -0,0 +1,115 @@
+package application.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs an operation on a number of threads and records throughput and latency.
+ *
+ * <p>Timed runs repeat the operation until the measurement time is over, after a warmup of the same
+ * kind. Counted runs perform a fixed number of operations without warmup, for operations which use up
+ * the catalog such as deletes. Every operation is timed, and up to {@value #SAMPLES_PER_THREAD} of the
+ * latest latencies per thread are kept for percentiles.
+ */
+class BenchmarkHarness {
+
+  private static final int SAMPLES_PER_THREAD = 1 << 16;
+
+  private final long warmupMillis;
+  private final long measurementMillis;
+
+  BenchmarkHarness(long warmupMillis, long measurementMillis) {
+    this.warmupMillis = warmupMillis;
+    this.measurementMillis = measurementMillis;
+  }
+
+  BenchmarkResult timed(String benchmark, String backend, int catalogSize, int threads, Operation operation) throws Exception {
+    execute(threads, operation, warmupMillis, null);
+    Run run = execute(threads, operation, measurementMillis, null);
+    return run.toResult(benchmark, backend, catalogSize, threads);
+  }
+
+  BenchmarkResult counted(String benchmark, String backend, int catalogSize, int threads, int operations, Operation operation) throws Exception {
+    Run run = execute(threads, operation, Long.MAX_VALUE, new AtomicInteger(operations));
+    return run.toResult(benchmark, backend, catalogSize, threads);
+  }
+
+  private Run execute(int threads, Operation operation, long durationMillis, AtomicInteger remaining) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    long[][] samples = new long[threads][];
+    long[] counts = new long[threads];
+    List<Thread> workers = new ArrayList<>(threads);
+    long duration = durationMillis == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    for (int i = 0; i < threads; i++) {
+      int worker = i;
+      Thread thread = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[SAMPLES_PER_THREAD];
+        long count = 0;
+        try {
+          start.await();
+          long begin = System.nanoTime();
+          while (failure.get() == null
+              && (remaining == null ? System.nanoTime() - begin < duration : remaining.getAndDecrement() > 0)) {
+            long operationStart = System.nanoTime();
+            operation.run(random);
+            latencies[(int) (count++ & (SAMPLES_PER_THREAD - 1))] = System.nanoTime() - operationStart;
+          }
+        } catch (Exception e) {
+          failure.compareAndSet(null, e);
+        }
+        counts[worker] = count;
+        samples[worker] = Arrays.copyOf(latencies, (int) Math.min(count, SAMPLES_PER_THREAD));
+      }, "benchmark-" + i);
+      workers.add(thread);
+      thread.start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    long elapsed = System.nanoTime() - begin;
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    return new Run(counts, samples, elapsed);
+  }
+
+  interface Operation {
+    void run(ThreadLocalRandom random) throws Exception;
+  }
+
+  private static class Run {
+    private final long operations;
+    private final long[] latencies;
+    private final long elapsedNanos;
+
+    private Run(long[] counts, long[][] samples, long elapsedNanos) {
+      this.operations = Arrays.stream(counts).sum();
+      this.latencies = Arrays.stream(samples).flatMapToLong(Arrays::stream).sorted().toArray();
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    private BenchmarkResult toResult(String benchmark, String backend, int catalogSize, int threads) {
+      long mean = latencies.length == 0 ? 0 : (long) Arrays.stream(latencies).average().orElse(0);
+      double operationsPerSecond = Math.round(operations / (elapsedNanos / 1e9) * 10) / 10.0;
+      return new BenchmarkResult(benchmark, backend, catalogSize, threads, operations, operationsPerSecond,
+          mean, percentile(0.50), percentile(0.99), percentile(0.999));
+    }
+
+    private long percentile(double percentile) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      return latencies[(int) Math.min(latencies.length - 1, Math.round(percentile * (latencies.length - 1)))];
+    }
+  }
+}
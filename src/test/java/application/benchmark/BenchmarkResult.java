@@ -0,0 +1,83 @@
+package application.benchmark;
+
+/**
+ * Outcome of one benchmark run, written to the JSON report.
+ */
+public class BenchmarkResult {
+  private String benchmark;
+  private String backend;
+  private int catalogSize;
+  private int threads;
+  private long operations;
+  private double operationsPerSecond;
+  private long meanNanos;
+  private long p50Nanos;
+  private long p99Nanos;
+  private long p999Nanos;
+
+  protected BenchmarkResult() {
+  }
+
+  BenchmarkResult(String benchmark, String backend, int catalogSize, int threads, long operations, double operationsPerSecond,
+                  long meanNanos, long p50Nanos, long p99Nanos, long p999Nanos) {
+    this.benchmark = benchmark;
+    this.backend = backend;
+    this.catalogSize = catalogSize;
+    this.threads = threads;
+    this.operations = operations;
+    this.operationsPerSecond = operationsPerSecond;
+    this.meanNanos = meanNanos;
+    this.p50Nanos = p50Nanos;
+    this.p99Nanos = p99Nanos;
+    this.p999Nanos = p999Nanos;
+  }
+
+  public String getBenchmark() {
+    return benchmark;
+  }
+
+  public String getBackend() {
+    return backend;
+  }
+
+  public int getCatalogSize() {
+    return catalogSize;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public long getOperations() {
+    return operations;
+  }
+
+  public double getOperationsPerSecond() {
+    return operationsPerSecond;
+  }
+
+  public long getMeanNanos() {
+    return meanNanos;
+  }
+
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  public long getP999Nanos() {
+    return p999Nanos;
+  }
+
+  String key() {
+    return String.format("%s %s size=%d threads=%d", benchmark, backend, catalogSize, threads);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%-52s %,14.0f ops/s  p50 %,10d ns  p99 %,12d ns", key(), operationsPerSecond, p50Nanos, p99Nanos);
+  }
+}
@@ -0,0 +1,87 @@
+package application.benchmark;
+
+import application.database.InMemoryProductsDatabase;
+import application.database.ProductDatabase;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-heavy multi-threaded throughput of the in-memory backends.
+ *
+ * <p>Run the main method on the test classpath. Each thread performs 90%
+ * {@code findById}, 5% {@code existsById}, 4% {@code count} and 1% {@code save} over a preloaded
+ * catalog.
+ */
+public class InMemoryThroughputBenchmark {
+
+  private static final int CATALOG_SIZE = 100_000;
+  private static final long WARMUP_MILLIS = 2_000;
+  private static final long MEASUREMENT_MILLIS = 5_000;
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+  public static void main(String[] args) throws Exception {
+    run("synchronized", SynchronizedProductsDatabase::new);
+    run("concurrent", InMemoryProductsDatabase::new);
+  }
+
+  private static void run(String label, Supplier<ProductDatabase> databaseSupplier) throws Exception {
+    for (int threads : THREAD_COUNTS) {
+      ProductDatabase database = databaseSupplier.get();
+      for (int i = 0; i < CATALOG_SIZE; i++) {
+        Product product = ProductGenerator.getRandomProduct();
+        product.setId(null);
+        database.save(product);
+      }
+      measure(database, threads, WARMUP_MILLIS);
+      long operations = measure(database, threads, MEASUREMENT_MILLIS);
+      System.out.printf("%-12s threads=%-3d %,15d ops/s%n", label, threads, operations * 1000 / MEASUREMENT_MILLIS);
+    }
+  }
+
+  private static long measure(ProductDatabase database, int threads, long durationMillis) throws InterruptedException {
+    LongAdder operations = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    for (int i = 0; i < threads; i++) {
+      Thread worker = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+          start.await();
+          while (System.nanoTime() < deadline) {
+            int operation = random.nextInt(100);
+            long id = random.nextLong(1, CATALOG_SIZE + 1);
+            if (operation < 90) {
+              database.findById(id);
+            } else if (operation < 95) {
+              database.existsById(id);
+            } else if (operation < 99) {
+              database.count();
+            } else {
+              Product product = ProductGenerator.getRandomProduct();
+              product.setId(id);
+              database.save(product);
+            }
+            operations.increment();
+          }
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return operations.sum();
+  }
+}
@@ -0,0 +1,70 @@
+package application.benchmark;
+
+import application.configuration.ApplicationConfiguration;
+import application.database.DatabaseOperationException;
+import application.database.InMemoryProductsDatabase;
+import application.database.OffHeapProductsDatabase;
+import application.database.ProductDatabase;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import application.model.Translation;
+import application.model.Translations;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latency and response size of reading a product with many translations as a whole, which was the
+ * only way before localized reads, and localized to one language.
+ *
+ * <p>Both reads are serialized to JSON as a response would be. Off-heap localized reads skip the bytes
+ * of other translations instead of decoding them.
+ *
+ * <p>Arguments: {@code <catalog size> <translations per product> <seconds per benchmark>}.
+ */
+public class LocalizedReadBenchmark {
+
+  private static final int WARMUP_MILLIS = 3000;
+  private static final String[] LANGUAGES = {"ar", "cs", "da", "de", "el", "es", "fi", "fr", "he", "hu", "it", "ja",
+      "ko", "nl", "no", "pl", "pt", "ro", "ru", "sv", "th", "tr", "uk", "vi", "zh"};
+
+  public static void main(String[] args) throws Exception {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    int translations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    long measurementMillis = args.length > 2 ? Long.parseLong(args[2]) * 1000 : 5000;
+    if (translations > LANGUAGES.length) {
+      throw new IllegalArgumentException(String.format("At most %d translations per product", LANGUAGES.length));
+    }
+    BenchmarkHarness harness = new BenchmarkHarness(WARMUP_MILLIS, measurementMillis);
+    ObjectWriter writer = ApplicationConfiguration.getObjectMapper().writerFor(Product.class);
+    List<String> languages = Collections.unmodifiableList(Arrays.asList("de-ch", "de"));
+    for (ProductDatabase database : Arrays.asList(new InMemoryProductsDatabase(), new OffHeapProductsDatabase())) {
+      String backend = database instanceof InMemoryProductsDatabase ? "in-memory" : "offheap";
+      load(database, size, translations);
+      System.out.printf("%s full response %,d bytes, localized response %,d bytes%n", backend,
+          writer.writeValueAsBytes(database.findById(1L).get()).length,
+          writer.writeValueAsBytes(database.findLocalizedById(1L, languages).get()).length);
+      System.out.println(harness.timed("read-full", backend, size, 1,
+          random -> writer.writeValueAsBytes(database.findById(1L + random.nextInt(size)).get())));
+      System.out.println(harness.timed("read-localized", backend, size, 1,
+          random -> writer.writeValueAsBytes(database.findLocalizedById(1L + random.nextInt(size), languages).get())));
+    }
+  }
+
+  private static void load(ProductDatabase database, int size, int translations) throws DatabaseOperationException {
+    for (int i = 0; i < size; i++) {
+      Product product = ProductGenerator.getRandomProduct();
+      product.setId(null);
+      Map<String, Translation> productTranslations = new HashMap<>();
+      for (int language = 0; language < translations; language++) {
+        productTranslations.put(LANGUAGES[language], new Translation(
+            product.getName().getValue() + " " + LANGUAGES[language], product.getDescription().getValue() + " " + LANGUAGES[language]));
+      }
+      product.setTranslations(Translations.of(productTranslations));
+      database.save(product);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package application.benchmark;
+
+import application.database.DatabaseOperationException;
+import application.database.OffHeapProductsDatabase;
+import application.generators.ProductGenerator;
+import application.model.Price;
+import application.model.Product;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Throughput and allocation of sorting a catalog by price and of filtering it by a price range,
+ * comparing prices as fixed-point amounts with comparing them as {@link BigDecimal} values, as
+ * they were stored before. Equality and hashing of prices, and reads of the off-heap backend which
+ * decode the price of every product, are measured too.
+ *
+ * <p>Arguments: {@code <number of products> <seconds per benchmark>}. Allocation is measured on the
+ * calling thread and needs a HotSpot JVM.
+ */
+public class PriceQueryBenchmark {
+
+  private static final int WARMUP_MILLIS = 3000;
+  private static final int ALLOCATION_ROUNDS = 20;
+  private static final Price MIN_PRICE = new Price(null, new BigDecimal("1000.00"), null);
+  private static final Price MAX_PRICE = new Price(null, new BigDecimal("2000.00"), null);
+
+  public static void main(String[] args) throws Exception {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    long measurementMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 5000;
+    BenchmarkHarness harness = new BenchmarkHarness(WARMUP_MILLIS, measurementMillis);
+    List<Product> products = new ArrayList<>(size);
+    List<DecimalPricedProduct> decimalPricedProducts = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Product product = ProductGenerator.getRandomProduct();
+      products.add(product);
+      decimalPricedProducts.add(new DecimalPricedProduct(new DecimalPrice(product.getPrice()), product));
+    }
+    BigDecimal minDecimal = MIN_PRICE.getPrice();
+    BigDecimal maxDecimal = MAX_PRICE.getPrice();
+    Comparator<Product> byPrice = Comparator.comparing(Product::getPrice);
+    Comparator<DecimalPricedProduct> byDecimalPrice = Comparator.comparing(product -> product.price.value);
+
+    measure(harness, "sort-by-price", "fixed-point", size, () -> {
+      List<Product> sorted = new ArrayList<>(products);
+      sorted.sort(byPrice);
+    });
+    measure(harness, "sort-by-price", "bigdecimal", size, () -> {
+      List<DecimalPricedProduct> sorted = new ArrayList<>(decimalPricedProducts);
+      sorted.sort(byDecimalPrice);
+    });
+    measure(harness, "price-range", "fixed-point", size, () -> {
+      List<Product> found = new ArrayList<>();
+      for (Product product : products) {
+        if (product.getPrice().compareTo(MIN_PRICE) >= 0 && product.getPrice().compareTo(MAX_PRICE) <= 0) {
+          found.add(product);
+        }
+      }
+    });
+    measure(harness, "price-range", "bigdecimal", size, () -> {
+      List<Product> found = new ArrayList<>();
+      for (DecimalPricedProduct product : decimalPricedProducts) {
+        if (product.price.value.compareTo(minDecimal) >= 0 && product.price.value.compareTo(maxDecimal) <= 0) {
+          found.add(product.product);
+        }
+      }
+    });
+    List<Price> copies = new ArrayList<>(size);
+    List<DecimalPrice> decimalCopies = new ArrayList<>(size);
+    for (Product product : products) {
+      Price price = product.getPrice();
+      copies.add(new Price(price.getId(), price.getAmount(), price.getScale(), price.getCurrency()));
+      decimalCopies.add(new DecimalPrice(price));
+    }
+    measure(harness, "price-equals-hash", "fixed-point", size, () -> {
+      for (int i = 0; i < size; i++) {
+        if (!products.get(i).getPrice().equals(copies.get(i)) || products.get(i).getPrice().hashCode() != copies.get(i).hashCode()) {
+          throw new IllegalStateException();
+        }
+      }
+    });
+    measure(harness, "price-equals-hash", "bigdecimal", size, () -> {
+      for (int i = 0; i < size; i++) {
+        DecimalPrice price = decimalPricedProducts.get(i).price;
+        if (!price.equals(decimalCopies.get(i)) || price.hashCode() != decimalCopies.get(i).hashCode()) {
+          throw new IllegalStateException();
+        }
+      }
+    });
+
+    OffHeapProductsDatabase offHeapDatabase = new OffHeapProductsDatabase();
+    for (Product product : products) {
+      Product stored = ProductGenerator.getRandomProduct();
+      stored.setId(null);
+      offHeapDatabase.save(stored);
+    }
+    measure(harness, "offheap-find-by-id", "fixed-point", size, () -> {
+      try {
+        for (long id = 1; id <= size; id++) {
+          offHeapDatabase.findById(id);
+        }
+      } catch (DatabaseOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  private static void measure(BenchmarkHarness harness, String benchmark, String representation, int size, Runnable operation) throws Exception {
+    BenchmarkResult result = harness.timed(benchmark, representation, size, 1, random -> operation.run());
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    for (int i = 0; i < ALLOCATION_ROUNDS; i++) {
+      operation.run();
+    }
+    long allocated = (threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before) / ALLOCATION_ROUNDS;
+    System.out.printf("%s  %,12d bytes allocated per run%n", result, allocated);
+  }
+
+  /**
+   * Product and price laid out as before, with the amount one more reference away.
+   */
+  private static class DecimalPricedProduct {
+    private final DecimalPrice price;
+    private final Product product;
+
+    DecimalPricedProduct(DecimalPrice price, Product product) {
+      this.price = price;
+      this.product = product;
+    }
+  }
+
+  /**
+   * Price as it was stored before, with the same equality and hash code.
+   */
+  private static class DecimalPrice {
+    private final Long id;
+    private final BigDecimal value;
+    private final Currency currency;
+
+    DecimalPrice(Price price) {
+      this.id = price.getId();
+      this.value = price.getPrice();
+      this.currency = price.getCurrency();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DecimalPrice)) {
+        return false;
+      }
+      DecimalPrice price = (DecimalPrice) o;
+      return Objects.equals(id, price.id) &&
+          Objects.equals(value, price.value) &&
+          Objects.equals(currency, price.currency);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, value, currency);
+    }
+  }
+}
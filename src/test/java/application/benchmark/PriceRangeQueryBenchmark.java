@@ -0,0 +1,65 @@
+package application.benchmark;
+
+import application.database.DatabaseOperationException;
+import application.database.InMemoryProductsDatabase;
+import application.database.OffHeapProductsDatabase;
+import application.database.PriceQuery;
+import application.database.ProductDatabase;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Latency of reading the first page of products in a narrow price range, through the price index
+ * of the in-memory backend, by scanning in the off-heap backend, and by downloading the whole catalog
+ * and filtering it on the client, which was the only way before price queries.
+ *
+ * <p>Arguments: {@code <comma separated catalog sizes> <seconds per benchmark>}. Prices are spread
+ * from 0 to 9999 and every query asks for a random range 10 wide.
+ */
+public class PriceRangeQueryBenchmark {
+
+  private static final int WARMUP_MILLIS = 3000;
+  private static final int PAGE_SIZE = 100;
+  private static final int RANGE_WIDTH = 10;
+
+  public static void main(String[] args) throws Exception {
+    String[] sizes = (args.length > 0 ? args[0] : "10000,100000,1000000").split(",");
+    long measurementMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 5000;
+    BenchmarkHarness harness = new BenchmarkHarness(WARMUP_MILLIS, measurementMillis);
+    Comparator<Product> priceOrder = Comparator.comparing(Product::getPrice).thenComparing(Product::getId);
+    for (String sizeArgument : sizes) {
+      int size = Integer.parseInt(sizeArgument);
+      ProductDatabase inMemory = load(new InMemoryProductsDatabase(), size);
+      ProductDatabase offHeap = load(new OffHeapProductsDatabase(), size);
+      System.out.println(harness.timed("price-range-page", "in-memory-index", size, 1, random -> page(inMemory, random.nextInt(9990))));
+      System.out.println(harness.timed("price-range-page", "in-memory-client-filter", size, 1, random -> {
+        BigDecimal min = BigDecimal.valueOf(random.nextInt(9990));
+        BigDecimal max = min.add(BigDecimal.valueOf(RANGE_WIDTH));
+        inMemory.findAll().get().stream()
+            .filter(product -> product.getPrice().getPrice().compareTo(min) >= 0 && product.getPrice().getPrice().compareTo(max) <= 0)
+            .sorted(priceOrder)
+            .limit(PAGE_SIZE)
+            .collect(Collectors.toList());
+      }));
+      System.out.println(harness.timed("price-range-page", "offheap-scan", size, 1, random -> page(offHeap, random.nextInt(9990))));
+    }
+  }
+
+  private static ProductDatabase load(ProductDatabase database, int size) throws DatabaseOperationException {
+    for (int i = 0; i < size; i++) {
+      Product product = ProductGenerator.getRandomProduct();
+      product.setId(null);
+      database.save(product);
+    }
+    return database;
+  }
+
+  private static List<Product> page(ProductDatabase database, int minPrice) throws DatabaseOperationException {
+    PriceQuery query = new PriceQuery(BigDecimal.valueOf(minPrice), BigDecimal.valueOf(minPrice + RANGE_WIDTH), null, false);
+    return database.findByPrice(query, PAGE_SIZE).get();
+  }
+}
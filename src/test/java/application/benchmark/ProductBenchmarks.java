@@ -0,0 +1,137 @@
+package application.benchmark;
+
+import application.Application;
+import application.database.ProductDatabase;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import application.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Throughput and latency of every {@link ProductDatabase} backend and of the {@link ProductService}
+ * paths on top of it, for several catalog sizes and thread counts. Hibernate runs against the
+ * embedded database on the test classpath.
+ *
+ * <p>Run with {@code mvn test -P benchmark}, or the main method on the test classpath. Results are
+ * written as JSON to {@code benchmark.output}, compare two runs with {@link BenchmarkComparison}.
+ * System properties: {@code benchmark.backends} (in-memory,offheap,hibernate), {@code benchmark.sizes}
+ * (1000,10000), {@code benchmark.threads} (1,4), {@code benchmark.warmup} and
+ * {@code benchmark.measurement} in milliseconds (1000, 3000). Other application properties, e.g.
+ * {@code application.cache.enabled}, can be passed as system properties too.
+ */
+class ProductBenchmarks {
+
+  private static final int LOAD_BATCH_SIZE = 500;
+
+  @Test
+  void run() throws Exception {
+    main(new String[0]);
+  }
+
+  public static void main(String[] args) throws Exception {
+    List<String> backends = Arrays.asList(System.getProperty("benchmark.backends", "in-memory,offheap,hibernate").split(","));
+    List<Integer> sizes = integers(System.getProperty("benchmark.sizes", "1000,10000"));
+    List<Integer> threadCounts = integers(System.getProperty("benchmark.threads", "1,4"));
+    BenchmarkHarness harness = new BenchmarkHarness(
+        Long.getLong("benchmark.warmup", 1_000), Long.getLong("benchmark.measurement", 3_000));
+    File output = new File(System.getProperty("benchmark.output", "target/benchmarks/product-benchmarks.json"));
+
+    List<BenchmarkResult> results = new ArrayList<>();
+    for (String backend : backends) {
+      try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+          .web(WebApplicationType.NONE)
+          .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+          .run(String.format("--application.database=%s", backend))) {
+        ProductDatabase database = context.getBean(ProductDatabase.class);
+        ProductService productService = context.getBean(ProductService.class);
+        for (int size : sizes) {
+          for (int threads : threadCounts) {
+            results.addAll(run(harness, backend, size, threads, database, productService));
+          }
+        }
+      }
+    }
+
+    output.getAbsoluteFile().getParentFile().mkdirs();
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, results);
+    System.out.printf("Results written to %s%n", output.getAbsolutePath());
+  }
+
+  private static List<BenchmarkResult> run(BenchmarkHarness harness, String backend, int size, int threads,
+                                           ProductDatabase database, ProductService productService) throws Exception {
+    List<Long> ids = load(database, size);
+    List<BenchmarkResult> results = new ArrayList<>();
+    results.add(report(harness.timed("database.findById", backend, size, threads,
+        random -> database.findById(ids.get(random.nextInt(size))))));
+    results.add(report(harness.timed("database.existsById", backend, size, threads,
+        random -> database.existsById(ids.get(random.nextInt(size))))));
+    results.add(report(harness.timed("database.count", backend, size, threads,
+        random -> database.count())));
+    results.add(report(harness.timed("database.findAll", backend, size, threads,
+        random -> database.findAll())));
+    results.add(report(harness.timed("service.getProduct", backend, size, threads,
+        random -> productService.getProduct(ids.get(random.nextInt(size))))));
+    results.add(report(harness.timed("service.productExistsById", backend, size, threads,
+        random -> productService.productExistsById(ids.get(random.nextInt(size))))));
+    results.add(report(harness.timed("service.updateProduct", backend, size, threads, random -> {
+      Product product = ProductGenerator.getRandomNewProduct();
+      product.setId(ids.get(random.nextInt(size)));
+      productService.updateProduct(product);
+    })));
+    results.add(report(harness.timed("database.updateIfExists", backend, size, threads, random -> {
+      Product product = ProductGenerator.getRandomNewProduct();
+      product.setId(ids.get(random.nextInt(size)));
+      database.updateIfExists(product);
+    })));
+    results.add(report(harness.timed("database.save", backend, size, threads,
+        random -> database.save(ProductGenerator.getRandomNewProduct()))));
+    results.add(report(harness.timed("service.createProduct", backend, size, threads,
+        random -> productService.createProduct(ProductGenerator.getRandomNewProduct()))));
+
+    List<Long> idsToDelete = new ArrayList<>(ids);
+    Collections.shuffle(idsToDelete);
+    AtomicInteger cursor = new AtomicInteger();
+    results.add(report(harness.counted("database.deleteById", backend, size, threads, size / 2,
+        random -> database.deleteById(idsToDelete.get(cursor.getAndIncrement())))));
+    results.add(report(harness.counted("service.deleteProduct", backend, size, threads, size - size / 2,
+        random -> productService.deleteProduct(idsToDelete.get(cursor.getAndIncrement())))));
+    return results;
+  }
+
+  private static List<Long> load(ProductDatabase database, int size) throws Exception {
+    database.deleteAll();
+    List<Long> ids = new ArrayList<>(size);
+    List<Product> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+    for (int i = 0; i < size; i++) {
+      batch.add(ProductGenerator.getRandomNewProduct());
+      if (batch.size() == LOAD_BATCH_SIZE || i == size - 1) {
+        for (Product product : database.saveAll(batch).orElseThrow(IllegalStateException::new)) {
+          ids.add(product.getId());
+        }
+        batch = new ArrayList<>(LOAD_BATCH_SIZE);
+      }
+    }
+    return ids;
+  }
+
+  private static BenchmarkResult report(BenchmarkResult result) {
+    System.out.println(result);
+    return result;
+  }
+
+  private static List<Integer> integers(String values) {
+    return Arrays.stream(values.split(",")).map(String::trim).map(Integer::valueOf).collect(Collectors.toList());
+  }
+}
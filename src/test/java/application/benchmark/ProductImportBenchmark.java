@@ -0,0 +1,64 @@
+package application.benchmark;
+
+import application.Application;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import application.service.ProductService;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Import throughput of the service, one product per call against batches of products.
+ *
+ * <p>Arguments: {@code <backend> <number of products> <batch size>}. The application is started
+ * without a web server; for the hibernate backend point {@code spring.datasource.*} at the database
+ * to measure, otherwise the embedded database on the classpath is used.
+ */
+public class ProductImportBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    String backend = args.length > 0 ? args[0] : "hibernate";
+    int size = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+    int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+    try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+        .web(WebApplicationType.NONE)
+        .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+        .run(String.format("--application.database=%s", backend))) {
+      ProductService productService = context.getBean(ProductService.class);
+      importOneByOne(productService, size / 10);
+      importInBatches(productService, size / 10, batchSize);
+
+      long start = System.nanoTime();
+      importOneByOne(productService, size);
+      report("one by one", size, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      importInBatches(productService, size, batchSize);
+      report(String.format("batches of %d", batchSize), size, System.nanoTime() - start);
+    }
+  }
+
+  private static void importOneByOne(ProductService productService, int size) throws Exception {
+    for (int i = 0; i < size; i++) {
+      productService.createProduct(ProductGenerator.getRandomNewProduct());
+    }
+  }
+
+  private static void importInBatches(ProductService productService, int size, int batchSize) throws Exception {
+    List<Product> batch = new ArrayList<>(batchSize);
+    for (int i = 0; i < size; i++) {
+      batch.add(ProductGenerator.getRandomNewProduct());
+      if (batch.size() == batchSize || i == size - 1) {
+        productService.createProducts(batch);
+        batch = new ArrayList<>(batchSize);
+      }
+    }
+  }
+
+  private static void report(String mode, int size, long nanos) {
+    System.out.printf("%-16s %,d products in %,d ms (%,.0f products/s)%n", mode, size, nanos / 1_000_000, size / (nanos / 1e9));
+  }
+}
@@ -0,0 +1,140 @@
+package application.benchmark;
+
+import application.database.InMemoryProductsDatabase;
+import application.database.ProductJournal;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput of the journaled in-memory backend under every fsync policy, the size of the log
+ * it leaves behind, and how long recovery takes from the log alone and from a snapshot plus a tail
+ * of the log.
+ *
+ * <p>Arguments: {@code <products> <writer threads> <directory>}. The directory should be on the disk
+ * to measure; a temporary directory is used otherwise. Without a journal the same writes are timed
+ * as a baseline. Recovery from the log alone is run once untimed to warm up the replay code.
+ */
+public class ProductJournalBenchmark {
+
+  private static final int SEGMENT_SIZE = 64 << 20;
+  private static final long FSYNC_INTERVAL_MILLIS = 100;
+
+  public static void main(String[] args) throws Exception {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+    Path parent = args.length > 2 ? Files.createDirectories(Paths.get(args[2])) : Files.createTempDirectory("product-journal-benchmark");
+
+    System.out.printf("products=%,d threads=%d directory=%s%n", size, threads, parent);
+    report("none", write(new InMemoryProductsDatabase(), size, threads), size);
+    for (ProductJournal.FsyncPolicy fsyncPolicy : ProductJournal.FsyncPolicy.values()) {
+      Path directory = Files.createTempDirectory(parent, fsyncPolicy.name().toLowerCase());
+      ProductJournal journal = open(directory, fsyncPolicy);
+      long elapsed = write(new InMemoryProductsDatabase(journal), size, threads);
+      journal.close();
+      report(fsyncPolicy.name().toLowerCase(), elapsed, size);
+      System.out.printf("  log: %,d bytes in %d segments, %.1f bytes per product%n",
+          logBytes(directory), segments(directory).size(), (double) logBytes(directory) / size);
+
+      new InMemoryProductsDatabase(journal = open(directory, fsyncPolicy));
+      journal.close();
+      long start = System.nanoTime();
+      InMemoryProductsDatabase recovered = new InMemoryProductsDatabase(journal = open(directory, fsyncPolicy));
+      System.out.printf("  recovery from log only: %,d ms, %,d products%n",
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), recovered.count());
+      recovered.snapshot();
+      write(recovered, size / 100, threads);
+      journal.close();
+
+      start = System.nanoTime();
+      recovered = new InMemoryProductsDatabase(journal = open(directory, fsyncPolicy));
+      System.out.printf("  recovery from snapshot and %,d logged writes: %,d ms, %,d products%n",
+          size / 100, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), recovered.count());
+      journal.close();
+      delete(directory);
+    }
+  }
+
+  private static ProductJournal open(Path directory, ProductJournal.FsyncPolicy fsyncPolicy) {
+    return new ProductJournal(directory, fsyncPolicy, SEGMENT_SIZE, FSYNC_INTERVAL_MILLIS, 0, TimeUnit.MILLISECONDS);
+  }
+
+  private static long write(InMemoryProductsDatabase database, int size, int threads) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> writers = new ArrayList<>(threads);
+      long start = System.nanoTime();
+      for (int thread = 0; thread < threads; thread++) {
+        int writes = size / threads + (thread < size % threads ? 1 : 0);
+        writers.add(executor.submit(() -> {
+          for (int i = 0; i < writes; i++) {
+            Product product = ProductGenerator.getRandomProduct();
+            product.setId(null);
+            database.save(product);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> writer : writers) {
+        writer.get();
+      }
+      return System.nanoTime() - start;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static void report(String fsyncPolicy, long elapsedNanos, int size) {
+    System.out.printf("fsync=%s: %,.0f saves/s, %,.1f us per save%n",
+        fsyncPolicy, size * 1e9 / elapsedNanos, elapsedNanos / 1e3 / size);
+  }
+
+  /**
+   * Segments are preallocated, so the log size is the sum of the records written to them.
+   */
+  private static long logBytes(Path directory) throws IOException {
+    long bytes = 0;
+    for (Path segment : segments(directory)) {
+      try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "r")) {
+        long offset = 0;
+        while (offset + Integer.BYTES <= file.length()) {
+          file.seek(offset);
+          int length = file.readInt();
+          if (length == 0) {
+            break;
+          }
+          offset += 2 * Integer.BYTES + length;
+        }
+        bytes += offset;
+      }
+    }
+    return bytes;
+  }
+
+  private static List<Path> segments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().startsWith("journal-")).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static void delete(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(file);
+      }
+    }
+  }
+}
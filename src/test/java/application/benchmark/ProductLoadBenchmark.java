@@ -0,0 +1,215 @@
+package application.benchmark;
+
+import application.Application;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import application.service.ProductService;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Throughput and latency of {@code GET /products/{id}} with many concurrent keep-alive connections,
+ * each sending its next request as soon as the previous response arrived.
+ *
+ * <p>Arguments: {@code <platform|virtual> <backend> <connections> <seconds>}. The virtual mode needs
+ * Java 21 or newer; run both modes on the same JVM so the numbers are comparable. Connections are
+ * driven from one selector thread in the same JVM as the application, so on a machine with few
+ * cores the client takes a share of the CPU. The executor limits are raised so requests wait
+ * instead of being rejected.
+ */
+public class ProductLoadBenchmark {
+
+  private static final int PRODUCTS = 10_000;
+  private static final int WARMUP_SECONDS = 10;
+
+  public static void main(String[] args) throws Exception {
+    String mode = args.length > 0 ? args[0] : "platform";
+    String backend = args.length > 1 ? args[1] : "hibernate";
+    int connections = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+    int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+    try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+        .properties("server.port=0", "spring.jpa.show-sql=false", "logging.level.root=WARN",
+            "server.tomcat.max-connections=" + (connections + 100), "server.tomcat.accept-count=" + connections)
+        .run(String.format("--application.database=%s", backend), String.format("--application.execution-mode=%s", mode),
+            "--application.executor.queue-capacity=" + connections, "--application.executor.max-concurrency=" + connections)) {
+      ProductService productService = context.getBean(ProductService.class);
+      List<Product> products = new ArrayList<>(PRODUCTS);
+      for (int i = 0; i < PRODUCTS; i++) {
+        Product product = ProductGenerator.getRandomProduct();
+        product.setId(null);
+        products.add(product);
+      }
+      long firstId = productService.createProducts(products).get(0).getId();
+      int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+      LoadGenerator generator = new LoadGenerator(new InetSocketAddress("localhost", port), connections, firstId, PRODUCTS);
+      generator.run(TimeUnit.SECONDS.toNanos(WARMUP_SECONDS));
+      generator.reset();
+      long elapsed = generator.run(TimeUnit.SECONDS.toNanos(seconds));
+      generator.report(String.format("mode=%s backend=%s connections=%,d java=%s", mode, backend, connections, System.getProperty("java.version")), elapsed);
+    }
+  }
+
+  private static class LoadGenerator {
+    private final InetSocketAddress address;
+    private final int connections;
+    private final long firstId;
+    private final int products;
+    private final Selector selector;
+    private long[] latencies = new long[1 << 16];
+    private int responses;
+    private int failures;
+
+    LoadGenerator(InetSocketAddress address, int connections, long firstId, int products) throws IOException {
+      this.address = address;
+      this.connections = connections;
+      this.firstId = firstId;
+      this.products = products;
+      this.selector = Selector.open();
+    }
+
+    long run(long durationNanos) throws IOException {
+      while (selector.keys().size() < connections) {
+        connect();
+      }
+      long start = System.nanoTime();
+      long end = start + durationNanos;
+      while (System.nanoTime() < end) {
+        selector.select(100);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          handle(key);
+        }
+      }
+      return System.nanoTime() - start;
+    }
+
+    void reset() {
+      responses = 0;
+      failures = 0;
+    }
+
+    void report(String label, long elapsedNanos) {
+      long[] sorted = Arrays.copyOf(latencies, responses);
+      Arrays.sort(sorted);
+      System.out.printf("%s: %,.0f requests/s, %,d failed, p50 %,d us, p99 %,d us, p999 %,d us, max %,d us%n",
+          label, responses * 1e9 / elapsedNanos, failures,
+          percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999), percentile(sorted, 1.0));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.min(sorted.length - 1, Math.max(0, Math.ceil(quantile * sorted.length) - 1));
+      return TimeUnit.NANOSECONDS.toMicros(sorted[index]);
+    }
+
+    private void connect() throws IOException {
+      SocketChannel channel = SocketChannel.open();
+      channel.configureBlocking(false);
+      channel.connect(address);
+      channel.register(selector, SelectionKey.OP_CONNECT, new Connection());
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+      SocketChannel channel = (SocketChannel) key.channel();
+      Connection connection = (Connection) key.attachment();
+      try {
+        if (key.isConnectable()) {
+          channel.finishConnect();
+          send(key, connection);
+        } else if (key.isWritable()) {
+          channel.write(connection.request);
+          if (!connection.request.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_READ);
+          }
+        } else if (key.isReadable()) {
+          if (channel.read(connection.response) < 0) {
+            throw new IOException("Connection closed by server");
+          }
+          int status = connection.completedStatus();
+          if (status > 0) {
+            record(System.nanoTime() - connection.sentAt, status);
+            send(key, connection);
+          } else if (!connection.response.hasRemaining()) {
+            connection.response = ByteBuffer.allocate(connection.response.capacity() << 1).put((ByteBuffer) connection.response.flip());
+          }
+        }
+      } catch (IOException e) {
+        failures++;
+        key.cancel();
+        channel.close();
+        connect();
+      }
+    }
+
+    private void send(SelectionKey key, Connection connection) throws IOException {
+      long id = firstId + ThreadLocalRandom.current().nextInt(products);
+      connection.request = ByteBuffer.wrap(String.format("GET /products/%d HTTP/1.1\r\nHost: localhost\r\nAccept: application/json\r\n\r\n", id)
+          .getBytes(StandardCharsets.US_ASCII));
+      connection.response.clear();
+      connection.sentAt = System.nanoTime();
+      ((SocketChannel) key.channel()).write(connection.request);
+      key.interestOps(connection.request.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void record(long latency, int status) {
+      if (status != 200) {
+        failures++;
+        return;
+      }
+      if (responses == latencies.length) {
+        latencies = Arrays.copyOf(latencies, responses << 1);
+      }
+      latencies[responses++] = latency;
+    }
+  }
+
+  private static class Connection {
+    private ByteBuffer request;
+    private ByteBuffer response = ByteBuffer.allocate(4096);
+    private long sentAt;
+
+    /**
+     * Returns the status code once the whole response was read, or zero while it is incomplete.
+     */
+    int completedStatus() {
+      String received = new String(response.array(), 0, response.position(), StandardCharsets.US_ASCII);
+      int headersEnd = received.indexOf("\r\n\r\n");
+      if (headersEnd < 0) {
+        return 0;
+      }
+      String headers = received.substring(0, headersEnd).toLowerCase();
+      int bodyStart = headersEnd + 4;
+      int contentLength = headers.indexOf("\r\ncontent-length:");
+      boolean complete;
+      if (contentLength >= 0) {
+        int valueStart = contentLength + "\r\ncontent-length:".length();
+        int valueEnd = headers.indexOf("\r\n", valueStart);
+        int length = Integer.parseInt(headers.substring(valueStart, valueEnd < 0 ? headers.length() : valueEnd).trim());
+        complete = received.length() - bodyStart >= length;
+      } else if (headers.contains("\r\ntransfer-encoding: chunked")) {
+        complete = received.endsWith("\r\n0\r\n\r\n") || received.length() - bodyStart == 5 && received.endsWith("0\r\n\r\n");
+      } else {
+        complete = true;
+      }
+      return complete ? Integer.parseInt(received.substring(9, 12)) : 0;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package application.benchmark;
+
+import application.Application;
+import application.database.ProductDatabase;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Read and write latency of a backend: single saves, lookups by id and full reads.
+ *
+ * <p>Arguments: {@code <backend> <number of products> <operations>}. For the hibernate backend point
+ * {@code spring.datasource.*} at the database to measure, otherwise the embedded database on the
+ * classpath is used.
+ */
+public class ProductPersistenceLatencyBenchmark {
+
+  private static final int FIND_ALL_ROUNDS = 20;
+
+  public static void main(String[] args) throws Exception {
+    String backend = args.length > 0 ? args[0] : "hibernate";
+    int size = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+    int operations = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+    try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+        .web(WebApplicationType.NONE)
+        .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+        .run(String.format("--application.database=%s", backend))) {
+      ProductDatabase database = context.getBean(ProductDatabase.class);
+      List<Long> ids = new ArrayList<>(size);
+      long[] saveLatencies = new long[size];
+      for (int i = 0; i < size; i++) {
+        Product product = ProductGenerator.getRandomNewProduct();
+        long start = System.nanoTime();
+        ids.add(database.save(product).orElseThrow(IllegalStateException::new).getId());
+        saveLatencies[i] = System.nanoTime() - start;
+      }
+
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int i = 0; i < operations; i++) {
+        database.findById(ids.get(random.nextInt(size)));
+      }
+      long[] findByIdLatencies = new long[operations];
+      for (int i = 0; i < operations; i++) {
+        Long id = ids.get(random.nextInt(size));
+        long start = System.nanoTime();
+        database.findById(id);
+        findByIdLatencies[i] = System.nanoTime() - start;
+      }
+
+      database.findAll();
+      long[] findAllLatencies = new long[FIND_ALL_ROUNDS];
+      for (int i = 0; i < FIND_ALL_ROUNDS; i++) {
+        long start = System.nanoTime();
+        database.findAll();
+        findAllLatencies[i] = System.nanoTime() - start;
+      }
+
+      System.out.printf("backend=%s products=%,d%n", backend, size);
+      report("save", saveLatencies);
+      report("findById", findByIdLatencies);
+      report("findAll", findAllLatencies);
+    }
+  }
+
+  private static void report(String operation, long[] latencies) {
+    Arrays.sort(latencies);
+    System.out.printf("%-9s p50 %,9d us  p99 %,9d us  max %,9d us%n", operation,
+        percentile(latencies, 0.50) / 1000, percentile(latencies, 0.99) / 1000, latencies[latencies.length - 1] / 1000);
+  }
+
+  private static long percentile(long[] sortedLatencies, double percentile) {
+    return sortedLatencies[(int) Math.min(sortedLatencies.length - 1, Math.round(percentile * (sortedLatencies.length - 1)))];
+  }
+}
@@ -0,0 +1,105 @@
+package application.benchmark;
+
+import application.database.DatabaseOperationException;
+import application.database.InMemoryProductsDatabase;
+import application.database.OffHeapProductsDatabase;
+import application.database.ProductDatabase;
+import application.database.SearchQuery;
+import application.generators.WordGenerator;
+import application.model.Description;
+import application.model.Name;
+import application.model.Product;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Latency of reading the first page of a text search, through the inverted index of the in-memory
+ * backend and by scanning the off-heap backend.
+ *
+ * <p>Names have two and descriptions eight words drawn from a vocabulary of {@value #VOCABULARY_SIZE}
+ * words with a Zipf distribution, so some words are in most products and most words in few.
+ * Queries are one or two words, or typed prefixes of two to four letters.
+ *
+ * <p>Arguments: {@code <comma separated catalog sizes> <seconds per benchmark>}.
+ */
+public class ProductSearchBenchmark {
+
+  private static final int WARMUP_MILLIS = 3000;
+  private static final int VOCABULARY_SIZE = 50_000;
+  private static final int PAGE_SIZE = 20;
+  private static final int OFFHEAP_MAX_SIZE = 1_000_000;
+
+  public static void main(String[] args) throws Exception {
+    String[] sizes = (args.length > 0 ? args[0] : "100000,1000000").split(",");
+    long measurementMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 5000;
+    BenchmarkHarness harness = new BenchmarkHarness(WARMUP_MILLIS, measurementMillis);
+    String[] vocabulary = new String[VOCABULARY_SIZE];
+    for (int i = 0; i < vocabulary.length; i++) {
+      vocabulary[i] = WordGenerator.getRandomWord();
+    }
+    double[] cumulative = zipf(vocabulary.length);
+    for (String sizeArgument : sizes) {
+      int size = Integer.parseInt(sizeArgument);
+      System.gc();
+      long heapBefore = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+      long start = System.nanoTime();
+      ProductDatabase inMemory = load(new InMemoryProductsDatabase(), size, vocabulary, cumulative, new Random(size));
+      long loadMillis = (System.nanoTime() - start) / 1_000_000;
+      System.gc();
+      long heap = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory() - heapBefore;
+      System.out.printf("in-memory size=%d loaded in %,d ms, %,d MB of heap%n", size, loadMillis, heap >> 20);
+      measure(harness, inMemory, "in-memory-index", size, vocabulary, cumulative);
+      if (size <= OFFHEAP_MAX_SIZE) {
+        ProductDatabase offHeap = load(new OffHeapProductsDatabase(), size, vocabulary, cumulative, new Random(size));
+        measure(harness, offHeap, "offheap-scan", size, vocabulary, cumulative);
+      }
+    }
+  }
+
+  private static void measure(BenchmarkHarness harness, ProductDatabase database, String backend, int size,
+                              String[] vocabulary, double[] cumulative) throws Exception {
+    System.out.println(harness.timed("search-one-word", backend, size, 1,
+        random -> search(database, pick(vocabulary, cumulative, random) + " ")));
+    System.out.println(harness.timed("search-two-words", backend, size, 1,
+        random -> search(database, pick(vocabulary, cumulative, random) + " " + pick(vocabulary, cumulative, random) + " ")));
+    System.out.println(harness.timed("search-typeahead", backend, size, 1, random -> {
+      String word = pick(vocabulary, cumulative, random);
+      search(database, word.substring(0, Math.min(word.length(), 2 + random.nextInt(3))));
+    }));
+  }
+
+  private static void search(ProductDatabase database, String text) throws DatabaseOperationException {
+    database.search(new SearchQuery(text, null), null, PAGE_SIZE);
+  }
+
+  private static ProductDatabase load(ProductDatabase database, int size, String[] vocabulary, double[] cumulative, Random random)
+      throws DatabaseOperationException {
+    for (int i = 0; i < size; i++) {
+      StringBuilder description = new StringBuilder();
+      for (int word = 0; word < 8; word++) {
+        description.append(pick(vocabulary, cumulative, random)).append(' ');
+      }
+      String name = pick(vocabulary, cumulative, random) + " " + pick(vocabulary, cumulative, random);
+      database.save(new Product(null, new Name(null, "EN", name), new Description(null, "EN", description.toString()), null));
+    }
+    return database;
+  }
+
+  private static double[] zipf(int words) {
+    double[] cumulative = new double[words];
+    double sum = 0;
+    for (int rank = 1; rank <= words; rank++) {
+      sum += 1.0 / rank;
+      cumulative[rank - 1] = sum;
+    }
+    for (int i = 0; i < words; i++) {
+      cumulative[i] /= sum;
+    }
+    return cumulative;
+  }
+
+  private static String pick(String[] vocabulary, double[] cumulative, Random random) {
+    int position = Arrays.binarySearch(cumulative, random.nextDouble());
+    return vocabulary[Math.min(position < 0 ? -position - 1 : position, vocabulary.length - 1)];
+  }
+}
@@ -0,0 +1,63 @@
+package application.benchmark;
+
+import application.configuration.ApplicationConfiguration;
+import application.controller.ProductBinaryFormat;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serialization and deserialization throughput and payload size of JSON and the binary format, for
+ * a single product and for a large list of products. Messages are written to and read from byte
+ * arrays, as a converter does with a buffered request or response body.
+ *
+ * <p>Arguments: {@code <products in list> <seconds per benchmark>}.
+ */
+public class ProductSerializationBenchmark {
+
+  private static final int WARMUP_MILLIS = 3000;
+
+  public static void main(String[] args) throws Exception {
+    int listSize = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    long measurementMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 5000;
+    BenchmarkHarness harness = new BenchmarkHarness(WARMUP_MILLIS, measurementMillis);
+    ObjectMapper mapper = ApplicationConfiguration.getObjectMapper();
+
+    Product product = ProductGenerator.getRandomProduct();
+    List<Product> products = new ArrayList<>(listSize);
+    for (int i = 0; i < listSize; i++) {
+      products.add(ProductGenerator.getRandomProduct());
+    }
+    measure(harness, "product", 1, product, mapper.writerFor(Product.class), mapper.readerFor(Product.class));
+    measure(harness, "list", listSize, products,
+        mapper.writerFor(new TypeReference<List<Product>>() { }), mapper.readerFor(new TypeReference<List<Product>>() { }));
+  }
+
+  private static void measure(BenchmarkHarness harness, String shape, int size, Object value, ObjectWriter writer, ObjectReader reader) throws Exception {
+    byte[] json = writer.writeValueAsBytes(value);
+    byte[] binary = toBinary(value);
+    if (!value.equals(reader.readValue(json)) || !value.equals(ProductBinaryFormat.readMessage(new ByteArrayInputStream(binary)))) {
+      throw new IllegalStateException("Messages are not read back as written");
+    }
+    System.out.printf("%s of %,d: json %,d bytes, binary %,d bytes (%.0f%% of json)%n",
+        shape, size, json.length, binary.length, 100.0 * binary.length / json.length);
+    System.out.println(harness.timed(shape + "-serialize", "json", size, 1, random -> writer.writeValueAsBytes(value)));
+    System.out.println(harness.timed(shape + "-serialize", "binary", size, 1, random -> toBinary(value)));
+    System.out.println(harness.timed(shape + "-deserialize", "json", size, 1, random -> reader.readValue(json)));
+    System.out.println(harness.timed(shape + "-deserialize", "binary", size, 1,
+        random -> ProductBinaryFormat.readMessage(new ByteArrayInputStream(binary))));
+  }
+
+  private static byte[] toBinary(Object value) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+    ProductBinaryFormat.writeMessage(output, value);
+    return output.toByteArray();
+  }
+}
@@ -0,0 +1,104 @@
+package application.benchmark;
+
+import application.configuration.ApplicationConfiguration;
+import application.database.InMemoryProductsDatabase;
+import application.database.OffHeapProductsDatabase;
+import application.database.ProductDatabase;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Heap footprint and GC activity of a backend holding a large catalog.
+ *
+ * <p>Arguments: {@code <in-memory|offheap> <number of products> <generated|json>}. Run each backend
+ * in its own JVM with the same {@code -Xmx} so the numbers are comparable, e.g. {@code -Xmx4g}. The
+ * json dataset passes every generated product through JSON first, so its values are separate
+ * instances as in products received by the API.
+ */
+public class ProductStoreFootprintBenchmark {
+
+  private static final int STEADY_STATE_OPERATIONS = 5_000_000;
+
+  public static void main(String[] args) throws Exception {
+    String backend = args.length > 0 ? args[0] : "in-memory";
+    int size = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+    boolean json = args.length > 2 && "json".equals(args[2]);
+    ObjectMapper mapper = ApplicationConfiguration.getObjectMapper();
+    long baselineHeap = usedHeapAfterGc();
+    ProductDatabase database = "offheap".equals(backend) ? new OffHeapProductsDatabase() : new InMemoryProductsDatabase();
+
+    GcSnapshot beforeLoad = GcSnapshot.take();
+    for (int i = 0; i < size; i++) {
+      Product product = json ? throughJson(mapper, ProductGenerator.getRandomProduct()) : ProductGenerator.getRandomProduct();
+      product.setId(null);
+      database.save(product);
+    }
+    GcSnapshot afterLoad = GcSnapshot.take();
+    long retainedHeap = usedHeapAfterGc() - baselineHeap;
+
+    GcSnapshot beforeSteadyState = GcSnapshot.take();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < STEADY_STATE_OPERATIONS; i++) {
+      long id = random.nextLong(1, size + 1);
+      if (random.nextInt(10) == 0) {
+        Product product = ProductGenerator.getRandomProduct();
+        product.setId(id);
+        database.save(product);
+      } else {
+        database.findById(id);
+      }
+    }
+    GcSnapshot afterSteadyState = GcSnapshot.take();
+
+    System.out.printf("backend=%s products=%,d dataset=%s count=%,d%n", backend, size, json ? "json" : "generated", database.count());
+    System.out.printf("retained heap: %,d MB (%d bytes/product)%n", retainedHeap >> 20, retainedHeap / size);
+    System.out.printf("load:         %s%n", afterLoad.minus(beforeLoad));
+    System.out.printf("steady state: %s%n", afterSteadyState.minus(beforeSteadyState));
+  }
+
+  private static Product throughJson(ObjectMapper mapper, Product product) throws IOException {
+    return mapper.readValue(mapper.writeValueAsBytes(product), Product.class);
+  }
+
+  private static long usedHeapAfterGc() throws InterruptedException {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static class GcSnapshot {
+    private final long collections;
+    private final long millis;
+
+    private GcSnapshot(long collections, long millis) {
+      this.collections = collections;
+      this.millis = millis;
+    }
+
+    static GcSnapshot take() {
+      long collections = 0;
+      long millis = 0;
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+        collections += Math.max(0, collector.getCollectionCount());
+        millis += Math.max(0, collector.getCollectionTime());
+      }
+      return new GcSnapshot(collections, millis);
+    }
+
+    GcSnapshot minus(GcSnapshot other) {
+      return new GcSnapshot(collections - other.collections, millis - other.millis);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%,d collections, %,d ms total GC time", collections, millis);
+    }
+  }
+}
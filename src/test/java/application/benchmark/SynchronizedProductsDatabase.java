@@ -0,0 +1,42 @@
+package application.benchmark;
+
+import application.database.DatabaseOperationException;
+import application.database.InMemoryProductsDatabase;
+import application.model.Product;
+import java.util.Optional;
+
+/**
+ * In-memory database behind a single global monitor, the way it was before it became lock-free.
+ * Kept as a baseline for benchmarks.
+ */
+class SynchronizedProductsDatabase extends InMemoryProductsDatabase {
+  private final Object lock = new Object();
+
+  @Override
+  public Optional<Product> save(Product product) throws DatabaseOperationException {
+    synchronized (lock) {
+      return super.save(product);
+    }
+  }
+
+  @Override
+  public Optional<Product> findById(Long id) throws DatabaseOperationException {
+    synchronized (lock) {
+      return super.findById(id);
+    }
+  }
+
+  @Override
+  public long count() throws DatabaseOperationException {
+    synchronized (lock) {
+      return super.count();
+    }
+  }
+
+  @Override
+  public boolean existsById(Long id) {
+    synchronized (lock) {
+      return super.existsById(id);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package application.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import application.generators.ProductGenerator;
+import application.model.Price;
+import application.model.Product;
+import application.model.Translation;
+import application.model.Translations;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ProductBinaryFormatTest {
+
+  @Test
+  void shouldReadWrittenProductWithNullValues() throws IOException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    product.setDescription(null);
+    product.getName().setId(null);
+    product.getName().setLanguage(null);
+    product.setPrice(new Price(null, new BigDecimal("-12.345"), Currency.getInstance("USD")));
+
+    //when
+    Object readProduct = roundTrip(product);
+
+    //then
+    assertEquals(product, readProduct);
+  }
+
+  @Test
+  void shouldReadWrittenProductWithTranslations() throws IOException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    Map<String, Translation> translations = new HashMap<>();
+    translations.put("de", new Translation("Schuh", null));
+    translations.put("fr", new Translation("Chaussure", "Chaussure rouge"));
+    product.setTranslations(Translations.of(translations));
+
+    //when
+    Object readProduct = roundTrip(product);
+
+    //then
+    assertEquals(product, readProduct);
+  }
+
+  @Test
+  void shouldReadWrittenPageAndErrorMessage() throws IOException {
+    //given
+    ProductPage page = new ProductPage(Arrays.asList(ProductGenerator.getRandomProduct(), ProductGenerator.getRandomProduct()), Long.MAX_VALUE);
+    ErrorMessage errorMessage = new ErrorMessage("Invalid product", Collections.singletonList("Name cannot be empty"));
+
+    //when
+    //then
+    assertEquals(page, roundTrip(page));
+    assertEquals(errorMessage, roundTrip(errorMessage));
+    assertEquals(Collections.emptyList(), roundTrip(Collections.emptyList()));
+  }
+
+  @Test
+  void shouldRejectTruncatedMessage() throws IOException {
+    //given
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ProductBinaryFormat.writeMessage(output, ProductGenerator.getRandomProduct());
+    byte[] truncated = Arrays.copyOf(output.toByteArray(), output.size() - 1);
+
+    //when
+    //then
+    assertThrows(IOException.class, () -> ProductBinaryFormat.readMessage(new ByteArrayInputStream(truncated)));
+  }
+
+  private static Object roundTrip(Object value) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ProductBinaryFormat.writeMessage(output, value);
+    return ProductBinaryFormat.readMessage(new ByteArrayInputStream(output.toByteArray()));
+  }
+}
@@ -1,16 +1,31 @@
 package application.controller;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 import application.configuration.ApplicationConfiguration;
+import application.database.PriceQuery;
+import application.database.SearchQuery;
 import application.generators.ProductGenerator;
+import application.model.Description;
+import application.model.Name;
+import application.model.PartialProduct;
 import application.model.Product;
+import application.model.ProductChange;
+import application.model.ProductField;
+import application.service.AsyncProductService;
+import application.service.ProductChangeFeed;
+import application.service.ProductOperationResult;
 import application.service.ProductService;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.Mockito.doNothing;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -18,26 +33,43 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 
 import application.service.ServiceOperationException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Currency;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(ProductController.class)
 @AutoConfigureMockMvc
+@Import(AsyncProductService.class)
 class ProductControllerTest {
 
   private final String urlAddressTemplate = "/products";
@@ -51,6 +83,20 @@ class ProductControllerTest {
   @MockBean
   private ProductService productService;
 
+  @MockBean
+  private ProductChangeFeed changeFeed;
+
+  @MockBean(name = "productDatabaseExecutor")
+  private Executor productDatabaseExecutor;
+
+  @BeforeEach
+  void runProductDatabaseWorkOnCallingThread() {
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run();
+      return null;
+    }).when(productDatabaseExecutor).execute(any());
+  }
+
   @Test
   void shouldFindAllProducts() throws Exception {
     //Given
@@ -58,10 +104,11 @@ class ProductControllerTest {
     when(productService.getAllProducts()).thenReturn(Optional.of(expectedProduct));
 
     //When
-    MvcResult result = mockMvc
+    MvcResult asyncResult = mockMvc
         .perform(get(urlAddressTemplate)
             .accept(MediaType.APPLICATION_JSON_UTF8))
         .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
     int actualHttpStatus = result.getResponse().getStatus();
     List<Product> actualProduct = mapper.readValue(result.getResponse().getContentAsString(), new TypeReference<List<Product>>() {
     });
@@ -79,10 +126,11 @@ class ProductControllerTest {
     when(productService.getAllProducts()).thenReturn(Optional.empty());
 
     //When
-    MvcResult result = mockMvc
+    MvcResult asyncResult = mockMvc
         .perform(get(urlAddressTemplate)
             .accept(MediaType.APPLICATION_JSON_UTF8))
         .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
     int actualHttpStatus = result.getResponse().getStatus();
     List<Product> actualProduct = mapper.readValue(result.getResponse().getContentAsString(), new TypeReference<List<Product>>() {
     });
@@ -101,10 +149,11 @@ class ProductControllerTest {
     ErrorMessage expectedResponse = new ErrorMessage("Internal server error while getting products.");
 
     //When
-    MvcResult result = mockMvc
+    MvcResult asyncResult = mockMvc
         .perform(get(urlAddressTemplate)
             .accept(MediaType.APPLICATION_JSON_UTF8))
         .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
     int actualHttpStatus = result.getResponse().getStatus();
     ErrorMessage actualResponse = mapper.readValue(result.getResponse().getContentAsString(), ErrorMessage.class);
 
@@ -115,6 +164,179 @@ class ProductControllerTest {
     verify(productService).getAllProducts();
   }
 
+  @Test
+  void shouldReturnPageOfProductsWithNextCursor() throws Exception {
+    //Given
+    List<Product> products = Arrays.asList(ProductGenerator.getRandomProduct(), ProductGenerator.getRandomProduct());
+    when(productService.getProductsPage(5L, 2)).thenReturn(Optional.of(products));
+    ProductPage expectedPage = new ProductPage(products, products.get(1).getId());
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(urlAddressTemplate)
+            .param("after", "5")
+            .param("limit", "2")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    int actualHttpStatus = result.getResponse().getStatus();
+    ProductPage actualPage = mapper.readValue(result.getResponse().getContentAsString(), ProductPage.class);
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), actualHttpStatus);
+    assertEquals(expectedPage, actualPage);
+    verify(productService).getProductsPage(5L, 2);
+  }
+
+  @Test
+  void shouldReturnLastPageOfProductsWithoutNextCursor() throws Exception {
+    //Given
+    List<Product> products = Collections.singletonList(ProductGenerator.getRandomProduct());
+    when(productService.getProductsPage(null, 2)).thenReturn(Optional.of(products));
+    ProductPage expectedPage = new ProductPage(products, null);
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(urlAddressTemplate)
+            .param("limit", "2")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    int actualHttpStatus = result.getResponse().getStatus();
+    ProductPage actualPage = mapper.readValue(result.getResponse().getContentAsString(), ProductPage.class);
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), actualHttpStatus);
+    assertEquals(expectedPage, actualPage);
+    verify(productService).getProductsPage(null, 2);
+  }
+
+  @Test
+  void shouldReturnBadRequestForInvalidPageLimit() throws Exception {
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(urlAddressTemplate)
+            .param("limit", "0")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    int actualHttpStatus = result.getResponse().getStatus();
+
+    //Then
+    assertEquals(HttpStatus.BAD_REQUEST.value(), actualHttpStatus);
+  }
+
+  @Test
+  void shouldReturnPageOfProductsInPriceRange() throws Exception {
+    //Given
+    List<Product> products = Arrays.asList(ProductGenerator.getRandomProduct(), ProductGenerator.getRandomProduct());
+    PriceQuery query = new PriceQuery(new BigDecimal("10"), new BigDecimal("99.99"), Currency.getInstance("EUR"), true)
+        .after(new BigDecimal("50.00"), 5L);
+    when(productService.getProductsByPrice(query, 2)).thenReturn(Optional.of(products));
+    ProductPage expectedPage = new ProductPage(products, products.get(1).getId());
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(urlAddressTemplate)
+            .param("minPrice", "10")
+            .param("maxPrice", "99.99")
+            .param("currency", "EUR")
+            .param("sort", "-price")
+            .param("after", "5")
+            .param("afterPrice", "50.00")
+            .param("limit", "2")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    int actualHttpStatus = result.getResponse().getStatus();
+    ProductPage actualPage = mapper.readValue(result.getResponse().getContentAsString(), ProductPage.class);
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), actualHttpStatus);
+    assertEquals(expectedPage, actualPage);
+    verify(productService).getProductsByPrice(query, 2);
+  }
+
+  @Test
+  void shouldReturnBadRequestForInvalidPriceQuery() throws Exception {
+    //When
+    int invertedRangeStatus = asyncStatus(get(urlAddressTemplate).param("minPrice", "10").param("maxPrice", "1"));
+    int unknownCurrencyStatus = asyncStatus(get(urlAddressTemplate).param("currency", "XYZW"));
+    int unknownSortStatus = asyncStatus(get(urlAddressTemplate).param("sort", "name"));
+    int cursorWithoutPriceStatus = asyncStatus(get(urlAddressTemplate).param("minPrice", "10").param("after", "5"));
+
+    //Then
+    assertEquals(HttpStatus.BAD_REQUEST.value(), invertedRangeStatus);
+    assertEquals(HttpStatus.BAD_REQUEST.value(), unknownCurrencyStatus);
+    assertEquals(HttpStatus.BAD_REQUEST.value(), unknownSortStatus);
+    assertEquals(HttpStatus.BAD_REQUEST.value(), cursorWithoutPriceStatus);
+  }
+
+  @Test
+  void shouldReturnPageOfProductsMatchingSearchQuery() throws Exception {
+    //Given
+    List<Product> products = Arrays.asList(ProductGenerator.getRandomProduct(), ProductGenerator.getRandomProduct());
+    SearchQuery query = new SearchQuery("red sh", "EN");
+    when(productService.searchProducts(query, 5L, 2)).thenReturn(Optional.of(products));
+    ProductPage expectedPage = new ProductPage(products, products.get(1).getId());
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(urlAddressTemplate + "/search")
+            .param("q", "red sh")
+            .param("language", "EN")
+            .param("after", "5")
+            .param("limit", "2")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    int actualHttpStatus = result.getResponse().getStatus();
+    ProductPage actualPage = mapper.readValue(result.getResponse().getContentAsString(), ProductPage.class);
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), actualHttpStatus);
+    assertEquals(expectedPage, actualPage);
+    verify(productService).searchProducts(query, 5L, 2);
+  }
+
+  @Test
+  void shouldReturnBadRequestForSearchQueryWithoutWords() throws Exception {
+    //When
+    int actualHttpStatus = asyncStatus(get(urlAddressTemplate + "/search").param("q", " - "));
+
+    //Then
+    assertEquals(HttpStatus.BAD_REQUEST.value(), actualHttpStatus);
+  }
+
+  @Test
+  void shouldExportAllProductsAsNewlineDelimitedJson() throws Exception {
+    //Given
+    List<Product> expectedProducts = Arrays.asList(ProductGenerator.getRandomProduct(), ProductGenerator.getRandomProduct());
+    doAnswer(invocation -> {
+      Consumer<Product> action = invocation.getArgument(0);
+      expectedProducts.forEach(action);
+      return null;
+    }).when(productService).exportProducts(any());
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/export", urlAddressTemplate)))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    int actualHttpStatus = result.getResponse().getStatus();
+    String[] lines = result.getResponse().getContentAsString().split("\n");
+    List<Product> actualProducts = new ArrayList<>();
+    for (String line : lines) {
+      actualProducts.add(mapper.readValue(line, Product.class));
+    }
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), actualHttpStatus);
+    assertEquals("application/x-ndjson", result.getResponse().getContentType());
+    assertEquals(expectedProducts, actualProducts);
+    verify(productService).exportProducts(any());
+  }
+
   @Test
   void shouldFindProduct() throws Exception {
     //Given
@@ -123,10 +345,11 @@ class ProductControllerTest {
     when(productService.getProduct(id)).thenReturn(Optional.of(expectedProduct));
 
     //When
-    MvcResult result = mockMvc
+    MvcResult asyncResult = mockMvc
         .perform(get(String.format("%s/%d", urlAddressTemplate, id))
             .accept(MediaType.APPLICATION_JSON_UTF8))
         .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
     int actualHttpStatus = result.getResponse().getStatus();
     Product actualProduct = mapper.readValue(result.getResponse().getContentAsString(), Product.class);
 
@@ -137,20 +360,232 @@ class ProductControllerTest {
     verify(productService).getProduct(id);
   }
 
+  @Test
+  void shouldFindProductLocalizedToAcceptedLanguages() throws Exception {
+    //Given
+    Product expectedProduct = new Product(1L, new Name(2L, "de", "Schuh"), new Description(3L, "de", "Roter Schuh"), null);
+    when(productService.getLocalizedProduct(1L, Arrays.asList("de-ch", "de", "en"))).thenReturn(Optional.of(expectedProduct));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/%d", urlAddressTemplate, 1L))
+            .header(HttpHeaders.ACCEPT_LANGUAGE, "de-CH, en;q=0.5, de;q=0.8, fr;q=0")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    Product actualProduct = mapper.readValue(result.getResponse().getContentAsString(), Product.class);
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals("de", result.getResponse().getHeader(HttpHeaders.CONTENT_LANGUAGE));
+    assertEquals("Accept, Accept-Language", result.getResponse().getHeader(HttpHeaders.VARY));
+    assertEquals(expectedProduct, actualProduct);
+    verify(productService).getLocalizedProduct(1L, Arrays.asList("de-ch", "de", "en"));
+  }
+
+  @Test
+  void shouldReturnOnlyRequestedFieldsOfProduct() throws Exception {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    Set<ProductField> fields = EnumSet.of(ProductField.NAME, ProductField.PRICE);
+    when(productService.getProduct(product.getId(), fields)).thenReturn(Optional.of(PartialProduct.of(product, ProductField.withId(fields))));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/%d", urlAddressTemplate, product.getId()))
+            .param("fields", "name,price")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    JsonNode actualProduct = mapper.readTree(result.getResponse().getContentAsString());
+    List<String> actualFields = new ArrayList<>();
+    actualProduct.fieldNames().forEachRemaining(actualFields::add);
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(Arrays.asList("name", "price"), actualFields);
+    assertEquals(product.getName(), mapper.treeToValue(actualProduct.get("name"), Name.class));
+    verify(productService).getProduct(product.getId(), fields);
+  }
+
+  @Test
+  void shouldReadOnlyRequestedFieldsOfAllProducts() throws Exception {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    Set<ProductField> fields = EnumSet.of(ProductField.PRICE);
+    when(productService.getCatalogVersion()).thenReturn("42");
+    when(productService.getAllProducts(fields)).thenReturn(Optional.of(new ArrayList<>(Collections.singletonList(product))));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(urlAddressTemplate)
+            .param("fields", "price")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    JsonNode actualProducts = mapper.readTree(result.getResponse().getContentAsString());
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertTrue(actualProducts.get(0).has("price"));
+    assertFalse(actualProducts.get(0).has("name"));
+    verify(productService, never()).getAllProducts();
+  }
+
+  @Test
+  void shouldNotLocalizeProductWhenNeitherNameNorDescriptionIsRequested() throws Exception {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    Set<ProductField> fields = EnumSet.of(ProductField.PRICE);
+    when(productService.getProduct(product.getId(), fields)).thenReturn(Optional.of(PartialProduct.of(product, ProductField.withId(fields))));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/%d", urlAddressTemplate, product.getId()))
+            .param("fields", "price")
+            .header(HttpHeaders.ACCEPT_LANGUAGE, "de")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    verify(productService).getProduct(product.getId(), fields);
+    verify(productService, never()).getLocalizedProduct(any(), any());
+  }
+
+  @Test
+  void shouldReturnBadRequestForUnknownField() throws Exception {
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(urlAddressTemplate)
+            .param("limit", "10")
+            .param("fields", "id,color")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    ErrorMessage actualResponse = mapper.readValue(result.getResponse().getContentAsString(), ErrorMessage.class);
+
+    //Then
+    assertEquals(HttpStatus.BAD_REQUEST.value(), result.getResponse().getStatus());
+    assertEquals(new ErrorMessage("Invalid fields: Unknown field 'color', fields are [id, name, description, price, translations]."), actualResponse);
+  }
+
+  @Test
+  void shouldReturnNotModifiedWhenProductDidNotChangeSinceETag() throws Exception {
+    //Given
+    when(productService.getProductVersion(12L)).thenReturn(Optional.of(3L));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/%d", urlAddressTemplate, 12L))
+            .header(HttpHeaders.IF_NONE_MATCH, "\"12-2\", W/\"12-3\"")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), result.getResponse().getStatus());
+    assertEquals("\"12-3\"", result.getResponse().getHeader(HttpHeaders.ETAG));
+    assertEquals(0, result.getResponse().getContentLength());
+    verify(productService, never()).getProduct(12L);
+  }
+
+  @Test
+  void shouldReturnProductWithItsETagWhenItChangedSinceETag() throws Exception {
+    //Given
+    Product expectedProduct = ProductGenerator.getRandomProduct();
+    Long id = expectedProduct.getId();
+    expectedProduct.setVersion(4L);
+    when(productService.getProductVersion(id)).thenReturn(Optional.of(4L));
+    when(productService.getProduct(id)).thenReturn(Optional.of(expectedProduct));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/%d", urlAddressTemplate, id))
+            .header(HttpHeaders.IF_NONE_MATCH, String.format("\"%d-3\"", id))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    Product actualProduct = mapper.readValue(result.getResponse().getContentAsString(), Product.class);
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(String.format("\"%d-4\"", id), result.getResponse().getHeader(HttpHeaders.ETAG));
+    assertEquals(expectedProduct, actualProduct);
+  }
+
+  @Test
+  void shouldTagProductInBinaryFormatApartFromJson() throws Exception {
+    //Given
+    Product expectedProduct = ProductGenerator.getRandomProduct();
+    Long id = expectedProduct.getId();
+    expectedProduct.setVersion(4L);
+    when(productService.getProductVersion(id)).thenReturn(Optional.of(4L));
+    when(productService.getProduct(id)).thenReturn(Optional.of(expectedProduct));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/%d", urlAddressTemplate, id))
+            .header(HttpHeaders.IF_NONE_MATCH, String.format("\"%d-4\"", id))
+            .accept(ProductBinaryFormat.MEDIA_TYPE))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(String.format("\"%d-4-binary\"", id), result.getResponse().getHeader(HttpHeaders.ETAG));
+    assertEquals("Accept, Accept-Language", result.getResponse().getHeader(HttpHeaders.VARY));
+    assertEquals(expectedProduct, fromBinary(result));
+  }
+
+  @Test
+  void shouldPreferBinaryFormatOnlyWhenAcceptHeaderPrefersIt() {
+    //Then
+    assertFalse(ProductController.prefersBinary(null));
+    assertFalse(ProductController.prefersBinary("*/*"));
+    assertFalse(ProductController.prefersBinary("application/json, application/x-product-binary"));
+    assertFalse(ProductController.prefersBinary("application/x-product-binary;q=0.5, application/json"));
+    assertFalse(ProductController.prefersBinary("not a media type"));
+    assertTrue(ProductController.prefersBinary("application/x-product-binary"));
+    assertTrue(ProductController.prefersBinary("application/x-product-binary, */*;q=0.1"));
+  }
+
+  @Test
+  void shouldReturnNotModifiedWhenCatalogDidNotChangeSinceETag() throws Exception {
+    //Given
+    when(productService.getCatalogVersion()).thenReturn("1546300800000-42");
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(urlAddressTemplate)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"catalog-1546300800000-42\"")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), result.getResponse().getStatus());
+    assertEquals("\"catalog-1546300800000-42\"", result.getResponse().getHeader(HttpHeaders.ETAG));
+    assertEquals(HttpHeaders.ACCEPT, result.getResponse().getHeader(HttpHeaders.VARY));
+    verify(productService, never()).getAllProducts();
+  }
+
   @Test
   void shouldFindProductByName() throws Exception {
     //Given
     Product expectedProduct = ProductGenerator.getRandomProduct();
     List<Product> productList = Collections.singletonList(expectedProduct);
     String name = expectedProduct.getName().getValue();
-    when(productService.getAllProducts()).thenReturn(Optional.of(productList));
+    when(productService.getProductsByName(name)).thenReturn(Optional.of(productList));
 
     //When
-    MvcResult result = mockMvc
+    MvcResult asyncResult = mockMvc
         .perform(get(String.format("%s/byName", urlAddressTemplate))
             .param("name", name)
             .accept(MediaType.APPLICATION_JSON_UTF8))
         .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
     int actualHttpStatus = result.getResponse().getStatus();
     Product actualProduct = mapper.readValue(result.getResponse().getContentAsString(), Product.class);
 
@@ -158,7 +593,30 @@ class ProductControllerTest {
     assertEquals(HttpStatus.OK.value(), actualHttpStatus);
     assertNotNull(actualProduct);
     assertEquals(expectedProduct, actualProduct);
-    verify(productService).getAllProducts();
+    verify(productService).getProductsByName(name);
+  }
+
+  @Test
+  void shouldReturnNotFoundWhenThereIsNoProductWithPassedName() throws Exception {
+    //Given
+    String name = "name";
+    when(productService.getProductsByName(name)).thenReturn(Optional.of(Collections.emptyList()));
+    ErrorMessage expectedResponse = new ErrorMessage(String.format("Product not found for passed name: %s", name));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/byName", urlAddressTemplate))
+            .param("name", name)
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    int actualHttpStatus = result.getResponse().getStatus();
+    ErrorMessage actualResponse = mapper.readValue(result.getResponse().getContentAsString(), ErrorMessage.class);
+
+    //Then
+    assertEquals(HttpStatus.NOT_FOUND.value(), actualHttpStatus);
+    assertEquals(expectedResponse, actualResponse);
+    verify(productService).getProductsByName(name);
   }
 
   @Test
@@ -166,16 +624,16 @@ class ProductControllerTest {
     //Given
     Product expectedProduct = ProductGenerator.getRandomProduct();
     Long id = expectedProduct.getId();
-    when(productService.productExistsById(id)).thenReturn(false);
-    when(productService.createProduct(expectedProduct)).thenReturn(Optional.of(expectedProduct));
+    when(productService.createProduct(expectedProduct)).thenReturn(new ProductOperationResult(id, ProductOperationResult.Outcome.CREATED, expectedProduct));
 
     //When
-    MvcResult result = mockMvc
+    MvcResult asyncResult = mockMvc
         .perform(post(urlAddressTemplate)
             .contentType(MediaType.APPLICATION_JSON_UTF8)
             .content(mapper.writeValueAsString(expectedProduct))
             .accept(MediaType.APPLICATION_JSON_UTF8))
         .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
     int actualHttpStatus = result.getResponse().getStatus();
     Product actualProduct = mapper.readValue(result.getResponse().getContentAsString(), Product.class);
     String actualLocationHeader = result.getResponse().getHeader("location");
@@ -185,24 +643,44 @@ class ProductControllerTest {
     assertEquals(String.format("/products/%s", id), actualLocationHeader);
     assertNotNull(actualProduct);
     assertEquals(expectedProduct, actualProduct);
-    verify(productService).productExistsById(id);
     verify(productService).createProduct(expectedProduct);
   }
 
+  @Test
+  void shouldReturnConflictWhenCreatedProductAlreadyExists() throws Exception {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    when(productService.createProduct(product)).thenReturn(new ProductOperationResult(product.getId(), ProductOperationResult.Outcome.CONFLICT, null));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(post(urlAddressTemplate)
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(mapper.writeValueAsString(product))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.CONFLICT.value(), result.getResponse().getStatus());
+    verify(productService).createProduct(product);
+  }
+
   @Test
   void shouldUpdateProduct() throws Exception {
     //Given
     Product productToUpdate = ProductGenerator.getRandomProduct();
     Long id = productToUpdate.getId();
-    when(productService.productExistsById(id)).thenReturn(true);
+    when(productService.updateProduct(productToUpdate)).thenReturn(new ProductOperationResult(id, ProductOperationResult.Outcome.UPDATED, productToUpdate));
 
     //When
-    MvcResult result = mockMvc
+    MvcResult asyncResult = mockMvc
         .perform(put(String.format("%s/%d", urlAddressTemplate, id))
             .contentType(MediaType.APPLICATION_JSON_UTF8)
             .content(mapper.writeValueAsString(productToUpdate))
             .accept(MediaType.APPLICATION_JSON_UTF8))
         .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
     int actualHttpStatus = result.getResponse().getStatus();
     Product actualProduct = mapper.readValue(result.getResponse().getContentAsString(), Product.class);
 
@@ -210,28 +688,362 @@ class ProductControllerTest {
     assertEquals(HttpStatus.OK.value(), actualHttpStatus);
     assertNotNull(actualProduct);
     assertEquals(productToUpdate, actualProduct);
-    verify(productService).productExistsById(id);
     verify(productService).updateProduct(productToUpdate);
   }
 
+  @Test
+  void shouldReturnNotFoundWhenUpdatedProductDoesNotExist() throws Exception {
+    //Given
+    Product productToUpdate = ProductGenerator.getRandomProduct();
+    Long id = productToUpdate.getId();
+    when(productService.updateProduct(productToUpdate)).thenReturn(new ProductOperationResult(id, ProductOperationResult.Outcome.NOT_FOUND, null));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(put(String.format("%s/%d", urlAddressTemplate, id))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(mapper.writeValueAsString(productToUpdate))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.NOT_FOUND.value(), result.getResponse().getStatus());
+  }
+
+  @Test
+  void shouldReturnPreconditionFailedWhenUpdatedProductChangedSinceETag() throws Exception {
+    //Given
+    Product productToUpdate = ProductGenerator.getRandomProduct();
+    Long id = productToUpdate.getId();
+    when(productService.updateProduct(productToUpdate, 3L))
+        .thenReturn(new ProductOperationResult(id, ProductOperationResult.Outcome.VERSION_MISMATCH, null));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(put(String.format("%s/%d", urlAddressTemplate, id))
+            .header(HttpHeaders.IF_MATCH, String.format("\"%d-3\"", id))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(mapper.writeValueAsString(productToUpdate))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    ErrorMessage actualResponse = mapper.readValue(result.getResponse().getContentAsString(), ErrorMessage.class);
+
+    //Then
+    assertEquals(HttpStatus.PRECONDITION_FAILED.value(), result.getResponse().getStatus());
+    assertEquals(new ErrorMessage(String.format("Product with %d id was updated since the ETag in If-Match.", id)), actualResponse);
+    verify(productService, never()).updateProduct(productToUpdate);
+  }
+
   @Test
   void shouldDeleteProduct() throws Exception {
     //Given
-    Product product = ProductGenerator.getRandomProduct();
-    Long id = product.getId();
-    when(productService.getProduct(id)).thenReturn(Optional.of(product));
-    doNothing().when(productService).deleteProduct(id);
+    Long id = ProductGenerator.getRandomProduct().getId();
+    when(productService.deleteProduct(id)).thenReturn(new ProductOperationResult(id, ProductOperationResult.Outcome.DELETED, null));
 
     //When
-    MvcResult result = mockMvc
+    MvcResult asyncResult = mockMvc
         .perform(delete(String.format("%s/%d", urlAddressTemplate, id))
             .accept(MediaType.APPLICATION_JSON_UTF8))
         .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
     int actualHttpStatus = result.getResponse().getStatus();
 
     //Then
     assertEquals(HttpStatus.OK.value(), actualHttpStatus);
-    verify(productService).getProduct(id);
     verify(productService).deleteProduct(id);
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldReturnNotFoundWhenDeletedProductDoesNotExist() throws Exception {
+    //Given
+    Long id = 1L;
+    when(productService.deleteProduct(id)).thenReturn(new ProductOperationResult(id, ProductOperationResult.Outcome.NOT_FOUND, null));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(delete(String.format("%s/%d", urlAddressTemplate, id))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.NOT_FOUND.value(), result.getResponse().getStatus());
+  }
+
+  @Test
+  void shouldCreateBatchOfProducts() throws Exception {
+    //Given
+    Product createdProduct = ProductGenerator.getRandomProduct();
+    Product conflictingProduct = ProductGenerator.getRandomProduct();
+    List<Product> products = Arrays.asList(createdProduct, conflictingProduct);
+    when(productService.createProducts(products)).thenReturn(Arrays.asList(
+        new ProductOperationResult(createdProduct.getId(), ProductOperationResult.Outcome.CREATED, createdProduct),
+        new ProductOperationResult(conflictingProduct.getId(), ProductOperationResult.Outcome.CONFLICT, null)));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(post(String.format("%s/batch", urlAddressTemplate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(mapper.writeValueAsString(products))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    int actualHttpStatus = result.getResponse().getStatus();
+    List<BatchItemResult> actualResults = mapper.readValue(result.getResponse().getContentAsString(), new TypeReference<List<BatchItemResult>>() {
+    });
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), actualHttpStatus);
+    assertEquals(Arrays.asList(
+        new BatchItemResult(createdProduct.getId(), HttpStatus.CREATED.value(), createdProduct),
+        new BatchItemResult(conflictingProduct.getId(), HttpStatus.CONFLICT.value(), null)), actualResults);
+    verify(productService).createProducts(products);
+  }
+
+  @Test
+  void shouldUpdateBatchOfProducts() throws Exception {
+    //Given
+    Product updatedProduct = ProductGenerator.getRandomProduct();
+    Product missingProduct = ProductGenerator.getRandomProduct();
+    List<Product> products = Arrays.asList(updatedProduct, missingProduct);
+    when(productService.updateProducts(products)).thenReturn(Arrays.asList(
+        new ProductOperationResult(updatedProduct.getId(), ProductOperationResult.Outcome.UPDATED, updatedProduct),
+        new ProductOperationResult(missingProduct.getId(), ProductOperationResult.Outcome.NOT_FOUND, null)));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(put(String.format("%s/batch", urlAddressTemplate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(mapper.writeValueAsString(products))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    List<BatchItemResult> actualResults = mapper.readValue(result.getResponse().getContentAsString(), new TypeReference<List<BatchItemResult>>() {
+    });
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(Arrays.asList(
+        new BatchItemResult(updatedProduct.getId(), HttpStatus.OK.value(), updatedProduct),
+        new BatchItemResult(missingProduct.getId(), HttpStatus.NOT_FOUND.value(), null)), actualResults);
+    verify(productService).updateProducts(products);
+  }
+
+  @Test
+  void shouldDeleteBatchOfProducts() throws Exception {
+    //Given
+    List<Long> ids = Arrays.asList(1L, 2L);
+    when(productService.deleteProducts(ids)).thenReturn(Arrays.asList(
+        new ProductOperationResult(1L, ProductOperationResult.Outcome.DELETED, null),
+        new ProductOperationResult(2L, ProductOperationResult.Outcome.NOT_FOUND, null)));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(delete(String.format("%s/batch", urlAddressTemplate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(mapper.writeValueAsString(ids))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    List<BatchItemResult> actualResults = mapper.readValue(result.getResponse().getContentAsString(), new TypeReference<List<BatchItemResult>>() {
+    });
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(Arrays.asList(
+        new BatchItemResult(1L, HttpStatus.OK.value(), null),
+        new BatchItemResult(2L, HttpStatus.NOT_FOUND.value(), null)), actualResults);
+    verify(productService).deleteProducts(ids);
+  }
+
+  @Test
+  void shouldReturnBadRequestForEmptyBatch() throws Exception {
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(post(String.format("%s/batch", urlAddressTemplate))
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content("[]")
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.BAD_REQUEST.value(), result.getResponse().getStatus());
+  }
+
+  @Test
+  void shouldCreateProductInBinaryFormat() throws Exception {
+    //Given
+    Product expectedProduct = ProductGenerator.getRandomProduct();
+    Long id = expectedProduct.getId();
+    when(productService.createProduct(expectedProduct)).thenReturn(new ProductOperationResult(id, ProductOperationResult.Outcome.CREATED, expectedProduct));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(post(urlAddressTemplate)
+            .contentType(ProductBinaryFormat.MEDIA_TYPE)
+            .content(toBinary(expectedProduct))
+            .accept(ProductBinaryFormat.MEDIA_TYPE))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.CREATED.value(), result.getResponse().getStatus());
+    assertEquals(ProductBinaryFormat.MEDIA_TYPE, result.getResponse().getContentType());
+    assertEquals(expectedProduct, fromBinary(result));
+    verify(productService).createProduct(expectedProduct);
+  }
+
+  @Test
+  void shouldReturnNotFoundInBinaryFormatWhenThereIsNoProductWithPassedId() throws Exception {
+    //Given
+    when(productService.getProduct(1L)).thenReturn(Optional.empty());
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/1", urlAddressTemplate))
+            .accept(ProductBinaryFormat.MEDIA_TYPE))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.NOT_FOUND.value(), result.getResponse().getStatus());
+    assertEquals(new ErrorMessage("Product not found for passed id: 1"), fromBinary(result));
+  }
+
+  @Test
+  void shouldDeleteBatchOfProductsInBinaryFormat() throws Exception {
+    //Given
+    List<Long> ids = Arrays.asList(1L, 2L);
+    when(productService.deleteProducts(ids)).thenReturn(Arrays.asList(
+        new ProductOperationResult(1L, ProductOperationResult.Outcome.DELETED, null),
+        new ProductOperationResult(2L, ProductOperationResult.Outcome.NOT_FOUND, null)));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(delete(String.format("%s/batch", urlAddressTemplate))
+            .contentType(ProductBinaryFormat.MEDIA_TYPE)
+            .content(toBinary(ids))
+            .accept(ProductBinaryFormat.MEDIA_TYPE))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(Arrays.asList(
+        new BatchItemResult(1L, HttpStatus.OK.value(), null),
+        new BatchItemResult(2L, HttpStatus.NOT_FOUND.value(), null)), fromBinary(result));
+  }
+
+  @Test
+  void shouldReturnChangesAfterCursor() throws Exception {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    List<ProductChange> changes = Arrays.asList(ProductChange.saved(product).withSequence(43), ProductChange.deleted(7L).withSequence(44));
+    when(changeFeed.getChangesAfter(42, 100, 20, TimeUnit.SECONDS)).thenReturn(CompletableFuture.completedFuture(Optional.of(changes)));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/changes?since=42", urlAddressTemplate))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(new ProductChangePage(changes, 44), mapper.readValue(result.getResponse().getContentAsString(), ProductChangePage.class));
+  }
+
+  @Test
+  void shouldReturnCursorOfLastChangeWhenCursorIsNotPassed() throws Exception {
+    //Given
+    when(changeFeed.getLastSequence()).thenReturn(CompletableFuture.completedFuture(44L));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/changes", urlAddressTemplate))
+            .accept(MediaType.APPLICATION_JSON_UTF8))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(new ProductChangePage(new ArrayList<>(), 44), mapper.readValue(result.getResponse().getContentAsString(), ProductChangePage.class));
+    verify(changeFeed, never()).getChangesAfter(any(Long.class), any(Integer.class), any(Long.class), any());
+  }
+
+  @Test
+  void shouldReturnGoneWhenChangesAfterCursorAreNoLongerKept() throws Exception {
+    //Given
+    when(changeFeed.getChangesAfter(42, 100, 0, TimeUnit.SECONDS)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+    //When
+    int actualHttpStatus = asyncStatus(get(String.format("%s/changes?since=42&wait=0", urlAddressTemplate)));
+
+    //Then
+    assertEquals(HttpStatus.GONE.value(), actualHttpStatus);
+  }
+
+  @Test
+  void shouldReturnBadRequestForTooLongWaitForChanges() throws Exception {
+    //When
+    int actualHttpStatus = asyncStatus(get(String.format("%s/changes?since=42&wait=26", urlAddressTemplate)));
+
+    //Then
+    assertEquals(HttpStatus.BAD_REQUEST.value(), actualHttpStatus);
+  }
+
+  @Test
+  void shouldStreamChangesAfterLastEventIdAsServerSentEvents() throws Exception {
+    //Given
+    ProductChange change = ProductChange.deleted(7L).withSequence(43);
+    when(changeFeed.getChangesAfter(42, 1000, 0, TimeUnit.SECONDS))
+        .thenReturn(CompletableFuture.completedFuture(Optional.of(Collections.singletonList(change))));
+    when(changeFeed.getChangesAfter(43, 1000, 15, TimeUnit.SECONDS)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/changes/stream?since=1", urlAddressTemplate))
+            .header("Last-Event-ID", "42")
+            .accept(MediaType.TEXT_EVENT_STREAM))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(String.format("id:43\ndata:%s\n\n", mapper.writeValueAsString(change)), result.getResponse().getContentAsString());
+  }
+
+  @Test
+  void shouldReturnGoneForStreamOfChangesWhichAreNoLongerKept() throws Exception {
+    //Given
+    when(changeFeed.getChangesAfter(42, 1000, 0, TimeUnit.SECONDS)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+    //When
+    MvcResult asyncResult = mockMvc
+        .perform(get(String.format("%s/changes/stream?since=42", urlAddressTemplate))
+            .accept(MediaType.TEXT_EVENT_STREAM))
+        .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+
+    //Then
+    assertEquals(HttpStatus.GONE.value(), result.getResponse().getStatus());
+  }
+
+  private int asyncStatus(MockHttpServletRequestBuilder request) throws Exception {
+    MvcResult asyncResult = mockMvc.perform(request.accept(MediaType.APPLICATION_JSON_UTF8)).andReturn();
+    return mockMvc.perform(asyncDispatch(asyncResult)).andReturn().getResponse().getStatus();
+  }
+
+  private static byte[] toBinary(Object value) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ProductBinaryFormat.writeMessage(output, value);
+    return output.toByteArray();
+  }
+
+  private static Object fromBinary(MvcResult result) throws IOException {
+    return ProductBinaryFormat.readMessage(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+  }
+}
@@ -0,0 +1,185 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import application.generators.ProductGenerator;
+import application.model.PartialProduct;
+import application.model.Product;
+import application.model.ProductField;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+@ExtendWith(MockitoExtension.class)
+class CachingProductDatabaseTest {
+
+  @Mock
+  private ProductDatabase database;
+
+  private ProductDatabase productDatabase;
+
+  @BeforeEach
+  void setup() {
+    productDatabase = new CachingProductDatabase(database, new ProductCache(100, 1, TimeUnit.MINUTES));
+  }
+
+  @Test
+  void shouldReadProductFromDatabaseOnlyOnce() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(database.findById(product.getId())).thenReturn(Optional.of(product));
+
+    //when
+    Optional<Product> firstRead = productDatabase.findById(product.getId());
+    Optional<Product> secondRead = productDatabase.findById(product.getId());
+    boolean exists = productDatabase.existsById(product.getId());
+
+    //then
+    assertEquals(Optional.of(product), firstRead);
+    assertEquals(Optional.of(product), secondRead);
+    assertTrue(exists);
+    verify(database).findById(product.getId());
+    verify(database, never()).existsById(product.getId());
+  }
+
+  @Test
+  void shouldReadRequestedFieldsOfCachedProductWithoutDatabase() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(database.findById(product.getId())).thenReturn(Optional.of(product));
+    productDatabase.findById(product.getId());
+
+    //when
+    Optional<Product> partialProduct = productDatabase.findById(product.getId(), EnumSet.of(ProductField.NAME));
+
+    //then
+    assertEquals(Optional.of(PartialProduct.of(product, EnumSet.of(ProductField.ID, ProductField.NAME))), partialProduct);
+    verify(database).findById(product.getId());
+    verify(database, never()).findById(product.getId(), EnumSet.of(ProductField.NAME));
+  }
+
+  @Test
+  void shouldReadVersionOfCachedProductWithoutDatabase() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    product.setVersion(7L);
+    when(database.findById(product.getId())).thenReturn(Optional.of(product));
+    productDatabase.findById(product.getId());
+
+    //when
+    Optional<Long> version = productDatabase.findVersionById(product.getId());
+
+    //then
+    assertEquals(Optional.of(7L), version);
+    verify(database, never()).findVersionById(product.getId());
+  }
+
+  @Test
+  void shouldReadProductFromDatabaseAgainAfterSave() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(database.findById(product.getId())).thenReturn(Optional.of(product));
+    when(database.save(product)).thenReturn(Optional.of(product));
+    productDatabase.findById(product.getId());
+
+    //when
+    productDatabase.save(product);
+    productDatabase.findById(product.getId());
+
+    //then
+    verify(database, times(2)).findById(product.getId());
+  }
+
+  @Test
+  void shouldReadProductFromDatabaseAgainAfterCommitOfUpdate() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    Product updatedProduct = ProductGenerator.getRandomProduct();
+    updatedProduct.setId(product.getId());
+    when(database.findById(product.getId())).thenReturn(Optional.of(product), Optional.of(updatedProduct));
+    when(database.updateIfExists(updatedProduct)).thenReturn(Optional.of(updatedProduct));
+    TransactionSynchronizationManager.initSynchronization();
+    List<TransactionSynchronization> synchronizations;
+    try {
+      productDatabase.updateIfExists(updatedProduct);
+      productDatabase.findById(product.getId());
+      synchronizations = TransactionSynchronizationManager.getSynchronizations();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    //when
+    TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    Optional<Product> readAfterCommit = productDatabase.findById(product.getId());
+
+    //then
+    assertEquals(Optional.of(updatedProduct), readAfterCommit);
+    verify(database, times(2)).findById(product.getId());
+  }
+
+  @Test
+  void shouldReadProductFromDatabaseAgainAfterFailedDelete() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(database.findById(product.getId())).thenReturn(Optional.of(product));
+    doThrow(DatabaseOperationException.class).when(database).deleteById(product.getId());
+    productDatabase.findById(product.getId());
+
+    //when
+    assertThrows(DatabaseOperationException.class, () -> productDatabase.deleteById(product.getId()));
+    productDatabase.findById(product.getId());
+
+    //then
+    verify(database, times(2)).findById(product.getId());
+  }
+
+  @Test
+  void shouldReadProductFromDatabaseAgainAfterDeleteAll() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(database.findById(product.getId())).thenReturn(Optional.of(product));
+    productDatabase.findById(product.getId());
+
+    //when
+    productDatabase.deleteAll();
+    productDatabase.findById(product.getId());
+
+    //then
+    verify(database).deleteAll();
+    verify(database, times(2)).findById(product.getId());
+  }
+
+  @Test
+  void shouldNotCacheMissingProduct() throws DatabaseOperationException {
+    //given
+    when(database.findById(1L)).thenReturn(Optional.empty());
+
+    //when
+    productDatabase.findById(1L);
+    productDatabase.findById(1L);
+
+    //then
+    verify(database, times(2)).findById(1L);
+  }
+
+  @Test
+  void findByIdMethodShouldThrowExceptionForNullAsId() {
+    assertThrows(IllegalArgumentException.class, () -> productDatabase.findById(null));
+  }
+}
@@ -0,0 +1,143 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import application.model.ProductChange;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+@ExtendWith(MockitoExtension.class)
+class HibernateProductChangeLogTest {
+
+  @Mock
+  private ProductChangeRepository productChangeRepository;
+
+  @Mock
+  private ProductChangeCounterRepository productChangeCounterRepository;
+
+  private ProductChangeLog changeLog;
+
+  @BeforeEach
+  void setup() throws DatabaseOperationException {
+    when(productChangeCounterRepository.existsById(ProductChangeCounter.ID)).thenReturn(true);
+    changeLog = new HibernateProductChangeLog(productChangeRepository, productChangeCounterRepository, 100);
+  }
+
+  @Test
+  void shouldInsertCounterAfterLastKeptChangeWhenItIsMissing() throws DatabaseOperationException {
+    //given
+    when(productChangeCounterRepository.existsById(ProductChangeCounter.ID)).thenReturn(false);
+    when(productChangeRepository.findBounds()).thenReturn(Collections.singletonList(new Object[] {4L, 9L}));
+
+    //when
+    new HibernateProductChangeLog(productChangeRepository, productChangeCounterRepository, 100);
+
+    //then
+    verify(productChangeCounterRepository).saveAndFlush(any(ProductChangeCounter.class));
+    verify(productChangeCounterRepository, never()).save(any(ProductChangeCounter.class));
+  }
+
+  @Test
+  void shouldKeepCounterInsertedByAnotherInstanceMeanwhile() throws DatabaseOperationException {
+    //given
+    when(productChangeCounterRepository.existsById(ProductChangeCounter.ID)).thenReturn(false);
+    when(productChangeRepository.findBounds()).thenReturn(Collections.singletonList(new Object[] {null, null}));
+    when(productChangeCounterRepository.saveAndFlush(any(ProductChangeCounter.class))).thenThrow(DataIntegrityViolationException.class);
+
+    //when
+    ProductChangeLog startedChangeLog = new HibernateProductChangeLog(productChangeRepository, productChangeCounterRepository, 100);
+
+    //then
+    assertNotNull(startedChangeLog);
+  }
+
+  @Test
+  void appendMethodShouldNumberChangesFromCounter() throws DatabaseOperationException {
+    //given
+    when(productChangeCounterRepository.findSequences()).thenReturn(sequences(12, 0));
+
+    //when
+    List<ProductChange> changes = changeLog.append(Arrays.asList(ProductChange.deleted(1L), ProductChange.deleted(2L)));
+
+    //then
+    verify(productChangeCounterRepository).advance(2);
+    assertEquals(11, changes.get(0).getSequence());
+    assertEquals(12, changes.get(1).getSequence());
+    verify(productChangeRepository).saveAll(any());
+    verify(productChangeRepository, never()).deleteUpTo(any(Long.class));
+  }
+
+  @Test
+  void appendMethodShouldDeleteChangesOverCapacity() throws DatabaseOperationException {
+    //given
+    when(productChangeCounterRepository.findSequences()).thenReturn(sequences(110, 0));
+
+    //when
+    changeLog.append(Collections.singletonList(ProductChange.deleted(1L)));
+
+    //then
+    verify(productChangeCounterRepository).prune(10);
+    verify(productChangeRepository).deleteUpTo(10);
+  }
+
+  @Test
+  void findAfterMethodShouldReturnEmptyWhenFirstChangeWasDeleted() throws DatabaseOperationException {
+    //given
+    ProductChangeRecord record = new ProductChangeRecord(8, ProductChange.Type.DELETED, 1L, null);
+    when(productChangeRepository.findAfter(5, PageRequest.of(0, 10))).thenReturn(Collections.singletonList(record));
+
+    //when
+    Optional<List<ProductChange>> changes = changeLog.findAfter(5, 10);
+
+    //then
+    assertFalse(changes.isPresent());
+  }
+
+  @Test
+  void findAfterMethodShouldReturnChangesFollowingSequence() throws DatabaseOperationException {
+    //given
+    ProductChangeRecord record = new ProductChangeRecord(6, ProductChange.Type.DELETED, 1L, null);
+    when(productChangeRepository.findAfter(5, PageRequest.of(0, 10))).thenReturn(Collections.singletonList(record));
+
+    //when
+    Optional<List<ProductChange>> changes = changeLog.findAfter(5, 10);
+
+    //then
+    assertEquals(Collections.singletonList(new ProductChange(6, ProductChange.Type.DELETED, 1L, null)), changes.get());
+  }
+
+  @Test
+  void findAfterMethodShouldTellKeptSequenceWithoutChangesFromDeletedOne() throws DatabaseOperationException {
+    //given
+    when(productChangeRepository.findAfter(any(Long.class), any())).thenReturn(Collections.emptyList());
+    when(productChangeCounterRepository.findSequences()).thenReturn(sequences(20, 10));
+
+    //when
+    Optional<List<ProductChange>> latest = changeLog.findAfter(20, 10);
+    Optional<List<ProductChange>> deleted = changeLog.findAfter(9, 10);
+
+    //then
+    assertTrue(latest.get().isEmpty());
+    assertFalse(deleted.isPresent());
+  }
+
+  private static List<Object[]> sequences(long lastSequence, long prunedSequence) {
+    return Collections.singletonList(new Object[] {lastSequence, prunedSequence});
+  }
+}
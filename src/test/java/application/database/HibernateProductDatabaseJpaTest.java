@@ -0,0 +1,164 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import application.model.Description;
+import application.model.Name;
+import application.model.Price;
+import application.model.Product;
+import application.model.ProductField;
+import application.model.Translation;
+import application.model.Translations;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Runs {@link HibernateProductDatabase} against the embedded database, every call in its own
+ * transaction as from the product service.
+ */
+@DataJpaTest
+@Import({HibernateProductDatabase.class, LanguageDictionary.class})
+@TestPropertySource(properties = "application.database=hibernate")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HibernateProductDatabaseJpaTest {
+
+  private static final Currency EURO = Currency.getInstance("EUR");
+
+  @Autowired
+  private HibernateProductDatabase productDatabase;
+
+  @Autowired
+  private ProductTranslationRepository productTranslationRepository;
+
+  @AfterEach
+  void cleanup() throws DatabaseOperationException {
+    productDatabase.deleteAll();
+  }
+
+  @Test
+  void shouldCreateProductWithTranslationsAndReadItBack() throws DatabaseOperationException {
+    //given
+    Product product = newProduct("Shoe", "9.99");
+    product.setTranslations(Translations.of(Collections.singletonMap("de-ch", new Translation("Schuh", "Roter Schuh"))));
+
+    //when
+    Product savedProduct = productDatabase.save(product).get();
+    Optional<Product> readProduct = productDatabase.findById(savedProduct.getId());
+
+    //then
+    assertTrue(readProduct.isPresent());
+    assertEquals("Shoe", readProduct.get().getName().getValue());
+    assertEquals("en-US", readProduct.get().getName().getLanguage());
+    assertEquals(0, new BigDecimal("9.99").compareTo(readProduct.get().getPrice().getPrice()));
+    assertEquals(new Translation("Schuh", "Roter Schuh"), readProduct.get().getTranslations().get("de-ch"));
+    assertEquals(savedProduct.getVersion(), readProduct.get().getVersion());
+  }
+
+  @Test
+  void shouldUpdateExistingProductAndAdvanceItsVersion() throws DatabaseOperationException {
+    //given
+    Product savedProduct = productDatabase.save(newProduct("Shoe", "9.99")).get();
+    Product updatedProduct = newProduct("Boot", "19.99");
+    updatedProduct.setId(savedProduct.getId());
+    Product missingProduct = newProduct("Hat", "1.00");
+    missingProduct.setId(savedProduct.getId() + 1000);
+
+    //when
+    Optional<Product> result = productDatabase.updateIfExists(updatedProduct);
+    Optional<Product> missingResult = productDatabase.updateIfExists(missingProduct);
+
+    //then
+    assertTrue(result.isPresent());
+    assertFalse(missingResult.isPresent());
+    Product readProduct = productDatabase.findById(savedProduct.getId()).get();
+    assertEquals("Boot", readProduct.getName().getValue());
+    assertEquals(0, new BigDecimal("19.99").compareTo(readProduct.getPrice().getPrice()));
+    assertEquals(Long.valueOf(savedProduct.getVersion() + 1), readProduct.getVersion());
+    assertEquals(readProduct.getVersion(), result.get().getVersion());
+  }
+
+  @Test
+  void shouldUpdateProductOnlyAtVersionItHas() throws DatabaseOperationException {
+    //given
+    Product savedProduct = productDatabase.save(newProduct("Shoe", "9.99")).get();
+    long version = savedProduct.getVersion();
+    Product firstUpdate = newProduct("Boot", "19.99");
+    firstUpdate.setId(savedProduct.getId());
+    Product staleUpdate = newProduct("Sandal", "4.99");
+    staleUpdate.setId(savedProduct.getId());
+
+    //when
+    Optional<Product> firstResult = productDatabase.updateIfVersionMatches(firstUpdate, version);
+    Optional<Product> staleResult = productDatabase.updateIfVersionMatches(staleUpdate, version);
+
+    //then
+    assertTrue(firstResult.isPresent());
+    assertEquals(Long.valueOf(version + 1), firstResult.get().getVersion());
+    assertFalse(staleResult.isPresent());
+    Product readProduct = productDatabase.findById(savedProduct.getId()).get();
+    assertEquals("Boot", readProduct.getName().getValue());
+    assertEquals(Optional.of(version + 1), productDatabase.findVersionById(savedProduct.getId()));
+  }
+
+  @Test
+  void shouldReadOnlyRequestedFields() throws DatabaseOperationException {
+    //given
+    Product product = newProduct("Shoe", "9.99");
+    product.setTranslations(Translations.of(Collections.singletonMap("de", new Translation("Schuh", null))));
+    Product savedProduct = productDatabase.save(product).get();
+    productDatabase.save(newProduct("Boot", "19.99"));
+
+    //when
+    Product priceOnly = productDatabase.findById(savedProduct.getId(), EnumSet.of(ProductField.PRICE)).get();
+    List<Product> namesOnly = productDatabase.findAllAfter(null, 10, EnumSet.of(ProductField.NAME)).get();
+
+    //then
+    assertEquals(savedProduct.getId(), priceOnly.getId());
+    assertNull(priceOnly.getName());
+    assertNull(priceOnly.getDescription());
+    assertTrue(priceOnly.getTranslations().isEmpty());
+    assertEquals(0, new BigDecimal("9.99").compareTo(priceOnly.getPrice().getPrice()));
+    assertEquals(2, namesOnly.size());
+    assertEquals("Shoe", namesOnly.get(0).getName().getValue());
+    assertEquals("Boot", namesOnly.get(1).getName().getValue());
+    assertNull(namesOnly.get(0).getPrice());
+  }
+
+  @Test
+  void shouldDeleteProductWithItsTranslations() throws DatabaseOperationException {
+    //given
+    Product product = newProduct("Shoe", "9.99");
+    product.setTranslations(Translations.of(Collections.singletonMap("de", new Translation("Schuh", null))));
+    Product savedProduct = productDatabase.save(product).get();
+
+    //when
+    boolean deleted = productDatabase.deleteIfExists(savedProduct.getId());
+    boolean deletedAgain = productDatabase.deleteIfExists(savedProduct.getId());
+
+    //then
+    assertTrue(deleted);
+    assertFalse(deletedAgain);
+    assertFalse(productDatabase.findById(savedProduct.getId()).isPresent());
+    assertEquals(0, productTranslationRepository.count());
+  }
+
+  private static Product newProduct(String name, String price) {
+    return new Product(null, new Name(null, "en-US", name), new Description(null, "EN", name + " description"),
+        new Price(null, new BigDecimal(price), EURO));
+  }
+}
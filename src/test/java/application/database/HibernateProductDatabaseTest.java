@@ -1,19 +1,41 @@
 package application.database;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import application.generators.ProductGenerator;
+import application.model.LanguageCodes;
+import application.model.Price;
 import application.model.Product;
+import application.model.ProductField;
+import application.model.Translation;
+import application.model.Translations;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
 import org.junit.Assert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,6 +45,7 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
 
 @ExtendWith(MockitoExtension.class)
 class HibernateProductDatabaseTest {
@@ -30,11 +53,24 @@ class HibernateProductDatabaseTest {
   @Mock
   private HibernateProductRepository hibernateProductRepository;
 
+  @Mock
+  private ProductTranslationRepository productTranslationRepository;
+
+  @Mock
+  private ProductChangeCounterRepository productChangeCounterRepository;
+
+  @Mock
+  private LanguageDictionary languageDictionary;
+
+  @Mock
+  private EntityManager entityManager;
+
   private ProductDatabase productDatabase;
 
   @BeforeEach
   void setup() {
-    productDatabase = new HibernateProductDatabase(hibernateProductRepository);
+    productDatabase = new HibernateProductDatabase(hibernateProductRepository, productTranslationRepository, productChangeCounterRepository,
+        languageDictionary, entityManager);
   }
 
   @Test
@@ -113,6 +149,119 @@ class HibernateProductDatabaseTest {
     verify(hibernateProductRepository).findAll();
   }
 
+  @Test
+  void shouldVisitAllProductsDetachedFromPersistenceContext() throws DatabaseOperationException {
+    //given
+    List<Product> expectedProducts = new ArrayList<>();
+    expectedProducts.add(ProductGenerator.getRandomProduct());
+    expectedProducts.add(ProductGenerator.getRandomProduct());
+    when(hibernateProductRepository.streamAllByOrderById()).thenReturn(expectedProducts.stream());
+
+    //When
+    List<Product> actualProducts = new ArrayList<>();
+    productDatabase.forEach(actualProducts::add);
+
+    //Then
+    assertEquals(expectedProducts, actualProducts);
+    verify(hibernateProductRepository).streamAllByOrderById();
+    verify(entityManager).detach(expectedProducts.get(0));
+    verify(entityManager).detach(expectedProducts.get(1));
+  }
+
+  @Test
+  void forEachMethodShouldThrowExceptionWhenAnErrorOccurDuringExecution() {
+    //Given
+    NonTransientDataAccessException mockedException = Mockito.mock(NonTransientDataAccessException.class);
+    doThrow(mockedException).when(hibernateProductRepository).streamAllByOrderById();
+
+    //Then
+    assertThrows(DatabaseOperationException.class, () -> productDatabase.forEach(product -> {
+    }));
+  }
+
+  @Test
+  void shouldFindPageOfProducts() throws DatabaseOperationException {
+    //given
+    List<Product> expectedProducts = new ArrayList<>();
+    expectedProducts.add(ProductGenerator.getRandomProduct());
+    when(hibernateProductRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10))).thenReturn(expectedProducts);
+
+    //When
+    Optional<List<Product>> actualProducts = productDatabase.findAllAfter(null, 10);
+
+    //Then
+    assertTrue(actualProducts.isPresent());
+    assertEquals(expectedProducts, actualProducts.get());
+    verify(hibernateProductRepository).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10));
+  }
+
+  @Test
+  void findAllAfterMethodShouldThrowExceptionWhenLimitIsNotPositive() {
+    assertThrows(IllegalArgumentException.class, () -> productDatabase.findAllAfter(1L, 0));
+  }
+
+  @Test
+  void shouldFindProductsByPriceStartingAfterPreviousPage() throws DatabaseOperationException {
+    //given
+    List<Product> expectedProducts = Collections.singletonList(ProductGenerator.getRandomProduct());
+    Currency euro = Currency.getInstance("EUR");
+    PriceQuery query = new PriceQuery(new BigDecimal("5"), new BigDecimal("50"), euro, false).after(new BigDecimal("12.50"), 7L);
+    when(hibernateProductRepository.findByCurrencyAndPriceAscending(euro, new BigDecimal("12.50"), new BigDecimal("50"), 7L, PageRequest.of(0, 10)))
+        .thenReturn(expectedProducts);
+
+    //when
+    Optional<List<Product>> actualProducts = productDatabase.findByPrice(query, 10);
+
+    //then
+    assertEquals(Optional.of(expectedProducts), actualProducts);
+  }
+
+  @Test
+  void shouldSearchProductsWithTextSearchQuery() throws DatabaseOperationException {
+    //given
+    List<Product> expectedProducts = Collections.singletonList(ProductGenerator.getRandomProduct());
+    when(hibernateProductRepository.search("red & leather & sh:*", 0L, 10)).thenReturn(expectedProducts);
+
+    //when
+    Optional<List<Product>> actualProducts = productDatabase.search(new SearchQuery("Red, leather sh", null), null, 10);
+
+    //then
+    assertEquals(Optional.of(expectedProducts), actualProducts);
+  }
+
+  @Test
+  void shouldFindProductsByPriceInDescendingOrderFromHighestPrice() throws DatabaseOperationException {
+    //given
+    List<Product> expectedProducts = Collections.singletonList(ProductGenerator.getRandomProduct());
+    PriceQuery query = new PriceQuery(new BigDecimal("5"), null, null, true);
+    when(hibernateProductRepository.findByPriceDescending(BigDecimal.valueOf(Long.MAX_VALUE), new BigDecimal("5"), Long.MAX_VALUE, PageRequest.of(0, 10)))
+        .thenReturn(expectedProducts);
+
+    //when
+    Optional<List<Product>> actualProducts = productDatabase.findByPrice(query, 10);
+
+    //then
+    assertEquals(Optional.of(expectedProducts), actualProducts);
+  }
+
+  @Test
+  void shouldFindProductsByName() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    String name = product.getName().getValue();
+    List<Product> expectedProducts = new ArrayList<>();
+    expectedProducts.add(product);
+    when(hibernateProductRepository.findByNameValue(name)).thenReturn(expectedProducts);
+
+    //When
+    Optional<List<Product>> actualProducts = productDatabase.findByName(name);
+
+    //Then
+    assertTrue(actualProducts.isPresent());
+    assertEquals(expectedProducts, actualProducts.get());
+    verify(hibernateProductRepository).findByNameValue(name);
+  }
+
   @Test
   void shouldDeleteProduct() throws DatabaseOperationException {
     //given
@@ -126,6 +275,233 @@ class HibernateProductDatabaseTest {
     verify(hibernateProductRepository).deleteById(id);
   }
 
+  @Test
+  void shouldSaveAllProducts() throws DatabaseOperationException {
+    //given
+    List<Product> products = Arrays.asList(ProductGenerator.getRandomProduct(), ProductGenerator.getRandomProduct());
+    when(hibernateProductRepository.saveAll(products)).thenReturn(products);
+
+    //when
+    Optional<List<Product>> savedProducts = productDatabase.saveAll(products);
+
+    //then
+    assertTrue(savedProducts.isPresent());
+    assertEquals(products, savedProducts.get());
+    verify(hibernateProductRepository).saveAll(products);
+  }
+
+  @Test
+  void shouldFindExistingIds() throws DatabaseOperationException {
+    //given
+    List<Long> ids = Arrays.asList(1L, 2L);
+    when(hibernateProductRepository.findExistingIds(ids)).thenReturn(Collections.singletonList(2L));
+
+    //when
+    List<Long> existingIds = productDatabase.findExistingIds(ids);
+
+    //then
+    assertEquals(Collections.singletonList(2L), existingIds);
+    verify(hibernateProductRepository).findExistingIds(ids);
+  }
+
+  @Test
+  void shouldDeleteProductsById() throws DatabaseOperationException {
+    //given
+    List<Long> ids = Arrays.asList(1L, 2L);
+    List<Product> products = Arrays.asList(ProductGenerator.getRandomProduct(), ProductGenerator.getRandomProduct());
+    when(hibernateProductRepository.findAllById(ids)).thenReturn(products);
+
+    //when
+    productDatabase.deleteAllById(ids);
+
+    //then
+    verify(hibernateProductRepository).deleteAll(products);
+  }
+
+  @Test
+  void shouldInsertProductWhenItDoesNotExist() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(hibernateProductRepository.existsById(product.getId())).thenReturn(false);
+    when(hibernateProductRepository.save(product)).thenReturn(product);
+
+    //when
+    Optional<Product> insertedProduct = productDatabase.insertIfAbsent(product);
+
+    //then
+    assertEquals(Optional.of(product), insertedProduct);
+    verify(hibernateProductRepository).save(product);
+  }
+
+  @Test
+  void shouldNotInsertProductWhenItAlreadyExists() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(hibernateProductRepository.existsById(product.getId())).thenReturn(true);
+
+    //when
+    Optional<Product> insertedProduct = productDatabase.insertIfAbsent(product);
+
+    //then
+    assertFalse(insertedProduct.isPresent());
+    verify(hibernateProductRepository, never()).save(product);
+  }
+
+  @Test
+  void shouldUpdateProductInSingleStatement() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(hibernateProductRepository.updateIfExists(product)).thenReturn(1);
+
+    //when
+    Optional<Product> updatedProduct = productDatabase.updateIfExists(product);
+
+    //then
+    assertEquals(Optional.of(product), updatedProduct);
+  }
+
+  @Test
+  void shouldReplaceTranslationsOfUpdatedProduct() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    Map<String, Translation> translations = new HashMap<>();
+    translations.put("de", new Translation("Schuh", "Roter Schuh"));
+    translations.put("fr", new Translation("Chaussure", "Chaussure rouge"));
+    product.setTranslations(Translations.of(translations));
+    when(hibernateProductRepository.updateIfExists(product)).thenReturn(1);
+
+    //when
+    productDatabase.updateIfExists(product);
+
+    //then
+    verify(productTranslationRepository).deleteByProductIds(Collections.singletonList(product.getId()));
+    verify(entityManager, times(2)).persist(any(ProductTranslation.class));
+  }
+
+  @Test
+  void shouldRegisterRegionalTranslationLanguagesBeforeSavingThem() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    product.setTranslations(Translations.of(Collections.singletonMap("de-at", new Translation("Schuh", null))));
+    doAnswer(invocation -> {
+      LanguageCodes.register(LanguageCodes.MIN_DICTIONARY_CODE + 500, "de-at");
+      return null;
+    }).when(languageDictionary).register(Arrays.asList("EN", "EN", "de-at"));
+    when(hibernateProductRepository.updateIfExists(product)).thenReturn(1);
+
+    //when
+    productDatabase.updateIfExists(product);
+
+    //then
+    verify(languageDictionary).register(Arrays.asList("EN", "EN", "de-at"));
+    verify(entityManager).persist(any(ProductTranslation.class));
+  }
+
+  @Test
+  void shouldReadOnlyTranslationsPreferredToOwnLanguageOfLocalizedProduct() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    Long id = product.getId();
+    when(hibernateProductRepository.findById(id)).thenReturn(Optional.of(product));
+    when(productTranslationRepository.findByProductIdAndLanguageCodes(id, Collections.singletonList(ProductTranslation.code("de"))))
+        .thenReturn(Collections.singletonList(new ProductTranslation(id, "de", new Translation("Schuh", null))));
+
+    //when
+    Optional<Product> localizedProduct = productDatabase.findLocalizedById(id, Arrays.asList("de-ch", "de", "en", "fr"));
+
+    //then
+    assertTrue(localizedProduct.isPresent());
+    assertEquals("de", localizedProduct.get().getName().getLanguage());
+    assertEquals("Schuh", localizedProduct.get().getName().getValue());
+    assertEquals(product.getDescription(), localizedProduct.get().getDescription());
+    assertTrue(localizedProduct.get().getTranslations().isEmpty());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldSelectOnlyColumnsOfRequestedFields() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    TypedQuery<Tuple> query = Mockito.mock(TypedQuery.class);
+    Tuple row = Mockito.mock(Tuple.class);
+    when(entityManager.createQuery("select p.id as id, p.version as version, p.price as price from Product p where p.id > :after order by p.id", Tuple.class))
+        .thenReturn(query);
+    when(query.setParameter("after", 0L)).thenReturn(query);
+    when(query.setMaxResults(10)).thenReturn(query);
+    when(query.getResultList()).thenReturn(Collections.singletonList(row));
+    doReturn(product.getId()).when(row).get("id", Long.class);
+    doReturn(3L).when(row).get("version", Long.class);
+    doReturn(product.getPrice()).when(row).get("price", Price.class);
+
+    //when
+    Optional<List<Product>> products = productDatabase.findAllAfter(null, 10, EnumSet.of(ProductField.PRICE));
+
+    //then
+    assertTrue(products.isPresent());
+    assertEquals(1, products.get().size());
+    assertEquals(product.getId(), products.get().get(0).getId());
+    assertEquals(product.getPrice(), products.get().get(0).getPrice());
+    assertEquals(Long.valueOf(3), products.get().get(0).getVersion());
+    assertNull(products.get().get(0).getName());
+    verify(productTranslationRepository, never()).findByProductIds(any());
+  }
+
+  @Test
+  void shouldNotUpdateProductWhenNoRowWasChanged() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(hibernateProductRepository.updateIfExists(product)).thenReturn(0);
+
+    //when
+    Optional<Product> updatedProduct = productDatabase.updateIfExists(product);
+
+    //then
+    assertFalse(updatedProduct.isPresent());
+  }
+
+  @Test
+  void shouldUpdateProductOnlyAtVersionItHas() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    Product staleProduct = ProductGenerator.getRandomProduct();
+    when(hibernateProductRepository.updateIfVersionMatches(product, 3L)).thenReturn(1);
+    doReturn(0).when(hibernateProductRepository).updateIfVersionMatches(staleProduct, 2L);
+
+    //when
+    Optional<Product> updatedProduct = productDatabase.updateIfVersionMatches(product, 3L);
+    Optional<Product> staleUpdate = productDatabase.updateIfVersionMatches(staleProduct, 2L);
+
+    //then
+    assertEquals(Optional.of(product), updatedProduct);
+    assertEquals(Long.valueOf(4L), updatedProduct.get().getVersion());
+    assertFalse(staleUpdate.isPresent());
+    verify(productTranslationRepository, never()).deleteByProductIds(Collections.singletonList(staleProduct.getId()));
+  }
+
+  @Test
+  void shouldDeleteProductInSingleStatement() throws DatabaseOperationException {
+    //given
+    when(hibernateProductRepository.deleteIfExists(1L)).thenReturn(1);
+
+    //when
+    boolean deleted = productDatabase.deleteIfExists(1L);
+
+    //then
+    assertTrue(deleted);
+  }
+
+  @Test
+  void shouldReturnFalseWhenDeletedProductDoesNotExist() throws DatabaseOperationException {
+    //given
+    when(hibernateProductRepository.deleteIfExists(1L)).thenReturn(0);
+
+    //when
+    boolean deleted = productDatabase.deleteIfExists(1L);
+
+    //then
+    assertFalse(deleted);
+  }
+
   @Test
   void shouldDeleteAllProducts() throws DatabaseOperationException {
     //given
@@ -162,11 +538,28 @@ class HibernateProductDatabaseTest {
     assertThrows(IllegalArgumentException.class, () -> productDatabase.findById(null));
   }
 
+  @Test
+  void findByNameMethodShouldThrowExceptionWhenNameIsNull() {
+    assertThrows(IllegalArgumentException.class, () -> productDatabase.findByName(null));
+  }
+
   @Test
   void existByIdMethodShouldThrowExceptionWhenIdIsNull() {
     assertThrows(IllegalArgumentException.class, () -> productDatabase.existsById(null));
   }
 
+  @Test
+  void catalogVersionMethodShouldReturnSequenceOfLastChange() throws DatabaseOperationException {
+    //given
+    doReturn(Collections.singletonList(new Object[] {42L, 0L})).when(productChangeCounterRepository).findSequences();
+
+    //when
+    String catalogVersion = productDatabase.catalogVersion();
+
+    //then
+    assertEquals("42", catalogVersion);
+  }
+
   @Test
   void deleteByIdMethodShouldThrowExceptionWhenIdIsNull() {
     assertThrows(IllegalArgumentException.class, () -> productDatabase.existsById(null));
@@ -184,6 +577,18 @@ class HibernateProductDatabaseTest {
     verify(hibernateProductRepository).deleteById(id);
   }
 
+  @Test
+  void deleteProductByIdMethodShouldThrowExceptionWhenTranslationsCannotBeDeleted() {
+    //given
+    Long id = 1L;
+    NonTransientDataAccessException mockedException = Mockito.mock(NonTransientDataAccessException.class);
+    doThrow(mockedException).when(productTranslationRepository).deleteByProductIds(Collections.singletonList(id));
+
+    //then
+    assertThrows(DatabaseOperationException.class, () -> productDatabase.deleteById(id));
+    verify(hibernateProductRepository, never()).deleteById(id);
+  }
+
   @Test
   void findProductByIdMethodShouldThrowExceptionWhenAnErrorOccurDuringExecution() {
     //Given
@@ -219,6 +624,17 @@ class HibernateProductDatabaseTest {
     verify(hibernateProductRepository).findAll();
   }
 
+  @Test
+  void findByNameMethodShouldThrowExceptionWhenAnErrorOccurDuringExecution() {
+    //Given
+    NonTransientDataAccessException mockedException = Mockito.mock(NonTransientDataAccessException.class);
+    doThrow(mockedException).when(hibernateProductRepository).findByNameValue("name");
+
+    //Then
+    assertThrows(DatabaseOperationException.class, () -> productDatabase.findByName("name"));
+    verify(hibernateProductRepository).findByNameValue("name");
+  }
+
   @Test
   void deleteAllMethodShouldThrowExceptionWhenAnErrorOccurDuringExecution() {
     //Given
@@ -0,0 +1,103 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import application.generators.ProductGenerator;
+import application.model.Product;
+import application.model.ProductChange;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class InMemoryProductChangeLogTest {
+
+  @Test
+  void shouldReturnChangesAfterSequenceInOrder() {
+    //given
+    InMemoryProductChangeLog changeLog = new InMemoryProductChangeLog(8);
+    long since = changeLog.lastSequence();
+    Product product = ProductGenerator.getRandomProduct();
+
+    //when
+    List<ProductChange> appendedChanges = changeLog.append(Arrays.asList(ProductChange.saved(product), ProductChange.deleted(product.getId())));
+    Optional<List<ProductChange>> allChanges = changeLog.findAfter(since, 10);
+    Optional<List<ProductChange>> laterChanges = changeLog.findAfter(since + 1, 10);
+    Optional<List<ProductChange>> noChanges = changeLog.findAfter(since + 2, 10);
+
+    //then
+    assertEquals(Arrays.asList(ProductChange.saved(product).withSequence(since + 1), ProductChange.deleted(product.getId()).withSequence(since + 2)),
+        appendedChanges);
+    assertEquals(Optional.of(appendedChanges), allChanges);
+    assertEquals(Optional.of(appendedChanges.subList(1, 2)), laterChanges);
+    assertEquals(Optional.of(Collections.emptyList()), noChanges);
+    assertEquals(since + 2, changeLog.lastSequence());
+  }
+
+  @Test
+  void shouldReturnAtMostLimitChanges() {
+    //given
+    InMemoryProductChangeLog changeLog = new InMemoryProductChangeLog(8);
+    long since = changeLog.lastSequence();
+    changeLog.append(Arrays.asList(ProductChange.deleted(1L), ProductChange.deleted(2L), ProductChange.deleted(3L)));
+
+    //when
+    Optional<List<ProductChange>> changes = changeLog.findAfter(since, 2);
+
+    //then
+    assertEquals(Optional.of(Arrays.asList(ProductChange.deleted(1L).withSequence(since + 1), ProductChange.deleted(2L).withSequence(since + 2))),
+        changes);
+  }
+
+  @Test
+  void shouldNotReturnChangesWhichWereOverwritten() {
+    //given
+    InMemoryProductChangeLog changeLog = new InMemoryProductChangeLog(2);
+    long since = changeLog.lastSequence();
+    changeLog.append(Arrays.asList(ProductChange.deleted(1L), ProductChange.deleted(2L), ProductChange.deleted(3L)));
+
+    //when
+    Optional<List<ProductChange>> overwrittenChanges = changeLog.findAfter(since, 10);
+    Optional<List<ProductChange>> keptChanges = changeLog.findAfter(since + 1, 10);
+
+    //then
+    assertFalse(overwrittenChanges.isPresent());
+    assertEquals(Optional.of(Arrays.asList(ProductChange.deleted(2L).withSequence(since + 2), ProductChange.deleted(3L).withSequence(since + 3))),
+        keptChanges);
+  }
+
+  @Test
+  void shouldNotReturnChangesAfterSequencePastLastChange() {
+    //given
+    InMemoryProductChangeLog changeLog = new InMemoryProductChangeLog(8);
+
+    //when
+    Optional<List<ProductChange>> changes = changeLog.findAfter(changeLog.lastSequence() + 1, 10);
+
+    //then
+    assertFalse(changes.isPresent());
+    assertTrue(changeLog.findAfter(changeLog.lastSequence(), 10).isPresent());
+  }
+
+  @Test
+  void shouldKeepProductAsItWasSaved() {
+    //given
+    InMemoryProductChangeLog changeLog = new InMemoryProductChangeLog(8);
+    long since = changeLog.lastSequence();
+    Product product = ProductGenerator.getRandomProduct();
+    Product savedProduct = ProductGenerator.getRandomProduct();
+    savedProduct.setId(product.getId());
+    changeLog.append(Collections.singletonList(ProductChange.saved(savedProduct)));
+
+    //when
+    savedProduct.setName(product.getName());
+    Optional<List<ProductChange>> changes = changeLog.findAfter(since, 10);
+
+    //then
+    assertEquals(product.getId(), changes.get().get(0).getProductId());
+    assertFalse(product.getName().equals(changes.get().get(0).getProduct().getName()));
+  }
+}
@@ -2,15 +2,38 @@ package application.database;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import application.generators.ProductGenerator;
+import application.model.Description;
+import application.model.Name;
+import application.model.Price;
 import application.model.Product;
+import application.model.ProductField;
+import application.model.Translation;
+import application.model.Translations;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -122,6 +145,232 @@ class InMemoryProductsDatabaseTest {
     assertEquals(expectedProduct, productFromDatabase.get());
   }
 
+  @Test
+  void shouldFindProductsByName() throws DatabaseOperationException {
+    //given
+    Product product1 = ProductGenerator.getRandomProduct();
+    Product product2 = ProductGenerator.getRandomProduct();
+    product2.getName().setValue(product1.getName().getValue());
+    Product product3 = ProductGenerator.getRandomProduct();
+    product3.getName().setValue(product1.getName().getValue() + "x");
+    List<Product> expectedProducts = new ArrayList<>();
+    expectedProducts.add(productDatabase.save(product1).get());
+    expectedProducts.add(productDatabase.save(product2).get());
+    productDatabase.save(product3);
+
+    //when
+    Optional<List<Product>> foundProducts = productDatabase.findByName(product1.getName().getValue());
+
+    //then
+    assertTrue(foundProducts.isPresent());
+    assertEquals(expectedProducts, foundProducts.get());
+  }
+
+  @Test
+  void shouldNotFindProductsByNameAfterRenameOrDelete() throws DatabaseOperationException {
+    //given
+    Product renamedProduct = productDatabase.save(ProductGenerator.getRandomProduct()).get();
+    String oldName = renamedProduct.getName().getValue();
+    Product deletedProduct = ProductGenerator.getRandomProduct();
+    deletedProduct.getName().setValue(oldName);
+    deletedProduct = productDatabase.save(deletedProduct).get();
+
+    //when
+    Product update = ProductGenerator.getRandomProduct();
+    update.setId(renamedProduct.getId());
+    productDatabase.save(update);
+    productDatabase.deleteById(deletedProduct.getId());
+
+    //then
+    assertEquals(Optional.of(new ArrayList<Product>()), productDatabase.findByName(oldName));
+    assertEquals(Optional.of(Collections.singletonList(update)), productDatabase.findByName(update.getName().getValue()));
+  }
+
+  @Test
+  void shouldWalkThroughAllProductsPageByPage() throws DatabaseOperationException {
+    //given
+    List<Product> expectedProducts = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      Product product = ProductGenerator.getRandomProduct();
+      product.setId(null);
+      expectedProducts.add(productDatabase.save(product).get());
+    }
+    Product deletedProduct = expectedProducts.remove(7);
+    productDatabase.deleteById(deletedProduct.getId());
+
+    //when
+    List<Product> actualProducts = new ArrayList<>();
+    Long after = null;
+    List<Product> page;
+    do {
+      page = productDatabase.findAllAfter(after, 10).get();
+      actualProducts.addAll(page);
+      after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+    } while (page.size() == 10);
+
+    //then
+    assertEquals(expectedProducts, actualProducts);
+  }
+
+  @Test
+  void findAllAfterMethodShouldThrowExceptionForNonPositiveLimit() {
+    assertThrows(IllegalArgumentException.class, () -> productDatabase.findAllAfter(null, 0));
+  }
+
+  @Test
+  void shouldPageProductsInPriceRangeInPriceOrder() throws DatabaseOperationException {
+    //given
+    Currency euro = Currency.getInstance("EUR");
+    String[] amounts = {"0.99", "5", "5.00", "12.50", "99.99", "100", "-1.5"};
+    List<Product> savedProducts = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Product product = ProductGenerator.getRandomProduct();
+      product.setId(null);
+      String currency = i % 3 == 0 ? "USD" : "EUR";
+      product.setPrice(i % 10 == 0 ? null : new Price(null, new BigDecimal(amounts[i % amounts.length]), Currency.getInstance(currency)));
+      savedProducts.add(productDatabase.save(product).get());
+    }
+    Comparator<Product> priceOrder = Comparator.<Product, BigDecimal>comparing(product -> product.getPrice().getPrice()).thenComparing(Product::getId);
+    List<Product> expectedAscending = savedProducts.stream()
+        .filter(product -> product.getPrice() != null && product.getPrice().getCurrency() == euro)
+        .filter(product -> product.getPrice().getPrice().compareTo(new BigDecimal("5")) >= 0 && product.getPrice().getPrice().compareTo(new BigDecimal("99.99")) <= 0)
+        .sorted(priceOrder)
+        .collect(Collectors.toList());
+    List<Product> expectedDescending = savedProducts.stream()
+        .filter(product -> product.getPrice() != null && product.getPrice().getPrice().compareTo(new BigDecimal("12.5")) <= 0)
+        .sorted(priceOrder.reversed())
+        .collect(Collectors.toList());
+
+    //when
+    List<Product> actualAscending = findAllByPrice(new PriceQuery(new BigDecimal("5"), new BigDecimal("99.99"), euro, false));
+    List<Product> actualDescending = findAllByPrice(new PriceQuery(null, new BigDecimal("12.5"), null, true));
+
+    //then
+    assertFalse(expectedAscending.isEmpty());
+    assertEquals(expectedAscending, actualAscending);
+    assertEquals(expectedDescending, actualDescending);
+  }
+
+  @Test
+  void shouldFindProductByPriceItWasUpdatedTo() throws DatabaseOperationException {
+    //given
+    Currency euro = Currency.getInstance("EUR");
+    Product product = ProductGenerator.getRandomProduct();
+    product.setId(null);
+    product.setPrice(new Price(null, new BigDecimal("10.00"), euro));
+    Product savedProduct = productDatabase.save(product).get();
+    Product updatedProduct = new Product(savedProduct.getId(), savedProduct.getName(), savedProduct.getDescription(), new Price(null, new BigDecimal("20.00"), euro));
+
+    //when
+    productDatabase.updateIfExists(updatedProduct);
+
+    //then
+    assertEquals(Collections.emptyList(), productDatabase.findByPrice(new PriceQuery(null, new BigDecimal("15"), null, false), 10).get());
+    assertEquals(Collections.singletonList(updatedProduct), productDatabase.findByPrice(new PriceQuery(new BigDecimal("15"), null, euro, false), 10).get());
+    productDatabase.deleteById(savedProduct.getId());
+    assertEquals(Collections.emptyList(), productDatabase.findByPrice(new PriceQuery(null, null, null, false), 10).get());
+  }
+
+  @Test
+  void shouldSearchProductsByWordsOfNameAndDescription() throws DatabaseOperationException {
+    //given
+    Product shoe = productDatabase.save(new Product(null, new Name(null, "EN", "Red Shoe"), new Description(null, "EN", "Leather"), null)).get();
+    Product shirt = productDatabase.save(new Product(null, new Name(null, "EN", "Red shirt"), new Description(null, "EN", "Cotton"), null)).get();
+    Product boot = productDatabase.save(new Product(null, new Name(null, "EN", "Boot"), new Description(null, "EN", "Red leather"), null)).get();
+
+    //when
+    productDatabase.updateIfExists(new Product(shirt.getId(), new Name(null, "EN", "Blue shirt"), shirt.getDescription(), null));
+    productDatabase.deleteById(boot.getId());
+
+    //then
+    assertEquals(Collections.singletonList(shoe), productDatabase.search(new SearchQuery("red sh", null), null, 10).get());
+    assertEquals(Collections.singletonList(shoe), productDatabase.search(new SearchQuery("LEATHER ", null), null, 10).get());
+    assertEquals(Collections.emptyList(), productDatabase.search(new SearchQuery("red sh", null), shoe.getId(), 10).get());
+  }
+
+  private List<Product> findAllByPrice(PriceQuery query) throws DatabaseOperationException {
+    List<Product> products = new ArrayList<>();
+    List<Product> page;
+    PriceQuery pageQuery = query;
+    do {
+      page = productDatabase.findByPrice(pageQuery, 7).get();
+      products.addAll(page);
+      if (!page.isEmpty()) {
+        Product last = page.get(page.size() - 1);
+        pageQuery = query.after(last.getPrice().getPrice(), last.getId());
+      }
+    } while (page.size() == 7);
+    return products;
+  }
+
+  @Test
+  void shouldFindProductLocalizedToPreferredLanguage() throws DatabaseOperationException {
+    //given
+    Product product = new Product(null, new Name(null, "EN", "Shoe"), new Description(null, "EN", "Red shoe"), null);
+    Map<String, Translation> translations = new HashMap<>();
+    translations.put("de", new Translation("Schuh", "Roter Schuh"));
+    translations.put("fr", new Translation("Chaussure", "Chaussure rouge"));
+    product.setTranslations(Translations.of(translations));
+    Long id = productDatabase.save(product).get().getId();
+
+    //when
+    Optional<Product> germanProduct = productDatabase.findLocalizedById(id, Arrays.asList("de-ch", "de"));
+    Optional<Product> englishProduct = productDatabase.findLocalizedById(id, Arrays.asList("en", "fr"));
+
+    //then
+    assertEquals(Optional.of(new Product(id, new Name(null, "de", "Schuh"), new Description(null, "de", "Roter Schuh"), null)), germanProduct);
+    assertEquals(Optional.of(new Product(id, new Name(null, "EN", "Shoe"), new Description(null, "EN", "Red shoe"), null)), englishProduct);
+    assertEquals(product.getTranslations(), productDatabase.findById(id).get().getTranslations());
+    assertFalse(productDatabase.findLocalizedById(id + 1, Collections.singletonList("de")).isPresent());
+  }
+
+  @Test
+  void shouldFindOnlyRequestedFieldsOfProducts() throws DatabaseOperationException {
+    //given
+    Product product = new Product(null, new Name(null, "EN", "Shoe"), new Description(null, "EN", "Red shoe"),
+        new Price(null, new BigDecimal("9.99"), Currency.getInstance("EUR")));
+    product.setTranslations(Translations.of(Collections.singletonMap("de", new Translation("Schuh", "Roter Schuh"))));
+    Long id = productDatabase.save(product).get().getId();
+    Product secondProduct = ProductGenerator.getRandomProduct();
+    secondProduct.setId(null);
+    Long secondId = productDatabase.save(secondProduct).get().getId();
+
+    //when
+    Optional<Product> partialProduct = productDatabase.findById(id, EnumSet.of(ProductField.PRICE, ProductField.TRANSLATIONS));
+    List<Product> partialPage = productDatabase.findAllAfter(null, 10, EnumSet.of(ProductField.NAME)).get();
+
+    //then
+    assertTrue(partialProduct.isPresent());
+    assertEquals(id, partialProduct.get().getId());
+    assertNull(partialProduct.get().getName());
+    assertNull(partialProduct.get().getDescription());
+    assertEquals(new BigDecimal("9.99"), partialProduct.get().getPrice().getPrice());
+    assertEquals(product.getTranslations(), partialProduct.get().getTranslations());
+    assertEquals(Arrays.asList(id, secondId), partialPage.stream().map(Product::getId).collect(Collectors.toList()));
+    assertEquals("Shoe", partialPage.get(0).getName().getValue());
+    assertNull(partialPage.get(0).getPrice());
+    assertTrue(partialPage.get(0).getTranslations().isEmpty());
+    assertFalse(productDatabase.findById(secondId + 1, EnumSet.of(ProductField.NAME)).isPresent());
+  }
+
+  @Test
+  void shouldVisitAllProductsInIdOrder() throws DatabaseOperationException {
+    //given
+    List<Product> expectedProducts = new ArrayList<>();
+    for (int i = 0; i < 2500; i++) {
+      Product product = ProductGenerator.getRandomProduct();
+      product.setId(null);
+      expectedProducts.add(productDatabase.save(product).get());
+    }
+
+    //when
+    List<Product> actualProducts = new ArrayList<>();
+    productDatabase.forEach(actualProducts::add);
+
+    //then
+    assertEquals(expectedProducts, actualProducts);
+  }
+
   @Test
   void shouldDeleteProduct() throws DatabaseOperationException {
     //given
@@ -138,6 +387,67 @@ class InMemoryProductsDatabaseTest {
     assertFalse(isProductExists);
   }
 
+  @Test
+  void shouldSaveFindAndDeleteProductsInBatch() throws DatabaseOperationException {
+    //given
+    Optional<List<Product>> savedProducts = productDatabase.saveAll(Arrays.asList(ProductGenerator.getRandomProduct(), ProductGenerator.getRandomProduct()));
+    assertTrue(savedProducts.isPresent());
+    Long firstId = savedProducts.get().get(0).getId();
+    Long secondId = savedProducts.get().get(1).getId();
+    Long missingId = secondId + 1;
+
+    //when
+    List<Long> existingIds = productDatabase.findExistingIds(Arrays.asList(firstId, missingId, secondId));
+    productDatabase.deleteAllById(Arrays.asList(firstId, missingId));
+
+    //then
+    assertEquals(Arrays.asList(firstId, secondId), existingIds);
+    assertFalse(productDatabase.existsById(firstId));
+    assertTrue(productDatabase.existsById(secondId));
+    assertEquals(1, productDatabase.count());
+  }
+
+  @Test
+  void shouldInsertOnlyAbsentProducts() throws DatabaseOperationException {
+    //given
+    Product existingProduct = productDatabase.save(ProductGenerator.getRandomProduct()).orElseThrow(IllegalStateException::new);
+    Product conflictingProduct = ProductGenerator.getRandomProduct();
+    conflictingProduct.setId(existingProduct.getId());
+
+    //when
+    Optional<Product> conflict = productDatabase.insertIfAbsent(conflictingProduct);
+    Optional<Product> insertedProduct = productDatabase.insertIfAbsent(ProductGenerator.getRandomProduct());
+
+    //then
+    assertFalse(conflict.isPresent());
+    assertEquals(Optional.of(existingProduct), productDatabase.findById(existingProduct.getId()));
+    assertTrue(insertedProduct.isPresent());
+    assertEquals(insertedProduct, productDatabase.findById(insertedProduct.get().getId()));
+  }
+
+  @Test
+  void shouldUpdateAndDeleteOnlyExistingProducts() throws DatabaseOperationException {
+    //given
+    Product existingProduct = productDatabase.save(ProductGenerator.getRandomProduct()).orElseThrow(IllegalStateException::new);
+    Product updatedProduct = ProductGenerator.getRandomProduct();
+    updatedProduct.setId(existingProduct.getId());
+    Product missingProduct = ProductGenerator.getRandomProduct();
+    missingProduct.setId(existingProduct.getId() + 1);
+
+    //when
+    Optional<Product> update = productDatabase.updateIfExists(updatedProduct);
+    Optional<Product> missingUpdate = productDatabase.updateIfExists(missingProduct);
+    boolean deleted = productDatabase.deleteIfExists(existingProduct.getId());
+    boolean deletedAgain = productDatabase.deleteIfExists(existingProduct.getId());
+
+    //then
+    assertEquals(Optional.of(updatedProduct), update);
+    assertFalse(missingUpdate.isPresent());
+    assertTrue(deleted);
+    assertFalse(deletedAgain);
+    assertEquals(0, productDatabase.count());
+  }
+
   @Test
   void shouldDeleteAllProducts() throws DatabaseOperationException {
     //given
@@ -199,8 +509,77 @@ class InMemoryProductsDatabaseTest {
     assertThrows(IllegalArgumentException.class, () -> productDatabase.deleteById(null));
   }
 
+  @Test
+  void findByNameMethodShouldThrowExceptionForNullAsName() {
+    assertThrows(IllegalArgumentException.class, () -> productDatabase.findByName(null));
+  }
+
   @Test
   void existsMethodShouldThrowExceptionForNullAsId() {
     assertThrows(IllegalArgumentException.class, () -> productDatabase.existsById(null));
   }
+
+  @Test
+  void shouldAssignUniqueIdsWhenSavingConcurrently() throws Exception {
+    //given
+    int numberOfThreads = 8;
+    int productsPerThread = 500;
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+    List<Callable<List<Long>>> tasks = new ArrayList<>();
+    for (int i = 0; i < numberOfThreads; i++) {
+      tasks.add(() -> {
+        List<Long> ids = new ArrayList<>();
+        for (int j = 0; j < productsPerThread; j++) {
+          Product product = ProductGenerator.getRandomProduct();
+          product.setId(null);
+          ids.add(productDatabase.save(product).get().getId());
+        }
+        return ids;
+      });
+    }
+
+    //when
+    Set<Long> ids = new HashSet<>();
+    try {
+      for (Future<List<Long>> result : executor.invokeAll(tasks)) {
+        ids.addAll(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    //then
+    assertEquals(numberOfThreads * productsPerThread, ids.size());
+    assertEquals(numberOfThreads * productsPerThread, productDatabase.count());
+  }
+
+  @Test
+  void shouldUpdateProductOnlyAtVersionItHas() throws DatabaseOperationException {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    product.setId(null);
+    Long id = productDatabase.save(product).get().getId();
+    long version = productDatabase.findVersionById(id).get();
+    String catalogVersion = productDatabase.catalogVersion();
+    Product update = ProductGenerator.getRandomProduct();
+    update.setId(id);
+
+    //when
+    Optional<Product> updatedProduct = productDatabase.updateIfVersionMatches(update, version);
+    Optional<Product> staleUpdate = productDatabase.updateIfVersionMatches(update, version);
+
+    //then
+    assertEquals(Optional.of(update), updatedProduct);
+    assertEquals(Long.valueOf(version + 1), updatedProduct.get().getVersion());
+    assertFalse(staleUpdate.isPresent());
+    assertEquals(Optional.of(version + 1), productDatabase.findVersionById(id));
+    assertEquals(Long.valueOf(version + 1), productDatabase.findById(id).get().getVersion());
+    assertNotEquals(catalogVersion, productDatabase.catalogVersion());
+    assertFalse(productDatabase.findVersionById(id + 1).isPresent());
+  }
+
+  @Test
+  void deleteMethodShouldThrowExceptionWhenProductDoesNotExist() {
+    assertThrows(DatabaseOperationException.class, () -> productDatabase.deleteById(1L));
+  }
 }
@@ -0,0 +1,99 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import application.model.LanguageCodes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class LanguageDictionaryTest {
+
+  @Mock
+  private LanguageRecordRepository languageRecordRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private LanguageDictionary languageDictionary;
+
+  @BeforeEach
+  void setup() throws DatabaseOperationException {
+    languageDictionary = new LanguageDictionary(languageRecordRepository, transactionManager);
+  }
+
+  @Test
+  void registerMethodShouldGiveNewLanguageCodeBelowLowestTakenOne() throws DatabaseOperationException {
+    //given
+    int lowestCode = LanguageCodes.MIN_DICTIONARY_CODE + 201;
+    when(languageRecordRepository.findByLanguage("pt-BR")).thenReturn(Optional.empty());
+    when(languageRecordRepository.findLowestCode()).thenReturn((short) lowestCode);
+    when(languageRecordRepository.saveAndFlush(any(LanguageRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    //when
+    languageDictionary.register(Arrays.asList("pt-BR", "EN", null));
+
+    //then
+    assertEquals(lowestCode - 1, LanguageCodes.lookup("pt-BR"));
+    assertEquals("pt-BR", LanguageCodes.decode(lowestCode - 1));
+    verify(languageRecordRepository).saveAndFlush(any(LanguageRecord.class));
+    verify(languageRecordRepository, never()).findByLanguage("EN");
+  }
+
+  @Test
+  void registerMethodShouldUseCodeOfLanguageTakenByAnotherInstanceMeanwhile() throws DatabaseOperationException {
+    //given
+    int code = LanguageCodes.MIN_DICTIONARY_CODE + 300;
+    when(languageRecordRepository.findByLanguage("pt-PT"))
+        .thenReturn(Optional.empty(), Optional.of(new LanguageRecord((short) code, "pt-PT")));
+    when(languageRecordRepository.findLowestCode()).thenReturn((short) (code + 1));
+    when(languageRecordRepository.saveAndFlush(any(LanguageRecord.class))).thenThrow(DataIntegrityViolationException.class);
+
+    //when
+    languageDictionary.register(Collections.singletonList("pt-PT"));
+
+    //then
+    assertEquals(code, LanguageCodes.lookup("pt-PT"));
+    verify(languageRecordRepository, times(2)).findByLanguage("pt-PT");
+  }
+
+  @Test
+  void registerMethodShouldThrowExceptionWhenNoCodeIsLeft() {
+    //given
+    when(languageRecordRepository.findByLanguage("es-419")).thenReturn(Optional.empty());
+    when(languageRecordRepository.findLowestCode()).thenReturn((short) LanguageCodes.MIN_DICTIONARY_CODE);
+
+    //when
+    //then
+    assertThrows(DatabaseOperationException.class, () -> languageDictionary.register(Collections.singletonList("es-419")));
+    verify(languageRecordRepository, never()).saveAndFlush(any(LanguageRecord.class));
+  }
+
+  @Test
+  void decodeShouldReadLanguageRegisteredByAnotherInstance() {
+    //given
+    int code = LanguageCodes.MIN_DICTIONARY_CODE + 400;
+    when(languageRecordRepository.findById((short) code)).thenReturn(Optional.of(new LanguageRecord((short) code, "zh-Hant")));
+
+    //when
+    String language = LanguageCodes.decode(code);
+
+    //then
+    assertEquals("zh-Hant", language);
+    assertEquals(code, LanguageCodes.lookup("zh-Hant"));
+  }
+}
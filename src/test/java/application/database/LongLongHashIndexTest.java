@@ -0,0 +1,74 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LongLongHashIndexTest {
+
+  @Test
+  void shouldBehaveLikeMapForRandomOperations() {
+    //given
+    LongLongHashIndex index = new LongLongHashIndex(16);
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    //when
+    for (int i = 0; i < 200_000; i++) {
+      long key = random.nextInt(5_000) + 1;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.getOrDefault(key, LongLongHashIndex.NO_VALUE), (Long) index.remove(key));
+        expected.remove(key);
+      } else {
+        assertEquals(expected.getOrDefault(key, LongLongHashIndex.NO_VALUE), (Long) index.put(key, i));
+        expected.put(key, (long) i);
+      }
+    }
+
+    //then
+    assertEquals(expected.size(), index.size());
+    for (long key = 1; key <= 5_000; key++) {
+      assertEquals(expected.getOrDefault(key, LongLongHashIndex.NO_VALUE), (Long) index.get(key));
+    }
+  }
+
+  @Test
+  void shouldClearAllEntries() {
+    //given
+    LongLongHashIndex index = new LongLongHashIndex(16);
+    index.put(1L, 10L);
+    index.put(2L, 20L);
+
+    //when
+    index.clear();
+
+    //then
+    assertEquals(0, index.size());
+    assertFalse(index.containsKey(1L));
+  }
+
+  @Test
+  void shouldFindInsertedKey() {
+    //given
+    LongLongHashIndex index = new LongLongHashIndex(16);
+
+    //when
+    index.put(7L, 70L);
+
+    //then
+    assertTrue(index.containsKey(7L));
+    assertEquals(70L, index.get(7L));
+  }
+
+  @Test
+  void putMethodShouldThrowExceptionForNonPositiveKey() {
+    LongLongHashIndex index = new LongLongHashIndex(16);
+    assertThrows(IllegalArgumentException.class, () -> index.put(0L, 1L));
+  }
+}
@@ -0,0 +1,35 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PooledSequenceIdGeneratorTest {
+
+  @Test
+  void shouldPreferEntitySpecificSetting() {
+    //given
+    Map<String, Object> settings = new HashMap<>();
+    settings.put("application.id.increment_size", "100");
+    settings.put("application.id.product.increment_size", " 200 ");
+
+    //when
+    String productIncrementSize = PooledSequenceIdGenerator.setting(settings, "product", "increment_size", "50");
+    String priceIncrementSize = PooledSequenceIdGenerator.setting(settings, "price", "increment_size", "50");
+
+    //then
+    assertEquals("200", productIncrementSize);
+    assertEquals("100", priceIncrementSize);
+  }
+
+  @Test
+  void shouldFallBackToDefaultWhenNothingIsConfigured() {
+    //when
+    String optimizer = PooledSequenceIdGenerator.setting(new HashMap<>(), "product", "optimizer", PooledSequenceIdGenerator.DEFAULT_OPTIMIZER);
+
+    //then
+    assertEquals("pooled", optimizer);
+  }
+}
@@ -0,0 +1,99 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import application.generators.ProductGenerator;
+import application.model.Product;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ProductCacheTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  @Test
+  void shouldReturnCachedProductAndCountHitsAndMisses() {
+    //given
+    ProductCache cache = new ProductCache(100, 1, TimeUnit.MINUTES, nanoTime::get);
+    Product product = ProductGenerator.getRandomProduct();
+
+    //when
+    Optional<Product> missedProduct = cache.get(1L);
+    cache.put(1L, product, cache.stamp(1L));
+    Optional<Product> cachedProduct = cache.get(1L);
+
+    //then
+    assertFalse(missedProduct.isPresent());
+    assertEquals(Optional.of(product), cachedProduct);
+    assertEquals(new CacheStatistics(1, 1, 0, 1), cache.statistics());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedProductWhenFull() {
+    //given
+    ProductCache cache = new ProductCache(16, 1, TimeUnit.MINUTES, nanoTime::get);
+    for (long id = 1; id <= 1000; id++) {
+      cache.put(id, ProductGenerator.getRandomProduct(), cache.stamp(id));
+    }
+
+    //when
+    CacheStatistics statistics = cache.statistics();
+
+    //then
+    assertTrue(statistics.getSize() <= 16);
+    assertEquals(1000 - statistics.getSize(), statistics.getEvictions());
+    assertTrue(cache.get(1000L).isPresent());
+  }
+
+  @Test
+  void shouldExpireProductsAfterWrite() {
+    //given
+    ProductCache cache = new ProductCache(100, 10, TimeUnit.SECONDS, nanoTime::get);
+    cache.put(1L, ProductGenerator.getRandomProduct(), cache.stamp(1L));
+
+    //when
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+    //then
+    assertFalse(cache.get(1L).isPresent());
+    assertEquals(1, cache.statistics().getEvictions());
+  }
+
+  @Test
+  void shouldNotCacheProductLoadedBeforeInvalidation() {
+    //given
+    ProductCache cache = new ProductCache(100, 1, TimeUnit.MINUTES, nanoTime::get);
+    long stamp = cache.stamp(1L);
+
+    //when
+    cache.invalidate(1L);
+    cache.put(1L, ProductGenerator.getRandomProduct(), stamp);
+
+    //then
+    assertFalse(cache.get(1L).isPresent());
+  }
+
+  @Test
+  void shouldInvalidateAllProducts() {
+    //given
+    ProductCache cache = new ProductCache(100, 1, TimeUnit.MINUTES, nanoTime::get);
+    cache.put(1L, ProductGenerator.getRandomProduct(), cache.stamp(1L));
+    cache.put(2L, ProductGenerator.getRandomProduct(), cache.stamp(2L));
+
+    //when
+    cache.invalidateAll();
+
+    //then
+    assertEquals(0, cache.statistics().getSize());
+  }
+
+  @Test
+  void constructorShouldThrowExceptionForNonPositiveMaximumSize() {
+    assertThrows(IllegalArgumentException.class, () -> new ProductCache(0, 1, TimeUnit.MINUTES));
+  }
+}
@@ -0,0 +1,192 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import application.generators.ProductGenerator;
+import application.model.Product;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductJournalTest {
+
+  private static final int SEGMENT_SIZE = 1 << 16;
+
+  private Path directory;
+  private ProductJournal journal;
+
+  @BeforeEach
+  void setup() throws IOException {
+    directory = Files.createTempDirectory("product-journal");
+  }
+
+  @AfterEach
+  void cleanup() throws IOException {
+    journal.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Test
+  void shouldRecoverSavedAndDeletedProductsAfterRestart() throws DatabaseOperationException, IOException {
+    //given
+    InMemoryProductsDatabase database = open(ProductJournal.FsyncPolicy.SYNC);
+    Product kept = database.save(randomProduct()).get();
+    Product deleted = database.save(randomProduct()).get();
+    Product updated = database.save(randomProduct()).get();
+    database.deleteById(deleted.getId());
+    Product update = randomProduct();
+    update.setId(updated.getId());
+    database.updateIfExists(update);
+    crash();
+
+    //when
+    InMemoryProductsDatabase recovered = open(ProductJournal.FsyncPolicy.SYNC);
+
+    //then
+    assertEquals(2, recovered.count());
+    assertEquals(Optional.of(kept), recovered.findById(kept.getId()));
+    assertEquals(Optional.of(update), recovered.findById(updated.getId()));
+    assertFalse(recovered.existsById(deleted.getId()));
+    assertEquals(updated.getId() + 1, recovered.save(randomProduct()).get().getId().longValue());
+    recovered.close();
+  }
+
+  @Test
+  void shouldRecoverFromSnapshotAndLogTail() throws DatabaseOperationException, IOException {
+    //given
+    InMemoryProductsDatabase database = open(ProductJournal.FsyncPolicy.GROUP);
+    List<Product> beforeSnapshot = database.saveAll(randomProducts(500)).get();
+    database.snapshot();
+    List<Product> afterSnapshot = database.saveAll(randomProducts(10)).get();
+    database.deleteById(beforeSnapshot.get(0).getId());
+    crash();
+
+    //when
+    InMemoryProductsDatabase recovered = open(ProductJournal.FsyncPolicy.GROUP);
+
+    //then
+    assertEquals(1, files("snapshot-").size());
+    assertEquals(509, recovered.count());
+    assertFalse(recovered.existsById(beforeSnapshot.get(0).getId()));
+    assertEquals(Optional.of(beforeSnapshot.get(1)), recovered.findById(beforeSnapshot.get(1).getId()));
+    assertEquals(Optional.of(afterSnapshot.get(9)), recovered.findById(afterSnapshot.get(9).getId()));
+    recovered.close();
+  }
+
+  @Test
+  void shouldDeleteSegmentsCoveredBySnapshot() throws DatabaseOperationException, IOException {
+    //given
+    InMemoryProductsDatabase database = open(ProductJournal.FsyncPolicy.ASYNC);
+    database.saveAll(randomProducts(2000));
+    int segmentsBeforeSnapshot = files("journal-").size();
+
+    //when
+    database.close();
+
+    //then
+    assertEquals(1, files("journal-").size());
+    assertEquals(true, segmentsBeforeSnapshot > 1);
+    InMemoryProductsDatabase recovered = open(ProductJournal.FsyncPolicy.ASYNC);
+    assertEquals(2000, recovered.count());
+    recovered.close();
+  }
+
+  @Test
+  void shouldIgnoreTornRecordAtEndOfLog() throws DatabaseOperationException, IOException {
+    //given
+    InMemoryProductsDatabase database = open(ProductJournal.FsyncPolicy.SYNC);
+    Product first = database.save(randomProduct()).get();
+    Product second = database.save(randomProduct()).get();
+    crash();
+    Path segment = files("journal-").get(0);
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      long end = firstFreeOffset(file);
+      file.seek(end - 1);
+      int lastByte = file.read();
+      file.seek(end - 1);
+      file.write(lastByte ^ 0xFF);
+    }
+
+    //when
+    InMemoryProductsDatabase recovered = open(ProductJournal.FsyncPolicy.SYNC);
+
+    //then
+    assertEquals(1, recovered.count());
+    assertEquals(Optional.of(first), recovered.findById(first.getId()));
+    assertEquals(second.getId(), recovered.save(randomProduct()).get().getId());
+    recovered.close();
+  }
+
+  @Test
+  void shouldRejectWritesAfterClose() throws DatabaseOperationException {
+    //given
+    InMemoryProductsDatabase database = open(ProductJournal.FsyncPolicy.GROUP);
+    database.close();
+
+    //when
+    //then
+    assertThrows(IllegalStateException.class, () -> database.save(randomProduct()));
+  }
+
+  private InMemoryProductsDatabase open(ProductJournal.FsyncPolicy fsyncPolicy) throws DatabaseOperationException {
+    journal = new ProductJournal(directory, fsyncPolicy, SEGMENT_SIZE, 1, 0, TimeUnit.MILLISECONDS);
+    return new InMemoryProductsDatabase(journal);
+  }
+
+  /**
+   * Stops the journal without the snapshot written on a clean shutdown, leaving only the log.
+   */
+  private void crash() throws IOException {
+    journal.close();
+  }
+
+  private List<Path> files(String prefix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().startsWith(prefix)).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static long firstFreeOffset(RandomAccessFile file) throws IOException {
+    long offset = 0;
+    while (offset + Integer.BYTES <= file.length()) {
+      file.seek(offset);
+      int length = file.readInt();
+      if (length == 0) {
+        return offset;
+      }
+      offset += 2 * Integer.BYTES + length;
+    }
+    return offset;
+  }
+
+  private static Product randomProduct() {
+    Product product = ProductGenerator.getRandomProduct();
+    product.setId(null);
+    return product;
+  }
+
+  private static List<Product> randomProducts(int count) {
+    List<Product> products = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      products.add(randomProduct());
+    }
+    return products;
+  }
+}
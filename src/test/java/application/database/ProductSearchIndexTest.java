@@ -0,0 +1,108 @@
+package application.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import application.model.Description;
+import application.model.Product;
+import application.model.Name;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductSearchIndexTest {
+
+  private ProductSearchIndex index;
+
+  @BeforeEach
+  void setup() {
+    index = new ProductSearchIndex();
+    add(1, "Red Shoe", "Leather shoe, size 42");
+    add(2, "Red shirt", "Cotton T-shirt");
+    add(3, "Blue shoe", "Running shoe");
+    add(4, "Shoehorn", "Red plastic");
+  }
+
+  @Test
+  void shouldSplitQueryIntoWordsAndPrefix() {
+    //given
+    //when
+    SearchQuery typedQuery = new SearchQuery("  Red, SH", null);
+    SearchQuery completeQuery = new SearchQuery("red shoe ", null);
+    SearchQuery turkishQuery = new SearchQuery("İSTANBUL DIŞ", "tr");
+
+    //then
+    assertEquals(Collections.singletonList("red"), typedQuery.getWords());
+    assertEquals("sh", typedQuery.getPrefix());
+    assertEquals(Arrays.asList("red", "shoe"), completeQuery.getWords());
+    assertNull(completeQuery.getPrefix());
+    assertEquals(Collections.singletonList("istanbul"), turkishQuery.getWords());
+    assertEquals("dış", turkishQuery.getPrefix());
+    assertThrows(IllegalArgumentException.class, () -> new SearchQuery(" -, ", null));
+  }
+
+  @Test
+  void shouldFindProductsContainingAllWordsAndPrefix() {
+    //given
+    //when
+    //then
+    assertEquals(Arrays.asList(1L, 3L), index.search(new SearchQuery("shoe ", null), null, 10));
+    assertEquals(Arrays.asList(1L, 2L, 4L), index.search(new SearchQuery("red sh", null), null, 10));
+    assertEquals(Arrays.asList(1L, 3L, 4L), index.search(new SearchQuery("sho", null), null, 10));
+    assertEquals(Collections.singletonList(4L), index.search(new SearchQuery("red shoeh", null), null, 10));
+    assertEquals(Collections.singletonList(2L), index.search(new SearchQuery("t shirt", null), null, 10));
+    assertEquals(Collections.singletonList(1L), index.search(new SearchQuery("42 LEATHER ", "EN"), null, 10));
+    assertEquals(Collections.emptyList(), index.search(new SearchQuery("red x", null), null, 10));
+    assertEquals(Collections.emptyList(), index.search(new SearchQuery("green sh", null), null, 10));
+  }
+
+  @Test
+  void shouldPageMatchingProductsInIdOrder() {
+    //given
+    List<Long> expectedIds = new ArrayList<>();
+    for (long id = 10; id < 500; id++) {
+      add(id, id % 2 == 0 ? "Shoe " + id : "Shelf " + id, id % 3 == 0 ? "red" : "green");
+      if (id % 3 == 0) {
+        expectedIds.add(id);
+      }
+    }
+    expectedIds.add(0, 4L);
+    expectedIds.add(0, 2L);
+    expectedIds.add(0, 1L);
+
+    //when
+    List<Long> actualIds = new ArrayList<>();
+    List<Long> page;
+    Long after = null;
+    do {
+      page = index.search(new SearchQuery("red sh", null), after, 7);
+      actualIds.addAll(page);
+      after = page.isEmpty() ? after : page.get(page.size() - 1);
+    } while (page.size() == 7);
+
+    //then
+    assertEquals(expectedIds, actualIds);
+  }
+
+  @Test
+  void shouldNotFindRemovedOrReplacedWords() {
+    //given
+    index.remove(1);
+    index.remove(4);
+    add(4, "Boot", "Red leather");
+
+    //when
+    //then
+    assertEquals(Arrays.asList(2L, 4L), index.search(new SearchQuery("red ", null), null, 10));
+    assertEquals(Collections.singletonList(3L), index.search(new SearchQuery("shoe", null), null, 10));
+    assertEquals(Collections.emptyList(), index.search(new SearchQuery("shoeh", null), null, 10));
+  }
+
+  private void add(long id, String name, String description) {
+    index.add(id, new Product(id, new Name(null, "EN", name), new Description(null, "EN", description), null));
+  }
+}
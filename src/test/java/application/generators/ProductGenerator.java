@@ -14,4 +14,13 @@ public class ProductGenerator {
     Price price = PriceGenerator.getRandomPrice();
     return new Product(id, name, description, price);
   }
+
+  public static Product getRandomNewProduct() {
+    Product product = getRandomProduct();
+    product.setId(null);
+    product.getName().setId(null);
+    product.getDescription().setId(null);
+    product.getPrice().setId(null);
+    return product;
+  }
 }
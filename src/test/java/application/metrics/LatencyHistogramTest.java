@@ -0,0 +1,57 @@
+package application.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void shouldReturnQuantilesWithinBucketPrecision() {
+    //given
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long nanos = 1; nanos <= 100_000; nanos++) {
+      histogram.record(nanos * 10);
+    }
+
+    //when
+    long[] quantiles = histogram.quantiles(0.5, 0.99, 0.999);
+
+    //then
+    assertTrue(Math.abs(quantiles[0] - 500_000) <= 500_000 / 16);
+    assertTrue(Math.abs(quantiles[1] - 990_000) <= 990_000 / 16);
+    assertTrue(Math.abs(quantiles[2] - 999_000) <= 999_000 / 16);
+  }
+
+  @Test
+  void shouldReturnZerosWhenNothingWasRecorded() {
+    //given
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    //when
+    long[] quantiles = histogram.quantiles(0.5, 0.99);
+
+    //then
+    assertArrayEquals(new long[] {0, 0}, quantiles);
+  }
+
+  @Test
+  void shouldKeepSmallValuesExactAndClampOutOfRangeValues() {
+    //given
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    //when
+    int negativeBucket = LatencyHistogram.bucketOf(-5);
+    int smallBucket = LatencyHistogram.bucketOf(15);
+    int hugeBucket = LatencyHistogram.bucketOf(Long.MAX_VALUE);
+    histogram.record(Long.MAX_VALUE);
+
+    //then
+    assertEquals(0, negativeBucket);
+    assertEquals(15, LatencyHistogram.valueOf(smallBucket));
+    assertEquals(hugeBucket, LatencyHistogram.bucketOf(1L << 41));
+    assertTrue(histogram.quantiles(1.0)[0] > 1L << 40);
+  }
+}
@@ -0,0 +1,84 @@
+package application.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import application.database.DatabaseOperationException;
+import application.database.ProductDatabase;
+import application.generators.ProductGenerator;
+import application.model.Product;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+class OperationMetricsInterceptorTest {
+
+  private final OperationMetrics metrics = new OperationMetrics("in-memory");
+  private final ProductDatabase database = mock(ProductDatabase.class);
+
+  @Test
+  void shouldRecordOkAndNotFoundOutcomesOfLookups() throws Exception {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(database.findById(1L)).thenReturn(Optional.of(product));
+    when(database.deleteIfExists(2L)).thenReturn(false);
+    ProductDatabase instrumentedDatabase = instrument(database);
+
+    //when
+    instrumentedDatabase.findById(1L);
+    instrumentedDatabase.deleteIfExists(2L);
+
+    //then
+    String output = prometheus();
+    assertTrue(output.contains("product_operation_seconds_count{layer=\"database\",operation=\"findById\",backend=\"in-memory\",outcome=\"ok\"} 1\n"));
+    assertTrue(output.contains("product_operation_seconds_count{layer=\"database\",operation=\"deleteIfExists\",backend=\"in-memory\",outcome=\"not-found\"} 1\n"));
+    assertTrue(output.contains("product_operation_seconds{layer=\"database\",operation=\"findById\",backend=\"in-memory\",outcome=\"ok\",quantile=\"0.999\"} "));
+  }
+
+  @Test
+  void shouldRecordConflictWhenProductWasNotInserted() throws Exception {
+    //given
+    Product product = ProductGenerator.getRandomProduct();
+    when(database.insertIfAbsent(product)).thenReturn(Optional.empty());
+    ProductDatabase instrumentedDatabase = instrument(database);
+
+    //when
+    instrumentedDatabase.insertIfAbsent(product);
+
+    //then
+    assertTrue(prometheus().contains("product_operation_seconds_count{layer=\"database\",operation=\"insertIfAbsent\",backend=\"in-memory\",outcome=\"conflict\"} 1\n"));
+  }
+
+  @Test
+  void shouldRecordErrorAndRethrowWhenOperationThrows() throws Exception {
+    //given
+    when(database.count()).thenThrow(new DatabaseOperationException("Database is down"));
+    ProductDatabase instrumentedDatabase = instrument(database);
+
+    //when
+    assertThrows(DatabaseOperationException.class, instrumentedDatabase::count);
+
+    //then
+    assertTrue(prometheus().contains("product_operation_seconds_count{layer=\"database\",operation=\"count\",backend=\"in-memory\",outcome=\"error\"} 1\n"));
+  }
+
+  @Test
+  void shouldThrowExceptionForNullMetrics() {
+    assertThrows(IllegalArgumentException.class, () -> new OperationMetricsInterceptor(null, "database"));
+  }
+
+  private ProductDatabase instrument(ProductDatabase target) {
+    ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(ProductDatabase.class);
+    proxyFactory.addAdvice(new OperationMetricsInterceptor(metrics, "database"));
+    return (ProductDatabase) proxyFactory.getProxy();
+  }
+
+  private String prometheus() {
+    StringBuilder output = new StringBuilder();
+    metrics.writePrometheus(output);
+    return output.toString();
+  }
+}
@@ -0,0 +1,87 @@
+package application.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class LanguageCodesTest {
+
+  private final LanguageCodeConverter converter = new LanguageCodeConverter();
+
+  @Test
+  void shouldDecodeEveryIsoLanguageInBothCasesToDistinctCodes() {
+    //given
+    Set<Integer> codes = new HashSet<>();
+
+    //when
+    //then
+    for (String language : Locale.getISOLanguages()) {
+      for (String value : new String[]{language, language.toUpperCase(), language + "x"}) {
+        int code = LanguageCodes.encode(value);
+        assertEquals(value, LanguageCodes.decode(code));
+        assertEquals(value, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(value)));
+        assertEquals(true, codes.add(code));
+      }
+    }
+  }
+
+  @Test
+  void shouldShareInstancesOfEqualLanguages() {
+    //given
+    String first = new String("EN");
+    String second = new String("EN");
+
+    //when
+    //then
+    assertSame(LanguageCodes.canonical(first), LanguageCodes.canonical(second));
+    assertSame(LanguageCodes.canonical(first), new Name(1L, second, "name").getLanguage());
+    assertSame(LanguageCodes.canonical(new String("English")), LanguageCodes.canonical(new String("English")));
+  }
+
+  @Test
+  void shouldNotEncodeLanguagesOtherThanOneToThreeLettersOfSameCase() {
+    //when
+    //then
+    assertEquals(LanguageCodes.NOT_ENCODABLE, LanguageCodes.encode(""));
+    assertEquals(LanguageCodes.NOT_ENCODABLE, LanguageCodes.encode("En"));
+    assertEquals(LanguageCodes.NOT_ENCODABLE, LanguageCodes.encode("en-GB"));
+    assertThrows(IllegalArgumentException.class, () -> converter.convertToDatabaseColumn("English"));
+    assertThrows(IllegalArgumentException.class, () -> LanguageCodes.decode(0));
+    assertThrows(IllegalArgumentException.class, () -> LanguageCodes.decode(LanguageCodes.encode("A") + 1));
+  }
+
+  @Test
+  void shouldLookUpRegisteredLanguagesWhichCannotBeEncoded() {
+    //given
+    int code = LanguageCodes.MIN_DICTIONARY_CODE + 100;
+    LanguageCodes.register(code, new String("en-NZ"));
+
+    //when
+    //then
+    assertEquals(code, LanguageCodes.lookup("en-NZ"));
+    assertEquals(LanguageCodes.encode("en"), LanguageCodes.lookup("en"));
+    assertSame(LanguageCodes.canonical("en-NZ"), LanguageCodes.decode(code));
+    assertEquals("en-NZ", converter.convertToEntityAttribute(converter.convertToDatabaseColumn("en-NZ")));
+    assertThrows(IllegalArgumentException.class, () -> LanguageCodes.register(LanguageCodes.MIN_DICTIONARY_CODE - 1, "en-AU"));
+    assertThrows(IllegalArgumentException.class, () -> LanguageCodes.register(code + 1, "en"));
+  }
+
+  @Test
+  void shouldDecodeEveryCurrencyCodeToSameCurrency() {
+    //given
+    CurrencyCodeConverter currencyConverter = new CurrencyCodeConverter();
+
+    //when
+    //then
+    for (Currency currency : Currency.getAvailableCurrencies()) {
+      assertSame(currency, CurrencyCodes.decode(CurrencyCodes.encode(currency)));
+      assertSame(currency, currencyConverter.convertToEntityAttribute(currencyConverter.convertToDatabaseColumn(currency)));
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package application.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import application.configuration.ApplicationConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.EnumSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PartialProductTest {
+
+  @Test
+  void shouldParseCommaSeparatedFieldsIgnoringCase() {
+    //when
+    Set<ProductField> fields = ProductField.parse("id, Name,PRICE");
+
+    //then
+    assertEquals(EnumSet.of(ProductField.ID, ProductField.NAME, ProductField.PRICE), fields);
+    assertThrows(IllegalArgumentException.class, () -> ProductField.parse("id,color"));
+    assertThrows(IllegalArgumentException.class, () -> ProductField.parse(" "));
+  }
+
+  @Test
+  void shouldWriteOnlyRequestedFields() throws IOException {
+    //given
+    ObjectMapper mapper = ApplicationConfiguration.getObjectMapper();
+    Product product = new Product(1L, new Name(2L, "EN", "Shoe"), null,
+        new Price(3L, new BigDecimal("9.99"), Currency.getInstance("EUR")));
+
+    //when
+    Product partialProduct = PartialProduct.of(product, EnumSet.of(ProductField.NAME, ProductField.DESCRIPTION));
+
+    //then
+    assertEquals(mapper.readTree("{\"name\":{\"id\":2,\"language\":\"EN\",\"value\":\"Shoe\"}}"),
+        mapper.readTree(mapper.writeValueAsString(partialProduct)));
+    assertSame(product, PartialProduct.of(product, ProductField.ALL));
+  }
+}
@@ -0,0 +1,80 @@
+package application.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import application.configuration.ApplicationConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class PriceTest {
+
+  private static final Currency EUR = Currency.getInstance("EUR");
+
+  @Test
+  void shouldKeepAmountAsMinorUnitsAndScale() {
+    //given
+    Price price = new Price(1L, new BigDecimal("1234.56"), EUR);
+
+    //when
+    //then
+    assertEquals(123456L, price.getAmount());
+    assertEquals(2, price.getScale());
+    assertEquals(new BigDecimal("1234.56"), price.getPrice());
+    assertEquals(price, new Price(1L, 123456L, 2, EUR));
+    assertEquals(price.hashCode(), new Price(1L, 123456L, 2, EUR).hashCode());
+    assertNotEquals(price, new Price(1L, new BigDecimal("1234.560"), EUR));
+    assertNull(new Price(1L, null, EUR).getPrice());
+  }
+
+  @Test
+  void shouldCompareAmountsOfDifferentScales() {
+    //given
+    List<String> amounts = Arrays.asList("10.5", "-3", "10.499", "1E+20", "0.000000000000000000001", "10.50");
+
+    //when
+    List<String> sorted = amounts.stream()
+        .map(amount -> new Price(null, new BigDecimal(amount), EUR))
+        .sorted()
+        .map(price -> price.getPrice().toString())
+        .collect(Collectors.toList());
+
+    //then
+    assertEquals(Arrays.asList("-3", "1E-21", "10.499", "10.5", "10.50", "1E+20"), sorted);
+    assertEquals(0, new Price(null, new BigDecimal("10.5"), EUR).compareTo(new Price(null, new BigDecimal("10.50"), null)));
+    assertTrue(new Price(null, null, EUR).compareTo(new Price(null, new BigDecimal("-1"), EUR)) < 0);
+  }
+
+  @Test
+  void shouldRejectAmountThatDoesNotFitLong() {
+    //given
+    Price price = new Price();
+
+    //when
+    //then
+    assertThrows(IllegalArgumentException.class, () -> price.setPrice(new BigDecimal("123456789012345678901234567890.00")));
+  }
+
+  @Test
+  void shouldSerializeAmountAsDecimalOnly() throws IOException {
+    //given
+    ObjectMapper mapper = ApplicationConfiguration.getObjectMapper();
+    Price price = new Price(1L, new BigDecimal("99.90"), EUR);
+
+    //when
+    String json = mapper.writeValueAsString(price);
+
+    //then
+    assertEquals("{\"id\":1,\"price\":99.90,\"currency\":\"EUR\"}", json);
+    assertEquals(price, mapper.readValue(json, Price.class));
+  }
+}
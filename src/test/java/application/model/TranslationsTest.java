@@ -0,0 +1,75 @@
+package application.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import application.configuration.ApplicationConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TranslationsTest {
+
+  @Test
+  void shouldKeepTranslationsByLowerCaseLanguageInOrder() {
+    //given
+    Map<String, Translation> translationMap = new HashMap<>();
+    translationMap.put("FR", new Translation("Chaussure", "Chaussure rouge"));
+    translationMap.put("de", new Translation("Schuh", null));
+
+    //when
+    Translations translations = Translations.of(translationMap);
+
+    //then
+    assertEquals(Arrays.asList("de", "fr"), translations.getLanguages());
+    assertEquals(new Translation("Chaussure", "Chaussure rouge"), translations.get("fr"));
+    assertNull(translations.get("FR"));
+    translationMap.put("DE", new Translation("Stiefel", null));
+    assertThrows(IllegalArgumentException.class, () -> Translations.of(translationMap));
+  }
+
+  @Test
+  void shouldLocalizeToFirstLanguageProductHas() {
+    //given
+    Product product = new Product(1L, new Name(2L, "EN", "Shoe"), new Description(3L, "EN", "Red shoe"), null);
+    Map<String, Translation> translationMap = new HashMap<>();
+    translationMap.put("de", new Translation("Schuh", "Roter Schuh"));
+    translationMap.put("fr", new Translation("Chaussure", null));
+    product.setTranslations(Translations.of(translationMap));
+
+    //when
+    Product german = product.localized(Arrays.asList("it", "de", "en"));
+    Product french = product.localized(Collections.singletonList("fr"));
+    Product english = product.localized(Arrays.asList("en", "de"));
+    Product italian = product.localized(Collections.singletonList("it"));
+
+    //then
+    assertEquals(new Product(1L, new Name(2L, "de", "Schuh"), new Description(3L, "de", "Roter Schuh"), null), german);
+    assertEquals(new Product(1L, new Name(2L, "fr", "Chaussure"), new Description(3L, "EN", "Red shoe"), null), french);
+    assertEquals(new Product(1L, new Name(2L, "EN", "Shoe"), new Description(3L, "EN", "Red shoe"), null), english);
+    assertEquals(english, italian);
+  }
+
+  @Test
+  void shouldWriteTranslationsOnlyWhenProductHasAny() throws IOException {
+    //given
+    ObjectMapper mapper = ApplicationConfiguration.getObjectMapper();
+    Product product = new Product(1L, new Name(2L, "EN", "Shoe"), null, null);
+    String json = "{\"id\":1,\"name\":{\"id\":2,\"language\":\"EN\",\"value\":\"Shoe\"},\"description\":null,\"price\":null,"
+        + "\"translations\":{\"de\":{\"name\":\"Schuh\",\"description\":\"Roter Schuh\"}}}";
+
+    //when
+    Product readProduct = mapper.readValue(json, Product.class);
+
+    //then
+    assertEquals(new Translation("Schuh", "Roter Schuh"), readProduct.getTranslations().get("de"));
+    assertEquals(mapper.readTree(json), mapper.readTree(mapper.writeValueAsString(readProduct)));
+    assertFalse(mapper.writeValueAsString(product).contains("translations"));
+  }
+}
@@ -0,0 +1,84 @@
+package application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+import application.generators.ProductGenerator;
+import application.model.Product;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncProductServiceTest {
+
+  private final BoundedExecutor executor = new BoundedExecutor(1, 1, BoundedExecutor.RejectionPolicy.ABORT, "test-");
+
+  @Mock
+  private ProductService productService;
+
+  @AfterEach
+  void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldCompleteWithResultOfService() throws Exception {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    when(productService.getProduct(product.getId())).thenReturn(Optional.of(product));
+    AsyncProductService asyncProductService = new AsyncProductService(productService, executor);
+
+    //When
+    Optional<Product> actualProduct = asyncProductService.getProduct(product.getId()).get(1, TimeUnit.SECONDS);
+
+    //Then
+    assertEquals(Optional.of(product), actualProduct);
+  }
+
+  @Test
+  void shouldCompleteExceptionallyWhenServiceThrows() throws Exception {
+    //Given
+    doThrow(ServiceOperationException.class).when(productService).deleteProduct(1L);
+    AsyncProductService asyncProductService = new AsyncProductService(productService, executor);
+
+    //When
+    CompletableFuture<ProductOperationResult> result = asyncProductService.deleteProduct(1L);
+
+    //Then
+    ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+    assertTrue(exception.getCause() instanceof ServiceOperationException);
+  }
+
+  @Test
+  void shouldRejectOperationsWhenQueueIsFull() throws Exception {
+    //Given
+    CountDownLatch release = new CountDownLatch(1);
+    when(productService.productExistsById(1L)).thenAnswer(invocation -> release.await(1, TimeUnit.SECONDS));
+    AsyncProductService asyncProductService = new AsyncProductService(productService, executor);
+    CompletableFuture<Boolean> running = asyncProductService.productExistsById(1L);
+    CompletableFuture<Boolean> queued = asyncProductService.productExistsById(1L);
+
+    //When
+    CompletableFuture<Boolean> rejected = asyncProductService.productExistsById(1L);
+    release.countDown();
+
+    //Then
+    ExecutionException exception = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+    assertTrue(exception.getCause() instanceof RejectedExecutionException);
+    assertEquals(1, executor.getRejectedTaskCount());
+    assertTrue(running.get(1, TimeUnit.SECONDS));
+    assertTrue(queued.get(1, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,120 @@
+package application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import application.database.DatabaseOperationException;
+import application.database.InMemoryProductChangeLog;
+import application.database.ProductChangeLog;
+import application.model.ProductChange;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ProductChangeFeedTest {
+
+  private final InMemoryProductChangeLog changeLog = new InMemoryProductChangeLog(8);
+  private final ProductChangeFeed changeFeed = new ProductChangeFeed(changeLog, Runnable::run, Runnable::run);
+
+  @Mock
+  private ProductChangeLog failingChangeLog;
+
+  @AfterEach
+  void closeFeed() {
+    changeFeed.close();
+  }
+
+  @Test
+  void shouldCompleteWaitingReadWhenChangeIsPublished() throws Exception {
+    //Given
+    long since = changeLog.lastSequence();
+    CompletableFuture<Optional<List<ProductChange>>> changes = changeFeed.getChangesAfter(since, 10, 1, TimeUnit.MINUTES);
+
+    //When
+    List<ProductChange> publishedChanges = changeFeed.append(Collections.singletonList(ProductChange.deleted(1L)));
+    changeFeed.appended(publishedChanges);
+
+    //Then
+    assertEquals(Optional.of(publishedChanges), changes.get(1, TimeUnit.SECONDS));
+    assertEquals(since + 1, publishedChanges.get(0).getSequence());
+  }
+
+  @Test
+  void shouldReadLogOnceForAllWaitingReadsWhenChangeIsAppended() throws Exception {
+    //Given
+    InMemoryProductChangeLog spiedChangeLog = spy(new InMemoryProductChangeLog(8));
+    ProductChangeFeed spiedChangeFeed = new ProductChangeFeed(spiedChangeLog, Runnable::run, Runnable::run);
+    long since = spiedChangeLog.lastSequence();
+    CompletableFuture<Optional<List<ProductChange>>> firstChanges = spiedChangeFeed.getChangesAfter(since, 10, 1, TimeUnit.MINUTES);
+    CompletableFuture<Optional<List<ProductChange>>> secondChanges = spiedChangeFeed.getChangesAfter(since, 10, 1, TimeUnit.MINUTES);
+
+    //When
+    List<ProductChange> publishedChanges = spiedChangeFeed.append(Collections.singletonList(ProductChange.deleted(1L)));
+    spiedChangeFeed.appended(publishedChanges);
+
+    //Then
+    assertEquals(Optional.of(publishedChanges), firstChanges.get(1, TimeUnit.SECONDS));
+    assertEquals(Optional.of(publishedChanges), secondChanges.get(1, TimeUnit.SECONDS));
+    verify(spiedChangeLog, times(3)).findAfter(since, 10);
+    spiedChangeFeed.close();
+  }
+
+  @Test
+  void shouldCompleteWithoutChangesWhenTimeoutPasses() throws Exception {
+    //When
+    CompletableFuture<Optional<List<ProductChange>>> changes = changeFeed.getChangesAfter(changeLog.lastSequence(), 10, 10, TimeUnit.MILLISECONDS);
+
+    //Then
+    assertEquals(Optional.of(Collections.emptyList()), changes.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldCompleteEmptyWhenChangesAreNoLongerKept() throws Exception {
+    //When
+    CompletableFuture<Optional<List<ProductChange>>> changes = changeFeed.getChangesAfter(changeLog.lastSequence() + 1, 10, 1, TimeUnit.MINUTES);
+
+    //Then
+    assertFalse(changes.get(1, TimeUnit.SECONDS).isPresent());
+  }
+
+  @Test
+  void shouldThrowServiceOperationExceptionWhenChangesCannotBeAppended() throws DatabaseOperationException {
+    //Given
+    List<ProductChange> changes = Collections.singletonList(ProductChange.deleted(1L));
+    when(failingChangeLog.append(changes)).thenThrow(DatabaseOperationException.class);
+    ProductChangeFeed failingChangeFeed = new ProductChangeFeed(failingChangeLog, Runnable::run, Runnable::run);
+
+    //Then
+    assertThrows(ServiceOperationException.class, () -> failingChangeFeed.append(changes));
+    failingChangeFeed.close();
+  }
+
+  @Test
+  void shouldCompleteExceptionallyWhenChangesCannotBeRead() throws DatabaseOperationException {
+    //Given
+    when(failingChangeLog.findAfter(0, 10)).thenThrow(DatabaseOperationException.class);
+    ProductChangeFeed failingChangeFeed = new ProductChangeFeed(failingChangeLog, Runnable::run, Runnable::run);
+
+    //When
+    CompletableFuture<Optional<List<ProductChange>>> changes = failingChangeFeed.getChangesAfter(0, 10, 0, TimeUnit.SECONDS);
+
+    //Then
+    ExecutionException exception = assertThrows(ExecutionException.class, changes::get);
+    assertEquals(ServiceOperationException.class, exception.getCause().getClass());
+    failingChangeFeed.close();
+  }
+}
@@ -3,22 +3,35 @@ package application.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import application.database.DatabaseOperationException;
+import application.database.PriceQuery;
+import application.database.SearchQuery;
 import application.database.ProductDatabase;
 import application.generators.ProductGenerator;
 import application.model.Product;
+import application.model.ProductChange;
+import application.model.ProductField;
+import application.service.ProductOperationResult.Outcome;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -28,9 +41,17 @@ class ProductServiceTest {
   @Mock
   private ProductDatabase productDatabase;
 
-  @InjectMocks
+  @Mock
+  private ProductChangeFeed changeFeed;
+
   private ProductService productService;
 
+  @BeforeEach
+  void setup() throws ServiceOperationException {
+    lenient().when(changeFeed.append(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    productService = new ProductService(productDatabase, changeFeed, new ProductWriteTransactions());
+  }
+
   @Test
   void shouldFindAllProducts() throws DatabaseOperationException, ServiceOperationException {
     //Given
@@ -65,52 +86,308 @@ class ProductServiceTest {
     verify(productDatabase).findById(id);
   }
 
+  @Test
+  void shouldFindLocalizedProduct() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    List<String> languages = Arrays.asList("de-ch", "de");
+    when(productDatabase.findLocalizedById(product.getId(), languages)).thenReturn(Optional.of(product));
+
+    //When
+    Optional<Product> actualProduct = productService.getLocalizedProduct(product.getId(), languages);
+
+    //Then
+    assertEquals(Optional.of(product), actualProduct);
+    verify(productDatabase).findLocalizedById(product.getId(), languages);
+  }
+
+  @Test
+  void shouldExportProducts() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Consumer<Product> action = product -> {
+    };
+
+    //When
+    productService.exportProducts(action);
+
+    //Then
+    verify(productDatabase).forEach(action);
+  }
+
+  @Test
+  void exportProductsMethodShouldThrowProductServiceOperationExceptionWhenAnErrorOccurDuringExecutionReadingProductsFromDatabase() throws DatabaseOperationException {
+    //Given
+    Consumer<Product> action = product -> {
+    };
+    doThrow(DatabaseOperationException.class).when(productDatabase).forEach(action);
+
+    //Then
+    assertThrows(ServiceOperationException.class, () -> productService.exportProducts(action));
+  }
+
+  @Test
+  void shouldFindPageOfProducts() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Optional<List<Product>> expectedProducts = Optional.of(Collections.singletonList(ProductGenerator.getRandomProduct()));
+    when(productDatabase.findAllAfter(10L, 20)).thenReturn(expectedProducts);
+
+    //When
+    Optional<List<Product>> actualProducts = productService.getProductsPage(10L, 20);
+
+    //Then
+    assertEquals(expectedProducts, actualProducts);
+    verify(productDatabase).findAllAfter(10L, 20);
+  }
+
+  @Test
+  void shouldFindPageOfProductsWithRequestedFields() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Set<ProductField> fields = EnumSet.of(ProductField.ID, ProductField.NAME);
+    Optional<List<Product>> expectedProducts = Optional.of(Collections.singletonList(ProductGenerator.getRandomProduct()));
+    when(productDatabase.findAllAfter(10L, 20, fields)).thenReturn(expectedProducts);
+
+    //When
+    Optional<List<Product>> actualProducts = productService.getProductsPage(10L, 20, fields);
+
+    //Then
+    assertEquals(expectedProducts, actualProducts);
+    verify(productDatabase).findAllAfter(10L, 20, fields);
+  }
+
+  @Test
+  void shouldFindAllProductsWithRequestedFieldsPageByPage() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Set<ProductField> fields = EnumSet.of(ProductField.ID, ProductField.PRICE);
+    List<Product> firstPage = new ArrayList<>();
+    for (long id = 1; id <= 1000; id++) {
+      firstPage.add(new Product(id, null, null, null));
+    }
+    List<Product> secondPage = Collections.singletonList(new Product(1001L, null, null, null));
+    doReturn(Optional.of(firstPage)).when(productDatabase).findAllAfter(null, 1000, fields);
+    doReturn(Optional.of(secondPage)).when(productDatabase).findAllAfter(1000L, 1000, fields);
+
+    //When
+    Optional<List<Product>> actualProducts = productService.getAllProducts(fields);
+
+    //Then
+    assertEquals(1001, actualProducts.get().size());
+    assertEquals(secondPage.get(0), actualProducts.get().get(1000));
+    verify(productDatabase, never()).findAll();
+  }
+
+  @Test
+  void findPageOfProductsMethodShouldThrowIllegalArgumentExceptionForNonPositiveLimit() {
+    assertThrows(IllegalArgumentException.class, () -> productService.getProductsPage(null, 0));
+  }
+
+  @Test
+  void shouldFindProductsByPrice() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    PriceQuery query = new PriceQuery(BigDecimal.ONE, BigDecimal.TEN, null, false);
+    Optional<List<Product>> expectedProducts = Optional.of(Collections.singletonList(ProductGenerator.getRandomProduct()));
+    when(productDatabase.findByPrice(query, 20)).thenReturn(expectedProducts);
+
+    //When
+    Optional<List<Product>> actualProducts = productService.getProductsByPrice(query, 20);
+
+    //Then
+    assertEquals(expectedProducts, actualProducts);
+    verify(productDatabase).findByPrice(query, 20);
+  }
+
+  @Test
+  void shouldSearchProducts() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    SearchQuery query = new SearchQuery("red sh", null);
+    Optional<List<Product>> expectedProducts = Optional.of(Collections.singletonList(ProductGenerator.getRandomProduct()));
+    when(productDatabase.search(query, 5L, 20)).thenReturn(expectedProducts);
+
+    //When
+    Optional<List<Product>> actualProducts = productService.searchProducts(query, 5L, 20);
+
+    //Then
+    assertEquals(expectedProducts, actualProducts);
+    verify(productDatabase).search(query, 5L, 20);
+  }
+
+  @Test
+  void shouldFindProductsByName() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    String name = product.getName().getValue();
+    Optional<List<Product>> expectedProducts = Optional.of(Collections.singletonList(product));
+    when(productDatabase.findByName(name)).thenReturn(expectedProducts);
+
+    //When
+    Optional<List<Product>> actualProducts = productService.getProductsByName(name);
+
+    //Then
+    assertEquals(expectedProducts, actualProducts);
+    verify(productDatabase).findByName(name);
+  }
+
   @Test
   void shouldCreateProduct() throws DatabaseOperationException, ServiceOperationException {
     //Given
     Product productToCreate = ProductGenerator.getRandomProduct();
     Product expectedProduct = ProductGenerator.getRandomProduct();
-    when(productDatabase.save(productToCreate)).thenReturn(Optional.of(expectedProduct));
-    when(productDatabase.existsById(productToCreate.getId())).thenReturn(false);
+    when(productDatabase.insertIfAbsent(productToCreate)).thenReturn(Optional.of(expectedProduct));
 
     //When
-    Optional<Product> actualProduct = productService.createProduct(productToCreate);
+    ProductOperationResult actualResult = productService.createProduct(productToCreate);
 
     //Then
-    assertTrue(actualProduct.isPresent());
-    assertEquals(expectedProduct, actualProduct.get());
-    verify(productDatabase).save(productToCreate);
-    verify(productDatabase).existsById(productToCreate.getId());
+    assertEquals(new ProductOperationResult(expectedProduct.getId(), Outcome.CREATED, expectedProduct), actualResult);
+    verify(productDatabase).insertIfAbsent(productToCreate);
+    verify(productDatabase, never()).existsById(productToCreate.getId());
+    verify(changeFeed).append(Collections.singletonList(ProductChange.saved(expectedProduct)));
   }
 
   @Test
   void shouldUpdateProduct() throws DatabaseOperationException, ServiceOperationException {
     //Given
     Product product = ProductGenerator.getRandomProduct();
-    when(productDatabase.save(product)).thenReturn(Optional.of(product));
+    when(productDatabase.updateIfExists(product)).thenReturn(Optional.of(product));
+
+    //When
+    ProductOperationResult actualResult = productService.updateProduct(product);
+
+    //Then
+    assertEquals(new ProductOperationResult(product.getId(), Outcome.UPDATED, product), actualResult);
+    verify(productDatabase).updateIfExists(product);
+    verify(productDatabase, never()).existsById(product.getId());
+  }
+
+  @Test
+  void shouldReportVersionMismatchWhenProductWasUpdatedSinceVersion() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    Product missingProduct = ProductGenerator.getRandomProduct();
+    when(productDatabase.updateIfVersionMatches(product, 5L)).thenReturn(Optional.empty());
     when(productDatabase.existsById(product.getId())).thenReturn(true);
+    doReturn(Optional.empty()).when(productDatabase).updateIfVersionMatches(missingProduct, 5L);
+    doReturn(false).when(productDatabase).existsById(missingProduct.getId());
 
     //When
-    productService.updateProduct(product);
+    ProductOperationResult staleResult = productService.updateProduct(product, 5L);
+    ProductOperationResult missingResult = productService.updateProduct(missingProduct, 5L);
 
     //Then
-    verify(productDatabase).save(product);
-    verify(productDatabase).existsById(product.getId());
+    assertEquals(new ProductOperationResult(product.getId(), Outcome.VERSION_MISMATCH, null), staleResult);
+    assertEquals(new ProductOperationResult(missingProduct.getId(), Outcome.NOT_FOUND, null), missingResult);
+    verify(changeFeed, never()).append(any());
   }
 
   @Test
   void shouldDeleteProduct() throws DatabaseOperationException, ServiceOperationException {
     //Given
     Long id = 3448L;
-    when(productDatabase.existsById(id)).thenReturn(true);
-    doNothing().when(productDatabase).deleteById(id);
+    when(productDatabase.deleteIfExists(id)).thenReturn(true);
 
     //When
-    productService.deleteProduct(id);
+    ProductOperationResult actualResult = productService.deleteProduct(id);
 
     //Then
-    verify(productDatabase).existsById(id);
-    verify(productDatabase).deleteById(id);
+    assertEquals(new ProductOperationResult(id, Outcome.DELETED, null), actualResult);
+    verify(productDatabase).deleteIfExists(id);
+    verify(productDatabase, never()).existsById(id);
+    verify(changeFeed).append(Collections.singletonList(ProductChange.deleted(id)));
+  }
+
+  @Test
+  void shouldCreateProductsAndReportConflictsForExistingOnes() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Product existingProduct = ProductGenerator.getRandomProduct();
+    Product newProduct = ProductGenerator.getRandomProduct();
+    Product createdProduct = ProductGenerator.getRandomProduct();
+    when(productDatabase.findExistingIds(Arrays.asList(existingProduct.getId(), newProduct.getId())))
+        .thenReturn(Collections.singletonList(existingProduct.getId()));
+    when(productDatabase.saveAll(Collections.singletonList(newProduct))).thenReturn(Optional.of(Collections.singletonList(createdProduct)));
+
+    //When
+    List<ProductOperationResult> actualResults = productService.createProducts(Arrays.asList(existingProduct, newProduct));
+
+    //Then
+    assertEquals(Arrays.asList(
+        new ProductOperationResult(existingProduct.getId(), Outcome.CONFLICT, null),
+        new ProductOperationResult(createdProduct.getId(), Outcome.CREATED, createdProduct)), actualResults);
+    verify(productDatabase).saveAll(Collections.singletonList(newProduct));
+    verify(changeFeed).append(Collections.singletonList(ProductChange.saved(createdProduct)));
+  }
+
+  @Test
+  void shouldUpdateProductsAndReportMissingOnes() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Product existingProduct = ProductGenerator.getRandomProduct();
+    Product missingProduct = ProductGenerator.getRandomProduct();
+    when(productDatabase.findExistingIds(Arrays.asList(existingProduct.getId(), missingProduct.getId())))
+        .thenReturn(Collections.singletonList(existingProduct.getId()));
+    when(productDatabase.saveAll(Collections.singletonList(existingProduct))).thenReturn(Optional.of(Collections.singletonList(existingProduct)));
+
+    //When
+    List<ProductOperationResult> actualResults = productService.updateProducts(Arrays.asList(existingProduct, missingProduct));
+
+    //Then
+    assertEquals(Arrays.asList(
+        new ProductOperationResult(existingProduct.getId(), Outcome.UPDATED, existingProduct),
+        new ProductOperationResult(missingProduct.getId(), Outcome.NOT_FOUND, null)), actualResults);
+    verify(productDatabase).saveAll(Collections.singletonList(existingProduct));
+  }
+
+  @Test
+  void shouldDeleteProductsAndReportMissingOnes() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    List<Long> ids = Arrays.asList(1L, 2L);
+    when(productDatabase.findExistingIds(ids)).thenReturn(Collections.singletonList(1L));
+
+    //When
+    List<ProductOperationResult> actualResults = productService.deleteProducts(ids);
+
+    //Then
+    assertEquals(Arrays.asList(
+        new ProductOperationResult(1L, Outcome.DELETED, null),
+        new ProductOperationResult(2L, Outcome.NOT_FOUND, null)), actualResults);
+    verify(productDatabase).deleteAllById(Collections.singletonList(1L));
+  }
+
+  @Test
+  void createProductsMethodShouldThrowIllegalArgumentExceptionForNullAsProducts() {
+    assertThrows(IllegalArgumentException.class, () -> productService.createProducts(null));
+  }
+
+  @Test
+  void shouldPublishEachDeletedProductOnce() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    List<Long> ids = Arrays.asList(2L, 1L, 2L, 3L);
+    when(productDatabase.findExistingIds(ids)).thenReturn(Arrays.asList(1L, 2L));
+
+    //When
+    productService.deleteProducts(ids);
+
+    //Then
+    verify(changeFeed).append(Arrays.asList(ProductChange.deleted(2L), ProductChange.deleted(1L)));
+  }
+
+  @Test
+  void shouldNotPublishChangesWhenDatabaseWriteFails() throws DatabaseOperationException, ServiceOperationException {
+    //Given
+    Product product = ProductGenerator.getRandomProduct();
+    when(productDatabase.updateIfExists(product)).thenThrow(DatabaseOperationException.class);
+
+    //Then
+    assertThrows(ServiceOperationException.class, () -> productService.updateProduct(product));
+    verify(changeFeed, never()).append(any());
+  }
+
+  @Test
+  void deleteProductsMethodShouldThrowProductServiceOperationExceptionWhenAnErrorOccurDuringExecutionDeletingProductsFromDatabase() throws DatabaseOperationException {
+    //Given
+    List<Long> ids = Collections.singletonList(1L);
+    when(productDatabase.findExistingIds(ids)).thenReturn(ids);
+    doThrow(DatabaseOperationException.class).when(productDatabase).deleteAllById(ids);
+
+    //Then
+    assertThrows(ServiceOperationException.class, () -> productService.deleteProducts(ids));
   }
 
   @Test
@@ -144,6 +421,11 @@ class ProductServiceTest {
     assertThrows(IllegalArgumentException.class, () -> productService.getProduct(null));
   }
 
+  @Test
+  void findProductsByNameMethodShouldThrowIllegalArgumentExceptionForNullAsName() {
+    assertThrows(IllegalArgumentException.class, () -> productService.getProductsByName(null));
+  }
+
   @Test
   void createProductMethodShouldThrowIllegalArgumentExceptionForNullAsProduct() {
     assertThrows(IllegalArgumentException.class, () -> productService.createProduct(null));
@@ -183,13 +465,25 @@ class ProductServiceTest {
   }
 
   @Test
-  void createProductMethodShouldThrowProductServiceOperationExceptionWhenProductAlreadyExistsInDatabase() throws DatabaseOperationException {
+  void findProductsByNameMethodShouldThrowProductServiceOperationExceptionWhenAnErrorOccurDuringExecutionFindingProductsInDatabase() throws DatabaseOperationException {
+    //Given
+    doThrow(DatabaseOperationException.class).when(productDatabase).findByName("name");
+
+    //Then
+    assertThrows(ServiceOperationException.class, () -> productService.getProductsByName("name"));
+  }
+
+  @Test
+  void createProductMethodShouldReturnConflictWhenProductAlreadyExistsInDatabase() throws DatabaseOperationException, ServiceOperationException {
     //Given
     Product product= ProductGenerator.getRandomProduct();
-    when(productDatabase.existsById(product.getId())).thenReturn(true);
+    when(productDatabase.insertIfAbsent(product)).thenReturn(Optional.empty());
+
+    //When
+    ProductOperationResult actualResult = productService.createProduct(product);
 
     //Then
-    assertThrows(ServiceOperationException.class, () -> productService.createProduct(product));
+    assertEquals(new ProductOperationResult(product.getId(), Outcome.CONFLICT, null), actualResult);
     verify(productDatabase, never()).save(product);
   }
 
@@ -197,41 +491,45 @@ class ProductServiceTest {
   void updateProductMethodShouldThrowProductServiceOperationExceptionWhenAnErrorOccurDuringExecutionFindingProductsInDatabase() throws DatabaseOperationException {
     //Given
     Product product = ProductGenerator.getRandomProduct();
-    when(productDatabase.existsById(product.getId())).thenReturn(true);
-    doThrow(DatabaseOperationException.class).when(productDatabase).save(product);
+    doThrow(DatabaseOperationException.class).when(productDatabase).updateIfExists(product);
 
     //Then
     assertThrows(ServiceOperationException.class, () -> productService.updateProduct(product));
   }
 
   @Test
-  void updateProductMethodShouldThrowProductServiceOperationExceptionWhenProductDoesNotExist() throws DatabaseOperationException {
+  void updateProductMethodShouldReturnNotFoundWhenProductDoesNotExist() throws DatabaseOperationException, ServiceOperationException {
     //Given
     Product product = ProductGenerator.getRandomProduct();
-    when(productDatabase.existsById(product.getId())).thenReturn(false);
+    when(productDatabase.updateIfExists(product)).thenReturn(Optional.empty());
+
+    //When
+    ProductOperationResult actualResult = productService.updateProduct(product);
 
     //Then
-    assertThrows(ServiceOperationException.class, () -> productService.updateProduct(product));
+    assertEquals(new ProductOperationResult(product.getId(), Outcome.NOT_FOUND, null), actualResult);
   }
 
   @Test
   void deleteProducMethodShouldThrowProductServiceOperationExceptionWhenWhenAnErrorOccurDuringExecutionFindingProductsFromDatabase() throws DatabaseOperationException {
     //Given
-    when(productDatabase.existsById(1L)).thenReturn(true);
-    doThrow(DatabaseOperationException.class).when(productDatabase).deleteById(1L);
+    doThrow(DatabaseOperationException.class).when(productDatabase).deleteIfExists(1L);
 
     //Then
     assertThrows(ServiceOperationException.class, () -> productService.deleteProduct(1L));
   }
 
   @Test
-  void deleteProductMethodShouldThrowProductServiceOperationExceptionWhenProductDosesNotExist() throws DatabaseOperationException {
+  void deleteProductMethodShouldReturnNotFoundWhenProductDosesNotExist() throws DatabaseOperationException, ServiceOperationException {
     //Given
     Product product = ProductGenerator.getRandomProduct();
-    when(productDatabase.existsById(product.getId())).thenReturn(false);
+    when(productDatabase.deleteIfExists(product.getId())).thenReturn(false);
+
+    //When
+    ProductOperationResult actualResult = productService.deleteProduct(product.getId());
 
     //Then
-    assertThrows(ServiceOperationException.class, () -> productService.deleteProduct(product.getId()));
+    assertEquals(new ProductOperationResult(product.getId(), Outcome.NOT_FOUND, null), actualResult);
   }
 
   @Test
@@ -0,0 +1,70 @@
+package application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import application.database.DatabaseOperationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+
+@ExtendWith(MockitoExtension.class)
+class ProductWriteTransactionsTest {
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private TransactionStatus transaction;
+
+  @Test
+  void shouldCommitWriteWhichSucceeded() throws Exception {
+    //Given
+    when(transactionManager.getTransaction(any())).thenReturn(transaction);
+    ProductWriteTransactions transactions = new ProductWriteTransactions(transactionManager);
+
+    //When
+    String result = transactions.execute(() -> "written");
+
+    //Then
+    assertEquals("written", result);
+    verify(transactionManager).commit(transaction);
+    verify(transactionManager, never()).rollback(transaction);
+  }
+
+  @Test
+  void shouldRollBackWriteWhichFailed() {
+    //Given
+    when(transactionManager.getTransaction(any())).thenReturn(transaction);
+    ProductWriteTransactions transactions = new ProductWriteTransactions(transactionManager);
+
+    //When
+    assertThrows(ServiceOperationException.class, () -> transactions.execute(() -> {
+      throw new ServiceOperationException("An error while publishing product changes.");
+    }));
+
+    //Then
+    verify(transactionManager).rollback(transaction);
+    verify(transactionManager, never()).commit(transaction);
+  }
+
+  @Test
+  void shouldThrowDatabaseOperationExceptionWhenCommitFails() {
+    //Given
+    when(transactionManager.getTransaction(any())).thenReturn(transaction);
+    doThrow(TransactionSystemException.class).when(transactionManager).commit(transaction);
+    ProductWriteTransactions transactions = new ProductWriteTransactions(transactionManager);
+
+    //Then
+    assertThrows(DatabaseOperationException.class, () -> transactions.execute(() -> "written"));
+  }
+}
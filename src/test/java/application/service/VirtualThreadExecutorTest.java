@@ -0,0 +1,48 @@
+package application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadExecutorTest {
+
+  @Test
+  void shouldRunTasksOnVirtualThreadsAndRejectOverLimit() throws Exception {
+    //given
+    assumeTrue(VirtualThreads.isSupported());
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(1, "test-");
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+
+    //when
+    executor.execute(() -> {
+      try {
+        virtual.complete((Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+        release.await(1, TimeUnit.SECONDS);
+      } catch (Exception e) {
+        virtual.completeExceptionally(e);
+      }
+    });
+
+    //then
+    assertTrue(virtual.get(1, TimeUnit.SECONDS));
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    assertEquals(1, executor.getRejectedTaskCount());
+    release.countDown();
+    executor.shutdown();
+  }
+
+  @Test
+  void shouldThrowExceptionWhenVirtualThreadsAreNotSupported() {
+    assumeFalse(VirtualThreads.isSupported());
+    assertThrows(IllegalStateException.class, () -> new VirtualThreadExecutor(1, "test-"));
+  }
+}